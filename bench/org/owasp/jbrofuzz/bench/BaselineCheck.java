@@ -0,0 +1,240 @@
+/**
+ * JbroFuzz 2.5
+ *
+ * JBroFuzz - A stateless network protocol fuzzer for web applications.
+ * 
+ * Copyright (C) 2007 - 2010 subere@uncon.org
+ *
+ * This file is part of JBroFuzz.
+ * 
+ * JBroFuzz is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * JBroFuzz is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with JBroFuzz.  If not, see <http://www.gnu.org/licenses/>.
+ * Alternatively, write to the Free Software Foundation, Inc., 51 
+ * Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Verbatim copying and distribution of this entire program file is 
+ * permitted in any medium without royalty provided this notice 
+ * is preserved. 
+ * 
+ */
+package org.owasp.jbrofuzz.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * <p>
+ * Compares the JSON results of a JMH run against a baseline of results,
+ * and exits with a non-zero status if any benchmark has regressed by more
+ * than the given tolerance.
+ * </p>
+ * 
+ * <p>
+ * A benchmark only counts as regressed if, on top of being worse by more
+ * than the tolerance, the confidence interval of its score (the score
+ * plus or minus its error, as reported by JMH) lies wholly on the worse
+ * side of that of the baseline. Noisy benchmarks, whose intervals
+ * overlap, are reported but never fail the check.
+ * </p>
+ * 
+ * <p>
+ * Benchmarks are matched by name and parameters; those found in only one
+ * of the two files never count as a regression. A baseline recorded with
+ * other forks, iterations or iteration times than the results is flagged,
+ * as its errors cannot be compared; record it again with the same
+ * bench.args, through ant bench-baseline.
+ * </p>
+ * 
+ * <p>
+ * Run with: ant bench-check -Dbench.args="..." -Dbench.tolerance=25
+ * </p>
+ * 
+ * @version 2.5
+ * @since 2.5
+ */
+public final class BaselineCheck {
+
+	private BaselineCheck() {
+	}
+
+	/**
+	 * <p>
+	 * Usage: BaselineCheck &lt;baseline.json&gt; &lt;results.json&gt;
+	 * [tolerance %]
+	 * </p>
+	 * 
+	 * @param args The baseline, the results and the tolerance, as a
+	 *            percentage
+	 */
+	public static void main(final String[] args) throws IOException,
+			JSONException {
+
+		if (args.length < 2) {
+			System.err.println("Usage: BaselineCheck <baseline.json> <results.json> [tolerance %]");
+			System.exit(2);
+		}
+
+		final File baselineFile = new File(args[0]);
+		if (!baselineFile.exists()) {
+			System.out.println("No baseline found at " + baselineFile
+					+ ", run: ant bench-baseline");
+			return;
+		}
+
+		final Map<String, JSONObject> baseline = read(baselineFile);
+		final Map<String, JSONObject> results = read(new File(args[1]));
+		final double tolerance = args.length > 2 ? Double
+				.parseDouble(args[2]) : 25D;
+
+		int regressions = 0;
+		int mismatched = 0;
+		for (final Map.Entry<String, JSONObject> entry : results.entrySet()) {
+
+			final JSONObject before = baseline.get(entry.getKey());
+			final JSONObject metric = entry.getValue().getJSONObject(
+					"primaryMetric");
+			final double now = metric.getDouble("score");
+
+			if (before == null) {
+				System.out.println(String.format("%-70s %12.3f %s  (new)",
+						entry.getKey(), now, metric.getString("scoreUnit")));
+				continue;
+			}
+
+			final JSONObject baseMetric = before.getJSONObject("primaryMetric");
+			final double then = baseMetric.getDouble("score");
+			final double nowError = getError(metric);
+			final double thenError = getError(baseMetric);
+			// Throughput is better when higher, every other mode when lower
+			final boolean throughput = "thrpt".equals(entry.getValue()
+					.getString("mode"));
+			final double change = throughput ? (then - now) * 100D / then
+					: (now - then) * 100D / then;
+			final boolean separate = throughput ? now + nowError < then
+					- thenError : now - nowError > then + thenError;
+			final boolean regressed = (change > tolerance) && separate;
+			if (regressed) {
+				regressions++;
+			}
+			if (!getSettings(before).equals(getSettings(entry.getValue()))) {
+				mismatched++;
+			}
+
+			System.out.println(String.format(
+					"%-70s %12.3f +-%-10.3f %12.3f +-%-10.3f %s %+7.1f%%%s",
+					entry.getKey(), then, thenError, now, nowError, metric
+							.getString("scoreUnit"), change,
+					regressed ? "  REGRESSION"
+							: change > tolerance ? "  (within error)" : ""));
+		}
+
+		if (mismatched > 0) {
+			System.out.println(mismatched + " benchmark(s) of the baseline were run with other settings"
+					+ " than the results, record it again with: ant bench-baseline");
+		}
+
+		int notRun = 0;
+		for (final String key : baseline.keySet()) {
+			if (!results.containsKey(key)) {
+				notRun++;
+			}
+		}
+		if (notRun > 0) {
+			System.out.println(notRun + " benchmark(s) of the baseline were not run");
+		}
+
+		if (regressions > 0) {
+			System.out.println(regressions
+					+ " benchmark(s) regressed by more than " + tolerance
+					+ "% beyond their error against " + baselineFile);
+			System.exit(1);
+		}
+		System.out.println("No benchmark regressed by more than " + tolerance
+				+ "% beyond its error against " + baselineFile);
+
+	}
+
+	/**
+	 * <p>
+	 * Return the error of a score, or 0 if JMH could not estimate one,
+	 * e.g. from a single iteration.
+	 * </p>
+	 */
+	private static double getError(final JSONObject metric) {
+
+		final double error = metric.optDouble("scoreError", 0D);
+		return Double.isNaN(error) || Double.isInfinite(error) ? 0D : error;
+
+	}
+
+	/**
+	 * <p>
+	 * Return the forks, iterations and iteration times a benchmark was run
+	 * with, which its error depends on.
+	 * </p>
+	 */
+	private static String getSettings(final JSONObject result) {
+
+		return result.optInt("forks") + " " + result.optInt("warmupIterations")
+				+ "x" + result.optString("warmupTime") + " "
+				+ result.optInt("measurementIterations") + "x"
+				+ result.optString("measurementTime");
+
+	}
+
+	/**
+	 * <p>
+	 * Read the results of a JMH run, given in JSON, keyed by the benchmark
+	 * name followed by its parameters.
+	 * </p>
+	 */
+	private static Map<String, JSONObject> read(final File file)
+			throws IOException, JSONException {
+
+		final JSONArray array = new JSONArray(FileUtils.readFileToString(
+				file, "UTF-8"));
+		final Map<String, JSONObject> out = new LinkedHashMap<String, JSONObject>();
+
+		for (int i = 0; i < array.length(); i++) {
+
+			final JSONObject result = array.getJSONObject(i);
+			final StringBuilder key = new StringBuilder(result
+					.getString("benchmark").replace("org.owasp.jbrofuzz.bench.", ""));
+
+			final JSONObject params = result.optJSONObject("params");
+			if (params != null) {
+				key.append(' ');
+				final Iterator<?> names = params.sortedKeys();
+				while (names.hasNext()) {
+					final String name = (String) names.next();
+					key.append(name).append('=').append(params.getString(name));
+					if (names.hasNext()) {
+						key.append(',');
+					}
+				}
+			}
+			out.put(key.toString(), result);
+		}
+		return out;
+
+	}
+
+}
@@ -0,0 +1,118 @@
+/**
+ * JbroFuzz 2.5
+ *
+ * JBroFuzz - A stateless network protocol fuzzer for web applications.
+ * 
+ * Copyright (C) 2007 - 2010 subere@uncon.org
+ *
+ * This file is part of JBroFuzz.
+ * 
+ * JBroFuzz is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * JBroFuzz is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with JBroFuzz.  If not, see <http://www.gnu.org/licenses/>.
+ * Alternatively, write to the Free Software Foundation, Inc., 51 
+ * Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Verbatim copying and distribution of this entire program file is 
+ * permitted in any medium without royalty provided this notice 
+ * is preserved. 
+ * 
+ */
+package org.owasp.jbrofuzz.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.owasp.jbrofuzz.encode.Codec;
+import org.owasp.jbrofuzz.encode.Codecs;
+import org.owasp.jbrofuzz.encode.EncoderHashCore;
+
+/**
+ * <p>
+ * Compares the static methods of the EncoderHashCore with the codecs of the
+ * Codecs registry, for each code.
+ * </p>
+ * 
+ * <p>
+ * Run with: ant bench -Dbench.args="CodecBenchmark"
+ * </p>
+ * 
+ * @version 2.5
+ * @since 2.5
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CodecBenchmark {
+
+	@Param( { "URL UTF-8", "Double URL UTF-16LE", "Base64", "Base32",
+			"Z-Base32", "MD5 Hash", "SHA-1 Hash", "SHA-512 Hash",
+			"Hexadecimal (UPP)", "Binary", "www-form-urlencoded",
+			"Escape: HTML", "UUencode" })
+	public String code;
+
+	@Param( { "<script>alert(document.cookie)</script>" })
+	public String payload;
+
+	private int index;
+
+	private Codec codec;
+
+	private StringBuilder buffer;
+
+	@Setup
+	public void setUp() {
+
+		index = EncoderHashCore.indexOfCode(code);
+		codec = Codecs.get(code);
+		buffer = new StringBuilder(1024);
+
+	}
+
+	@Benchmark
+	public String staticByName() {
+
+		return EncoderHashCore.encode(payload, code);
+
+	}
+
+	@Benchmark
+	public String staticByIndex() {
+
+		return EncoderHashCore.encode(payload, index);
+
+	}
+
+	@Benchmark
+	public String codec() {
+
+		return codec.encode(payload);
+
+	}
+
+	@Benchmark
+	public int codecIntoBuffer() {
+
+		buffer.setLength(0);
+		codec.encode(payload, buffer);
+		return buffer.length();
+
+	}
+
+}
@@ -0,0 +1,146 @@
+/**
+ * JbroFuzz 2.5
+ *
+ * JBroFuzz - A stateless network protocol fuzzer for web applications.
+ * 
+ * Copyright (C) 2007 - 2010 subere@uncon.org
+ *
+ * This file is part of JBroFuzz.
+ * 
+ * JBroFuzz is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * JBroFuzz is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with JBroFuzz.  If not, see <http://www.gnu.org/licenses/>.
+ * Alternatively, write to the Free Software Foundation, Inc., 51 
+ * Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Verbatim copying and distribution of this entire program file is 
+ * permitted in any medium without royalty provided this notice 
+ * is preserved. 
+ * 
+ */
+package org.owasp.jbrofuzz.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.owasp.jbrofuzz.core.CrossProductFuzzer;
+import org.owasp.jbrofuzz.core.Database;
+import org.owasp.jbrofuzz.core.DoubleFuzzer;
+import org.owasp.jbrofuzz.core.Fuzzer;
+import org.owasp.jbrofuzz.core.FuzzerBigInteger;
+import org.owasp.jbrofuzz.core.NoSuchFuzzerException;
+
+/**
+ * <p>
+ * Measures the cost of generating a single payload, for each of the
+ * generators of the core package that are backed by a prototype.
+ * </p>
+ * 
+ * <p>
+ * The replacive and recursive prototypes are taken from the fuzzers.jbrf
+ * file on the classpath. A generator that runs out of payloads is started
+ * over, so that every invocation returns a payload.
+ * </p>
+ * 
+ * @see MACAddrFuzzerBenchmark
+ * 
+ * <p>
+ * Run with: ant bench -Dbench.args="FuzzerBenchmark"
+ * </p>
+ * 
+ * @version 2.5
+ * @since 2.5
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FuzzerBenchmark {
+
+	/**
+	 * <p>SQL Injection, a replacive prototype and Base16 (HEX), a recursive
+	 * one.</p>
+	 */
+	@Param( { "004-SQL-INJ", "031-B16-HEX" })
+	public String id;
+
+	@Param( { "4" })
+	public int length;
+
+	private Database database;
+
+	private Fuzzer fuzzer;
+
+	private FuzzerBigInteger bigFuzzer;
+
+	private DoubleFuzzer doubleFuzzer;
+
+	private CrossProductFuzzer crossFuzzer;
+
+	@Setup
+	public void setUp() throws NoSuchFuzzerException {
+
+		database = new Database();
+		fuzzer = database.createFuzzer(id, length);
+		bigFuzzer = database.createFuzzerBigInteger(id, length);
+		doubleFuzzer = database.createDoubleFuzzer(id, length, id, length);
+		crossFuzzer = database.createCrossFuzzer(id, length, id, length);
+
+	}
+
+	@Benchmark
+	public String fuzzer() {
+
+		if (!fuzzer.hasNext()) {
+			fuzzer.resetCurrentValue();
+		}
+		return fuzzer.next();
+
+	}
+
+	@Benchmark
+	public String fuzzerBigInteger() throws NoSuchFuzzerException {
+
+		if (!bigFuzzer.hasNext()) {
+			bigFuzzer = database.createFuzzerBigInteger(id, length);
+		}
+		return bigFuzzer.next();
+
+	}
+
+	@Benchmark
+	public String[] doubleFuzzer() throws NoSuchFuzzerException {
+
+		if (!doubleFuzzer.hasNext()) {
+			doubleFuzzer = database.createDoubleFuzzer(id, length, id, length);
+		}
+		return doubleFuzzer.next();
+
+	}
+
+	@Benchmark
+	public String[] crossProductFuzzer() throws NoSuchFuzzerException {
+
+		if (!crossFuzzer.hasNext()) {
+			crossFuzzer = database.createCrossFuzzer(id, length, id, length);
+		}
+		return crossFuzzer.next();
+
+	}
+
+}
@@ -0,0 +1,121 @@
+/**
+ * JbroFuzz 2.5
+ *
+ * JBroFuzz - A stateless network protocol fuzzer for web applications.
+ * 
+ * Copyright (C) 2007 - 2010 subere@uncon.org
+ *
+ * This file is part of JBroFuzz.
+ * 
+ * JBroFuzz is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * JBroFuzz is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with JBroFuzz.  If not, see <http://www.gnu.org/licenses/>.
+ * Alternatively, write to the Free Software Foundation, Inc., 51 
+ * Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Verbatim copying and distribution of this entire program file is 
+ * permitted in any medium without royalty provided this notice 
+ * is preserved. 
+ * 
+ */
+package org.owasp.jbrofuzz.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.owasp.jbrofuzz.JBroFuzz;
+import org.owasp.jbrofuzz.fuzz.MessageCreator;
+import org.owasp.jbrofuzz.fuzz.RunConfiguration;
+import org.owasp.jbrofuzz.version.JBroFuzzPrefs;
+
+/**
+ * <p>
+ * Measures the cost of building the request on the wire, with the payload
+ * placed within the message and the Content-Length and Connection headers
+ * rewritten.
+ * </p>
+ * 
+ * <p>
+ * The run configuration is fixed, rather than read from the preferences of
+ * the user running the benchmark, so that results can be compared.
+ * </p>
+ * 
+ * <p>
+ * Run with: ant bench -Dbench.args="MessageCreatorBenchmark"
+ * </p>
+ * 
+ * @version 2.5
+ * @since 2.5
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MessageCreatorBenchmark {
+
+	private static final String URL = "http://localhost:8080";
+
+	private static final String MESSAGE = "POST /index.jsp HTTP/1.1\n"
+			+ "Host: localhost\n"
+			+ "User-Agent: Mozilla/5.0 (Windows; U; Windows NT 5.1)\n"
+			+ "Accept: text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8\n"
+			+ "Accept-Language: en-gb,en;q=0.5\n"
+			+ "Content-Type: application/x-www-form-urlencoded\n"
+			+ "Content-Length: 13\n" + "\n" + "q=FUZZ&page=1\n";
+
+	@Param( { "<script>alert(document.cookie)</script>" })
+	public String payload;
+
+	private int start;
+
+	private int finish;
+
+	private RunConfiguration configuration;
+
+	@Setup
+	public void setUp() {
+
+		start = MESSAGE.indexOf("FUZZ");
+		finish = start + 4;
+
+		final String[] lines = {
+				JBroFuzzPrefs.FUZZING[1].getId() + "=true",
+				JBroFuzzPrefs.FUZZING[4].getId() + "=false",
+				JBroFuzzPrefs.FUZZING[5].getId() + "=true" };
+		configuration = RunConfiguration.parse(lines, RunConfiguration
+				.fromPreferences(JBroFuzz.PREFS));
+
+	}
+
+	@Benchmark
+	public String payloadInMessage() {
+
+		return new MessageCreator(URL, MESSAGE, payload, start, finish,
+				configuration).getMessage();
+
+	}
+
+	@Benchmark
+	public String messageOnly() {
+
+		return new MessageCreator(URL, MESSAGE, payload, configuration)
+				.getMessage();
+
+	}
+
+}
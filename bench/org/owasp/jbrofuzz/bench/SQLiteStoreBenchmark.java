@@ -0,0 +1,125 @@
+/**
+ * JbroFuzz 2.5
+ *
+ * JBroFuzz - A stateless network protocol fuzzer for web applications.
+ * 
+ * Copyright (C) 2007 - 2010 subere@uncon.org
+ *
+ * This file is part of JBroFuzz.
+ * 
+ * JBroFuzz is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * JBroFuzz is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with JBroFuzz.  If not, see <http://www.gnu.org/licenses/>.
+ * Alternatively, write to the Free Software Foundation, Inc., 51 
+ * Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Verbatim copying and distribution of this entire program file is 
+ * permitted in any medium without royalty provided this notice 
+ * is preserved. 
+ * 
+ */
+package org.owasp.jbrofuzz.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.owasp.jbrofuzz.db.SQLiteHandler;
+import org.owasp.jbrofuzz.fuzz.MessageContainer;
+
+/**
+ * <p>
+ * Measures the cost of storing a single result in an SQLite database, the
+ * way the DBAdaptor does: open a connection and store the message, which
+ * also closes the connection.
+ * </p>
+ * 
+ * <p>
+ * The database is created afresh in the temporary directory for every
+ * iteration, so that the iterations do not slow down as it grows.
+ * </p>
+ * 
+ * <p>
+ * Run with: ant bench -Dbench.args="SQLiteStoreBenchmark"
+ * </p>
+ * 
+ * @version 2.5
+ * @since 2.5
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SQLiteStoreBenchmark {
+
+	private static final String REPLY = "HTTP/1.1 200 OK\n"
+			+ "Content-Type: text/html\n" + "Content-Length: 44\n" + "\n"
+			+ "<html><body>q=&lt;script&gt;</body></html>\n";
+
+	private SQLiteHandler handler;
+
+	private MessageContainer message;
+
+	private String dbName;
+
+	private int count;
+
+	@Setup(Level.Iteration)
+	public void setUp() throws IOException, SQLException {
+
+		final File db = File.createTempFile("jbrofuzz-bench", ".db");
+		dbName = db.getAbsolutePath().substring(0,
+				db.getAbsolutePath().length() - 3);
+
+		handler = new SQLiteHandler();
+		final Connection conn = handler.getConnection(dbName);
+		final Statement stat = conn.createStatement();
+		stat.executeUpdate("create table session (sessionId, timestamp, jVersion, Os, url);");
+		stat.executeUpdate("create table message (messageId, sessionId, fileName, textRequest, payload, reply, start, end, status);");
+		conn.close();
+
+		message = new MessageContainer("0", "http://localhost:8080",
+				"<script>", "%3Cscript%3E");
+		message.setTextRequest("GET /index.jsp?q=%3Cscript%3E HTTP/1.1\r\n"
+				+ "Host: localhost\r\n\r\n");
+		message.setReply(REPLY);
+		message.setStatus("200");
+
+	}
+
+	@TearDown(Level.Iteration)
+	public void tearDown() {
+
+		new File(dbName + ".db").delete();
+
+	}
+
+	@Benchmark
+	public int store() {
+
+		message.setFileName(Integer.toString(count++));
+		return handler.store(message, handler.getConnection(dbName), "1");
+
+	}
+
+}
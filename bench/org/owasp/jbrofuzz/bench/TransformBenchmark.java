@@ -0,0 +1,104 @@
+/**
+ * JbroFuzz 2.5
+ *
+ * JBroFuzz - A stateless network protocol fuzzer for web applications.
+ * 
+ * Copyright (C) 2007 - 2010 subere@uncon.org
+ *
+ * This file is part of JBroFuzz.
+ * 
+ * JBroFuzz is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * JBroFuzz is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with JBroFuzz.  If not, see <http://www.gnu.org/licenses/>.
+ * Alternatively, write to the Free Software Foundation, Inc., 51 
+ * Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Verbatim copying and distribution of this entire program file is 
+ * permitted in any medium without royalty provided this notice 
+ * is preserved. 
+ * 
+ */
+package org.owasp.jbrofuzz.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.owasp.jbrofuzz.encode.EncoderHashCore;
+import org.owasp.jbrofuzz.encode.TransformChain;
+import org.owasp.jbrofuzz.fuzz.ui.TransformsTableModel;
+
+/**
+ * <p>
+ * Compares EncoderHashCore.encodeMany, which compiles the transforms on
+ * every call, with a TransformChain compiled once, for each code.
+ * </p>
+ * 
+ * <p>
+ * Each chain holds the code under test, followed by a URL encoding with a
+ * prefix and a suffix, as a fuzzing panel would typically carry.
+ * </p>
+ * 
+ * <p>
+ * Run with: ant bench -Dbench.args="TransformBenchmark"
+ * </p>
+ * 
+ * @version 2.5
+ * @since 2.5
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TransformBenchmark {
+
+	@Param( { "URL UTF-8", "Base64", "MD5 Hash", "SHA-512 Hash",
+			"Hexadecimal (UPP)", "Escape: HTML" })
+	public String code;
+
+	@Param( { "<script>alert(document.cookie)</script>" })
+	public String payload;
+
+	private TransformsTableModel model;
+
+	private TransformChain chain;
+
+	@Setup
+	public void setUp() {
+
+		model = new TransformsTableModel();
+		model.addRow(code, "", "");
+		model.addRow("URL UTF-8", "q=", "&submit=1");
+		chain = TransformChain.compile(model);
+
+	}
+
+	@Benchmark
+	public String encodeMany() {
+
+		return EncoderHashCore.encodeMany(payload, model);
+
+	}
+
+	@Benchmark
+	public String compiledChain() {
+
+		return chain.apply(payload);
+
+	}
+
+}
@@ -0,0 +1,93 @@
+/**
+ * JbroFuzz 2.5
+ *
+ * JBroFuzz - A stateless network protocol fuzzer for web applications.
+ * 
+ * Copyright (C) 2007 - 2010 subere@uncon.org
+ *
+ * This file is part of JBroFuzz.
+ * 
+ * JBroFuzz is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * JBroFuzz is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with JBroFuzz.  If not, see <http://www.gnu.org/licenses/>.
+ * Alternatively, write to the Free Software Foundation, Inc., 51 
+ * Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Verbatim copying and distribution of this entire program file is 
+ * permitted in any medium without royalty provided this notice 
+ * is preserved. 
+ * 
+ */
+package org.owasp.jbrofuzz.bench;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.owasp.jbrofuzz.core.Prototype;
+import org.owasp.jbrofuzz.core.Verifier;
+
+/**
+ * <p>
+ * Measures the cost of loading the fuzzers.jbrf file, from the classpath
+ * as at start-up and from a file location as through the preferences.
+ * </p>
+ * 
+ * <p>
+ * The file location is given by the system property "bench.jbrf", set to
+ * tar/fuzzers.jbrf by the bench target.
+ * </p>
+ * 
+ * <p>
+ * Run with: ant bench -Dbench.args="VerifierBenchmark"
+ * </p>
+ * 
+ * @version 2.5
+ * @since 2.5
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class VerifierBenchmark {
+
+	private String path;
+
+	@Setup
+	public void setUp() {
+
+		path = new File(System.getProperty("bench.jbrf", "tar/fuzzers.jbrf"))
+				.getAbsolutePath();
+
+	}
+
+	@Benchmark
+	public Map<String, Prototype> loadFile() {
+
+		return Verifier.loadFile("fuzzers.jbrf");
+
+	}
+
+	@Benchmark
+	public Map<String, Prototype> loadAnyFile() {
+
+		return Verifier.loadAnyFile(path);
+
+	}
+
+}
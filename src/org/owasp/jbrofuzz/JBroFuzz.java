@@ -29,14 +29,20 @@
  */
 package org.owasp.jbrofuzz;
 
+import java.io.File;
 import java.util.prefs.Preferences;
 
 import org.owasp.jbrofuzz.core.Database;
+import org.owasp.jbrofuzz.encode.EncodedPayloadCache;
+import org.owasp.jbrofuzz.fuzz.RunConfiguration;
+import org.owasp.jbrofuzz.fuzz.Scheduler;
+import org.owasp.jbrofuzz.fuzz.stats.EngineMetrics;
 import org.owasp.jbrofuzz.io.CommandLineInterpreter;
 import org.owasp.jbrofuzz.io.StorageHandler;
 import org.owasp.jbrofuzz.io.StorageInterface;
 import org.owasp.jbrofuzz.ui.JBroFuzzWindow;
 import org.owasp.jbrofuzz.version.JBroFuzzFormat;
+import org.owasp.jbrofuzz.version.JBroFuzzPrefs;
 
 /**
  * <p>
@@ -64,6 +70,12 @@ public class JBroFuzz {
 	private final JBroFuzzWindow mWindow;
 
 	private Database mDatabase;
+
+	private final EncodedPayloadCache mCache;
+
+	private final EngineMetrics mMetrics;
+
+	private final Scheduler mScheduler;
 	
 
 	public static final Preferences PREFS = Preferences.userRoot().node("owasp/jbrofuzz");
@@ -107,6 +119,13 @@ public class JBroFuzz {
 	public JBroFuzz() {
 
 		mDatabase = new Database();
+		mDatabase.addWordlists(PREFS.get(JBroFuzzPrefs.DIRS[4].getId(), ""));
+		mCache = createEncodedPayloadCache();
+		mMetrics = new EngineMetrics();
+		mMetrics.register();
+		mScheduler = new Scheduler(PREFS.getInt(
+				JBroFuzzPrefs.FUZZINGENGINE[10].getId(), 64), PREFS.getInt(
+				JBroFuzzPrefs.FUZZINGENGINE[11].getId(), 32));
 		mHandler = new StorageHandler();
 
 		mFormat = new JBroFuzzFormat();
@@ -141,6 +160,94 @@ public class JBroFuzz {
 	public void setDatabase(final Database db) {
 		
 		mDatabase = db;
+		// Payload indices now refer to different payloads
+		mCache.clear();
+		
+	}
+
+	/**
+	 * <p>
+	 * Return the cache of encoded payloads, shared by all fuzzing runs of
+	 * this instance.
+	 * </p>
+	 * 
+	 * @return The encoded payload cache
+	 * 
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	public EncodedPayloadCache getEncodedPayloadCache() {
+		
+		return mCache;
+		
+	}
+
+	/**
+	 * <p>
+	 * Return the metrics of the fuzzing engine, also registered with JMX
+	 * under EngineMetrics.OBJECT_NAME.
+	 * </p>
+	 * 
+	 * @return The engine metrics
+	 * 
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	public EngineMetrics getMetrics() {
+		
+		return mMetrics;
+		
+	}
+
+	/**
+	 * <p>
+	 * Return the scheduler sharing connections between the fuzzing panels
+	 * running at the same time.
+	 * </p>
+	 * 
+	 * @return The scheduler
+	 * 
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	public Scheduler getScheduler() {
+		
+		return mScheduler;
+		
+	}
+
+	/**
+	 * <p>
+	 * Spill the encoded payload cache to disk, or not, as the given run is
+	 * set to; called as a run starts, so that a change of the setting under
+	 * Preferences takes effect with the next run.
+	 * </p>
+	 * 
+	 * @param configuration The configuration of the run starting
+	 * 
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	public void configureEncodedPayloadCache(
+			final RunConfiguration configuration) {
+		
+		mCache.setSpillDirectory(getSpillDirectory(configuration
+				.isSpillCache()));
+		
+	}
+
+	private static EncodedPayloadCache createEncodedPayloadCache() {
+		
+		return new EncodedPayloadCache(EncodedPayloadCache.DEFAULT_MAX_CHARS,
+				getSpillDirectory(PREFS.getBoolean(
+						JBroFuzzPrefs.FUZZING[6].getId(), true)));
+		
+	}
+
+	private static File getSpillDirectory(final boolean spill) {
+		
+		return spill ? new File(System.getProperty("java.io.tmpdir"),
+				"jbrofuzz-cache") : null;
 		
 	}
 
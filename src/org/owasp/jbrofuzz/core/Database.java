@@ -29,6 +29,9 @@
  */
 package org.owasp.jbrofuzz.core;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -66,6 +69,14 @@ public class Database {
 
 	private final static String ZERO_FUZZER_CATEGORY = "Zero Fuzzers";
 
+	private final static String WORDLIST_CATEGORY = "Wordlists";
+
+	/**
+	 * <p>The number of payloads of a wordlist returned by 
+	 * {@link #getPayloads(String)}, to be shown.</p>
+	 */
+	public final static int WORDLIST_PREVIEW = 1000;
+
 	/**
 	 * <p>Constructs a database of fuzzers, by loading
 	 * the corresponding prototypes from file
@@ -122,12 +133,13 @@ public class Database {
 		
 		Logger.log("Adding 5 Zero Fuzzers to the fuzzing Database", 0);
 
-		// Add the Zero Fuzzers
-		final Prototype pt0 = new Prototype('Z', "000-ZER-10K", "10000 Plain Requests");
-		final Prototype pt1 = new Prototype('Z', "000-ZER-1KI", "1000 Plain Requests");
-		final Prototype pt2 = new Prototype('Z', "000-ZER-100", "100 Plain Requests");
-		final Prototype pt3 = new Prototype('Z', "000-ZER-TEN", "10 Plain Requests");
-		final Prototype pt4 = new Prototype('Z', "000-ZER-ONE", "1 Plain Request");
+		// Add the Zero Fuzzers, their empty payloads stored once
+		final PayloadArena arena = new PayloadArena();
+		final Prototype pt0 = new Prototype('Z', "000-ZER-10K", "10000 Plain Requests", arena);
+		final Prototype pt1 = new Prototype('Z', "000-ZER-1KI", "1000 Plain Requests", arena);
+		final Prototype pt2 = new Prototype('Z', "000-ZER-100", "100 Plain Requests", arena);
+		final Prototype pt3 = new Prototype('Z', "000-ZER-TEN", "10 Plain Requests", arena);
+		final Prototype pt4 = new Prototype('Z', "000-ZER-ONE", "1 Plain Request", arena);
 
 		pt0.addCategory(ZERO_FUZZER_CATEGORY);
 		pt1.addCategory(ZERO_FUZZER_CATEGORY);
@@ -152,6 +164,12 @@ public class Database {
 				pt4.addPayload("");
 			}
 		}
+		pt0.trim();
+		pt1.trim();
+		pt2.trim();
+		pt3.trim();
+		pt4.trim();
+		arena.freeze();
 
 		prototypes.put("000-ZER-10K", pt0);
 		prototypes.put("000-ZER-1KI", pt1);
@@ -160,6 +178,83 @@ public class Database {
 		prototypes.put("000-ZER-ONE", pt4);
 	}
 
+	/**
+	 * <p>Add a wordlist file to the database, as a Replacive fuzzer 
+	 * of one payload per line, read in place rather than loaded.</p>
+	 * 
+	 * <p>The id, e.g. "417-WRD-3KF", is derived from the absolute path 
+	 * of the file, so that the same file gets the same id in each 
+	 * database, e.g. when a session refers to it; adding the same 
+	 * file again replaces it.</p>
+	 * 
+	 * @param file The text file, one payload per line
+	 * @return String the id of the fuzzer
+	 * @throws IOException if the file cannot be read
+	 * 
+	 * @see Wordlist
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	public String addWordlist(final File file) throws IOException {
+
+		final Wordlist wordlist = new Wordlist(file);
+		final String path = file.getAbsolutePath();
+
+		int hash = path.hashCode() & Integer.MAX_VALUE;
+		String id;
+		while (true) {
+			id = StringUtils.leftPad(Integer.toString(hash % 1000), 3, '0')
+			+ "-WRD-"
+			+ StringUtils.leftPad(Integer.toString(hash / 1000 % 46656, 36), 3, '0').toUpperCase();
+			final Prototype existing = prototypes.get(id);
+			if (existing == null || !(existing.getPayloads() instanceof Wordlist)
+					|| path.equals(((Wordlist) existing.getPayloads()).getFile().getAbsolutePath())) {
+				break;
+			}
+			hash = (hash + 1) & Integer.MAX_VALUE;
+		}
+
+		// Names are looked up, keep them unique
+		String name = file.getName();
+		final String other = getIdFromName(name);
+		if (other.length() > 0 && !other.equals(id)) {
+			name = path;
+		}
+
+		final Prototype prototype = new Prototype('P', id, name,
+				new ArrayList<String>(), wordlist);
+		prototype.addCategory(WORDLIST_CATEGORY);
+		prototypes.put(id, prototype);
+		Logger.log("Wordlist " + path + " added as " + id, 0);
+		return id;
+
+	}
+
+	/**
+	 * <p>Add each of the wordlist files given, logging those that 
+	 * cannot be read.</p>
+	 * 
+	 * @param paths The file paths, separated by File.pathSeparator
+	 * 
+	 * @see #addWordlist(File)
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	public void addWordlists(final String paths) {
+
+		for (final String path : StringUtils.split(paths, File.pathSeparator)) {
+			if (path.trim().length() == 0) {
+				continue;
+			}
+			try {
+				addWordlist(new File(path.trim()));
+			} catch (final IOException e) {
+				Logger.log("Cannot read the wordlist " + path + ": " + e.getMessage(), 2);
+			}
+		}
+
+	}
+
 	/**
 	 * <p>
 	 * Checks if the {@link #Database()} contains a Prototype with the given id
@@ -458,6 +553,9 @@ public class Database {
 	 * Returns the array of payloads attached to a given prototype Id.
 	 * </p>
 	 * 
+	 * <p>For a wordlist, only the first {@link #WORDLIST_PREVIEW} 
+	 * payloads are returned.</p>
+	 * 
 	 * @param uniqId
 	 *            e.g. "001-HTT-MTH"
 	 * @return String[] or String[0] if the prototype does not exist in the
@@ -473,8 +571,12 @@ public class Database {
 
 		if (containsPrototype(uniqId)) {
 			final Prototype cPrototype = prototypes.get(uniqId);
-			final String[] output = new String[cPrototype.size()];
-			return cPrototype.getPayloads().toArray(output);
+			List<String> payloads = cPrototype.getPayloads();
+			if (payloads instanceof Wordlist) {
+				payloads = payloads.subList(0, Math.min(WORDLIST_PREVIEW, payloads.size()));
+			}
+			final String[] output = new String[payloads.size()];
+			return payloads.toArray(output);
 		} else {
 			return new String[0];
 		}
@@ -154,6 +154,23 @@ public class Fuzzer implements Iterator<String> {
 		
 	}
 
+	/**
+	 * <p>Moves the current value to the given one, so that the next payload
+	 * returned is the one at that position; e.g. to send again only the
+	 * payloads of a run that failed.</p>
+	 * 
+	 * @param value the position of the next payload, from 0 to the
+	 *              maximum value
+	 * 
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	public void setCurrentValue(final long value) {
+		
+		cValue = Math.max(0L, Math.min(value, maxValue));
+		
+	}
+
 	/**
 	 * <p>Returns the Fuzzer unique ID, in the format of, say, '024-XSS-101'.</p>
 	 * 
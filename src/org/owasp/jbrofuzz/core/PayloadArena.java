@@ -0,0 +1,392 @@
+/**
+ * JbroFuzz 2.5
+ *
+ * JBroFuzz - A stateless network protocol fuzzer for web applications.
+ * 
+ * Copyright (C) 2007 - 2010 subere@uncon.org
+ *
+ * This file is part of JBroFuzz.
+ * 
+ * JBroFuzz is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * JBroFuzz is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with JBroFuzz.  If not, see <http://www.gnu.org/licenses/>.
+ * Alternatively, write to the Free Software Foundation, Inc., 51 
+ * Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Verbatim copying and distribution of this entire program file is 
+ * permitted in any medium without royalty provided this notice 
+ * is preserved. 
+ * 
+ */
+package org.owasp.jbrofuzz.core;
+
+import java.nio.charset.Charset;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.RandomAccess;
+
+/**
+ * <p>
+ * A payload arena holds the payloads of the prototypes loaded from one
+ * file, each stored once however many prototypes carry it, as bytes in a
+ * single array rather than as a String each.
+ * </p>
+ * 
+ * <p>
+ * A payload of characters up to U+00FF takes a byte per character
+ * (ISO-8859-1), any other payload two (UTF-16), so that every payload is
+ * read back as it was added. Identical payloads are found through an open
+ * addressing table of entries; a prototype keeps only the entries of its
+ * payloads, in a {@link Payloads} list, and a String is created when a
+ * payload is asked for, i.e. when it is about to be sent.
+ * </p>
+ * 
+ * <p>
+ * A payload such as 'f(x)=A x 65536' is stored as such and only expanded
+ * when asked for.
+ * </p>
+ * 
+ * <p>
+ * Payloads are added under the lock of the arena. Once a file has been
+ * loaded, the arena is frozen: nothing more can be added, and payloads
+ * are read without locking, by any number of threads.
+ * </p>
+ * 
+ * @see Prototype
+ * @version 2.5
+ * @since 2.5
+ */
+final class PayloadArena {
+
+	private static final Charset LATIN1 = Charset.forName("ISO-8859-1");
+
+	private byte[] bytes = new byte[1024];
+
+	private int used;
+
+	// Entry n takes bytes starts[n] to starts[n + 1]
+	private int[] starts = new int[64];
+
+	private int count;
+
+	// Entries of two bytes per character
+	private final BitSet wide = new BitSet();
+
+	// Entries to be expanded, e.g. 'f(x)=A x 100'
+	private final BitSet formulas = new BitSet();
+
+	// Entry + 1 for each payload, 0 for a free slot; null once frozen
+	private int[] table = new int[128];
+
+	// Written last, so that reading it publishes the arrays above
+	private volatile boolean frozen;
+
+	/**
+	 * <p>
+	 * Return a new, empty list of payloads stored in this arena.
+	 * </p>
+	 * 
+	 * @return Payloads the list
+	 */
+	Payloads createList() {
+		return new Payloads(this);
+	}
+
+	/**
+	 * <p>
+	 * Return the number of distinct payloads stored.
+	 * </p>
+	 * 
+	 * @return int the number of entries
+	 */
+	synchronized int size() {
+		return count;
+	}
+
+	/**
+	 * <p>
+	 * Stop adding payloads, e.g. once a file has been loaded, releasing
+	 * the space reserved for more; from then on payloads are read without
+	 * locking.
+	 * </p>
+	 */
+	synchronized void freeze() {
+
+		if (frozen) {
+			return;
+		}
+		final byte[] trimmedBytes = new byte[used];
+		System.arraycopy(bytes, 0, trimmedBytes, 0, used);
+		bytes = trimmedBytes;
+		final int[] trimmedStarts = new int[count + 1];
+		System.arraycopy(starts, 0, trimmedStarts, 0, count + 1);
+		starts = trimmedStarts;
+		table = null;
+		frozen = true;
+
+	}
+
+	/**
+	 * <p>
+	 * Return the entry of the given payload, storing it if it is not
+	 * already.
+	 * </p>
+	 * 
+	 * @param payload The payload
+	 * @param formula true for a payload to be expanded when asked for,
+	 *            e.g. 'f(x)=A x 100'
+	 * @return int the entry
+	 * @throws IllegalStateException if the arena has been frozen
+	 */
+	synchronized int add(final String payload, final boolean formula) {
+
+		if (frozen) {
+			throw new IllegalStateException("No payloads can be added once loaded");
+		}
+
+		final int mask = table.length - 1;
+		int slot = mix(payload.hashCode()) & mask;
+		while (table[slot] != 0) {
+			if (formulas.get(table[slot] - 1) == formula
+					&& matches(table[slot] - 1, payload)) {
+				return table[slot] - 1;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		boolean isWide = false;
+		for (int i = 0; i < payload.length() && !isWide; i++) {
+			isWide = payload.charAt(i) > '\u00FF';
+		}
+		final int length = isWide ? payload.length() * 2 : payload.length();
+		if (used + length > bytes.length) {
+			final byte[] grown = new byte[Math.max(bytes.length * 2, used + length)];
+			System.arraycopy(bytes, 0, grown, 0, used);
+			bytes = grown;
+		}
+		if (count + 2 > starts.length) {
+			final int[] grown = new int[starts.length * 2];
+			System.arraycopy(starts, 0, grown, 0, count + 1);
+			starts = grown;
+		}
+
+		for (int i = 0; i < payload.length(); i++) {
+			final char c = payload.charAt(i);
+			if (isWide) {
+				bytes[used++] = (byte) (c >> 8);
+			}
+			bytes[used++] = (byte) c;
+		}
+		wide.set(count, isWide);
+		formulas.set(count, formula);
+		table[slot] = ++count;
+		starts[count] = used;
+
+		// Keep the table at most half full
+		if (count * 2 > table.length) {
+			rehash();
+		}
+		return count - 1;
+
+	}
+
+	/**
+	 * <p>
+	 * Return the payload of the given entry, expanded if a formula.
+	 * </p>
+	 * 
+	 * @param entry The entry
+	 * @return String the payload
+	 */
+	String get(final int entry) {
+
+		if (frozen) {
+			return read(entry);
+		}
+		synchronized (this) {
+			return read(entry);
+		}
+
+	}
+
+	private String read(final int entry) {
+
+		final int start = starts[entry];
+		final int length = starts[entry + 1] - start;
+		final String payload;
+		if (!wide.get(entry)) {
+			payload = new String(bytes, start, length, LATIN1);
+		} else {
+			final char[] chars = new char[length / 2];
+			for (int i = 0; i < chars.length; i++) {
+				chars[i] = (char) ((bytes[start + 2 * i] & 0xFF) << 8 | (bytes[start + 2 * i + 1] & 0xFF));
+			}
+			payload = new String(chars);
+		}
+		return formulas.get(entry) ? Prototype.calculatePayload(payload) : payload;
+
+	}
+
+	private char charAt(final int entry, final int index) {
+
+		if (!wide.get(entry)) {
+			return (char) (bytes[starts[entry] + index] & 0xFF);
+		}
+		final int position = starts[entry] + 2 * index;
+		return (char) ((bytes[position] & 0xFF) << 8 | (bytes[position + 1] & 0xFF));
+
+	}
+
+	private int length(final int entry) {
+
+		final int length = starts[entry + 1] - starts[entry];
+		return wide.get(entry) ? length / 2 : length;
+
+	}
+
+	private boolean matches(final int entry, final String payload) {
+
+		if (length(entry) != payload.length()) {
+			return false;
+		}
+		for (int i = 0; i < payload.length(); i++) {
+			if (charAt(entry, i) != payload.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+
+	}
+
+	private void rehash() {
+
+		final int[] rehashed = new int[table.length * 2];
+		final int mask = rehashed.length - 1;
+		for (int entry = 0; entry < count; entry++) {
+			// The same hash as String.hashCode()
+			int hash = 0;
+			final int length = length(entry);
+			for (int i = 0; i < length; i++) {
+				hash = 31 * hash + charAt(entry, i);
+			}
+			int slot = mix(hash) & mask;
+			while (rehashed[slot] != 0) {
+				slot = (slot + 1) & mask;
+			}
+			rehashed[slot] = entry + 1;
+		}
+		table = rehashed;
+
+	}
+
+	private static int mix(final int hash) {
+		final int h = hash * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * <p>
+	 * The payloads of a prototype, as entries of an arena; while they are
+	 * all the same, e.g. for a zero fuzzer, only the one entry is kept.
+	 * </p>
+	 */
+	static final class Payloads extends AbstractList<String> implements
+			RandomAccess {
+
+		private final PayloadArena arena;
+
+		// Null while every payload is the same
+		private int[] entries;
+
+		private int same;
+
+		private int size;
+
+		private Payloads(final PayloadArena arena) {
+			this.arena = arena;
+		}
+
+		@Override
+		public boolean add(final String payload) {
+
+			add(arena.add(payload, false));
+			return true;
+
+		}
+
+		/**
+		 * <p>
+		 * Add a payload to be expanded when asked for, e.g. 'f(x)=A x 100'.
+		 * </p>
+		 * 
+		 * @param formula The payload, as read
+		 */
+		void addFormula(final String formula) {
+
+			add(arena.add(formula, true));
+
+		}
+
+		private void add(final int entry) {
+
+			modCount++;
+			if (entries == null) {
+				if (size == 0 || entry == same) {
+					same = entry;
+					size++;
+					return;
+				}
+				entries = new int[size + Math.max(8, size >> 1)];
+				Arrays.fill(entries, 0, size, same);
+			} else if (size == entries.length) {
+				final int[] grown = new int[size + Math.max(8, size >> 1)];
+				System.arraycopy(entries, 0, grown, 0, size);
+				entries = grown;
+			}
+			entries[size++] = entry;
+
+		}
+
+		@Override
+		public String get(final int index) {
+
+			if (index < 0 || index >= size) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+			}
+			return arena.get(entries == null ? same : entries[index]);
+
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		/**
+		 * <p>
+		 * Release the space reserved for entries yet to be added.
+		 * </p>
+		 */
+		void trim() {
+
+			if (entries != null && size < entries.length) {
+				final int[] trimmed = new int[size];
+				System.arraycopy(entries, 0, trimmed, 0, size);
+				entries = trimmed;
+			}
+
+		}
+
+	}
+
+}
@@ -46,6 +46,12 @@ import org.owasp.jbrofuzz.io.StorageInterface;
  * categories, under a unique id value, given a name.
  * </p>
  * 
+ * <p>
+ * The payloads are kept in a {@link PayloadArena}, shared by the prototypes
+ * loaded from the same file, and a String is only created when a payload is
+ * asked for.
+ * </p>
+ * 
  * @author subere@uncon.org
  * @version 2.0
  * @since 1.2
@@ -53,8 +59,9 @@ import org.owasp.jbrofuzz.io.StorageInterface;
 public class Prototype {
 
 	/**
-	 * <p>Private method for calculating the expansion
-	 * of a payload.</p>
+	 * <p>Method for calculating the expansion
+	 * of a payload; the payloads of a prototype are 
+	 * expanded as they are asked for.</p>
 	 * 
 	 * <p>As an example 'f(x)= A x 3' would output: 'AAA'</p>
 	 * 
@@ -71,7 +78,7 @@ public class Prototype {
 	 * @version 1.9
 	 * @since 1.2
 	 */
-	private static String calculatePayload(final String param) {
+	static String calculatePayload(final String param) {
 
 		String beginning;
 		try {
@@ -268,7 +275,28 @@ public class Prototype {
 	 */
 	public Prototype(final char type, final String uniqId, final String name) {
 
-		this(type, uniqId, name, new ArrayList<String>(), new ArrayList<String>());
+		this(type, uniqId, name, new PayloadArena());
+
+	}
+
+	/**
+	 * <p>A Prototype constructor, keeping the payloads in the given
+	 * arena, together with those of other prototypes loaded from the
+	 * same file.</p>
+	 * 
+	 * @param type 'R' for Recursive, 'P' for Replacive, or 'Z' for a 
+	 * Zero Fuzzer
+	 * @param uniqId e.g. 'XSS-101' or 'SQL-MS2-008'
+	 * @param name e.g. 'MS 2008 SQL Injection'
+	 * @param arena The arena to store the payloads in
+	 * 
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	Prototype(final char type, final String uniqId, final String name,
+			final PayloadArena arena) {
+
+		this(type, uniqId, name, new ArrayList<String>(1), arena.createList());
 
 	}
 
@@ -305,6 +333,8 @@ public class Prototype {
 	 * Prototype.</p>
 	 * 
 	 * @param payload
+	 * @throws IllegalStateException if the prototype has been loaded
+	 * into a Database already
 	 * 
 	 * @author subere@uncon.org
 	 * @version 1.3
@@ -312,7 +342,12 @@ public class Prototype {
 	 */
 	public void addPayload(final String payload) {
 
-		payloads.add(calculatePayload(payload));
+		if (payload.startsWith("f(x)=") && payloads instanceof PayloadArena.Payloads) {
+			// Kept short, expanded when asked for
+			((PayloadArena.Payloads) payloads).addFormula(payload);
+		} else {
+			payloads.add(calculatePayload(payload));
+		}
 		// payloads.trimToSize();
 
 	}
@@ -517,6 +552,24 @@ public class Prototype {
 		return payloads.size();
 	}
 	
+	/**
+	 * <p>Release the space reserved for categories and payloads
+	 * yet to be added, once the prototype has been loaded.</p>
+	 * 
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	void trim() {
+
+		if (categories instanceof ArrayList<?>) {
+			((ArrayList<String>) categories).trimToSize();
+		}
+		if (payloads instanceof PayloadArena.Payloads) {
+			((PayloadArena.Payloads) payloads).trim();
+		}
+
+	}
+
 	public int getNoOfCategories() {
 		return categories.size();
 	}
@@ -518,6 +518,9 @@ public final class Verifier {
 			"fuzzers.jbrf does not have enough lines.");
 		}
 
+		// The payloads of all prototypes in the file, each stored once
+		final PayloadArena arena = new PayloadArena();
+
 		for (int i = 0; i < fileInput.length; i++) {
 
 			// Ignore comment lines starting with '#'
@@ -634,7 +637,7 @@ public final class Verifier {
 
 			// Alas! Finally create a prototype
 			final Prototype proto = 
-				new Prototype(inputTypeChar, _fla[1], _fla[2]);
+				new Prototype(inputTypeChar, _fla[1], _fla[2], arena);
 
 			// If categories do exist in the second line
 			if (_sla.length > 0) {
@@ -673,10 +676,13 @@ public final class Verifier {
 			}
 
 			// Finally add the prototype to the database
+			proto.trim();
 			map.put(_fla[1], proto);
 
 		}
 
+		arena.freeze();
+
 	}
 
 
@@ -0,0 +1,307 @@
+/**
+ * JbroFuzz 2.5
+ *
+ * JBroFuzz - A stateless network protocol fuzzer for web applications.
+ * 
+ * Copyright (C) 2007 - 2010 subere@uncon.org
+ *
+ * This file is part of JBroFuzz.
+ * 
+ * JBroFuzz is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * JBroFuzz is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with JBroFuzz.  If not, see <http://www.gnu.org/licenses/>.
+ * Alternatively, write to the Free Software Foundation, Inc., 51 
+ * Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Verbatim copying and distribution of this entire program file is 
+ * permitted in any medium without royalty provided this notice 
+ * is preserved. 
+ * 
+ */
+package org.owasp.jbrofuzz.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+import org.owasp.jbrofuzz.io.StorageInterface;
+
+/**
+ * <p>
+ * A wordlist is a text file of payloads, one per line, read in place from a
+ * memory-mapped file rather than loaded into the heap; e.g. a list of
+ * leaked passwords or a dictionary of paths several gigabytes in size.
+ * </p>
+ * 
+ * <p>
+ * The first time the size or a payload is asked for, the file is scanned
+ * once and the offset of every {@link #STRIDE}th line is kept; a payload is
+ * then found by stepping forward from the nearest such offset, or from the
+ * line last read, so that iterating in order reads each line once. The heap
+ * held is a long for every {@link #STRIDE} lines, whatever the length of
+ * the lines.
+ * </p>
+ * 
+ * <p>
+ * Lines end in '\n' or "\r\n" and are read as UTF-8; an empty line is an
+ * empty payload, while a '\n' at the end of the file does not start another
+ * one. A wordlist is read-only and safe to share across threads.
+ * </p>
+ * 
+ * @see Database#addWordlist(File)
+ * @version 2.5
+ * @since 2.5
+ */
+public final class Wordlist extends AbstractList<String> implements
+		RandomAccess {
+
+	/**
+	 * <p>
+	 * The number of lines between two offsets kept in the index.
+	 * </p>
+	 */
+	public static final int STRIDE = 1024;
+
+	/**
+	 * <p>
+	 * The size in bytes of each region of the file mapped; a mapping cannot
+	 * be larger than 2GB.
+	 * </p>
+	 */
+	public static final int SEGMENT_SIZE = 1 << 30;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private final File file;
+
+	private final long length;
+
+	private final int segmentSize;
+
+	private final MappedByteBuffer[] segments;
+
+	// Guarded by this, set once
+	private long[] marks;
+
+	private volatile int size = -1;
+
+	private volatile Cursor cursor;
+
+	/**
+	 * <p>
+	 * Map the given file, without reading it.
+	 * </p>
+	 * 
+	 * @param file The text file, one payload per line
+	 * @throws IOException if the file cannot be opened or mapped
+	 */
+	public Wordlist(final File file) throws IOException {
+
+		this(file, SEGMENT_SIZE);
+
+	}
+
+	/**
+	 * <p>
+	 * Map the given file in regions of the given size, without reading it.
+	 * </p>
+	 * 
+	 * @param file The text file, one payload per line
+	 * @param segmentSize The size in bytes of each region mapped
+	 * @throws IOException if the file cannot be opened or mapped
+	 */
+	public Wordlist(final File file, final int segmentSize) throws IOException {
+
+		if (segmentSize <= 0) {
+			throw new IllegalArgumentException("Segment size must be positive");
+		}
+		this.file = file;
+		this.segmentSize = segmentSize;
+
+		final RandomAccessFile input = new RandomAccessFile(file, "r");
+		try {
+			final FileChannel channel = input.getChannel();
+			length = channel.size();
+			segments = new MappedByteBuffer[(int) ((length + segmentSize - 1) / segmentSize)];
+			for (int i = 0; i < segments.length; i++) {
+				final long position = (long) i * segmentSize;
+				segments[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+						position, Math.min(segmentSize, length - position));
+			}
+		} finally {
+			// The mappings stay valid once the channel is closed
+			input.close();
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Return the file this wordlist reads from.
+	 * </p>
+	 * 
+	 * @return File the file
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * <p>
+	 * Return the number of payloads, scanning the file the first time.
+	 * </p>
+	 * 
+	 * @return int the number of lines, at most Integer.MAX_VALUE
+	 */
+	@Override
+	public int size() {
+
+		index();
+		return size;
+
+	}
+
+	/**
+	 * <p>
+	 * Return the payload on the given line, counting from 0.
+	 * </p>
+	 * 
+	 * @param line The line
+	 * @return String the line, without its end of line
+	 */
+	@Override
+	public String get(final int line) {
+
+		final long[] index = index();
+		if (line < 0 || line >= size) {
+			throw new IndexOutOfBoundsException("Line: " + line + ", Size: " + size);
+		}
+
+		int current = line - line % STRIDE;
+		long offset = index[line / STRIDE];
+		final Cursor last = cursor;
+		if (last != null && last.line <= line && last.line > current) {
+			current = last.line;
+			offset = last.offset;
+		}
+		while (current < line) {
+			offset = Math.min(end(offset) + 1, length);
+			current++;
+		}
+
+		final long end = end(offset);
+		long stop = end;
+		if (stop > offset && byteAt(stop - 1) == '\r') {
+			stop--;
+		}
+		final byte[] bytes = new byte[(int) Math.min(stop - offset,
+				StorageInterface.MAX_BYTES)];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = byteAt(offset + i);
+		}
+		cursor = new Cursor(line + 1, Math.min(end + 1, length));
+
+		return new String(bytes, UTF8);
+
+	}
+
+	// The whole file would be read to compare or hash its lines
+	@Override
+	public boolean equals(final Object object) {
+		return this == object;
+	}
+
+	@Override
+	public int hashCode() {
+		return System.identityHashCode(this);
+	}
+
+	private synchronized long[] index() {
+
+		if (marks == null) {
+			long[] index = new long[16];
+			int lines = 0;
+			long offset = 0L;
+			while (offset < length && lines < Integer.MAX_VALUE) {
+				if (lines % STRIDE == 0) {
+					if (lines / STRIDE == index.length) {
+						final long[] grown = new long[index.length * 2];
+						System.arraycopy(index, 0, grown, 0, index.length);
+						index = grown;
+					}
+					index[lines / STRIDE] = offset;
+				}
+				lines++;
+				offset = end(offset) + 1;
+			}
+			marks = index;
+			size = lines;
+		}
+		return marks;
+
+	}
+
+	/**
+	 * <p>
+	 * Return the offset of the '\n' ending the line at the given offset, or
+	 * the length of the file for the last line.
+	 * </p>
+	 */
+	private long end(final long offset) {
+
+		long position = offset;
+		while (position < length) {
+			final MappedByteBuffer segment = segments[(int) (position / segmentSize)];
+			final long base = position - position % segmentSize;
+			final int limit = segment.limit();
+			for (int i = (int) (position - base); i < limit; i++) {
+				if (segment.get(i) == '\n') {
+					return base + i;
+				}
+			}
+			position = base + limit;
+		}
+		return length;
+
+	}
+
+	private byte byteAt(final long position) {
+
+		return segments[(int) (position / segmentSize)]
+				.get((int) (position % segmentSize));
+
+	}
+
+	/**
+	 * <p>
+	 * The line following the one last read, and where it starts.
+	 * </p>
+	 */
+	private static final class Cursor {
+
+		private final int line;
+
+		private final long offset;
+
+		private Cursor(final int line, final long offset) {
+			this.line = line;
+			this.offset = offset;
+		}
+
+	}
+
+}
@@ -27,7 +27,20 @@ public class DBAdaptor{
 	 * @return returnCode int - 0 == OK | 1 == failed.
 	 */
 	public int store(MessageContainer outputMessage, String sessionName){
-		String dbName = JBroFuzz.PREFS.get(JBroFuzzPrefs.DBSETTINGS[12].getId(), "");
+		return store(outputMessage, sessionName, JBroFuzz.PREFS.get(JBroFuzzPrefs.DBSETTINGS[12].getId(), ""));
+	}
+	
+	/**
+	 * store a message in the given database, e.g. as read from the
+	 * run configuration
+	 * 
+	 * @since version 2.5
+	 * @param outputMessage
+	 * @param sessionName
+	 * @param dbName
+	 * @return int returnCode
+	 */
+	public int store(MessageContainer outputMessage, String sessionName, String dbName){
 		int returnCode = 0;
 		
 		if (dbHandler.getClass().getName().equals(CouchDBHandler.class)){
@@ -0,0 +1,173 @@
+/**
+ * JbroFuzz 2.5
+ *
+ * JBroFuzz - A stateless network protocol fuzzer for web applications.
+ * 
+ * Copyright (C) 2007 - 2010 subere@uncon.org
+ *
+ * This file is part of JBroFuzz.
+ * 
+ * JBroFuzz is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * JBroFuzz is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with JBroFuzz.  If not, see <http://www.gnu.org/licenses/>.
+ * Alternatively, write to the Free Software Foundation, Inc., 51 
+ * Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Verbatim copying and distribution of this entire program file is 
+ * permitted in any medium without royalty provided this notice 
+ * is preserved. 
+ * 
+ */
+package org.owasp.jbrofuzz.encode;
+
+import java.nio.charset.Charset;
+
+/**
+ * <p>
+ * A codec that encodes the bytes of a String into ASCII characters, such as
+ * Base64, hexadecimal or a message digest.
+ * </p>
+ * 
+ * <p>
+ * Besides the String methods of a Codec, a byte codec can write directly into
+ * a caller-provided char or byte array, sized using 
+ * {@link #getMaxEncodedLength(int)}. The String methods take the bytes of the
+ * input in the platform default charset, as String.getBytes() does, and 
+ * encode through a char array kept per thread.
+ * </p>
+ * 
+ * @version 2.5
+ * @since 2.5
+ */
+public abstract class ByteCodec implements Codec {
+
+	/**
+	 * <p>The platform default charset, as used by String.getBytes().</p>
+	 */
+	protected static final Charset DEFAULT_CHARSET = Charset.defaultCharset();
+
+	private static final ThreadLocal<char[]> CHARS = new ThreadLocal<char[]>() {
+		@Override
+		protected char[] initialValue() {
+			return new char[256];
+		}
+	};
+
+	private final String name;
+
+	protected ByteCodec(final String name) {
+
+		this.name = name;
+
+	}
+
+	public String getName() {
+
+		return name;
+
+	}
+
+	/**
+	 * <p>Return the maximum number of characters the given number of bytes
+	 * encode to.</p>
+	 * 
+	 * @param length the number of input bytes
+	 * @return int the maximum number of output characters
+	 */
+	public abstract int getMaxEncodedLength(int length);
+
+	/**
+	 * <p>Encode a range of bytes into a char array.</p>
+	 * 
+	 * @param input the input bytes
+	 * @param offset the offset of the first byte to encode
+	 * @param length the number of bytes to encode
+	 * @param output the output array, with at least getMaxEncodedLength(length)
+	 *               characters available from outputOffset
+	 * @param outputOffset the offset of the first character to write
+	 * @return int the number of characters written
+	 */
+	public abstract int encode(byte[] input, int offset, int length,
+			char[] output, int outputOffset);
+
+	/**
+	 * <p>Encode a range of bytes into a byte array, one ASCII byte per output
+	 * character.</p>
+	 * 
+	 * @param input the input bytes
+	 * @param offset the offset of the first byte to encode
+	 * @param length the number of bytes to encode
+	 * @param output the output array, with at least getMaxEncodedLength(length)
+	 *               bytes available from outputOffset
+	 * @param outputOffset the offset of the first byte to write
+	 * @return int the number of bytes written
+	 */
+	public int encode(final byte[] input, final int offset, final int length,
+			final byte[] output, final int outputOffset) {
+
+		final char[] chars = chars(getMaxEncodedLength(length));
+		final int count = encode(input, offset, length, chars, 0);
+		for (int i = 0; i < count; i++) {
+			output[outputOffset + i] = (byte) chars[i];
+		}
+		return count;
+
+	}
+
+	/**
+	 * <p>Return the number of bytes of the input String to encode; all of 
+	 * them, unless overridden.</p>
+	 * 
+	 * @param input the input String
+	 * @param bytes the bytes of the input String
+	 * @return int the number of bytes to encode
+	 */
+	protected int getInputLength(final String input, final byte[] bytes) {
+
+		return bytes.length;
+
+	}
+
+	public String encode(final String input) {
+
+		final byte[] bytes = input.getBytes(DEFAULT_CHARSET);
+		final int length = getInputLength(input, bytes);
+		final char[] chars = chars(getMaxEncodedLength(length));
+		return new String(chars, 0, encode(bytes, 0, length, chars, 0));
+
+	}
+
+	public void encode(final String input, final StringBuilder output) {
+
+		final byte[] bytes = input.getBytes(DEFAULT_CHARSET);
+		final int length = getInputLength(input, bytes);
+		final char[] chars = chars(getMaxEncodedLength(length));
+		output.append(chars, 0, encode(bytes, 0, length, chars, 0));
+
+	}
+
+	/**
+	 * <p>Return the char array of the current thread, grown to at least the 
+	 * given size.</p>
+	 */
+	private static char[] chars(final int size) {
+
+		char[] chars = CHARS.get();
+		if (chars.length < size) {
+			chars = new char[Math.max(size, chars.length * 2)];
+			CHARS.set(chars);
+		}
+		return chars;
+
+	}
+
+}
@@ -0,0 +1,73 @@
+/**
+ * JbroFuzz 2.5
+ *
+ * JBroFuzz - A stateless network protocol fuzzer for web applications.
+ * 
+ * Copyright (C) 2007 - 2010 subere@uncon.org
+ *
+ * This file is part of JBroFuzz.
+ * 
+ * JBroFuzz is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * JBroFuzz is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with JBroFuzz.  If not, see <http://www.gnu.org/licenses/>.
+ * Alternatively, write to the Free Software Foundation, Inc., 51 
+ * Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Verbatim copying and distribution of this entire program file is 
+ * permitted in any medium without royalty provided this notice 
+ * is preserved. 
+ * 
+ */
+package org.owasp.jbrofuzz.encode;
+
+/**
+ * <p>
+ * A stateless encoder, as used for each of the codes of the EncoderHashCore.
+ * </p>
+ * 
+ * <p>
+ * Implementations must be thread-safe and return exactly the same output as
+ * the corresponding static method of the EncoderHashCore. They are obtained
+ * through the {@link Codecs} registry, which resolves a code once so that 
+ * the encoder can be applied to any number of payloads.
+ * </p>
+ * 
+ * @see Codecs
+ * @version 2.5
+ * @since 2.5
+ */
+public interface Codec {
+
+	/**
+	 * <p>Return the name of this codec, as found in EncoderHashCore.CODES.</p>
+	 * 
+	 * @return String the name of the codec
+	 */
+	String getName();
+
+	/**
+	 * <p>Encode a String.</p>
+	 * 
+	 * @param input the text to encode
+	 * @return String the encoded text
+	 */
+	String encode(String input);
+
+	/**
+	 * <p>Encode a String, appending the encoded text to the given buffer.</p>
+	 * 
+	 * @param input the text to encode
+	 * @param output the buffer the encoded text is appended to
+	 */
+	void encode(String input, StringBuilder output);
+
+}
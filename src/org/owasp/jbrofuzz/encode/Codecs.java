@@ -0,0 +1,705 @@
+/**
+ * JbroFuzz 2.5
+ *
+ * JBroFuzz - A stateless network protocol fuzzer for web applications.
+ * 
+ * Copyright (C) 2007 - 2010 subere@uncon.org
+ *
+ * This file is part of JBroFuzz.
+ * 
+ * JBroFuzz is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * JBroFuzz is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with JBroFuzz.  If not, see <http://www.gnu.org/licenses/>.
+ * Alternatively, write to the Free Software Foundation, Inc., 51 
+ * Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Verbatim copying and distribution of this entire program file is 
+ * permitted in any medium without royalty provided this notice 
+ * is preserved. 
+ * 
+ */
+package org.owasp.jbrofuzz.encode;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.apache.commons.codec.EncoderException;
+import org.apache.commons.codec.net.QuotedPrintableCodec;
+import org.apache.commons.lang.StringEscapeUtils;
+
+/**
+ * <p>
+ * The registry of codecs, one for each of the codes of the EncoderHashCore.
+ * </p>
+ * 
+ * <p>
+ * Every codec is stateless and thread-safe, and produces the same output as
+ * EncoderHashCore.encode(String, String) for its code. Per call work that 
+ * the static methods repeat, such as charset lookups, exception handling
+ * for unsupported encodings, MessageDigest creation and intermediate
+ * Strings, is done once or kept per thread instead.
+ * </p>
+ * 
+ * @see EncoderHashCore#CODES
+ * @version 2.5
+ * @since 2.5
+ */
+public final class Codecs {
+
+	private static final char[] HEX_LOW = "0123456789abcdef".toCharArray();
+
+	private static final char[] HEX_UPP = "0123456789ABCDEF".toCharArray();
+
+	private static final Codec[] CODECS = { 
+		new PlainText("Plain Text"),
+		new UrlEncoder("URL Cp1252", "windows-1252", false),
+		new UrlEncoder("URL UTF-8", "UTF-8", false),
+		new UrlEncoder("URL UTF-16BE", "UTF-16BE", false),
+		new UrlEncoder("URL UTF-16LE", "UTF-16LE", false),
+		new UrlEncoder("Double URL Cp1252", "windows-1252", true),
+		new UrlEncoder("Double URL UTF-8", "UTF-8", true),
+		new UrlEncoder("Double URL UTF-16BE", "UTF-16BE", true),
+		new UrlEncoder("Double URL UTF-16LE", "UTF-16LE", true),
+		new Base64Codec("Base64"),
+		new Base32Codec("Base32"),
+		new ZBase32Codec("Z-Base32"),
+		new DigestCodec("MD5 Hash", "MD5"),
+		new DigestCodec("SHA-1 Hash", "SHA-1"),
+		new DigestCodec("SHA-256 Hash", "SHA-256"),
+		new DigestCodec("SHA-384 Hash", "SHA-384"),
+		new DigestCodec("SHA-512 Hash", "SHA-512"),
+		new HexCodec("Hexadecimal (low)", HEX_LOW),
+		new HexCodec("Hexadecimal (UPP)", HEX_UPP),
+		new BinaryCodec("Binary"),
+		new FormUrlEncoder("www-form-urlencoded"),
+		new Rfc1521Codec("RFC 1521 MIME (eMail)"),
+		new Escape("Escape: HTML", Escape.HTML),
+		new Escape("Escape: CSV", Escape.CSV),
+		new Escape("Escape: Java", Escape.JAVA),
+		new Escape("Escape: JavaScript", Escape.JAVASCRIPT),
+		new Escape("Escape: SQL", Escape.SQL),
+		new Escape("Escape: XML", Escape.XML),
+		new UUCodec("UUencode")
+	};
+
+	private Codecs() {
+
+	}
+
+	/**
+	 * <p>Return the codec at the given index within EncoderHashCore.CODES.</p>
+	 * 
+	 * @param code the index of the code
+	 * @return Codec the codec, or null if the index is out of range
+	 */
+	public static Codec get(final int code) {
+
+		if (code < 0 || code >= CODECS.length) {
+			return null;
+		}
+		return CODECS[code];
+
+	}
+
+	/**
+	 * <p>Return the codec for a code name, ignoring case.</p>
+	 * 
+	 * @param name the code, e.g. "SHA-1 Hash"
+	 * @return Codec the codec, or null if the name is not a valid code
+	 */
+	public static Codec get(final String name) {
+
+		for (final Codec codec : CODECS) {
+			if (codec.getName().equalsIgnoreCase(name)) {
+				return codec;
+			}
+		}
+		return null;
+
+	}
+
+	/**
+	 * <p>Return the number of codecs, equal to the number of codes.</p>
+	 * 
+	 * @return int the number of codecs
+	 */
+	public static int size() {
+
+		return CODECS.length;
+
+	}
+
+	/**
+	 * <p>Base class for codecs working on the characters of a String.</p>
+	 */
+	private abstract static class TextCodec implements Codec {
+
+		private final String name;
+
+		TextCodec(final String name) {
+			this.name = name;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public String encode(final String input) {
+			final StringBuilder output = new StringBuilder(input.length() + 16);
+			encode(input, output);
+			return output.toString();
+		}
+
+	}
+
+	private static final class PlainText extends TextCodec {
+
+		PlainText(final String name) {
+			super(name);
+		}
+
+		@Override
+		public String encode(final String input) {
+			return input;
+		}
+
+		public void encode(final String input, final StringBuilder output) {
+			output.append(input);
+		}
+
+	}
+
+	/**
+	 * <p>The equivalent of URLEncoder.encode(String, String), once or twice,
+	 * with the charset resolved once.</p>
+	 */
+	private static final class UrlEncoder extends TextCodec {
+
+		private final Charset charset;
+		private final boolean twice;
+
+		UrlEncoder(final String name, final String charset, final boolean twice) {
+			super(name);
+			this.charset = Charset.forName(charset);
+			this.twice = twice;
+		}
+
+		public void encode(final String input, final StringBuilder output) {
+			if (twice) {
+				final StringBuilder once = new StringBuilder(input.length() * 3);
+				encodeOnce(input, once);
+				encodeOnce(once, output);
+			} else {
+				encodeOnce(input, output);
+			}
+		}
+
+		private static boolean isSafe(final char c) {
+			return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')
+					|| (c >= '0' && c <= '9') || c == ' ' || c == '-'
+					|| c == '_' || c == '.' || c == '*';
+		}
+
+		private void encodeOnce(final CharSequence input,
+				final StringBuilder output) {
+			final int length = input.length();
+			int i = 0;
+			while (i < length) {
+				final char c = input.charAt(i);
+				if (isSafe(c)) {
+					output.append(c == ' ' ? '+' : c);
+					i++;
+					continue;
+				}
+				// Encode the run of characters that are not safe in one go
+				final int start = i;
+				do {
+					i++;
+				} while (i < length && !isSafe(input.charAt(i)));
+
+				final ByteBuffer bytes = charset.encode(CharBuffer.wrap(input,
+						start, i));
+				while (bytes.hasRemaining()) {
+					final int b = bytes.get() & 0xFF;
+					output.append('%').append(HEX_UPP[b >> 4]).append(
+							HEX_UPP[b & 0xF]);
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * <p>The equivalent of URLCodec.encode(String, "UTF-8").</p>
+	 */
+	private static final class FormUrlEncoder extends TextCodec {
+
+		private static final Charset UTF8 = Charset.forName("UTF-8");
+
+		FormUrlEncoder(final String name) {
+			super(name);
+		}
+
+		public void encode(final String input, final StringBuilder output) {
+			final byte[] bytes = input.getBytes(UTF8);
+			for (final byte raw : bytes) {
+				final int b = raw & 0xFF;
+				if ((b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z')
+						|| (b >= '0' && b <= '9') || b == '-' || b == '_'
+						|| b == '.' || b == '*') {
+					output.append((char) b);
+				} else if (b == ' ') {
+					output.append('+');
+				} else {
+					output.append('%').append(HEX_UPP[b >> 4]).append(
+							HEX_UPP[b & 0xF]);
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * <p>RFC 1521 quoted printable, through a single shared codec.</p>
+	 */
+	private static final class Rfc1521Codec extends TextCodec {
+
+		private static final QuotedPrintableCodec CODEC = new QuotedPrintableCodec();
+
+		Rfc1521Codec(final String name) {
+			super(name);
+		}
+
+		@Override
+		public String encode(final String input) {
+			try {
+				return CODEC.encode(input);
+			} catch (final EncoderException e) {
+				return "Error: Sting input cannot be decoded";
+			}
+		}
+
+		public void encode(final String input, final StringBuilder output) {
+			output.append(encode(input));
+		}
+
+	}
+
+	/**
+	 * <p>The escapes of StringEscapeUtils.</p>
+	 */
+	private static final class Escape extends TextCodec {
+
+		static final int HTML = 0, CSV = 1, JAVA = 2, JAVASCRIPT = 3, SQL = 4,
+				XML = 5;
+
+		private final int type;
+
+		Escape(final String name, final int type) {
+			super(name);
+			this.type = type;
+		}
+
+		@Override
+		public String encode(final String input) {
+			switch (type) {
+			case HTML:
+				return StringEscapeUtils.escapeHtml(input);
+			case CSV:
+				return StringEscapeUtils.escapeCsv(input);
+			case JAVA:
+				return StringEscapeUtils.escapeJava(input);
+			case JAVASCRIPT:
+				return StringEscapeUtils.escapeJavaScript(input);
+			case SQL:
+				return StringEscapeUtils.escapeSql(input);
+			default:
+				return StringEscapeUtils.escapeXml(input);
+			}
+		}
+
+		public void encode(final String input, final StringBuilder output) {
+			output.append(encode(input));
+		}
+
+	}
+
+	private static final class Base64Codec extends ByteCodec {
+
+		private static final char[] ALPHABET = 
+			"ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/"
+				.toCharArray();
+
+		Base64Codec(final String name) {
+			super(name);
+		}
+
+		@Override
+		public int getMaxEncodedLength(final int length) {
+			return (length + 2) / 3 * 4;
+		}
+
+		@Override
+		public int encode(final byte[] input, final int offset,
+				final int length, final char[] output, final int outputOffset) {
+			int o = outputOffset;
+			final int end = offset + length;
+			int i = offset;
+			for (; i + 2 < end; i += 3) {
+				final int bits = (input[i] & 0xFF) << 16
+						| (input[i + 1] & 0xFF) << 8 | (input[i + 2] & 0xFF);
+				output[o++] = ALPHABET[bits >>> 18];
+				output[o++] = ALPHABET[(bits >>> 12) & 0x3F];
+				output[o++] = ALPHABET[(bits >>> 6) & 0x3F];
+				output[o++] = ALPHABET[bits & 0x3F];
+			}
+			final int left = end - i;
+			if (left > 0) {
+				final int bits = (input[i] & 0xFF) << 16
+						| (left > 1 ? (input[i + 1] & 0xFF) << 8 : 0);
+				output[o++] = ALPHABET[bits >>> 18];
+				output[o++] = ALPHABET[(bits >>> 12) & 0x3F];
+				output[o++] = left > 1 ? ALPHABET[(bits >>> 6) & 0x3F] : '=';
+				output[o++] = '=';
+			}
+			return o - outputOffset;
+		}
+
+	}
+
+	/**
+	 * <p>The equivalent of Base32.encode(byte[]), including its padding of
+	 * inputs of one to four bytes only.</p>
+	 */
+	private static final class Base32Codec extends ByteCodec {
+
+		private static final char[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZ234567"
+				.toCharArray();
+
+		Base32Codec(final String name) {
+			super(name);
+		}
+
+		@Override
+		public int getMaxEncodedLength(final int length) {
+			return (length * 8 + 4) / 5 + 6;
+		}
+
+		@Override
+		public int encode(final byte[] input, final int offset,
+				final int length, final char[] output, final int outputOffset) {
+			int o = outputOffset;
+			int i = 0, index = 0, digit;
+			while (i < length) {
+				final int currByte = input[offset + i] & 0xFF;
+				// Is the current digit going to span a byte boundary?
+				if (index > 3) {
+					final int nextByte = (i + 1) < length ? 
+							input[offset + i + 1] & 0xFF : 0;
+					digit = currByte & (0xFF >> index);
+					index = (index + 5) % 8;
+					digit <<= index;
+					digit |= nextByte >> (8 - index);
+					i++;
+				} else {
+					digit = (currByte >> (8 - (index + 5))) & 0x1F;
+					index = (index + 5) % 8;
+					if (index == 0) {
+						i++;
+					}
+				}
+				output[o++] = ALPHABET[digit];
+			}
+			final int padding;
+			switch (length) {
+			case 1: padding = 6; break;
+			case 2: padding = 4; break;
+			case 3: padding = 3; break;
+			case 4: padding = 1; break;
+			default: padding = 0;
+			}
+			for (int p = 0; p < padding; p++) {
+				output[o++] = '=';
+			}
+			return o - outputOffset;
+		}
+
+	}
+
+	/**
+	 * <p>The equivalent of ZBase32.encode(byte[]), without padding.</p>
+	 */
+	private static final class ZBase32Codec extends ByteCodec {
+
+		private static final char[] ALPHABET = "ybndrfg8ejkmcpqxot1uwisza345h769"
+				.toCharArray();
+
+		ZBase32Codec(final String name) {
+			super(name);
+		}
+
+		@Override
+		public int getMaxEncodedLength(final int length) {
+			return (length * 8 + 4) / 5;
+		}
+
+		@Override
+		public int encode(final byte[] input, final int offset,
+				final int length, final char[] output, final int outputOffset) {
+			int o = outputOffset;
+			final int end = offset + length;
+			int i = offset;
+			// Take five bytes at a time, as a 40-bit group of eight digits
+			for (; i + 4 < end; i += 5) {
+				final long bits = (long) (input[i] & 0xFF) << 32
+						| (long) (input[i + 1] & 0xFF) << 24
+						| (long) (input[i + 2] & 0xFF) << 16
+						| (long) (input[i + 3] & 0xFF) << 8
+						| (input[i + 4] & 0xFF);
+				for (int shift = 35; shift >= 0; shift -= 5) {
+					output[o++] = ALPHABET[(int) (bits >>> shift) & 0x1F];
+				}
+			}
+			final int left = end - i;
+			if (left > 0) {
+				long bits = 0L;
+				for (int b = 0; b < left; b++) {
+					bits |= (long) (input[i + b] & 0xFF) << (32 - 8 * b);
+				}
+				final int digits = (left * 8 + 4) / 5;
+				for (int d = 0, shift = 35; d < digits; d++, shift -= 5) {
+					output[o++] = ALPHABET[(int) (bits >>> shift) & 0x1F];
+				}
+			}
+			return o - outputOffset;
+		}
+
+	}
+
+	private static final class HexCodec extends ByteCodec {
+
+		private final char[] digits;
+
+		HexCodec(final String name, final char[] digits) {
+			super(name);
+			this.digits = digits;
+		}
+
+		@Override
+		public int getMaxEncodedLength(final int length) {
+			return length * 2;
+		}
+
+		@Override
+		public int encode(final byte[] input, final int offset,
+				final int length, final char[] output, final int outputOffset) {
+			return hex(input, offset, length, digits, output, outputOffset);
+		}
+
+	}
+
+	/**
+	 * <p>The equivalent of BinaryCodec.toAsciiChars(byte[]), which writes the
+	 * first byte last, most significant bit first.</p>
+	 */
+	private static final class BinaryCodec extends ByteCodec {
+
+		BinaryCodec(final String name) {
+			super(name);
+		}
+
+		@Override
+		public int getMaxEncodedLength(final int length) {
+			return length * 8;
+		}
+
+		@Override
+		public int encode(final byte[] input, final int offset,
+				final int length, final char[] output, final int outputOffset) {
+			int o = outputOffset;
+			for (int i = offset + length - 1; i >= offset; i--) {
+				final int b = input[i];
+				for (int bit = 7; bit >= 0; bit--) {
+					output[o++] = (b & (1 << bit)) == 0 ? '0' : '1';
+				}
+			}
+			return o - outputOffset;
+		}
+
+	}
+
+	/**
+	 * <p>A message digest, hex encoded in upper case, using one MessageDigest
+	 * per thread.</p>
+	 * 
+	 * <p>As with the static hash methods, the number of bytes hashed is the 
+	 * number of characters of the input String.</p>
+	 */
+	private static final class DigestCodec extends ByteCodec {
+
+		private final String algorithm;
+		private final int digestLength;
+		private final ThreadLocal<MessageDigest> digest;
+		private final ThreadLocal<byte[]> hash;
+
+		DigestCodec(final String name, final String algorithm) {
+			super(name);
+			this.algorithm = algorithm;
+			digest = new ThreadLocal<MessageDigest>() {
+				@Override
+				protected MessageDigest initialValue() {
+					try {
+						return MessageDigest.getInstance(DigestCodec.this.algorithm);
+					} catch (final NoSuchAlgorithmException e) {
+						return null;
+					}
+				}
+			};
+			final MessageDigest md = digest.get();
+			digestLength = md == null ? 0 : md.getDigestLength();
+			hash = new ThreadLocal<byte[]>() {
+				@Override
+				protected byte[] initialValue() {
+					return new byte[digestLength];
+				}
+			};
+		}
+
+		@Override
+		protected int getInputLength(final String input, final byte[] bytes) {
+			return Math.min(input.length(), bytes.length);
+		}
+
+		@Override
+		public int getMaxEncodedLength(final int length) {
+			return digestLength * 2;
+		}
+
+		@Override
+		public int encode(final byte[] input, final int offset,
+				final int length, final char[] output, final int outputOffset) {
+			final MessageDigest md = digest.get();
+			if (md == null) {
+				return 0;
+			}
+			final byte[] result = hash.get();
+			md.update(input, offset, length);
+			try {
+				md.digest(result, 0, result.length);
+			} catch (final DigestException e) {
+				md.reset();
+				return 0;
+			}
+			return hex(result, 0, result.length, HEX_UPP, output, outputOffset);
+		}
+
+		@Override
+		public String encode(final String input) {
+			if (digest.get() == null) {
+				return "Error: " + algorithm + " could not be found...";
+			}
+			return super.encode(input);
+		}
+
+		@Override
+		public void encode(final String input, final StringBuilder output) {
+			if (digest.get() == null) {
+				output.append("Error: ").append(algorithm).append(
+						" could not be found...");
+			} else {
+				super.encode(input, output);
+			}
+		}
+
+	}
+
+	/**
+	 * <p>The equivalent of sun.misc.UUEncoder.encodeBuffer(byte[]): a 
+	 * "begin 644 encoder.buf" line, lines of up to 45 bytes and an "end"
+	 * line, separated by the platform line separator.</p>
+	 */
+	private static final class UUCodec extends ByteCodec {
+
+		private static final char[] BEGIN = "begin 644 encoder.buf".toCharArray();
+
+		private static final char[] END = " \nend".toCharArray();
+
+		private static final char[] NEW_LINE = System.getProperty(
+				"line.separator", "\n").toCharArray();
+
+		private static final int BYTES_PER_LINE = 45;
+
+		UUCodec(final String name) {
+			super(name);
+		}
+
+		@Override
+		public int getMaxEncodedLength(final int length) {
+			final int lines = (length + BYTES_PER_LINE - 1) / BYTES_PER_LINE;
+			return BEGIN.length + END.length + (lines + 2) * NEW_LINE.length
+					+ lines + (length + 2) / 3 * 4;
+		}
+
+		@Override
+		public int encode(final byte[] input, final int offset,
+				final int length, final char[] output, final int outputOffset) {
+			int o = outputOffset;
+			o = append(BEGIN, output, o);
+			o = append(NEW_LINE, output, o);
+
+			for (int line = 0; line < length; line += BYTES_PER_LINE) {
+				final int count = Math.min(BYTES_PER_LINE, length - line);
+				output[o++] = (char) ((count & 0x3F) + ' ');
+				for (int j = 0; j < count; j += 3) {
+					final int at = offset + line + j;
+					final int a = input[at];
+					final int b = j + 1 < count ? input[at + 1] : 1;
+					final int c = j + 2 < count ? input[at + 2] : 1;
+					output[o++] = (char) (((a >>> 2) & 0x3F) + ' ');
+					output[o++] = (char) ((((a << 4) & 0x30) | ((b >>> 4) & 0xF)) + ' ');
+					output[o++] = (char) ((((b << 2) & 0x3C) | ((c >>> 6) & 0x3)) + ' ');
+					output[o++] = (char) ((c & 0x3F) + ' ');
+				}
+				o = append(NEW_LINE, output, o);
+			}
+
+			o = append(END, output, o);
+			o = append(NEW_LINE, output, o);
+			return o - outputOffset;
+		}
+
+		private static int append(final char[] chars, final char[] output,
+				final int offset) {
+			System.arraycopy(chars, 0, output, offset, chars.length);
+			return offset + chars.length;
+		}
+
+	}
+
+	private static int hex(final byte[] input, final int offset,
+			final int length, final char[] digits, final char[] output,
+			final int outputOffset) {
+
+		int o = outputOffset;
+		for (int i = offset; i < offset + length; i++) {
+			output[o++] = digits[(input[i] >> 4) & 0xF];
+			output[o++] = digits[input[i] & 0xF];
+		}
+		return o - outputOffset;
+
+	}
+
+}
@@ -0,0 +1,496 @@
+/**
+ * JbroFuzz 2.5
+ *
+ * JBroFuzz - A stateless network protocol fuzzer for web applications.
+ * 
+ * Copyright (C) 2007 - 2010 subere@uncon.org
+ *
+ * This file is part of JBroFuzz.
+ * 
+ * JBroFuzz is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * JBroFuzz is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with JBroFuzz.  If not, see <http://www.gnu.org/licenses/>.
+ * Alternatively, write to the Free Software Foundation, Inc., 51 
+ * Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Verbatim copying and distribution of this entire program file is 
+ * permitted in any medium without royalty provided this notice 
+ * is preserved. 
+ * 
+ */
+package org.owasp.jbrofuzz.encode;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.owasp.jbrofuzz.system.Logger;
+
+/**
+ * <p>
+ * A cache of encoded payloads, keyed by the prototype id and length of the
+ * fuzzer, the index of the payload within the fuzzer and the key of the 
+ * transform chain applied to it.
+ * </p>
+ * 
+ * <p>
+ * Fuzzing the same payload library with the same transforms, be it in a 
+ * repeated run or at another fuzz point, then returns the encoded payloads
+ * from the cache, instead of encoding every payload again.
+ * </p>
+ * 
+ * <p>
+ * The cache holds up to a given number of characters in memory, evicting the
+ * least recently used payloads first. If a spill directory is given, evicted
+ * payloads are appended to a file per fuzzer and transform chain in that 
+ * directory, and read back from there when requested again. The spill files
+ * are deleted when the cache is cleared, or on exit.
+ * </p>
+ * 
+ * <p>
+ * Once the spill files are full, or cannot be written to, further evicted
+ * payloads are discarded; those already spilled are still read back. Only
+ * if a spill file cannot be read are the spill files given up and deleted.
+ * </p>
+ * 
+ * <p>
+ * Transforms using time controls are never cached. All methods are 
+ * thread-safe; payloads are encoded, and spill files read and written, 
+ * outside the lock of the cache, each spill file having a lock of its own.
+ * </p>
+ * 
+ * @see TransformChain
+ * @version 2.5
+ * @since 2.5
+ */
+public class EncodedPayloadCache {
+
+	/**
+	 * <p>The default number of characters held in memory, 8M, i.e. 16MB of 
+	 * character data.</p>
+	 */
+	public static final long DEFAULT_MAX_CHARS = 8L * 1024L * 1024L;
+
+	/**
+	 * <p>The maximum number of bytes written to the spill files.</p>
+	 */
+	public static final long MAX_SPILL_BYTES = 512L * 1024L * 1024L;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private final long maxChars;
+
+	private File spillDirectory;
+
+	private final LinkedHashMap<Key, String> entries;
+
+	private final Map<String, SpillFile> spillFiles;
+
+	private long chars;
+
+	private long spillBytes;
+
+	// Whether evicted payloads are spilled; those spilled are read regardless
+	private boolean spilling;
+
+	private long hits, misses;
+
+	/**
+	 * <p>Create a memory only cache, of the default size.</p>
+	 */
+	public EncodedPayloadCache() {
+
+		this(DEFAULT_MAX_CHARS, null);
+
+	}
+
+	/**
+	 * <p>Create a cache holding up to maxChars characters in memory, spilling
+	 * to the given directory.</p>
+	 * 
+	 * @param maxChars the maximum number of characters held in memory
+	 * @param spillDirectory the directory of the spill files, or null to 
+	 *                       discard evicted payloads
+	 */
+	public EncodedPayloadCache(final long maxChars, final File spillDirectory) {
+
+		this.maxChars = maxChars;
+		this.spillDirectory = spillDirectory;
+
+		entries = new LinkedHashMap<Key, String>(1024, 0.75f, true);
+		spillFiles = new HashMap<String, SpillFile>();
+		chars = 0L;
+		spillBytes = 0L;
+		spilling = spillDirectory != null;
+
+	}
+
+	/**
+	 * <p>Return the encoded payload, from the cache if present, otherwise by
+	 * applying the chain to the payload and caching the result.</p>
+	 * 
+	 * @param prototypeId the id of the fuzzer, e.g. "031-B16-HEX"
+	 * @param length the length of the fuzzer
+	 * @param index the index of the payload within the fuzzer
+	 * @param chain the transform chain to apply
+	 * @param payload the payload at that index
+	 * @return String the encoded payload
+	 */
+	public String encode(final String prototypeId, final int length,
+			final long index, final TransformChain chain, final String payload) {
+
+		if (!chain.isCacheable()) {
+			return chain.apply(payload);
+		}
+
+		final Key key = new Key(prototypeId, length, index, chain.getKey());
+		String encoded = get(key);
+		if (encoded == null) {
+			encoded = chain.apply(payload);
+			put(key, encoded);
+		}
+		return encoded;
+
+	}
+
+	private String get(final Key key) {
+
+		final SpillFile file;
+		synchronized (this) {
+			final String value = entries.get(key);
+			file = value == null ? spillFiles.get(key.segment) : null;
+			if (file == null) {
+				count(value);
+				return value;
+			}
+		}
+
+		String value = null;
+		boolean failed = false;
+		try {
+			value = file.read(key.index);
+		} catch (final IOException e) {
+			Logger.log("Encoded payload cache: cannot read from disk: "
+					+ e.getMessage(), 2);
+			failed = true;
+		}
+
+		Map<Key, String> evicted = null;
+		synchronized (this) {
+			count(value);
+			// Unless the spill files were deleted meanwhile
+			if (spillFiles.get(key.segment) == file) {
+				if (failed) {
+					deleteSpillFiles();
+					spilling = false;
+				} else if (value != null && !entries.containsKey(key)) {
+					evicted = insert(key, value);
+				}
+			}
+		}
+		spill(evicted);
+		return value;
+
+	}
+
+	private void put(final Key key, final String value) {
+
+		Map<Key, String> evicted = null;
+		synchronized (this) {
+			if (!entries.containsKey(key)) {
+				evicted = insert(key, value);
+			}
+		}
+		spill(evicted);
+
+	}
+
+	// Called holding the lock of the cache
+	private void count(final String value) {
+
+		if (value == null) {
+			misses++;
+		} else {
+			hits++;
+		}
+
+	}
+
+	// Called holding the lock of the cache, returning the entries evicted
+	private Map<Key, String> insert(final Key key, final String value) {
+
+		entries.put(key, value);
+		chars += value.length();
+
+		// Evict the least recently used entries, to spill once unlocked
+		Map<Key, String> evicted = null;
+		final Iterator<Map.Entry<Key, String>> eldest = entries.entrySet()
+				.iterator();
+		while (chars > maxChars && eldest.hasNext()) {
+			final Map.Entry<Key, String> entry = eldest.next();
+			if (evicted == null) {
+				evicted = new LinkedHashMap<Key, String>();
+			}
+			evicted.put(entry.getKey(), entry.getValue());
+			chars -= entry.getValue().length();
+			eldest.remove();
+		}
+		return evicted;
+
+	}
+
+	private void spill(final Map<Key, String> evicted) {
+
+		if (evicted == null) {
+			return;
+		}
+		for (final Map.Entry<Key, String> entry : evicted.entrySet()) {
+			spill(entry.getKey(), entry.getValue());
+		}
+
+	}
+
+	private void spill(final Key key, final String value) {
+
+		SpillFile file;
+		synchronized (this) {
+			if (!spilling) {
+				return;
+			}
+			file = spillFiles.get(key.segment);
+			if (file == null) {
+				try {
+					if (!spillDirectory.isDirectory()
+							&& !spillDirectory.mkdirs()) {
+						throw new IOException("Cannot create " + spillDirectory);
+					}
+					file = new SpillFile(File.createTempFile("jbrofuzz-",
+							".cache", spillDirectory));
+				} catch (final IOException e) {
+					Logger.log("Encoded payload cache: cannot spill to disk: "
+							+ e.getMessage(), 2);
+					spilling = false;
+					return;
+				}
+				spillFiles.put(key.segment, file);
+			}
+		}
+
+		final int written;
+		try {
+			written = file.write(key.index, value);
+		} catch (final IOException e) {
+			Logger.log("Encoded payload cache: cannot spill to disk: "
+					+ e.getMessage(), 2);
+			synchronized (this) {
+				spilling = false;
+			}
+			return;
+		}
+
+		synchronized (this) {
+			spillBytes += written;
+			if (spilling && spillBytes > MAX_SPILL_BYTES) {
+				Logger.log("Encoded payload cache: spill files full", 2);
+				spilling = false;
+			}
+		}
+
+	}
+
+	// Called holding the lock of the cache
+	private void deleteSpillFiles() {
+
+		for (final SpillFile file : spillFiles.values()) {
+			file.delete();
+		}
+		spillFiles.clear();
+		spillBytes = 0L;
+
+	}
+
+	/**
+	 * <p>Start spilling to the given directory, or stop spilling if null,
+	 * e.g. as a run starts with the spill setting changed. The payloads
+	 * held in memory are kept; any spill files are deleted.</p>
+	 * 
+	 * @param directory the directory of the spill files, or null to 
+	 *                  discard evicted payloads
+	 */
+	public synchronized void setSpillDirectory(final File directory) {
+
+		if (directory == null ? spillDirectory == null : directory
+				.equals(spillDirectory)) {
+			return;
+		}
+		deleteSpillFiles();
+		spillDirectory = directory;
+		spilling = directory != null;
+
+	}
+
+	/**
+	 * <p>Remove all payloads from the cache and delete any spill files.</p>
+	 * 
+	 * <p>This has to be called if the payloads of the fuzzers change, e.g.
+	 * when a new fuzzers file is loaded.</p>
+	 */
+	public synchronized void clear() {
+
+		entries.clear();
+		chars = 0L;
+		deleteSpillFiles();
+		spilling = spillDirectory != null;
+
+	}
+
+	/**
+	 * <p>Return the number of lookups that found the payload cached.</p>
+	 * 
+	 * @return long the number of hits
+	 */
+	public synchronized long getHitCount() {
+
+		return hits;
+
+	}
+
+	/**
+	 * <p>Return the number of lookups that had to encode the payload.</p>
+	 * 
+	 * @return long the number of misses
+	 */
+	public synchronized long getMissCount() {
+
+		return misses;
+
+	}
+
+	/**
+	 * <p>Return the number of payloads held in memory.</p>
+	 * 
+	 * @return int the number of payloads in memory
+	 */
+	public synchronized int size() {
+
+		return entries.size();
+
+	}
+
+	/**
+	 * <p>The key of a cached payload; the segment identifies the fuzzer and
+	 * transform chain, i.e. the spill file the payload is written to.</p>
+	 */
+	private static final class Key {
+
+		private final String segment;
+		private final long index;
+		private final int hash;
+
+		Key(final String prototypeId, final int length, final long index,
+				final String chainKey) {
+			segment = prototypeId + '\0' + length + '\0' + chainKey;
+			this.index = index;
+			hash = segment.hashCode() * 31 + (int) (index ^ (index >>> 32));
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			final Key other = (Key) obj;
+			return index == other.index && hash == other.hash
+					&& segment.equals(other.segment);
+		}
+
+	}
+
+	/**
+	 * <p>An append only file of encoded payloads, each written as its length
+	 * in bytes followed by its UTF-8 bytes, indexed by payload index.</p>
+	 * 
+	 * <p>Its methods are synchronized on the file, never taking the lock of
+	 * the cache.</p>
+	 */
+	private static final class SpillFile {
+
+		private final File file;
+		private final Map<Long, Long> offsets;
+		private RandomAccessFile raf;
+
+		SpillFile(final File file) throws IOException {
+			this.file = file;
+			file.deleteOnExit();
+			offsets = new HashMap<Long, Long>();
+			raf = new RandomAccessFile(file, "rw");
+		}
+
+		synchronized int write(final long index, final String value)
+				throws IOException {
+			if (raf == null || offsets.containsKey(Long.valueOf(index))) {
+				return 0;
+			}
+			final byte[] bytes = value.getBytes(UTF8);
+			final long offset = raf.length();
+			raf.seek(offset);
+			raf.writeInt(bytes.length);
+			raf.write(bytes);
+			offsets.put(Long.valueOf(index), Long.valueOf(offset));
+			return bytes.length + 4;
+		}
+
+		synchronized String read(final long index) throws IOException {
+			final Long offset = offsets.get(Long.valueOf(index));
+			if (raf == null || offset == null) {
+				return null;
+			}
+			raf.seek(offset.longValue());
+			final int length = raf.readInt();
+			if (length < 0 || offset.longValue() + 4 + length > raf.length()) {
+				throw new IOException("Entry of " + length + " bytes at "
+						+ offset + " past the end of " + file.getName());
+			}
+			final byte[] bytes = new byte[length];
+			raf.readFully(bytes);
+			return new String(bytes, UTF8);
+		}
+
+		synchronized void delete() {
+			try {
+				if (raf != null) {
+					raf.close();
+				}
+			} catch (final IOException e) {
+				Logger.log("Encoded payload cache: cannot close "
+						+ file.getName(), 2);
+			}
+			raf = null;
+			if (!file.delete()) {
+				Logger.log("Encoded payload cache: cannot delete "
+						+ file.getName(), 2);
+			}
+		}
+
+	}
+
+}
@@ -102,6 +102,37 @@ public class EncoderHashCore {
 		"UUencoder: Uuencoding is a form of binary-to-text encoding that originated in the Unix program uuencode, for encoding binary data for transmission over the uucp mail system."
 	};
 	
+	// One message digest per algorithm and thread, created on first use
+	private static final DigestHolder MD5 = new DigestHolder("MD5");
+	private static final DigestHolder SHA1 = new DigestHolder("SHA-1");
+	private static final DigestHolder SHA256 = new DigestHolder("SHA-256");
+	private static final DigestHolder SHA384 = new DigestHolder("SHA-384");
+	private static final DigestHolder SHA512 = new DigestHolder("SHA-512");
+	
+	/**
+	 * <p>A thread-local message digest; digest() resets the instance, so it
+	 * can be reused for every hash computed on the same thread.</p>
+	 * 
+	 * @since 2.5
+	 */
+	private static final class DigestHolder extends ThreadLocal<MessageDigest> {
+		
+		private final String algorithm;
+		
+		private DigestHolder(final String algorithm) {
+			this.algorithm = algorithm;
+		}
+		
+		@Override
+		protected MessageDigest initialValue() {
+			try {
+				return MessageDigest.getInstance(algorithm);
+			} catch (final NoSuchAlgorithmException e) {
+				return null;
+			}
+		}
+	}
+	
 	public static boolean isDecoded(final String type) {
 		for (int i=0; i<IS_DECODABLE.length; i++)
 			if (type.equalsIgnoreCase(IS_DECODABLE[i])) {
@@ -319,66 +350,102 @@ public class EncoderHashCore {
 	}
 	
 	public static String encode(final String encodeText, final String type) {
-		if (type.equalsIgnoreCase("Plain Text"))
+		return encode(encodeText, indexOfCode(type));
+	}
+	
+	/**
+	 * <p>Return the index of a code within {@link #CODES}, ignoring case.</p>
+	 * 
+	 * <p>Resolving the index once and calling {@link #encode(String, int)} 
+	 * avoids the string comparisons on every encoding.</p>
+	 * 
+	 * @param type the code, e.g. "SHA-1 Hash"
+	 * @return int the index of the code, or -1 if it is not a valid code
+	 * 
+	 * @since 2.5
+	 */
+	public static int indexOfCode(final String type) {
+		for (int i = 0; i < CODES.length; i++) {
+			if (CODES[i].equalsIgnoreCase(type)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+	
+	/**
+	 * <p>Encode a String, using the code at the given index within 
+	 * {@link #CODES}.</p>
+	 * 
+	 * @param encodeText the text to encode
+	 * @param code the index of the code, as returned by indexOfCode
+	 * @return String the encoded text
+	 * 
+	 * @since 2.5
+	 */
+	public static String encode(final String encodeText, final int code) {
+		switch (code) {
+		case 0: // Plain Text
 			return encodeText;
-		else if (type.equalsIgnoreCase("URL Cp1252"))
-			return encodeUrlWindows1252(encodeText);	
-		else if (type.equalsIgnoreCase("URL UTF-8"))
+		case 1: // URL Cp1252
+			return encodeUrlWindows1252(encodeText);
+		case 2: // URL UTF-8
 			return encodeUrlUtf8(encodeText);
-		else if (type.equalsIgnoreCase("URL UTF-16BE"))
+		case 3: // URL UTF-16BE
 			return encodeUrlUtf16BE(encodeText);
-		else if (type.equalsIgnoreCase("URL UTF-16LE"))
+		case 4: // URL UTF-16LE
 			return encodeUrlUtf16LE(encodeText);
-		else if (type.equalsIgnoreCase("Double URL Cp1252"))
-			return encodeUrlWindows1252(encodeUrlWindows1252(encodeText));	
-		else if (type.equalsIgnoreCase("Double URL UTF-8"))
+		case 5: // Double URL Cp1252
+			return encodeUrlWindows1252(encodeUrlWindows1252(encodeText));
+		case 6: // Double URL UTF-8
 			return encodeUrlUtf8(encodeUrlUtf8(encodeText));
-		else if (type.equalsIgnoreCase("Double URL UTF-16BE"))
+		case 7: // Double URL UTF-16BE
 			return encodeUrlUtf16BE(encodeUrlUtf16BE(encodeText));
-		else if (type.equalsIgnoreCase("Double URL UTF-16LE"))
+		case 8: // Double URL UTF-16LE
 			return encodeUrlUtf16LE(encodeUrlUtf16LE(encodeText));
-		else if (type.equalsIgnoreCase("Base64"))
+		case 9: // Base64
 			return encodeBase64(encodeText);
-		else if (type.equalsIgnoreCase("Base32"))
+		case 10: // Base32
 			return encodeBase32(encodeText);
-		else if (type.equalsIgnoreCase("Z-Base32"))
+		case 11: // Z-Base32
 			return encodeZBase32(encodeText);
-		else if (type.equalsIgnoreCase("MD5 Hash"))
+		case 12: // MD5 Hash
 			return encodeMd5Hash(encodeText);
-		else if (type.equalsIgnoreCase("SHA-1 Hash"))			
+		case 13: // SHA-1 Hash
 			return encodeSha1Hash(encodeText);
-		else if (type.equalsIgnoreCase("SHA-256 Hash"))
+		case 14: // SHA-256 Hash
 			return encodeSha256Hash(encodeText);
-		else if (type.equalsIgnoreCase("SHA-384 Hash"))
+		case 15: // SHA-384 Hash
 			return encodeSha384Hash(encodeText);
-		else if (type.equalsIgnoreCase("SHA-512 Hash"))
+		case 16: // SHA-512 Hash
 			return encodeSha512Hash(encodeText);
-		else if (type.equalsIgnoreCase("Hexadecimal (low)"))
+		case 17: // Hexadecimal (low)
 			return encodeHexLow(encodeText);
-		else if (type.equalsIgnoreCase("Hexadecimal (UPP)"))
+		case 18: // Hexadecimal (UPP)
 			return encodeHexUpp(encodeText);
-		else if (type.equalsIgnoreCase("Binary"))
+		case 19: // Binary
 			return encodeBinary(encodeText);
-		else if (type.equalsIgnoreCase("www-form-urlencoded"))
+		case 20: // www-form-urlencoded
 			return encodeUrlCodec(encodeText);
-		else if (type.equalsIgnoreCase("RFC 1521 MIME (eMail)"))
+		case 21: // RFC 1521 MIME (eMail)
 			return encodeRfc1521(encodeText);
-		else if (type.equalsIgnoreCase("Escape: HTML"))
+		case 22: // Escape: HTML
 			return encodeEscHtml(encodeText);
-		else if (type.equalsIgnoreCase("Escape: CSV"))
+		case 23: // Escape: CSV
 			return encodeEscCsv(encodeText);
-		else if (type.equalsIgnoreCase("Escape: Java"))
+		case 24: // Escape: Java
 			return encodeEscJava(encodeText);
-		else if (type.equalsIgnoreCase("Escape: JavaScript"))
+		case 25: // Escape: JavaScript
 			return encodeEscJavaScript(encodeText);
-		else if (type.equalsIgnoreCase("Escape: SQL"))
+		case 26: // Escape: SQL
 			return encodeEscSql(encodeText);
-		else if (type.equalsIgnoreCase("Escape: XML"))
+		case 27: // Escape: XML
 			return encodeEscXml(encodeText);
-		else if (type.equalsIgnoreCase("UUencode"))
+		case 28: // UUencode
 			return encodeUU(encodeText);
-		else
+		default:
 			return "Error: Encoding type not found...";
+		}
 	}
 	
 	private static String encodeUU(final String encodeText){
@@ -447,14 +514,13 @@ public class EncoderHashCore {
 	
 	// Encode MD5 Hash
 	private static String encodeMd5Hash(final String encodeText) {
-		try {
-			final MessageDigest md5 = MessageDigest.getInstance("MD5");
-			md5.update(encodeText.getBytes(), 0, encodeText.length());
-			final byte[] hash = md5.digest();
-			return new String(Hex.encodeHex(hash)).toUpperCase();
-		} catch (final NoSuchAlgorithmException e1) {
+		final MessageDigest md5 = MD5.get();
+		if (md5 == null) {
 			return "Error: MD5 could not be found...";
 		}
+		md5.update(encodeText.getBytes(), 0, encodeText.length());
+		final byte[] hash = md5.digest();
+		return new String(Hex.encodeHex(hash)).toUpperCase();
 	}
 	
 	// Encode RFC 1521 MIME (Multipurpose Internet Mail Extensions) 
@@ -470,50 +536,46 @@ public class EncoderHashCore {
 	
 	// Encode SHA-1 Hash
 	private static String encodeSha1Hash(final String encodeText) {
-		try {
-			final MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
-			sha1.update(encodeText.getBytes(), 0, encodeText.length());
-			final byte[] hash = sha1.digest();
-			return new String(Hex.encodeHex(hash)).toUpperCase();
-		} catch (final NoSuchAlgorithmException e1) {
+		final MessageDigest sha1 = SHA1.get();
+		if (sha1 == null) {
 			return "Error: SHA-1 could not be found...";
 		}
+		sha1.update(encodeText.getBytes(), 0, encodeText.length());
+		final byte[] hash = sha1.digest();
+		return new String(Hex.encodeHex(hash)).toUpperCase();
 	}
 	
 	// Encode SHA-256 Hash
 	private static String encodeSha256Hash(final String encodeText) {
-		try {
-			final MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
-			sha256.update(encodeText.getBytes(), 0, encodeText.length());
-			final byte[] hash = sha256.digest();
-			return new String(Hex.encodeHex(hash)).toUpperCase();
-		} catch (final NoSuchAlgorithmException e1) {
+		final MessageDigest sha256 = SHA256.get();
+		if (sha256 == null) {
 			return "Error: SHA-256 could not be found...";
 		}
+		sha256.update(encodeText.getBytes(), 0, encodeText.length());
+		final byte[] hash = sha256.digest();
+		return new String(Hex.encodeHex(hash)).toUpperCase();
 	}
 	
 	// Encode SHA-384 Hash
 	private static String encodeSha384Hash(final String encodeText) {
-		try {
-			final MessageDigest sha384 = MessageDigest.getInstance("SHA-384");
-			sha384.update(encodeText.getBytes(), 0, encodeText.length());
-			final byte[] hash = sha384.digest();
-			return new String(Hex.encodeHex(hash)).toUpperCase();
-		} catch (final NoSuchAlgorithmException e1) {
+		final MessageDigest sha384 = SHA384.get();
+		if (sha384 == null) {
 			return "Error: SHA-384 could not be found...";
 		}
+		sha384.update(encodeText.getBytes(), 0, encodeText.length());
+		final byte[] hash = sha384.digest();
+		return new String(Hex.encodeHex(hash)).toUpperCase();
 	}
 	
 	// Encode SHA-512 Hash
 	private static String encodeSha512Hash(final String encodeText) {
-		try {
-			final MessageDigest sha512 = MessageDigest.getInstance("SHA-512");
-			sha512.update(encodeText.getBytes(), 0, encodeText.length());
-			final byte[] hash = sha512.digest();
-			return new String(Hex.encodeHex(hash)).toUpperCase();
-		} catch (final NoSuchAlgorithmException e1) {
+		final MessageDigest sha512 = SHA512.get();
+		if (sha512 == null) {
 			return "Error: SHA-512 could not be found...";
 		}
+		sha512.update(encodeText.getBytes(), 0, encodeText.length());
+		final byte[] hash = sha512.digest();
+		return new String(Hex.encodeHex(hash)).toUpperCase();
 	}
 	
 	// Encode www-form-url
@@ -563,30 +625,29 @@ public class EncoderHashCore {
 		}
 	}
 
+	/**
+	 * <p>Apply the transforms of a table model to a payload, in order.</p>
+	 * 
+	 * <p>The transforms are compiled on every call; when encoding many 
+	 * payloads with the same transforms, compile a {@link TransformChain}
+	 * once and apply it to each payload instead.</p>
+	 * 
+	 * @param payload the payload
+	 * @param encoding the transforms to apply
+	 * @return String the transformed payload
+	 */
 	public static String encodeMany(String payload, TransformsTableModel encoding) {
-		String encoded = payload;
-		String payloadTemp;
-		for(int i=0;i<encoding.getRowCount();i++){
-			
-			String encoder = encoding.getRow(i).getEncoder();
-			String pom = timeControl(encoding.getRow(i).getPrefixOrMatch());
-			String sor = timeControl(encoding.getRow(i).getSuffixOrReplace());
-			
-			if(encoder.equals("Match & Replace")){
-				// match and replace
-				payloadTemp = matchAndReplace(pom, sor, encoded);
-			}else if(encoder.equals("Prefix & Suffix")){
-				// prefix and suffix
-				payloadTemp = prefixAndSuffix(pom, sor, encoded);
-			}else{
-				payloadTemp = encode(encoded, encoder);
-			}
-			encoded = payloadTemp;
-		}
-		return encoded;
+		return TransformChain.compile(encoding).apply(payload);
 	}
 	
-	private static String timeControl(String in) {
+	/**
+	 * <p>Return the current time, if the prefix/suffix/match/replace value is
+	 * the "Epoch Time" time control, or the value itself otherwise.</p>
+	 * 
+	 * @param in the user defined value
+	 * @return String the value to use
+	 */
+	static String timeControl(String in) {
 		// check to see if the prefix/suffix/match/replace is user defined or a time related control
 		//   "Epoch Time"   or   "DateFormat Time"
 		if(in.equals("Epoch Time")){
@@ -600,13 +661,4 @@ public class EncoderHashCore {
 		}
 
 	}
-
-	private static String matchAndReplace(String match, String replace, String input){
-		return input.replaceAll(match, replace);
-		
-	}
-	
-	private static String prefixAndSuffix(String prefix, String suffix, String input){
-		return prefix+input+suffix;
-	}
 }
@@ -0,0 +1,264 @@
+/**
+ * JbroFuzz 2.5
+ *
+ * JBroFuzz - A stateless network protocol fuzzer for web applications.
+ * 
+ * Copyright (C) 2007 - 2010 subere@uncon.org
+ *
+ * This file is part of JBroFuzz.
+ * 
+ * JBroFuzz is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * JBroFuzz is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with JBroFuzz.  If not, see <http://www.gnu.org/licenses/>.
+ * Alternatively, write to the Free Software Foundation, Inc., 51 
+ * Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Verbatim copying and distribution of this entire program file is 
+ * permitted in any medium without royalty provided this notice 
+ * is preserved. 
+ * 
+ */
+package org.owasp.jbrofuzz.encode;
+
+import java.util.regex.Pattern;
+
+import org.owasp.jbrofuzz.fuzz.ui.TransformsRow;
+import org.owasp.jbrofuzz.fuzz.ui.TransformsTableModel;
+
+/**
+ * <p>
+ * An immutable chain of transforms, compiled once from the rows of a
+ * TransformsTableModel and then applied to every payload of a fuzzer.
+ * </p>
+ * 
+ * <p>
+ * Compiling resolves each encoder name to its {@link Codec}, precompiles 
+ * the regular expression of each "Match & Replace" row and notes which 
+ * values are time controls, so that applying the chain does no string based
+ * dispatch and no regular expression compilation. A chain is safe to share between
+ * threads.
+ * </p>
+ * 
+ * @see EncoderHashCore#encodeMany(String, TransformsTableModel)
+ * @version 2.5
+ * @since 2.5
+ */
+public final class TransformChain {
+
+	private static final String MATCH_REPLACE = "Match & Replace";
+
+	private static final String PREFIX_SUFFIX = "Prefix & Suffix";
+
+	private static final String EPOCH_TIME = "Epoch Time";
+
+	private static final TransformChain EMPTY = new TransformChain(
+			new Transform[0], "", false);
+
+	private final Transform[] transforms;
+
+	private final String key;
+
+	private final boolean cacheable;
+
+	private TransformChain(final Transform[] transforms, final String key,
+			final boolean cacheable) {
+
+		this.transforms = transforms;
+		this.key = key;
+		this.cacheable = cacheable;
+
+	}
+
+	/**
+	 * <p>Compile the rows of a transforms table model into a chain.</p>
+	 * 
+	 * @param model the transforms, in the order they are applied
+	 * @return TransformChain the compiled chain
+	 * @throws java.util.regex.PatternSyntaxException if a "Match & Replace" 
+	 *         row has an invalid regular expression
+	 */
+	public static TransformChain compile(final TransformsTableModel model) {
+
+		final int count = model.getRowCount();
+		if (count == 0) {
+			return EMPTY;
+		}
+		final Transform[] transforms = new Transform[count];
+		final StringBuilder key = new StringBuilder();
+		boolean cacheable = true;
+		for (int i = 0; i < count; i++) {
+			final TransformsRow row = model.getRow(i);
+			transforms[i] = compile(row);
+			key.append(row.getEncoder()).append('\0');
+			key.append(row.getPrefixOrMatch()).append('\0');
+			key.append(row.getSuffixOrReplace()).append('\n');
+			cacheable &= !isTimeControl(row.getPrefixOrMatch())
+					&& !isTimeControl(row.getSuffixOrReplace());
+		}
+		return new TransformChain(transforms, key.toString(), cacheable);
+
+	}
+
+	private static Transform compile(final TransformsRow row) {
+
+		final String encoder = row.getEncoder();
+		final String pom = row.getPrefixOrMatch();
+		final String sor = row.getSuffixOrReplace();
+
+		if (MATCH_REPLACE.equals(encoder)) {
+			return new MatchReplace(pom, sor);
+		}
+		if (PREFIX_SUFFIX.equals(encoder)) {
+			return new PrefixSuffix(pom, sor);
+		}
+		return new Encode(Codecs.get(encoder));
+
+	}
+
+	/**
+	 * <p>Apply the chain to a payload.</p>
+	 * 
+	 * @param payload the payload
+	 * @return String the transformed payload
+	 */
+	public String apply(final String payload) {
+
+		String encoded = payload;
+		for (final Transform transform : transforms) {
+			encoded = transform.apply(encoded);
+		}
+		return encoded;
+
+	}
+
+	/**
+	 * <p>Return the number of transforms in the chain.</p>
+	 * 
+	 * @return int the number of transforms
+	 */
+	public int size() {
+
+		return transforms.length;
+
+	}
+
+	/**
+	 * <p>Return a key identifying the transforms of this chain: two chains
+	 * with equal keys give the same output for the same payload.</p>
+	 * 
+	 * @return String the key of the chain
+	 */
+	public String getKey() {
+
+		return key;
+
+	}
+
+	/**
+	 * <p>Return true if the output of this chain only depends on the payload,
+	 * so that it can be cached; this is not the case for an empty chain, or
+	 * for a chain using time controls.</p>
+	 * 
+	 * @return boolean true if the output of the chain can be cached
+	 */
+	public boolean isCacheable() {
+
+		return cacheable;
+
+	}
+
+	private static boolean isTimeControl(final String value) {
+
+		return EPOCH_TIME.equals(value);
+
+	}
+
+	/**
+	 * <p>A single compiled transform.</p>
+	 */
+	private interface Transform {
+
+		String apply(String input);
+
+	}
+
+	/**
+	 * <p>One of the codes of EncoderHashCore, resolved to its codec.</p>
+	 */
+	private static final class Encode implements Transform {
+
+		private final Codec codec;
+
+		Encode(final Codec codec) {
+			this.codec = codec;
+		}
+
+		public String apply(final String input) {
+			if (codec == null) {
+				return "Error: Encoding type not found...";
+			}
+			return codec.encode(input);
+		}
+
+	}
+
+	/**
+	 * <p>"Match & Replace", with the same semantics as String.replaceAll.</p>
+	 */
+	private static final class MatchReplace implements Transform {
+
+		private final Pattern pattern;
+		private final String match;
+		private final String replace;
+
+		MatchReplace(final String match, final String replace) {
+			this.match = match;
+			this.replace = replace;
+			// A time control matches a different value on every call
+			pattern = isTimeControl(match) ? null : Pattern.compile(match);
+		}
+
+		public String apply(final String input) {
+			final Pattern p = pattern == null ? Pattern.compile(EncoderHashCore
+					.timeControl(match)) : pattern;
+			return p.matcher(input).replaceAll(
+					EncoderHashCore.timeControl(replace));
+		}
+
+	}
+
+	/**
+	 * <p>"Prefix & Suffix", concatenating the payload between the two.</p>
+	 */
+	private static final class PrefixSuffix implements Transform {
+
+		private final String prefix;
+		private final String suffix;
+		private final boolean timed;
+
+		PrefixSuffix(final String prefix, final String suffix) {
+			this.prefix = prefix;
+			this.suffix = suffix;
+			timed = isTimeControl(prefix) || isTimeControl(suffix);
+		}
+
+		public String apply(final String input) {
+			if (timed) {
+				return EncoderHashCore.timeControl(prefix) + input
+						+ EncoderHashCore.timeControl(suffix);
+			}
+			return prefix + input + suffix;
+		}
+
+	}
+
+}
@@ -45,26 +45,24 @@ public class ZBase32 {
 	 * z-base-32 alphabet
 	 * 	- ybndrfg8ejkmcpqxot1uwisza345h769
 	 */
-	private static char[] encoding = "ybndrfg8ejkmcpqxot1uwisza345h769".toCharArray();
-	private static byte[] decoding;
+	private static final char[] encoding = "ybndrfg8ejkmcpqxot1uwisza345h769".toCharArray();
+	private static final byte[] decoding = new byte[0x80];
 
-	public ZBase32() {
-		init();
-	}
-
-	private static void init() {
-		decoding = new byte[0x80];
+	// Build the decoding table once, rather than on every call
+	static {
 		for (int i = 0; i < encoding.length; i++) {
 			decoding[encoding[i]] = (byte) i;
 		}
 	}
 
+	public ZBase32() {
+	}
+
 	public static String encode(String in) {
 		return encode(in.getBytes());
 	}
 
 	public static String encode(final byte[] in) {
-		init();
 		final byte[] input         = in;
 		final StringBuilder output = new StringBuilder();
 
@@ -181,7 +179,6 @@ public class ZBase32 {
 	}
 
 	public static String decode(String in) {
-		init();
 		final String input = in;
 		final int expOrgSize = (int)Math.floor(input.length() / 1.6);
 		final int expPadSize = ((int)Math.ceil(expOrgSize / 5.0)) * 8;
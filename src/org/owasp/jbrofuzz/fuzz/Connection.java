@@ -29,8 +29,6 @@
  */
 package org.owasp.jbrofuzz.fuzz;
 
-import java.net.MalformedURLException;
-import java.net.URL;
 import java.security.KeyManagementException;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
@@ -40,6 +38,8 @@ import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLSocketFactory;
 import javax.net.ssl.TrustManager;
 
+import org.owasp.jbrofuzz.JBroFuzz;
+
 /**
  * Description: The class responsible for making the connection for the purposes
  * of fuzzing through the corresponding socket.
@@ -60,30 +60,68 @@ public class Connection {
 	public Connection(final String urlString, final String message)
 	throws ConnectionException {
 		
-		URL url;
-		try {
-			url = new URL(urlString);
-		} catch (final MalformedURLException e1) {
-			throw new ConnectionException("Malformed URL : " + e1.getMessage() + "\n");
-		}
-		final String protocol = url.getProtocol();
-		final String host = url.getHost();
-		int port = url.getPort();
-		// Allow only HTTP/S as protocols
-		if ((!protocol.equalsIgnoreCase("http"))
-				&& (!protocol.equalsIgnoreCase("https"))) {
-			throw new ConnectionException("Protocol is not http://, nor is it https://\n");
-		}
+		this(urlString, message, RunConfiguration.fromPreferences(JBroFuzz.PREFS));
+		
+	}
+	
+	/**
+	 * <p>
+	 * Connect and put the message on the wire, with the settings of the
+	 * given run, such as the socket timeout.
+	 * </p>
+	 * 
+	 * @param urlString The target URL
+	 * @param message The message to put on the wire
+	 * @param configuration The settings of the run
+	 * @throws ConnectionException
+	 * 
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	public Connection(final String urlString, final String message,
+			final RunConfiguration configuration) throws ConnectionException {
+		
+		this(Endpoint.parse(urlString), message, configuration);
+		
+	}
+	
+	/**
+	 * <p>
+	 * Connect to the given endpoint and put the message on the wire, with
+	 * the settings of the given run; the host is only looked up if the
+	 * endpoint has not been resolved.
+	 * </p>
+	 * 
+	 * @param endpoint The target, typically resolved once for the run
+	 * @param message The message to put on the wire
+	 * @param configuration The settings of the run
+	 * @throws ConnectionException
+	 * 
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	public Connection(final Endpoint endpoint, final String message,
+			final RunConfiguration configuration) throws ConnectionException {
+		
+		mainConnection = new SocketConnection(endpoint, message,
+				configuration.getSocketTimeout());
+	}
+
+	/**
+	 * <p>
+	 * Wrap a reply already read, e.g. off a connection shared with other
+	 * requests.
+	 * </p>
+	 * 
+	 * @param reply The request put on the wire and the reply read back
+	 * 
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	Connection(final SocketConnection reply) {
+		
+		mainConnection = reply;
 		
-		// Set default ports
-		if (protocol.equalsIgnoreCase("https") && (port == -1)) {
-			port = 443;
-		}
-		if (protocol.equalsIgnoreCase("http") && (port == -1)) {
-			port = 80;
-		}
-			
-		mainConnection = new SocketConnection(protocol, host, port, message);
 	}
 
 	public String getMessage() {
@@ -98,6 +136,25 @@ public class Connection {
 
 	}
 
+	/**
+	 * <p>
+	 * Return the reply with its body de-chunked and inflated, if sent
+	 * chunked or compressed, as the graphs and the output compare it; the
+	 * reply as sent otherwise.
+	 * </p>
+	 * 
+	 * @return String the decoded reply, of at most ResponseDecoder.MAX_SIZE
+	 *         bytes
+	 * 
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	public String getDecodedReply() {
+
+		return mainConnection.getDecodedReply();
+
+	}
+
 	public String getReply() {
 		
 		return mainConnection.getReply();
@@ -109,6 +166,23 @@ public class Connection {
 		
 	}
 
+	/**
+	 * <p>
+	 * Return the time taken by each phase of the connection: DNS, connect,
+	 * TLS handshake, write, time to first byte and download.
+	 * </p>
+	 * 
+	 * @return RequestTiming the timing of the connection
+	 * 
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	public RequestTiming getTiming() {
+		
+		return mainConnection.getTiming();
+		
+	}
+
 
 	/**
 	 * <p>
@@ -47,9 +47,57 @@ public class ConnectionException extends IOException {
 
 	private static final long serialVersionUID = 73278167420801202L;
 
+	private final transient RequestTiming timing;
+
 	public ConnectionException(final String message) {
 
+		this(message, null);
+
+	}
+
+	/**
+	 * <p>Create an exception that also carries the timing of the phases of
+	 * the connection, up to the point of failure.</p>
+	 * 
+	 * @param message the detail message
+	 * @param timing the timing of the connection, or null if unknown
+	 * 
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	public ConnectionException(final String message, final RequestTiming timing) {
+
 		super(message);
+		this.timing = timing;
+
+	}
+
+	/**
+	 * @return RequestTiming the timing of the failed connection, or null
+	 */
+	public RequestTiming getTiming() {
+
+		return timing;
+
+	}
+
+	/**
+	 * <p>Return true if the request failed before it was written out in
+	 * full, e.g. while looking up the host, connecting or during the TLS
+	 * handshake, so that the target cannot have acted upon it and it can
+	 * be sent again.</p>
+	 * 
+	 * <p>A request that timed out waiting for the reply is not retryable:
+	 * the payload may well be what the target is choking on.</p>
+	 * 
+	 * @return boolean true if the request can safely be retried
+	 * 
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	public boolean isRetryable() {
+
+		return (timing != null) && (timing.getMicros(RequestTiming.WRITE) < 0);
 
 	}
 
@@ -0,0 +1,233 @@
+/**
+ * JbroFuzz 2.5
+ *
+ * JBroFuzz - A stateless network protocol fuzzer for web applications.
+ * 
+ * Copyright (C) 2007 - 2010 subere@uncon.org
+ *
+ * This file is part of JBroFuzz.
+ * 
+ * JBroFuzz is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * JBroFuzz is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with JBroFuzz.  If not, see <http://www.gnu.org/licenses/>.
+ * Alternatively, write to the Free Software Foundation, Inc., 51 
+ * Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Verbatim copying and distribution of this entire program file is 
+ * permitted in any medium without royalty provided this notice 
+ * is preserved. 
+ * 
+ */
+package org.owasp.jbrofuzz.fuzz;
+
+import java.net.InetAddress;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+
+/**
+ * <p>
+ * The target of a request: the protocol, host and port of its URL and,
+ * once resolved, the address connected to.
+ * </p>
+ * 
+ * <p>
+ * An endpoint without an address is resolved by each connection made to
+ * it; one with an address connects to that address, while the host name
+ * is still used for the TLS handshake.
+ * </p>
+ * 
+ * <p>
+ * Besides HTTP and HTTPS, an endpoint can be a raw transport: tcp://,
+ * tls:// or udp://, followed by a host and a port, to which requests are
+ * sent as they are, without any of the HTTP rewrites.
+ * </p>
+ * 
+ * @version 2.5
+ * @since 2.5
+ */
+public final class Endpoint {
+
+	/**
+	 * <p>
+	 * The protocols of the raw transports.
+	 * </p>
+	 */
+	public static final String[] RAW_PROTOCOLS = { "tcp", "tls", "udp" };
+
+	private final String protocol;
+
+	private final String host;
+
+	private final int port;
+
+	private final InetAddress address;
+
+	private Endpoint(final String protocol, final String host,
+			final int port, final InetAddress address) {
+
+		this.protocol = protocol;
+		this.host = host;
+		this.port = port;
+		this.address = address;
+
+	}
+
+	/**
+	 * <p>
+	 * Read the protocol, host and port of an HTTP or HTTPS URL, the port
+	 * defaulting to that of the protocol, or of the URL of a raw transport,
+	 * which has to give its port.
+	 * </p>
+	 * 
+	 * @param urlString The URL
+	 * @return Endpoint the endpoint, not resolved
+	 * @throws ConnectionException if the URL is malformed or of none of
+	 *             the protocols above
+	 */
+	public static Endpoint parse(final String urlString)
+			throws ConnectionException {
+
+		if (isRaw(urlString)) {
+			return parseRaw(urlString);
+		}
+
+		URL url;
+		try {
+			url = new URL(urlString);
+		} catch (final MalformedURLException e1) {
+			throw new ConnectionException("Malformed URL : " + e1.getMessage() + "\n");
+		}
+		final String protocol = url.getProtocol().toLowerCase();
+		int port = url.getPort();
+		// Allow only HTTP/S as protocols
+		if ((!protocol.equals("http")) && (!protocol.equals("https"))) {
+			throw new ConnectionException("Protocol is not http://, https://, tcp://, tls:// nor udp://\n");
+		}
+
+		// Set default ports
+		if (port == -1) {
+			port = protocol.equals("https") ? 443 : 80;
+		}
+
+		return new Endpoint(protocol, url.getHost(), port, null);
+
+	}
+
+	private static Endpoint parseRaw(final String urlString)
+			throws ConnectionException {
+
+		final URI uri;
+		try {
+			uri = new URI(urlString.trim());
+		} catch (final URISyntaxException e) {
+			throw new ConnectionException("Malformed URL : " + e.getMessage() + "\n");
+		}
+		if ((uri.getHost() == null) || (uri.getPort() == -1)) {
+			throw new ConnectionException("A host and a port are needed, as in "
+					+ uri.getScheme() + "://host:port\n");
+		}
+		return new Endpoint(uri.getScheme().toLowerCase(), uri.getHost(), uri
+				.getPort(), null);
+
+	}
+
+	/**
+	 * <p>
+	 * Tell whether a URL is that of a raw transport, without parsing it.
+	 * </p>
+	 * 
+	 * @param url The URL
+	 * @return boolean true for tcp://, tls:// and udp://
+	 */
+	public static boolean isRaw(final String url) {
+
+		for (final String protocol : RAW_PROTOCOLS) {
+			if (url.regionMatches(true, 0, protocol, 0, protocol.length())
+					&& url.startsWith("://", protocol.length())) {
+				return true;
+			}
+		}
+		return false;
+
+	}
+
+	/**
+	 * <p>
+	 * Return this endpoint, connecting to the given address.
+	 * </p>
+	 * 
+	 * @param resolved The address of the host
+	 * @return Endpoint the resolved endpoint
+	 */
+	public Endpoint resolve(final InetAddress resolved) {
+
+		return new Endpoint(protocol, host, port, resolved);
+
+	}
+
+	/**
+	 * @return String "http", "https", "tcp", "tls" or "udp"
+	 */
+	public String getProtocol() {
+		return protocol;
+	}
+
+	public boolean isSecure() {
+		return protocol.equals("https") || protocol.equals("tls");
+	}
+
+	/**
+	 * @return boolean true for a raw transport, sent requests as they are
+	 */
+	public boolean isRaw() {
+		return !protocol.startsWith("http");
+	}
+
+	/**
+	 * @return boolean true for udp://
+	 */
+	public boolean isDatagram() {
+		return protocol.equals("udp");
+	}
+
+	public String getHost() {
+		return host;
+	}
+
+	public int getPort() {
+		return port;
+	}
+
+	/**
+	 * @return InetAddress the address to connect to, or null if it is to be
+	 * looked up by each connection
+	 */
+	public InetAddress getAddress() {
+		return address;
+	}
+
+	/**
+	 * @return String the host and port, as host:port
+	 */
+	public String getTarget() {
+		return host.toLowerCase() + ':' + port;
+	}
+
+	@Override
+	public String toString() {
+		return protocol + "://" + host + ':' + port
+				+ (address == null ? "" : " (" + address.getHostAddress() + ")");
+	}
+
+}
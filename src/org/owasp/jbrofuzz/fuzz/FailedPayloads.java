@@ -0,0 +1,211 @@
+/**
+ * JbroFuzz 2.5
+ *
+ * JBroFuzz - A stateless network protocol fuzzer for web applications.
+ * 
+ * Copyright (C) 2007 - 2010 subere@uncon.org
+ *
+ * This file is part of JBroFuzz.
+ * 
+ * JBroFuzz is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * JBroFuzz is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with JBroFuzz.  If not, see <http://www.gnu.org/licenses/>.
+ * Alternatively, write to the Free Software Foundation, Inc., 51 
+ * Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Verbatim copying and distribution of this entire program file is 
+ * permitted in any medium without royalty provided this notice 
+ * is preserved. 
+ * 
+ */
+package org.owasp.jbrofuzz.fuzz;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * <p>
+ * The payloads of a run that got no reply, even once retried, by their
+ * position within each series of the run and the target they were sent
+ * to, so that they can be sent again to those targets in a later run of
+ * the same fuzzers.
+ * </p>
+ * 
+ * <p>
+ * Series 0 is a fuzz list, iterating through all the fuzzers together;
+ * series 1, 2, ... are the fuzzers run in turn, in the order of the fuzzers
+ * table.
+ * </p>
+ * 
+ * @version 2.5
+ * @since 2.5
+ */
+public class FailedPayloads {
+
+	/**
+	 * <p>
+	 * The name of the file written to the session directory.
+	 * </p>
+	 */
+	public static final String FILE_NAME = "failed.txt";
+
+	// The targets each payload failed against, by series and position
+	private final SortedMap<Integer, SortedMap<Long, BitSet>> failed =
+		new TreeMap<Integer, SortedMap<Long, BitSet>>();
+
+	private int size;
+
+	/**
+	 * <p>
+	 * Record the payload at the given position of a series as failed
+	 * against the only target of a run.
+	 * </p>
+	 * 
+	 * @param series The series, 0 for a fuzz list
+	 * @param index The position of the payload within the series
+	 */
+	public void add(final int series, final long index) {
+
+		add(series, index, 0);
+
+	}
+
+	/**
+	 * <p>
+	 * Record the payload at the given position of a series as failed
+	 * against the given target.
+	 * </p>
+	 * 
+	 * @param series The series, 0 for a fuzz list
+	 * @param index The position of the payload within the series
+	 * @param target The target, in the order of the targets of the run
+	 */
+	public synchronized void add(final int series, final long index,
+			final int target) {
+
+		SortedMap<Long, BitSet> indices = failed.get(Integer.valueOf(series));
+		if (indices == null) {
+			indices = new TreeMap<Long, BitSet>();
+			failed.put(Integer.valueOf(series), indices);
+		}
+		BitSet targets = indices.get(Long.valueOf(index));
+		if (targets == null) {
+			targets = new BitSet();
+			indices.put(Long.valueOf(index), targets);
+		}
+		if (!targets.get(target)) {
+			targets.set(target);
+			size++;
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Return true if the payload at the given position of a series failed
+	 * against the given target.
+	 * </p>
+	 * 
+	 * @param series The series, 0 for a fuzz list
+	 * @param index The position of the payload within the series
+	 * @param target The target, in the order of the targets of the run
+	 * @return boolean true if it got no reply from that target
+	 */
+	public synchronized boolean contains(final int series, final long index,
+			final int target) {
+
+		final SortedMap<Long, BitSet> indices = failed.get(Integer.valueOf(series));
+		if (indices == null) {
+			return false;
+		}
+		final BitSet targets = indices.get(Long.valueOf(index));
+		return (targets != null) && targets.get(target);
+
+	}
+
+	/**
+	 * <p>
+	 * Return the positions of the failed payloads of a series, in order,
+	 * whichever targets they failed against.
+	 * </p>
+	 * 
+	 * @param series The series, 0 for a fuzz list
+	 * @return long[] the positions, empty if none failed
+	 */
+	public synchronized long[] get(final int series) {
+
+		final SortedMap<Long, BitSet> indices = failed.get(Integer.valueOf(series));
+		if (indices == null) {
+			return new long[0];
+		}
+		final long[] output = new long[indices.size()];
+		int i = 0;
+		for (final Long index : indices.keySet()) {
+			output[i++] = index.longValue();
+		}
+		return output;
+
+	}
+
+	public synchronized int size() {
+		return size;
+	}
+
+	public synchronized boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * <p>
+	 * Write the failed payloads to the given file, as returned by
+	 * toString().
+	 * </p>
+	 * 
+	 * @param file The file, typically FILE_NAME in the session directory
+	 * @throws IOException if the file cannot be written
+	 */
+	public void write(final File file) throws IOException {
+
+		FileUtils.writeStringToFile(file, toString(), "UTF-8");
+
+	}
+
+	/**
+	 * <p>
+	 * Return one line per failed request, with the series and position of
+	 * its payload and its target separated by spaces.
+	 * </p>
+	 */
+	@Override
+	public synchronized String toString() {
+
+		final StringBuffer output = new StringBuffer();
+		for (final Map.Entry<Integer, SortedMap<Long, BitSet>> entry : failed.entrySet()) {
+			for (final Map.Entry<Long, BitSet> index : entry.getValue().entrySet()) {
+				final BitSet targets = index.getValue();
+				for (int t = targets.nextSetBit(0); t >= 0; t = targets.nextSetBit(t + 1)) {
+					output.append(entry.getKey()).append(' ').append(index.getKey())
+							.append(' ').append(t).append('\n');
+				}
+			}
+		}
+		return output.toString();
+
+	}
+
+}
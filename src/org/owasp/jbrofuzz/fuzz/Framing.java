@@ -0,0 +1,359 @@
+/**
+ * JbroFuzz 2.5
+ *
+ * JBroFuzz - A stateless network protocol fuzzer for web applications.
+ * 
+ * Copyright (C) 2007 - 2010 subere@uncon.org
+ *
+ * This file is part of JBroFuzz.
+ * 
+ * JBroFuzz is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * JBroFuzz is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with JBroFuzz.  If not, see <http://www.gnu.org/licenses/>.
+ * Alternatively, write to the Free Software Foundation, Inc., 51 
+ * Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Verbatim copying and distribution of this entire program file is 
+ * permitted in any medium without royalty provided this notice 
+ * is preserved. 
+ * 
+ */
+package org.owasp.jbrofuzz.fuzz;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+
+/**
+ * <p>
+ * How the reply to a request sent over a raw transport (tcp://, tls://
+ * or udp://) is told apart from the next one: the end of the connection,
+ * a pause, a delimiter, a length prefix or a fixed size.
+ * </p>
+ * 
+ * <p>
+ * A framing is written as its kind, followed by a colon and its value
+ * for all but the first:
+ * </p>
+ * <ul>
+ * <li>close: read until the target closes the connection</li>
+ * <li>idle:250 read until nothing comes for 250 ms after the request, or
+ * after the last byte; a reply may be empty</li>
+ * <li>delimiter:0d0a read up to and including the given bytes, in hex</li>
+ * <li>length:2 read a big-endian length of 1, 2 or 4 bytes, then as many
+ * bytes as it gives; the reply includes the length</li>
+ * <li>fixed:64 read exactly 64 bytes</li>
+ * </ul>
+ * 
+ * <p>
+ * Connections are kept open for the next request with any framing but
+ * close. Over udp://, a reply is a single datagram, or with idle the
+ * datagrams received until the pause.
+ * </p>
+ * 
+ * @version 2.5
+ * @since 2.5
+ */
+public final class Framing {
+
+	public static final int CLOSE = 0;
+
+	public static final int IDLE = 1;
+
+	public static final int DELIMITER = 2;
+
+	public static final int LENGTH = 3;
+
+	public static final int FIXED = 4;
+
+	/**
+	 * <p>
+	 * The names of the kinds of framing, as written.
+	 * </p>
+	 */
+	public static final String[] KINDS = { "close", "idle", "delimiter",
+			"length", "fixed" };
+
+	/**
+	 * <p>
+	 * The framing of a run that does not set one.
+	 * </p>
+	 */
+	public static final String DEFAULT = "idle:250";
+
+	private final int kind;
+
+	// The pause in ms, the length of the prefix or the size of the reply
+	private final int value;
+
+	private final byte[] delimiter;
+
+	private Framing(final int kind, final int value, final byte[] delimiter) {
+
+		this.kind = kind;
+		this.value = value;
+		this.delimiter = delimiter;
+
+	}
+
+	/**
+	 * <p>
+	 * Read a framing, as written by toString().
+	 * </p>
+	 * 
+	 * @param spec The framing, e.g. "delimiter:0a"
+	 * @return Framing the framing
+	 * @throws IllegalArgumentException if the framing cannot be read
+	 */
+	public static Framing parse(final String spec) {
+
+		final String text = spec.trim().toLowerCase();
+		final int colon = text.indexOf(':');
+		final String name = colon < 0 ? text : text.substring(0, colon);
+		final String argument = colon < 0 ? "" : text.substring(colon + 1)
+				.trim();
+
+		int kind = 0;
+		while ((kind < KINDS.length) && !KINDS[kind].equals(name)) {
+			kind++;
+		}
+		switch (kind) {
+		case CLOSE:
+			return new Framing(CLOSE, 0, null);
+		case IDLE:
+			return new Framing(IDLE, parsePositive(argument, 60000), null);
+		case DELIMITER:
+			return new Framing(DELIMITER, 0, parseHex(argument));
+		case LENGTH:
+			final int length = parsePositive(argument, 4);
+			if (length == 3) {
+				throw new IllegalArgumentException(
+						"A length prefix is of 1, 2 or 4 bytes");
+			}
+			return new Framing(LENGTH, length, null);
+		case FIXED:
+			return new Framing(FIXED, parsePositive(argument,
+					ResponseDecoder.MAX_SIZE), null);
+		default:
+			throw new IllegalArgumentException("Unknown framing: " + spec);
+		}
+
+	}
+
+	private static int parsePositive(final String argument, final int max) {
+
+		final int value;
+		try {
+			value = Integer.parseInt(argument);
+		} catch (final NumberFormatException e) {
+			throw new IllegalArgumentException("Not a number: " + argument);
+		}
+		if ((value < 1) || (value > max)) {
+			throw new IllegalArgumentException("Not between 1 and " + max
+					+ ": " + argument);
+		}
+		return value;
+
+	}
+
+	private static byte[] parseHex(final String argument) {
+
+		if ((argument.length() == 0) || (argument.length() % 2 != 0)) {
+			throw new IllegalArgumentException("Not a delimiter in hex: "
+					+ argument);
+		}
+		final byte[] bytes = new byte[argument.length() / 2];
+		for (int i = 0; i < bytes.length; i++) {
+			final int high = Character.digit(argument.charAt(2 * i), 16);
+			final int low = Character.digit(argument.charAt(2 * i + 1), 16);
+			if ((high < 0) || (low < 0)) {
+				throw new IllegalArgumentException("Not a delimiter in hex: "
+						+ argument);
+			}
+			bytes[i] = (byte) ((high << 4) | low);
+		}
+		return bytes;
+
+	}
+
+	public int getKind() {
+		return kind;
+	}
+
+	/**
+	 * @return int the pause that ends a reply, in ms, if the kind is IDLE
+	 */
+	public int getIdle() {
+		return kind == IDLE ? value : 0;
+	}
+
+	/**
+	 * @return boolean true if a connection can be used again once the
+	 *         reply is read
+	 */
+	public boolean isReusable() {
+		return kind != CLOSE;
+	}
+
+	/**
+	 * <p>
+	 * Read a reply off a connected socket, up to ResponseDecoder.MAX_SIZE
+	 * bytes, marking the time of its first byte.
+	 * </p>
+	 * 
+	 * @param socket The socket, its timeout set to that of the run
+	 * @param in The stream of the socket, buffered
+	 * @param marks The marks of the request, as taken by RequestTiming
+	 * @return byte[] the reply
+	 * @throws IOException if the reply cannot be read in full, or if it is
+	 *             larger than ResponseDecoder.MAX_SIZE bytes when the framing
+	 *             gives its end
+	 */
+	byte[] read(final Socket socket, final InputStream in, final long[] marks)
+			throws IOException {
+
+		final ByteArrayOutputStream reply = new ByteArrayOutputStream();
+
+		switch (kind) {
+		case CLOSE:
+			readUntilEnd(in, reply, marks);
+			break;
+
+		case IDLE:
+			final int timeout = socket.getSoTimeout();
+			socket.setSoTimeout(value);
+			try {
+				readUntilEnd(in, reply, marks);
+			} catch (final SocketTimeoutException e) {
+				// The pause that ends the reply
+			} finally {
+				socket.setSoTimeout(timeout);
+			}
+			break;
+
+		case DELIMITER:
+			// The last bytes read, as many as in the delimiter
+			final byte[] tail = new byte[delimiter.length];
+			for (int count = 1;; count++) {
+				System.arraycopy(tail, 1, tail, 0, tail.length - 1);
+				tail[tail.length - 1] = (byte) readByte(in, reply, marks);
+				if ((count >= tail.length) && Arrays.equals(tail, delimiter)) {
+					break;
+				}
+			}
+			break;
+
+		case LENGTH:
+			long length = 0L;
+			for (int i = 0; i < value; i++) {
+				length = (length << 8) | readByte(in, reply, marks);
+			}
+			readFully(in, reply, length, marks);
+			break;
+
+		default:
+			readFully(in, reply, value, marks);
+		}
+
+		return reply.toByteArray();
+
+	}
+
+	private static void readUntilEnd(final InputStream in,
+			final ByteArrayOutputStream reply, final long[] marks)
+			throws IOException {
+
+		final byte[] buffer = new byte[8192];
+		int got;
+		while ((got = in.read(buffer)) > -1) {
+			first(marks);
+			if (reply.size() < ResponseDecoder.MAX_SIZE) {
+				reply.write(buffer, 0, Math.min(got, ResponseDecoder.MAX_SIZE
+						- reply.size()));
+			}
+		}
+
+	}
+
+	private static void readFully(final InputStream in,
+			final ByteArrayOutputStream reply, final long length,
+			final long[] marks) throws IOException {
+
+		if (reply.size() + length > ResponseDecoder.MAX_SIZE) {
+			throw new IOException("Reply of " + length + " bytes");
+		}
+		final byte[] buffer = new byte[(int) Math.min(length, 8192L)];
+		long left = length;
+		while (left > 0L) {
+			final int got = in.read(buffer, 0, (int) Math.min(left,
+					buffer.length));
+			if (got < 0) {
+				throw new EOFException("Connection closed after "
+						+ (length - left) + " of " + length + " bytes");
+			}
+			first(marks);
+			reply.write(buffer, 0, got);
+			left -= got;
+		}
+
+	}
+
+	private static int readByte(final InputStream in,
+			final ByteArrayOutputStream reply, final long[] marks)
+			throws IOException {
+
+		final int b = in.read();
+		if (b < 0) {
+			throw new EOFException("Connection closed after " + reply.size()
+					+ " bytes");
+		}
+		first(marks);
+		if (reply.size() >= ResponseDecoder.MAX_SIZE) {
+			throw new IOException("Reply of over " + reply.size() + " bytes");
+		}
+		reply.write(b);
+		return b;
+
+	}
+
+	private static void first(final long[] marks) {
+
+		if (marks[RequestTiming.FIRST_BYTE + 1] == 0L) {
+			marks[RequestTiming.FIRST_BYTE + 1] = System.nanoTime();
+		}
+
+	}
+
+	@Override
+	public String toString() {
+
+		switch (kind) {
+		case CLOSE:
+			return KINDS[kind];
+		case DELIMITER:
+			final StringBuilder hex = new StringBuilder(KINDS[kind]).append(':');
+			for (final byte b : delimiter) {
+				hex.append(Character.forDigit((b >> 4) & 0xf, 16));
+				hex.append(Character.forDigit(b & 0xf, 16));
+			}
+			return hex.toString();
+		default:
+			return KINDS[kind] + ':' + value;
+		}
+
+	}
+
+}
@@ -0,0 +1,1018 @@
+/**
+ * JbroFuzz 2.5
+ *
+ * JBroFuzz - A stateless network protocol fuzzer for web applications.
+ * 
+ * Copyright (C) 2007 - 2010 subere@uncon.org
+ *
+ * This file is part of JBroFuzz.
+ * 
+ * JBroFuzz is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * JBroFuzz is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with JBroFuzz.  If not, see <http://www.gnu.org/licenses/>.
+ * Alternatively, write to the Free Software Foundation, Inc., 51 
+ * Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Verbatim copying and distribution of this entire program file is 
+ * permitted in any medium without royalty provided this notice 
+ * is preserved. 
+ * 
+ */
+package org.owasp.jbrofuzz.fuzz;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.owasp.jbrofuzz.fuzz.stats.EngineMetrics;
+import org.owasp.jbrofuzz.system.Logger;
+import org.owasp.jbrofuzz.system.Profiler;
+
+/**
+ * <p>
+ * The sender putting fuzzing requests on the wire, from a fixed number of
+ * threads.
+ * </p>
+ * 
+ * <p>
+ * Requests are handed over by a single producer, typically iterating through
+ * a fuzzer or a fuzz list. At most twice as many requests as there are
+ * threads are held at any one time, so that the producer blocks instead of
+ * queueing up an entire fuzzer in memory.
+ * </p>
+ * 
+ * <p>
+ * With a single thread, requests are sent one after the other, in the order
+ * in which they were handed over.
+ * </p>
+ * 
+ * <p>
+ * The requests to each target go through a RateController, which either
+ * keeps to the number of threads and the requests per second of the run, or
+ * adapts to the response times and errors of the target within them, and
+ * which suspends sending to a target that keeps failing.
+ * </p>
+ * 
+ * <p>
+ * A request that fails before reaching the target is retried, as many
+ * times as the run allows, after a random and growing delay. The callback
+ * only hears of the last attempt.
+ * </p>
+ * 
+ * <p>
+ * With pipelining, the requests handed over to the same URL are put on a
+ * single connection, as many at a time as the run allows, and their replies
+ * read back in order. A target that closes the connection or answers out of
+ * order within the first two replies gets one request per connection for
+ * the rest of the run; the requests left unanswered are sent that way.
+ * </p>
+ * 
+ * <p>
+ * An engine given a session of a Scheduler also waits for a permit from
+ * it before putting each request on the wire, so that the sessions running
+ * at the same time keep to a shared budget of connections.
+ * </p>
+ * 
+ * <p>
+ * Requests to tcp://, tls:// and udp:// URLs go over a RawTransport, one
+ * at a time on connections kept open between them, neither pipelined nor
+ * over HTTP/2.
+ * </p>
+ * 
+ * @version 2.5
+ * @since 2.5
+ */
+public class FuzzingEngine {
+
+	/**
+	 * <p>
+	 * The maximum number of threads an engine can be created with.
+	 * </p>
+	 */
+	public static final int MAX_THREADS = 16;
+
+	/**
+	 * <p>
+	 * The most requests that can be pipelined on a single connection.
+	 * </p>
+	 */
+	public static final int MAX_PIPELINE = 32;
+
+	/**
+	 * <p>
+	 * The most requests that can be sent at a time on a single HTTP/2
+	 * connection.
+	 * </p>
+	 */
+	public static final int MAX_STREAMS = 256;
+
+	/**
+	 * <p>
+	 * The time waited before the first retry of a request, in milliseconds,
+	 * give or take half of it.
+	 * </p>
+	 */
+	public static final long BACKOFF = 250L;
+
+	/**
+	 * <p>
+	 * The longest time waited before retrying a request, in milliseconds.
+	 * </p>
+	 */
+	public static final long MAX_BACKOFF = 8000L;
+
+	/**
+	 * <p>
+	 * Receives the outcome of each request sent, from the thread that sent it.
+	 * </p>
+	 */
+	public interface Callback {
+
+		void replied(MessageContainer message, Connection connection);
+
+		void failed(MessageContainer message, ConnectionException exception);
+
+	}
+
+	private final ExecutorService executor;
+
+	private final Semaphore slots;
+
+	private final int threads;
+
+	private final int pipeline;
+
+	// The requests waiting to be pipelined, in the order handed over
+	private final LinkedList<Request> pending;
+
+	// The targets found not to answer pipelined requests
+	private final Set<String> unpipelined;
+
+	private final int streams;
+
+	// The HTTP/2 connection to each target, guarded by itself
+	private final Map<String, Http2Connection> http2;
+
+	// The HTTP/2 connections to close once finished
+	private final List<Http2Connection> opened;
+
+	// The targets found not to speak HTTP/2
+	private final Set<String> plain;
+
+	private final int capacity;
+
+	private final RunConfiguration configuration;
+
+	private final EngineMetrics metrics;
+
+	private final ConcurrentMap<String, RateController> controllers;
+
+	// The controllers by URL, to avoid parsing the URL of every request
+	private final ConcurrentMap<String, RateController> controllersByURL;
+
+	private final Resolver resolver;
+
+	// The connections kept open to the targets of raw URLs
+	private final RawTransport raw;
+
+	// The session of the scheduler shared with other runs, if any
+	private final Scheduler.Session session;
+
+	private final Random random = new Random();
+
+	private final Object stopLock = new Object();
+
+	private volatile boolean stopped;
+
+	/**
+	 * <p>
+	 * Create an engine sending requests with the settings of the given run,
+	 * from as many threads as it specifies, between 1 and MAX_THREADS.
+	 * </p>
+	 * 
+	 * @param configuration The settings of the run
+	 */
+	public FuzzingEngine(final RunConfiguration configuration) {
+
+		this(configuration, new EngineMetrics());
+
+	}
+
+	/**
+	 * <p>
+	 * Create an engine as above, recording what it does in the given
+	 * metrics.
+	 * </p>
+	 * 
+	 * @param configuration The settings of the run
+	 * @param metrics The metrics to record requests, replies and errors in
+	 */
+	public FuzzingEngine(final RunConfiguration configuration,
+			final EngineMetrics metrics) {
+
+		this(configuration, metrics, null);
+
+	}
+
+	/**
+	 * <p>
+	 * Create an engine as above, also waiting for a permit of the given
+	 * session of a scheduler before putting each request on the wire.
+	 * </p>
+	 * 
+	 * @param configuration The settings of the run
+	 * @param metrics The metrics to record requests, replies and errors in
+	 * @param session The session of the scheduler, null to send requests
+	 *            within the limits of the run alone
+	 */
+	public FuzzingEngine(final RunConfiguration configuration,
+			final EngineMetrics metrics, final Scheduler.Session session) {
+
+		this.configuration = configuration;
+		this.session = session;
+		this.metrics = metrics;
+		this.threads = Math.max(1, Math.min(configuration.getThreads(), MAX_THREADS));
+
+		this.pipeline = configuration.isPipelined() ? configuration
+				.getPipeline() : 1;
+
+		this.streams = configuration.getStreams();
+
+		capacity = 2 * Math.max(this.threads * this.pipeline, this.streams);
+		slots = new Semaphore(capacity);
+		pending = new LinkedList<Request>();
+		unpipelined = Collections
+				.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+		http2 = new HashMap<String, Http2Connection>();
+		opened = new ArrayList<Http2Connection>();
+		plain = Collections
+				.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+		controllers = new ConcurrentHashMap<String, RateController>();
+		controllersByURL = new ConcurrentHashMap<String, RateController>();
+		resolver = new Resolver(configuration.getPins());
+		raw = new RawTransport(configuration);
+		stopped = false;
+
+		final AtomicInteger count = new AtomicInteger();
+		executor = new ThreadPoolExecutor(this.threads, this.threads, 0L,
+				TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+				new ThreadFactory() {
+					public Thread newThread(final Runnable runnable) {
+						final Thread thread = new Thread(runnable,
+								"JBroFuzz Sender " + count.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+	}
+
+	public int getThreadCount() {
+		return threads;
+	}
+
+	/**
+	 * @return int the most requests put on a connection at a time, 1 if
+	 *         not pipelining
+	 */
+	public int getPipeline() {
+		return pipeline;
+	}
+
+	/**
+	 * @return int the most requests sent at a time on an HTTP/2
+	 *         connection, 0 if not using HTTP/2
+	 */
+	public int getStreams() {
+		return streams;
+	}
+
+	public RunConfiguration getConfiguration() {
+		return configuration;
+	}
+
+	public EngineMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * <p>
+	 * Return the rate controller of the target a URL is sent to, creating it
+	 * on the first request to that target.
+	 * </p>
+	 * 
+	 * @param url The target URL
+	 * @return RateController the controller of the target
+	 */
+	public RateController getController(final String url) {
+
+		final RateController known = controllersByURL.get(url);
+		if (known != null) {
+			return known;
+		}
+
+		final String target = RateController.getTarget(url);
+		RateController controller = controllers.get(target);
+		if (controller == null) {
+			// Over HTTP/2, the requests in flight are not bound to threads
+			final RateController created = new RateController(target,
+					streams > 0 ? streams : threads,
+					configuration.getMaxRate(), configuration.isAdaptive(),
+					configuration.getBreakerThreshold());
+			controller = controllers.putIfAbsent(target, created);
+			if (controller == null) {
+				controller = created;
+				metrics.controlled(created);
+				if (stopped) {
+					created.close();
+				}
+			}
+		}
+		controllersByURL.put(url, controller);
+		return controller;
+
+	}
+
+	/**
+	 * <p>
+	 * Hand over a request to be sent, blocking while the engine is full.
+	 * </p>
+	 * 
+	 * <p>
+	 * The start time of the message container is set as the request is put on
+	 * the wire, so that time spent waiting to be sent is not counted as
+	 * response time.
+	 * </p>
+	 * 
+	 * @param url The target URL
+	 * @param message The message to put on the wire
+	 * @param container The container to record the outcome in
+	 * @param callback Notified once the request has been sent
+	 * @return false if the engine has been stopped and the request dropped
+	 * 
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public boolean send(final String url, final String message,
+			final MessageContainer container, final Callback callback)
+			throws InterruptedException {
+
+		slots.acquire();
+		if (stopped) {
+			slots.release();
+			return false;
+		}
+
+		final Request request = new Request(url, message, container, callback);
+		if (pipeline > 1) {
+			synchronized (pending) {
+				pending.add(request);
+			}
+		}
+
+		executor.execute(new Runnable() {
+			public void run() {
+				// With pipelining, whichever requests are waiting by now
+				final List<Request> batch = pipeline > 1 ? takeBatch()
+						: Collections.singletonList(request);
+				// Over HTTP/2, the slot is released once the reply is in
+				boolean submitted = false;
+				try {
+					if (stopped || batch.isEmpty()) {
+						return;
+					}
+					if ((streams > 0) && !Endpoint.isRaw(url)) {
+						submitted = submit(request, 0);
+					} else if ((pipeline > 1) && isIdempotent(batch.get(0).message)) {
+						deliver(batch);
+					} else {
+						final Request first = batch.get(0);
+						deliver(first.url, first.message, first.container,
+								first.callback);
+					}
+				} catch (final InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} catch (final RuntimeException e) {
+					Logger.log("Could not complete request " 
+							+ batch.get(0).container.getFileName() + ": " + e, 4);
+				} finally {
+					if (!submitted) {
+						slots.release(batch.size());
+					}
+				}
+			}
+		});
+		return true;
+	}
+
+	/**
+	 * <p>
+	 * Take the next requests waiting, as many as can be pipelined, for as
+	 * long as they are to the same URL as the first one.
+	 * </p>
+	 * 
+	 * <p>
+	 * Only GET and HEAD requests are pipelined: requests left unanswered
+	 * when a connection ends are sent again, and the server may have
+	 * processed them already.
+	 * </p>
+	 * 
+	 * @return the requests, none if taken by other threads already
+	 */
+	private List<Request> takeBatch() {
+
+		final List<Request> batch = new ArrayList<Request>(pipeline);
+		synchronized (pending) {
+			final Request first = pending.poll();
+			if (first == null) {
+				return batch;
+			}
+			batch.add(first);
+			if (Endpoint.isRaw(first.url) || !isIdempotent(first.message)
+					|| unpipelined.contains(getController(first.url).getTarget())) {
+				return batch;
+			}
+			while ((batch.size() < pipeline) && !pending.isEmpty()
+					&& pending.peek().url.equals(first.url)
+					&& isIdempotent(pending.peek().message)) {
+				batch.add(pending.poll());
+			}
+		}
+		return batch;
+
+	}
+
+	/**
+	 * <p>
+	 * Return true if the method of the given request is GET or HEAD, so
+	 * that it can be sent again without being processed twice.
+	 * </p>
+	 */
+	private static boolean isIdempotent(final String message) {
+
+		return message.startsWith("GET ") || message.startsWith("HEAD ");
+
+	}
+
+	/**
+	 * <p>
+	 * Put requests to the same URL on the wire over a single connection,
+	 * which counts as a single request with the controller of the target
+	 * and is retried as such, and hand each reply to the callback as it is
+	 * read. Requests left unanswered are pipelined again, or sent one per
+	 * connection if the target is found not to answer pipelined requests.
+	 * </p>
+	 */
+	private void deliver(final List<Request> batch)
+			throws InterruptedException {
+
+		final String url = batch.get(0).url;
+		final RateController controller = getController(url);
+
+		List<Request> remaining = batch;
+		for (int attempt = 0; !remaining.isEmpty();) {
+
+			if (Endpoint.isRaw(url)
+					|| unpipelined.contains(controller.getTarget())) {
+				for (final Request request : remaining) {
+					deliver(request.url, request.message, request.container,
+							request.callback);
+				}
+				return;
+			}
+
+			final long ticket = controller.acquire();
+			if (ticket < 0) {
+				return;
+			}
+			if (stopped || !schedule(controller, ticket)) {
+				controller.cancel(ticket);
+				return;
+			}
+
+			final List<String> messages = new ArrayList<String>(remaining.size());
+			int length = 0;
+			for (final Request request : remaining) {
+				request.container.setStartDate(new Date());
+				metrics.sent(request.message);
+				messages.add(request.message);
+				length += request.message.length();
+			}
+
+			PipelinedConnection connection = null;
+			ConnectionException failure = null;
+			final Object sent = Profiler.begin(Profiler.REQUEST_SENT);
+			final long start = System.nanoTime();
+			try {
+				connection = new PipelinedConnection(resolver.get(url),
+						messages, configuration.getSocketTimeout());
+			} catch (final ConnectionException e) {
+				failure = e;
+			}
+			Profiler.commit(sent, url, length);
+
+			if (connection == null) {
+				unschedule(controller);
+				controller.failed(ticket);
+				if ((attempt < configuration.getRetries())
+						&& failure.isRetryable() && !controller.isSuspended()
+						&& backOff(attempt++)) {
+					for (final Request request : remaining) {
+						metrics.retried(request.container, failure);
+					}
+					continue;
+				}
+				for (final Request request : remaining) {
+					request.callback.failed(request.container, failure);
+					metrics.failed(request.container, failure);
+				}
+				return;
+			}
+
+			int replied = 0;
+			String status = null;
+			long millis = 0L;
+			try {
+				Connection reply;
+				while ((reply = connection.next()) != null) {
+					final Request request = remaining.get(replied++);
+					if (replied == 1) {
+						millis = (System.nanoTime() - start) / 1000000L;
+					}
+					// A reply turning requests away is passed on to the
+					// controller over the others
+					if (!"429".equals(status) && !"503".equals(status)) {
+						status = reply.getStatus();
+					}
+
+					final Object received = Profiler
+							.begin(Profiler.RESPONSE_RECEIVED);
+					request.callback.replied(request.container, reply);
+					metrics.replied(request.container);
+					Profiler.commit(received, url, request.container
+							.getStatus(), request.container.getByteCount());
+				}
+			} finally {
+				connection.close();
+				unschedule(controller);
+			}
+
+			if (replied > 0) {
+				controller.replied(ticket, status, millis);
+			} else {
+				controller.cancel(ticket);
+			}
+
+			if (replied < remaining.size()) {
+				// A server closing after many replies may just limit the
+				// requests per connection
+				failure = new ConnectionException("Pipelining stopped: "
+						+ connection.getEnded());
+				if ((replied < 2) && unpipelined.add(controller.getTarget())) {
+					Logger.log("Sending one request per connection to "
+							+ controller.getTarget() + ", as pipelining stopped: "
+							+ connection.getEnded(), 1);
+				}
+				for (final Request request : remaining.subList(replied,
+						remaining.size())) {
+					if (stopped) {
+						request.callback.failed(request.container, failure);
+						metrics.failed(request.container, failure);
+					} else {
+						metrics.retried(request.container, failure);
+					}
+				}
+				if (stopped) {
+					return;
+				}
+			}
+			remaining = remaining.subList(replied, remaining.size());
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Put a request on the wire once the controller of its target lets it
+	 * through, retrying it if it fails before reaching the target, and
+	 * hand the outcome to the callback.
+	 * </p>
+	 */
+	private void deliver(final String url, final String message,
+			final MessageContainer container, final Callback callback)
+			throws InterruptedException {
+
+		final RateController controller = getController(url);
+
+		for (int attempt = 0;; attempt++) {
+
+			final long ticket = controller.acquire();
+			if (ticket < 0) {
+				return;
+			}
+			if (stopped || !schedule(controller, ticket)) {
+				controller.cancel(ticket);
+				return;
+			}
+			container.setStartDate(new Date());
+			metrics.sent(message);
+			Connection connection = null;
+			ConnectionException failure = null;
+			final Object sent = Profiler.begin(Profiler.REQUEST_SENT);
+			final long start = System.nanoTime();
+			try {
+				final Endpoint endpoint = resolver.get(url);
+				connection = endpoint.isRaw() ? raw.send(endpoint, message)
+						: new Connection(endpoint, message, configuration);
+			} catch (final ConnectionException e) {
+				failure = e;
+			} finally {
+				unschedule(controller);
+			}
+			Profiler.commit(sent, url, message.length());
+
+			if (connection != null) {
+				controller.replied(ticket, connection.getStatus(),
+						(System.nanoTime() - start) / 1000000L);
+			} else {
+				controller.failed(ticket);
+				// Not retried once the target is suspended, nor if stopped
+				// while backing off
+				if ((attempt < configuration.getRetries())
+						&& failure.isRetryable() && !controller.isSuspended()
+						&& backOff(attempt)) {
+					metrics.retried(container, failure);
+					continue;
+				}
+			}
+
+			final Object received = Profiler.begin(Profiler.RESPONSE_RECEIVED);
+			if (connection != null) {
+				callback.replied(container, connection);
+				metrics.replied(container);
+			} else {
+				callback.failed(container, failure);
+				metrics.failed(container, failure);
+			}
+			Profiler.commit(received, url, container.getStatus(),
+					container.getByteCount());
+			return;
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Put a request on the HTTP/2 connection to its target once the
+	 * controller of the target lets it through, without waiting for the
+	 * reply. Targets that do not speak HTTP/2 are sent the request over
+	 * HTTP/1.1 instead.
+	 * </p>
+	 * 
+	 * @return boolean true if the request is on the wire, its slot to be
+	 *         released once it completes
+	 */
+	private boolean submit(final Request request, final int attempt)
+			throws InterruptedException {
+
+		final RateController controller = getController(request.url);
+		final long ticket = controller.acquire();
+		if (ticket < 0) {
+			return false;
+		}
+		if (stopped || !schedule(controller, ticket)) {
+			controller.cancel(ticket);
+			return false;
+		}
+
+		Http2Connection connection = null;
+		ConnectionException failure = null;
+		try {
+			connection = getHttp2(request.url);
+		} catch (final ConnectionException e) {
+			failure = e;
+		}
+		if ((connection == null) && (failure == null)) {
+			unschedule(controller);
+			controller.cancel(ticket);
+			deliver(request.url, request.message, request.container,
+					request.callback);
+			return false;
+		}
+
+		request.container.setStartDate(new Date());
+		metrics.sent(request.message);
+		if (failure != null) {
+			unschedule(controller);
+			controller.failed(ticket);
+			return conclude(request, attempt, null, failure);
+		}
+
+		final Object sent = Profiler.begin(Profiler.REQUEST_SENT);
+		final long start = System.nanoTime();
+		// Settled by whichever comes first, the outcome or an interrupt
+		final AtomicBoolean settled = new AtomicBoolean();
+		try {
+			connection.submit(request.message, new Http2Connection.Listener() {
+				public void replied(final Connection reply) {
+					if (!settled.compareAndSet(false, true)) {
+						return;
+					}
+					unschedule(controller);
+					controller.replied(ticket, reply.getStatus(),
+							(System.nanoTime() - start) / 1000000L);
+					completed(request, attempt, reply, null);
+				}
+
+				public void failed(final ConnectionException exception) {
+					if (!settled.compareAndSet(false, true)) {
+						return;
+					}
+					unschedule(controller);
+					controller.failed(ticket);
+					completed(request, attempt, null, exception);
+				}
+			});
+		} catch (final InterruptedException e) {
+			if (!settled.compareAndSet(false, true)) {
+				// Completed already, its slot to be released as such
+				Thread.currentThread().interrupt();
+				return true;
+			}
+			unschedule(controller);
+			controller.cancel(ticket);
+			throw e;
+		}
+		Profiler.commit(sent, request.url, request.message.length());
+		return true;
+
+	}
+
+	/**
+	 * <p>
+	 * Hand a request completed over HTTP/2 to a thread of the engine, as
+	 * the thread reading the connection is not to wait on retries or
+	 * callbacks, and release its slot once done.
+	 * </p>
+	 */
+	private void completed(final Request request, final int attempt,
+			final Connection reply, final ConnectionException failure) {
+
+		executor.execute(new Runnable() {
+			public void run() {
+				boolean submitted = false;
+				try {
+					submitted = conclude(request, attempt, reply, failure);
+				} catch (final InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} catch (final RuntimeException e) {
+					Logger.log("Could not complete request "
+							+ request.container.getFileName() + ": " + e, 4);
+				} finally {
+					if (!submitted) {
+						slots.release();
+					}
+				}
+			}
+		});
+
+	}
+
+	/**
+	 * <p>
+	 * Retry a request sent over HTTP/2 if it failed before reaching the
+	 * target, or hand its outcome to the callback.
+	 * </p>
+	 * 
+	 * @return boolean true if the request is on the wire again
+	 */
+	private boolean conclude(final Request request, final int attempt,
+			final Connection reply, final ConnectionException failure)
+			throws InterruptedException {
+
+		if ((reply == null) && (attempt < configuration.getRetries())
+				&& failure.isRetryable()
+				&& !getController(request.url).isSuspended()
+				&& backOff(attempt)) {
+			metrics.retried(request.container, failure);
+			return submit(request, attempt + 1);
+		}
+
+		final Object received = Profiler.begin(Profiler.RESPONSE_RECEIVED);
+		if (reply != null) {
+			request.callback.replied(request.container, reply);
+			metrics.replied(request.container);
+		} else {
+			request.callback.failed(request.container, failure);
+			metrics.failed(request.container, failure);
+		}
+		Profiler.commit(received, request.url, request.container.getStatus(),
+				request.container.getByteCount());
+		return false;
+
+	}
+
+	/**
+	 * <p>
+	 * Return the HTTP/2 connection to the target of a URL, connecting
+	 * again if it was closed.
+	 * </p>
+	 * 
+	 * @return Http2Connection the connection, or null if the target does
+	 *         not speak HTTP/2
+	 */
+	private Http2Connection getHttp2(final String url)
+			throws ConnectionException {
+
+		final Endpoint endpoint = resolver.get(url);
+		final String target = endpoint.getTarget();
+		if (plain.contains(target)) {
+			return null;
+		}
+
+		synchronized (http2) {
+			final Http2Connection known = http2.get(target);
+			if ((known != null) && known.isOpen()) {
+				return known;
+			}
+			final Http2Connection connection = Http2Connection.open(endpoint,
+					configuration.getSocketTimeout(), streams);
+			if (connection == null) {
+				plain.add(target);
+				Logger.log("The target " + target + " does not speak HTTP/2,"
+						+ " sending HTTP/1.1 requests", 1);
+				return null;
+			}
+			http2.put(target, connection);
+			for (int i = opened.size() - 1; i >= 0; i--) {
+				if (opened.get(i).isClosed()) {
+					opened.remove(i);
+				}
+			}
+			opened.add(connection);
+			return connection;
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Wait for the session of the scheduler, if any, to let a request to
+	 * the target of the given controller through.
+	 * </p>
+	 * 
+	 * @return false if the session has been closed, the ticket of the
+	 *         controller to be cancelled
+	 */
+	private boolean schedule(final RateController controller, final long ticket)
+			throws InterruptedException {
+
+		if (session == null) {
+			return true;
+		}
+		try {
+			return session.acquire(controller.getTarget());
+		} catch (final InterruptedException e) {
+			controller.cancel(ticket);
+			throw e;
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Hand back the permit of a request let through by schedule().
+	 * </p>
+	 */
+	private void unschedule(final RateController controller) {
+
+		if (session != null) {
+			session.release(controller.getTarget());
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Wait before the given retry: a random time between half and all of
+	 * BACKOFF milliseconds, doubled with every attempt, up to MAX_BACKOFF.
+	 * The randomness keeps the threads that failed together from retrying
+	 * together.
+	 * </p>
+	 * 
+	 * @return false if the engine was stopped while waiting
+	 */
+	private boolean backOff(final int attempt) throws InterruptedException {
+
+		final long delay = Math.min(MAX_BACKOFF, BACKOFF << Math.min(attempt, 16));
+		final long millis;
+		synchronized (random) {
+			millis = delay / 2L + (long) (random.nextDouble() * (delay / 2L));
+		}
+		final long end = System.currentTimeMillis() + millis;
+		synchronized (stopLock) {
+			long left = millis;
+			while (!stopped && (left > 0L)) {
+				stopLock.wait(left);
+				left = end - System.currentTimeMillis();
+			}
+		}
+		return !stopped;
+
+	}
+
+	/**
+	 * <p>
+	 * A request handed over, waiting to be pipelined.
+	 * </p>
+	 */
+	private static final class Request {
+
+		private final String url;
+
+		private final String message;
+
+		private final MessageContainer container;
+
+		private final Callback callback;
+
+		private Request(final String url, final String message,
+				final MessageContainer container, final Callback callback) {
+			this.url = url;
+			this.message = message;
+			this.container = container;
+			this.callback = callback;
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Stop sending; requests that have not been put on the wire yet are
+	 * dropped, while the ones in progress are allowed to complete.
+	 * </p>
+	 */
+	public void stop() {
+		stopped = true;
+		for (final RateController controller : controllers.values()) {
+			controller.close();
+		}
+		synchronized (stopLock) {
+			stopLock.notifyAll();
+		}
+	}
+
+	public boolean isStopped() {
+		return stopped;
+	}
+
+	/**
+	 * <p>
+	 * Wait for all the requests handed over to complete and release the
+	 * threads of this engine; no further requests can be sent.
+	 * </p>
+	 * 
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public void finish() throws InterruptedException {
+		// Replies over HTTP/2 come in after their thread has moved on
+		slots.acquire(capacity);
+		slots.release(capacity);
+		executor.shutdown();
+		while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+			// Keep waiting for the requests in progress
+		}
+		synchronized (http2) {
+			for (final Http2Connection connection : opened) {
+				connection.shutdown();
+			}
+			opened.clear();
+			http2.clear();
+		}
+		raw.close();
+	}
+
+}
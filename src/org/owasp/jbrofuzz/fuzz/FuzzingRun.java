@@ -0,0 +1,752 @@
+/**
+ * JbroFuzz 2.5
+ *
+ * JBroFuzz - A stateless network protocol fuzzer for web applications.
+ * 
+ * Copyright (C) 2007 - 2010 subere@uncon.org
+ *
+ * This file is part of JBroFuzz.
+ * 
+ * JBroFuzz is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * JBroFuzz is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with JBroFuzz.  If not, see <http://www.gnu.org/licenses/>.
+ * Alternatively, write to the Free Software Foundation, Inc., 51 
+ * Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Verbatim copying and distribution of this entire program file is 
+ * permitted in any medium without royalty provided this notice 
+ * is preserved. 
+ * 
+ */
+package org.owasp.jbrofuzz.fuzz;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.lang.StringUtils;
+import org.owasp.jbrofuzz.core.Database;
+import org.owasp.jbrofuzz.core.Fuzzer;
+import org.owasp.jbrofuzz.core.NoSuchFuzzerException;
+import org.owasp.jbrofuzz.encode.EncodedPayloadCache;
+import org.owasp.jbrofuzz.encode.TransformChain;
+import org.owasp.jbrofuzz.fuzz.ui.FuzzersPanel;
+import org.owasp.jbrofuzz.fuzz.ui.TransformsTableModel;
+import org.owasp.jbrofuzz.system.Logger;
+import org.owasp.jbrofuzz.system.Profiler;
+import org.owasp.jbrofuzz3.message.FuzzList;
+import org.owasp.jbrofuzz3.message.FuzzPoint;
+import org.owasp.jbrofuzz3.message.FuzzRequest;
+
+/**
+ * <p>
+ * A run of the fuzzers of a session against a target: payloads are
+ * generated, transformed, placed within the request and handed over to a
+ * FuzzingEngine, one message at a time.
+ * </p>
+ * 
+ * <p>
+ * The run holds no user interface of its own; whoever drives it creates
+ * the container of each message and the callback of each series, through
+ * a Listener.
+ * </p>
+ * 
+ * <p>
+ * The payloads that got no reply are recorded as the run goes; a second
+ * run, sending only those payloads again, can then be created from it.
+ * </p>
+ * 
+ * <p>
+ * Payloads are numbered by series and position, as in FailedPayloads; a
+ * run of a single range of positions within a series can also be created
+ * from a run, e.g. for a worker of a distributed run to send its share.
+ * </p>
+ * 
+ * <p>
+ * A run may have more than one target, its URLs separated by spaces or
+ * commas, e.g. the same application on several staging nodes. Each payload
+ * is then generated and transformed once and sent to every target, each
+ * through an engine of its own, so that a slow target does not take up
+ * the connections of the others. The replies of each target are kept as
+ * a series of their own, for side-by-side comparison.
+ * </p>
+ * 
+ * @version 2.5
+ * @since 2.5
+ */
+public class FuzzingRun {
+
+	/**
+	 * The separator between the payloads of a request with more than one
+	 * fuzz point
+	 */
+	public static final String PAYLOAD_SEPARATOR = " | ";
+
+	/**
+	 * The characters separating the target URLs of a run against more than
+	 * one target
+	 */
+	public static final String TARGET_SEPARATORS = " \t\r\n,";
+
+	/**
+	 * <p>
+	 * The party driving a run, creating the container of every message sent
+	 * and the callback receiving the replies.
+	 * </p>
+	 */
+	public interface Listener {
+
+		/**
+		 * <p>
+		 * Return the callback for the replies of the given series of
+		 * requests.
+		 * </p>
+		 * 
+		 * @param series The name of the series, or null for a single plain
+		 *            request
+		 * @return FuzzingEngine.Callback the callback
+		 */
+		FuzzingEngine.Callback createCallback(String series);
+
+		/**
+		 * <p>
+		 * Return the container of a message, about to be handed over to the
+		 * engine.
+		 * </p>
+		 * 
+		 * @param series The series of the payload, 0 for a fuzz list
+		 * @param index The position of the payload within the series
+		 * @param url The target URL the message is sent to
+		 * @param payload The payload, or payloads
+		 * @param encodedPayload The encoded payload, or payloads
+		 * @param message The message to be put on the wire
+		 * @return MessageContainer the container
+		 */
+		MessageContainer createContainer(int series, long index, String url,
+				String payload, String encodedPayload, MessageCreator message);
+
+	}
+
+	private final Database database;
+
+	private final EncodedPayloadCache cache;
+
+	private final String url;
+
+	private final String[] targets;
+
+	// Whether a target needs a message of its own, for its credentials
+	private final boolean[] ownMessage;
+
+	private final String request;
+
+	private final int mode;
+
+	private final List<String> categories = new ArrayList<String>();
+
+	private final List<int[]> points = new ArrayList<int[]>();
+
+	private final List<TransformChain> chains = new ArrayList<TransformChain>();
+
+	private final FailedPayloads failures = new FailedPayloads();
+
+	// The payloads to send, null for all of them
+	private FailedPayloads only;
+
+	// The series and range of positions to send, if not all
+	private int rangeSeries = -1;
+
+	private long rangeFrom;
+
+	private long rangeTo;
+
+	private volatile boolean stopped;
+
+	/**
+	 * <p>
+	 * Create a run of the given request against the given URL; fuzzers are
+	 * added next, in the order of the fuzzers table.
+	 * </p>
+	 * 
+	 * @param database The database to create the fuzzers from
+	 * @param cache The cache of encoded payloads
+	 * @param url The target URL, or URLs separated by spaces or commas
+	 * @param request The request
+	 * @param mode FuzzersPanel.SEQUENTIAL or a FuzzList mode
+	 */
+	public FuzzingRun(final Database database,
+			final EncodedPayloadCache cache, final String url,
+			final String request, final int mode) {
+
+		this.database = database;
+		this.cache = cache;
+		this.url = url;
+		this.request = request;
+		this.mode = mode;
+
+		targets = getTargets(url);
+		ownMessage = new boolean[targets.length];
+		final String userInfo = getUserInfo(targets[0]);
+		for (int t = 1; t < targets.length; t++) {
+			ownMessage[t] = !StringUtils.equals(userInfo,
+					getUserInfo(targets[t]));
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Split the URL field of a panel into the URLs of its targets.
+	 * </p>
+	 * 
+	 * @param url The URL, or URLs separated by spaces or commas
+	 * @return String[] the URLs, at least one even if empty
+	 */
+	public static String[] getTargets(final String url) {
+
+		final String[] targets = StringUtils.split(url, TARGET_SEPARATORS);
+		if ((targets == null) || (targets.length == 0)) {
+			return new String[] { url == null ? "" : url };
+		}
+		return targets;
+
+	}
+
+	private static String getUserInfo(final String url) {
+
+		try {
+			return new URL(url).getUserInfo();
+		} catch (final MalformedURLException e) {
+			return null;
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Add a fuzzer, replacing the request between start and end with its
+	 * payloads, once transformed.
+	 * </p>
+	 * 
+	 * @param category The fuzzer id
+	 * @param start The start of the fuzz point
+	 * @param end The end of the fuzz point
+	 * @param transforms The transforms applied to each payload
+	 */
+	public void addFuzzer(final String category, final int start,
+			final int end, final TransformsTableModel transforms) {
+
+		categories.add(category);
+		points.add(new int[] { start, end });
+		// Compile the transforms once for all the payloads of this fuzzer
+		chains.add(TransformChain.compile(transforms));
+
+	}
+
+	public int getFuzzerCount() {
+		return categories.size();
+	}
+
+	public int getMode() {
+		return mode;
+	}
+
+	public String getRequest() {
+		return request;
+	}
+
+	public String getURL() {
+		return url;
+	}
+
+	/**
+	 * @return String[] the URLs of the targets of this run
+	 */
+	public String[] getTargets() {
+		return targets.clone();
+	}
+
+	/**
+	 * @return FailedPayloads the payloads of this run that got no reply
+	 */
+	public FailedPayloads getFailures() {
+		return failures;
+	}
+
+	/**
+	 * <p>
+	 * Create a run of the same fuzzers, against the same targets, sending
+	 * only the payloads of this run that got no reply, each to the targets
+	 * it got no reply from.
+	 * </p>
+	 * 
+	 * @return FuzzingRun the new run
+	 */
+	public FuzzingRun createFailuresRun() {
+
+		final FuzzingRun output = new FuzzingRun(database, cache, url,
+				request, mode);
+		output.categories.addAll(categories);
+		output.points.addAll(points);
+		output.chains.addAll(chains);
+		output.only = failures;
+		return output;
+
+	}
+
+	/**
+	 * <p>
+	 * Create a run of the same fuzzers, against the same target, sending
+	 * only the payloads of the given series from one position up to, but
+	 * not including, another.
+	 * </p>
+	 * 
+	 * @param series The series, 0 for a fuzz list
+	 * @param from The position of the first payload to send
+	 * @param to The position after the last payload to send
+	 * @return FuzzingRun the new run
+	 */
+	public FuzzingRun createRangeRun(final int series, final long from,
+			final long to) {
+
+		final FuzzingRun output = new FuzzingRun(database, cache, url,
+				request, mode);
+		output.categories.addAll(categories);
+		output.points.addAll(points);
+		output.chains.addAll(chains);
+		output.rangeSeries = series;
+		output.rangeFrom = from;
+		output.rangeTo = to;
+		return output;
+
+	}
+
+	/**
+	 * <p>
+	 * Return the series this run goes through: 0 if all the fuzzers run
+	 * together as a fuzz list, or 1, 2, ... for each fuzzer run in turn.
+	 * </p>
+	 * 
+	 * @return int[] the series, in the order they are run
+	 */
+	public int[] getSeries() {
+
+		if (isFuzzList()) {
+			return new int[] { 0 };
+		}
+		final int[] series = new int[Math.max(categories.size(), 1)];
+		for (int i = 0; i < series.length; i++) {
+			series[i] = i + 1;
+		}
+		return series;
+
+	}
+
+	/**
+	 * <p>
+	 * Return the number of payloads of a series of this run.
+	 * </p>
+	 * 
+	 * @param series The series, as returned by getSeries()
+	 * @return long the number of payloads
+	 * @throws NoSuchFuzzerException if a fuzzer is not in the database
+	 */
+	public long getSeriesSize(final int series) throws NoSuchFuzzerException {
+
+		if (series == 0) {
+			final Fuzzer[] fuzzers = new Fuzzer[categories.size()];
+			for (int i = 0; i < fuzzers.length; i++) {
+				fuzzers[i] = database.createFuzzer(categories.get(i), Math
+						.abs(points.get(i)[1] - points.get(i)[0]));
+			}
+			return new FuzzList(fuzzers, mode).getMaximumValue();
+		}
+		if (categories.isEmpty()) {
+			return 1L;
+		}
+		return database.createFuzzer(categories.get(series - 1),
+				Math.abs(points.get(series - 1)[1] - points.get(series - 1)[0]))
+				.getMaximumValue();
+
+	}
+
+	private boolean isFuzzList() {
+		return (categories.size() > 1) && (mode != FuzzersPanel.SEQUENTIAL);
+	}
+
+	/**
+	 * <p>
+	 * Stop generating messages; messages already with the engine are left
+	 * to it.
+	 * </p>
+	 */
+	public void stop() {
+		stopped = true;
+	}
+
+	public boolean isStopped() {
+		return stopped;
+	}
+
+	/**
+	 * <p>
+	 * Generate every message of the run and hand it over to the engine,
+	 * returning once the last one has been handed over or the run stopped.
+	 * </p>
+	 * 
+	 * @param engine The engine to send the requests through, to every
+	 *            target
+	 * @param listener The listener creating containers and callbacks
+	 * @throws InterruptedException if interrupted while waiting on the engine
+	 */
+	public void run(final FuzzingEngine engine, final Listener listener)
+			throws InterruptedException {
+
+		run(Collections.nCopies(targets.length, engine), listener);
+
+	}
+
+	/**
+	 * <p>
+	 * Generate every message of the run as above, sending the messages to
+	 * each target through the engine given for it.
+	 * </p>
+	 * 
+	 * @param engines The engine of each target, in the order of getTargets()
+	 * @param listener The listener creating containers and callbacks
+	 * @throws InterruptedException if interrupted while waiting on an engine
+	 */
+	public void run(final List<FuzzingEngine> engines, final Listener listener)
+			throws InterruptedException {
+
+		if (engines.size() != targets.length) {
+			throw new IllegalArgumentException("Expected " + targets.length
+					+ " engines, one for each target, not " + engines.size());
+		}
+		if (isFuzzList()) {
+			runFuzzList(engines, listener);
+		} else {
+			runSequential(engines, listener);
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Run each fuzzer in turn, each one replacing its own fuzz point within
+	 * the request.
+	 * </p>
+	 */
+	private void runSequential(final List<FuzzingEngine> engines,
+			final Listener listener) throws InterruptedException {
+
+		final int fuzzers_added = categories.size();
+		final FuzzingEngine engine = engines.get(0);
+
+		for (int i = 0; i < Math.max(fuzzers_added, 1); i++) {
+
+			// The positions of the payloads to send again, if not all
+			final long[] indices = (only == null) ? null : only.get(i + 1);
+			if ((indices != null) && (indices.length == 0)) {
+				continue;
+			}
+			if ((rangeSeries >= 0) && (rangeSeries != i + 1)) {
+				continue;
+			}
+			int next = 0;
+
+			String category;
+			TransformChain chain;
+			int start, end;
+			// If no fuzzers have been added, send a single plain request
+			if (fuzzers_added < 1) {
+				category = "000-ZER-ONE";
+				chain = TransformChain.compile(new TransformsTableModel());
+				start = end = 0;
+			} else {
+				category = categories.get(i);
+				chain = chains.get(i);
+				start = points.get(i)[0];
+				end = points.get(i)[1];
+			}
+
+			try {
+				final Fuzzer f = database.createFuzzer(category, Math.abs(end
+						- start));
+
+				// The response time series of this fuzzer
+				final String series = fuzzers_added < 1 ? null : (i + 1)
+						+ ": " + f.getName();
+				final FuzzingEngine.Callback[] callbacks = createCallbacks(
+						listener, series);
+				if (rangeSeries >= 0) {
+					f.setCurrentValue(rangeFrom);
+				}
+
+				while (f.hasNext()) {
+
+					if (stopped)
+						return;
+
+					if (indices != null) {
+						if (next == indices.length) {
+							break;
+						}
+						f.setCurrentValue(indices[next++]);
+					}
+					final long index = f.getCurrentValue();
+					if ((rangeSeries >= 0) && (index >= rangeTo)) {
+						break;
+					}
+					final Object generated = Profiler.begin(Profiler.PAYLOAD_GENERATED);
+					final String payload = f.next();
+					Profiler.commit(generated, category, index);
+
+					final Object transformed = Profiler.begin(Profiler.TRANSFORM_APPLIED);
+					final long transformStart = System.nanoTime();
+					final String encodedPayload = cache.encode(category, Math
+							.abs(end - start), index, chain, payload);
+					engine.getMetrics().transformed(
+							System.nanoTime() - transformStart);
+					Profiler.commit(transformed, category, encodedPayload.length());
+
+					final Object created = Profiler.begin(Profiler.MESSAGE_CREATED);
+					final MessageCreator[] messages = createMessages(request
+							.substring(0, start)
+							+ encodedPayload + request.substring(end),
+							encodedPayload, engine.getConfiguration());
+					Profiler.commit(created, url, messages[0].getMessage()
+							.length());
+
+					send(engines, listener, payload, encodedPayload,
+							messages, callbacks, i + 1, index);
+				}
+
+			} catch (final NoSuchFuzzerException exp) {
+				Logger.log("The fuzzer could not be found...", 3);
+			}
+		}
+	}
+
+	/**
+	 * <p>
+	 * Run all the fuzzers together, substituting every fuzz point of each
+	 * request, in the given FuzzList mode.
+	 * </p>
+	 * 
+	 * <p>
+	 * The request is tokenised once; combinations of payloads are then
+	 * computed one at a time, as the engine has room for them.
+	 * </p>
+	 */
+	private void runFuzzList(final List<FuzzingEngine> engines,
+			final Listener listener) throws InterruptedException {
+
+		final int fuzzers_added = categories.size();
+		final FuzzingEngine engine = engines.get(0);
+		final Fuzzer[] fuzzers = new Fuzzer[fuzzers_added];
+		final int[] lengths = new int[fuzzers_added];
+		final ArrayList<FuzzPoint> fuzzPoints = new ArrayList<FuzzPoint>();
+
+		for (int i = 0; i < fuzzers_added; i++) {
+
+			final int start = points.get(i)[0];
+			final int end = points.get(i)[1];
+
+			lengths[i] = Math.abs(end - start);
+			fuzzPoints.add(new FuzzPoint(start, end));
+
+			try {
+				fuzzers[i] = database.createFuzzer(categories.get(i),
+						lengths[i]);
+			} catch (final NoSuchFuzzerException exp) {
+				Logger.log("The fuzzer could not be found...", 3);
+				return;
+			}
+		}
+
+		final FuzzRequest fuzzRequest;
+		try {
+			fuzzRequest = new FuzzRequest(request, fuzzPoints);
+		} catch (final IllegalArgumentException exp) {
+			Logger.log(exp.getMessage(), 3);
+			return;
+		}
+
+		final FuzzList list = new FuzzList(fuzzers, mode);
+		final FuzzingEngine.Callback[] callbacks = createCallbacks(listener,
+				FuzzList.MODES[mode]);
+		final String[] encoded = new String[fuzzers_added];
+
+		// The positions of the combinations to send again, if not all
+		final long[] indices = (only == null) ? null : only.get(0);
+		int next = 0;
+		if (rangeSeries >= 0) {
+			list.setCurrentValue(rangeFrom);
+		}
+
+		while (true) {
+
+			if (stopped)
+				return;
+
+			if (indices != null) {
+				if (next == indices.length) {
+					break;
+				}
+				// Seek straight to the next combination to send again
+				list.setCurrentValue(indices[next++]);
+			}
+			if (!list.hasNext()) {
+				break;
+			}
+
+			final long index = list.getCurrentValue();
+			if ((rangeSeries >= 0) && (index >= rangeTo)) {
+				break;
+			}
+			if ((rangeSeries >= 0) && (index < rangeFrom)) {
+				continue;
+			}
+
+			final Object generated = Profiler.begin(Profiler.PAYLOAD_GENERATED);
+			final String[] payloads = list.next();
+			Profiler.commit(generated, FuzzList.MODES[mode], index);
+
+			for (int i = 0; i < fuzzers_added; i++) {
+				// In power mode, every payload comes from the first fuzzer
+				final int source = (mode == FuzzList.POWER) ? 0 : i;
+				final Object transformed = Profiler.begin(Profiler.TRANSFORM_APPLIED);
+				final long transformStart = System.nanoTime();
+				encoded[i] = cache.encode(categories.get(source),
+						lengths[source], list.getIndex(i), chains.get(i),
+						payloads[i]);
+				engine.getMetrics().transformed(
+						System.nanoTime() - transformStart);
+				Profiler.commit(transformed, categories.get(source), encoded[i].length());
+			}
+
+			final String payload = StringUtils.join(payloads,
+					PAYLOAD_SEPARATOR);
+			final String encodedPayload = StringUtils.join(encoded,
+					PAYLOAD_SEPARATOR);
+
+			final Object created = Profiler.begin(Profiler.MESSAGE_CREATED);
+			final MessageCreator[] messages = createMessages(fuzzRequest
+					.getRequest(encoded), encodedPayload, engine
+					.getConfiguration());
+			Profiler.commit(created, url, messages[0].getMessage().length());
+
+			send(engines, listener, payload, encodedPayload, messages,
+					callbacks, 0, index);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Return the callback of a series for each target; with more than one
+	 * target, the series of each is named after it.
+	 * </p>
+	 */
+	private FuzzingEngine.Callback[] createCallbacks(final Listener listener,
+			final String series) {
+
+		final FuzzingEngine.Callback[] callbacks = new FuzzingEngine.Callback[targets.length];
+		for (int t = 0; t < targets.length; t++) {
+			if (targets.length == 1) {
+				callbacks[t] = listener.createCallback(series);
+			} else {
+				callbacks[t] = listener.createCallback(series == null ? targets[t]
+						: series + " @ " + targets[t]);
+			}
+		}
+		return callbacks;
+
+	}
+
+	/**
+	 * <p>
+	 * Create the message of each target, sharing a single one unless a
+	 * target has credentials of its own for the Authorization header.
+	 * </p>
+	 */
+	private MessageCreator[] createMessages(final String message,
+			final String encodedPayload, final RunConfiguration configuration) {
+
+		final MessageCreator[] messages = new MessageCreator[targets.length];
+		for (int t = 0; t < targets.length; t++) {
+			messages[t] = ((t == 0) || ownMessage[t]) ? new MessageCreator(
+					targets[t], message, encodedPayload, configuration)
+					: messages[0];
+		}
+		return messages;
+
+	}
+
+	/**
+	 * <p>
+	 * Hand the message of a payload over to the engine of each target or,
+	 * when sending failed payloads again, of each target it failed against.
+	 * </p>
+	 */
+	private void send(final List<FuzzingEngine> engines,
+			final Listener listener, final String payload,
+			final String encodedPayload, final MessageCreator[] messages,
+			final FuzzingEngine.Callback[] callbacks, final int series,
+			final long index) throws InterruptedException {
+
+		for (int t = 0; t < targets.length; t++) {
+			if (stopped) {
+				return;
+			}
+			if ((only != null) && !only.contains(series, index, t)) {
+				continue;
+			}
+			send(engines.get(t), listener.createContainer(series, index,
+					targets[t], payload, encodedPayload, messages[t]),
+					messages[t], callbacks[t], series, index, t);
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Hand a message over to the engine, recording the position of its
+	 * payload within the series if it gets no reply.
+	 * </p>
+	 */
+	private void send(final FuzzingEngine engine,
+			final MessageContainer container,
+			final MessageCreator currentMessage,
+			final FuzzingEngine.Callback callback, final int series,
+			final long index, final int target) throws InterruptedException {
+
+		engine.send(container.getTextURL(), currentMessage.getMessage(),
+				container, new FuzzingEngine.Callback() {
+
+					public void replied(final MessageContainer message,
+							final Connection connection) {
+						callback.replied(message, connection);
+					}
+
+					public void failed(final MessageContainer message,
+							final ConnectionException exception) {
+						failures.add(series, index, target);
+						callback.failed(message, exception);
+					}
+				});
+
+	}
+
+}
@@ -0,0 +1,724 @@
+/**
+ * JbroFuzz 2.5
+ *
+ * JBroFuzz - A stateless network protocol fuzzer for web applications.
+ * 
+ * Copyright (C) 2007 - 2010 subere@uncon.org
+ *
+ * This file is part of JBroFuzz.
+ * 
+ * JBroFuzz is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * JBroFuzz is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with JBroFuzz.  If not, see <http://www.gnu.org/licenses/>.
+ * Alternatively, write to the Free Software Foundation, Inc., 51 
+ * Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Verbatim copying and distribution of this entire program file is 
+ * permitted in any medium without royalty provided this notice 
+ * is preserved. 
+ * 
+ */
+package org.owasp.jbrofuzz.fuzz;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.ProtocolException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.owasp.jbrofuzz.fuzz.http2.Http2Session;
+import org.owasp.jbrofuzz.system.Logger;
+
+/**
+ * <p>
+ * A client connection to a target speaking HTTP/2, carrying many requests
+ * at the same time, each on a stream of its own.
+ * </p>
+ * 
+ * <p>
+ * HTTP/2 is agreed with ALPN over TLS, or assumed with prior knowledge for
+ * plain http (h2c); a target that does not take it up is left for HTTP/1.1.
+ * </p>
+ * 
+ * <p>
+ * Requests are given as the text of an HTTP/1.1 request, as built by the
+ * MessageCreator, and translated into HTTP/2 header fields and data; the
+ * headers that only apply to an HTTP/1.1 connection are dropped, and the
+ * Host header becomes the :authority. Replies are translated back into
+ * text, starting with an "HTTP/2 200" status line, so that they can be
+ * stored and shown like any other reply.
+ * </p>
+ * 
+ * @version 2.5
+ * @since 2.5
+ */
+class Http2Connection extends Http2Session {
+
+	/**
+	 * <p>
+	 * Receives the outcome of a request, from the thread reading the
+	 * connection or from the thread that sent the request.
+	 * </p>
+	 */
+	interface Listener {
+
+		void replied(Connection connection);
+
+		void failed(ConnectionException exception);
+
+	}
+
+	// The flow control window granted to the server, per connection and
+	// per stream
+	private static final int WINDOW = 16 * 1024 * 1024;
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	// Headers that only mean something to an HTTP/1.1 connection
+	private static final String[] CONNECTION_HEADERS = { "connection",
+			"keep-alive", "proxy-connection", "transfer-encoding", "upgrade",
+			"http2-settings" };
+
+	private final Endpoint endpoint;
+
+	private final int maxStreams;
+
+	// The streams waiting for their reply, guarded by itself
+	private final Map<Integer, Stream> streams = new HashMap<Integer, Stream>();
+
+	// The streams counted against the limit, open or about to be
+	private int reserved;
+
+	// The id of the next stream, guarded by the write lock
+	private int nextStream = 1;
+
+	// The marks of the DNS, connect and TLS phases, for the first stream
+	private long[] setupMarks;
+
+	private volatile boolean goingAway;
+
+	private Http2Connection(final Socket socket, final InputStream in,
+			final OutputStream out, final Endpoint endpoint,
+			final int maxStreams, final long[] setupMarks) {
+
+		super(socket, in, out);
+		this.endpoint = endpoint;
+		this.maxStreams = Math.max(1, maxStreams);
+		this.setupMarks = setupMarks;
+
+	}
+
+	/**
+	 * <p>
+	 * Connect to the given endpoint and start speaking HTTP/2.
+	 * </p>
+	 * 
+	 * @param endpoint The target, typically resolved once for the run
+	 * @param socketTimeout The timeout in seconds, for connecting and for
+	 *            waiting for replies
+	 * @param maxStreams The most requests to have on the connection at a
+	 *            time, if the target allows as many
+	 * @return Http2Connection the connection, or null if the target does not
+	 *         speak HTTP/2
+	 * @throws ConnectionException if the connection fails
+	 */
+	static Http2Connection open(final Endpoint endpoint,
+			final int socketTimeout, final int maxStreams)
+			throws ConnectionException {
+
+		final long[] marks = new long[RequestTiming.PHASES.length + 1];
+		marks[0] = System.nanoTime();
+		Socket socket = null;
+		try {
+			socket = SocketConnection.open(endpoint, socketTimeout, marks,
+					new String[] { PROTOCOL });
+			if (endpoint.isSecure()
+					&& !PROTOCOL.equals(getApplicationProtocol(socket))) {
+				socket.close();
+				return null;
+			}
+
+			final Http2Connection connection = new Http2Connection(socket,
+					new BufferedInputStream(socket.getInputStream(),
+							BUFFER_SIZE), new BufferedOutputStream(socket
+							.getOutputStream(), BUFFER_SIZE), endpoint,
+					maxStreams, marks);
+			if (!connection.handshake()) {
+				return null;
+			}
+
+			final Thread reader = new Thread(connection, "JBroFuzz HTTP/2 "
+					+ endpoint.getTarget());
+			reader.setDaemon(true);
+			reader.start();
+			return connection;
+
+		} catch (final IOException e) {
+
+			if (socket != null) {
+				try {
+					socket.close();
+				} catch (final IOException e2) {
+					// Failed already
+				}
+			}
+			throw new ConnectionException("An IO Error occured: " + 
+					". \n\nThis could also be a Connection Timeout, " +
+					"\ntry increasing the value under Preferences ->" +
+					" Fuzzing\n", new RequestTiming(marks.clone()));
+
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Send the preface and settings, and read those of the server, which
+	 * must be the first frame it sends.
+	 * </p>
+	 * 
+	 * @return boolean false if the server does not speak HTTP/2
+	 */
+	private boolean handshake() throws IOException {
+
+		synchronized (writeLock) {
+			writePreface();
+			writeSettings(ENABLE_PUSH, 0, INITIAL_WINDOW_SIZE, WINDOW);
+			writeWindowUpdate(0, WINDOW - DEFAULT_WINDOW);
+			flush();
+		}
+		try {
+			if (readFrame() == SETTINGS) {
+				return true;
+			}
+		} catch (final ProtocolException e) {
+			// Typically an HTTP/1.1 reply to the preface
+		} catch (final EOFException e) {
+			// Closed on seeing the preface
+		}
+		close();
+		return false;
+
+	}
+
+	/**
+	 * <p>
+	 * Put a request on the wire, on a new stream, waiting while as many
+	 * streams as allowed are open. The listener is told of the outcome.
+	 * </p>
+	 * 
+	 * @param message The text of an HTTP/1.1 request
+	 * @param listener The listener to tell of the reply or failure
+	 * @throws InterruptedException if interrupted while waiting for a stream
+	 */
+	void submit(final String message, final Listener listener)
+			throws InterruptedException {
+
+		final long[] marks = new long[RequestTiming.PHASES.length + 1];
+		marks[0] = System.nanoTime();
+
+		synchronized (streams) {
+			while (isOpen()
+					&& (reserved >= Math.min(maxStreams, getPeerMaxStreams()))) {
+				streams.wait();
+			}
+			if (!isOpen()) {
+				// Nothing sent, so the request can be sent again
+				listener.failed(new ConnectionException(
+						"The HTTP/2 connection is closing", new RequestTiming(
+								marks)));
+				return;
+			}
+			reserved++;
+		}
+
+		final List<String[]> headers = translate(message, endpoint);
+		final byte[] body = getBody(message);
+
+		Stream stream = null;
+		try {
+			synchronized (writeLock) {
+				final int id = nextStream;
+				nextStream += 2;
+				if (nextStream < 0) {
+					// Out of stream ids, for the next request
+					goingAway = true;
+				}
+				if (setupMarks != null) {
+					System.arraycopy(setupMarks, 0, marks, 0, marks.length);
+					setupMarks = null;
+				}
+				stream = new Stream(id, message, listener, marks);
+				synchronized (streams) {
+					streams.put(Integer.valueOf(id), stream);
+				}
+				openStream(id);
+				writeHeaders(id, headers, body.length == 0);
+			}
+			if (body.length > 0) {
+				writeData(stream.id, body, true);
+			}
+			stream.mark(RequestTiming.WRITE);
+
+		} catch (final IOException e) {
+
+			if (stream == null) {
+				release(null);
+				listener.failed(new ConnectionException(
+						"The HTTP/2 connection failed: " + e.getMessage(),
+						new RequestTiming(marks)));
+			} else if (remove(stream.id) != null) {
+				listener.failed(new ConnectionException(
+						"The HTTP/2 connection failed: " + e.getMessage(),
+						stream.getTiming()));
+			}
+			close();
+
+		}
+
+	}
+
+	/**
+	 * @return boolean true if new requests can be sent on this connection
+	 */
+	boolean isOpen() {
+
+		return !isClosed() && !goingAway;
+
+	}
+
+	/**
+	 * @return int the number of requests waiting for their reply
+	 */
+	int getOpenStreams() {
+
+		synchronized (streams) {
+			return streams.size();
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Tell the server that no more requests are coming and close the
+	 * connection.
+	 * </p>
+	 */
+	void shutdown() {
+
+		goingAway = true;
+		try {
+			writeGoAway(0, NO_ERROR);
+		} catch (final IOException e) {
+			// Closing anyway
+		}
+		close();
+
+	}
+
+	@Override
+	protected void onHeaders(final int id, final List<String[]> headers,
+			final boolean endStream) {
+
+		final Stream stream = get(id);
+		if (stream == null) {
+			return;
+		}
+		stream.headers(headers);
+		if (endStream) {
+			complete(stream);
+		}
+
+	}
+
+	@Override
+	protected void onData(final int id, final byte[] data, final int offset,
+			final int length, final boolean endStream) {
+
+		final Stream stream = get(id);
+		if (stream == null) {
+			return;
+		}
+		stream.data(data, offset, length);
+		if (endStream) {
+			complete(stream);
+		}
+
+	}
+
+	@Override
+	protected void onReset(final int id, final int errorCode) {
+
+		final Stream stream = remove(id);
+		if (stream != null) {
+			// A refused stream was not processed, and can be sent again
+			stream.listener.failed(new ConnectionException(
+					"The server reset the HTTP/2 stream: "
+							+ getErrorName(errorCode),
+					errorCode == REFUSED_STREAM ? stream.getUnsentTiming()
+							: stream.getTiming()));
+		}
+
+	}
+
+	@Override
+	protected void onGoAway(final int lastStream, final int errorCode) {
+
+		goingAway = true;
+		Logger.log("HTTP/2 connection to " + endpoint.getTarget()
+				+ " going away: " + getErrorName(errorCode), 0);
+
+		// Streams past the last one were not processed
+		final List<Stream> unprocessed = new ArrayList<Stream>();
+		synchronized (streams) {
+			for (final Stream stream : streams.values()) {
+				if (stream.id > lastStream) {
+					unprocessed.add(stream);
+				}
+			}
+			streams.notifyAll();
+		}
+		for (final Stream stream : unprocessed) {
+			if (remove(stream.id) != null) {
+				stream.listener.failed(new ConnectionException(
+						"The HTTP/2 connection is closing: "
+								+ getErrorName(errorCode), stream
+								.getUnsentTiming()));
+			}
+		}
+
+	}
+
+	@Override
+	protected boolean onIdle() {
+
+		// Timed out, if waiting for any reply
+		return getOpenStreams() == 0;
+
+	}
+
+	@Override
+	protected void onClosed(final IOException cause) {
+
+		final List<Stream> left;
+		synchronized (streams) {
+			left = new ArrayList<Stream>(streams.values());
+			streams.notifyAll();
+		}
+		for (final Stream stream : left) {
+			if (remove(stream.id) != null) {
+				stream.listener.failed(new ConnectionException(
+						"An IO Error occured: " + (cause == null ? "closed"
+								: cause.getMessage())
+								+ ". \n\nThis could also be a Connection Timeout, "
+								+ "\ntry increasing the value under Preferences ->"
+								+ " Fuzzing\n", stream.getTiming()));
+			}
+		}
+
+	}
+
+	private void complete(final Stream stream) {
+
+		if (remove(stream.id) != null) {
+			stream.listener.replied(new Connection(new SocketConnection(
+					stream.message, endpoint.getPort(), stream.getReply(),
+					stream.getMarks())));
+		}
+
+	}
+
+	private Stream get(final int id) {
+
+		synchronized (streams) {
+			return streams.get(Integer.valueOf(id));
+		}
+
+	}
+
+	/**
+	 * @return Stream the stream removed, or null if it was already
+	 */
+	private Stream remove(final int id) {
+
+		final Stream stream;
+		synchronized (streams) {
+			stream = streams.remove(Integer.valueOf(id));
+		}
+		if (stream != null) {
+			closeStream(id);
+			release(stream);
+		}
+		return stream;
+
+	}
+
+	private void release(final Stream stream) {
+
+		synchronized (streams) {
+			reserved--;
+			streams.notifyAll();
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Translate the text of an HTTP/1.1 request into the header fields of an
+	 * HTTP/2 request, the pseudo-header fields first.
+	 * </p>
+	 * 
+	 * @param message The text of the request, lines ending in CRLF or LF
+	 * @param endpoint The target, for the scheme and the default authority
+	 * @return List the name, in lower case, and value of each field
+	 */
+	static List<String[]> translate(final String message,
+			final Endpoint endpoint) {
+
+		final String[] lines = message.substring(0, getHeadEnd(message)[0])
+				.split("\r?\n");
+		final String[] requestLine = lines[0].trim().split(" +");
+		final String method = requestLine[0];
+		String path = requestLine.length > 1 ? requestLine[1] : "/";
+		String authority = null;
+
+		// An absolute URI names the authority itself
+		final int scheme = path.indexOf("://");
+		if ((scheme > 0) && (path.indexOf('/') > scheme)) {
+			final int slash = path.indexOf('/', scheme + 3);
+			authority = path.substring(scheme + 3, slash < 0 ? path.length()
+					: slash);
+			path = slash < 0 ? "/" : path.substring(slash);
+		}
+
+		final List<String[]> fields = new ArrayList<String[]>();
+		for (int i = 1; i < lines.length; i++) {
+			final int colon = lines[i].indexOf(':');
+			if (colon <= 0) {
+				continue;
+			}
+			final String name = lines[i].substring(0, colon).trim()
+					.toLowerCase();
+			final String value = lines[i].substring(colon + 1).trim();
+			if (name.equals("host")) {
+				if (authority == null) {
+					authority = value;
+				}
+			} else if (name.equals("te")) {
+				if (value.equalsIgnoreCase("trailers")) {
+					fields.add(new String[] { name, value });
+				}
+			} else if (!isConnectionHeader(name)) {
+				fields.add(new String[] { name, value });
+			}
+		}
+
+		if (authority == null) {
+			authority = endpoint.getHost();
+			if (endpoint.getPort() != (endpoint.isSecure() ? 443 : 80)) {
+				authority += ":" + endpoint.getPort();
+			}
+		}
+
+		final List<String[]> headers = new ArrayList<String[]>(fields.size() + 4);
+		headers.add(new String[] { ":method", method });
+		headers.add(new String[] { ":scheme", endpoint.getProtocol() });
+		headers.add(new String[] { ":authority", authority });
+		headers.add(new String[] { ":path", path });
+		headers.addAll(fields);
+		return headers;
+
+	}
+
+	/**
+	 * @return byte[] the body of the text of an HTTP/1.1 request, if any
+	 */
+	static byte[] getBody(final String message) {
+
+		final int start = getHeadEnd(message)[1];
+		return start < message.length() ? message.substring(start).getBytes()
+				: new byte[0];
+
+	}
+
+	/**
+	 * @return int[] the length of the head, without the empty line, and
+	 *         the start of the body
+	 */
+	private static int[] getHeadEnd(final String message) {
+
+		final int crlf = message.indexOf("\r\n\r\n");
+		final int lf = message.indexOf("\n\n");
+		if ((crlf >= 0) && ((lf < 0) || (crlf < lf))) {
+			return new int[] { crlf, crlf + 4 };
+		}
+		if (lf >= 0) {
+			return new int[] { lf, lf + 2 };
+		}
+		return new int[] { message.length(), message.length() };
+
+	}
+
+	private static boolean isConnectionHeader(final String name) {
+
+		for (final String header : CONNECTION_HEADERS) {
+			if (header.equals(name)) {
+				return true;
+			}
+		}
+		return false;
+
+	}
+
+	/**
+	 * <p>
+	 * A request on the wire and its reply, as read so far.
+	 * </p>
+	 */
+	private static final class Stream {
+
+		private final int id;
+
+		private final String message;
+
+		private final Listener listener;
+
+		private final long[] marks;
+
+		private final ByteArrayOutputStream head = new ByteArrayOutputStream(256);
+
+		private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+		private final StringBuilder trailers = new StringBuilder();
+
+		// Whether the final, rather than an interim 1xx, status was read
+		private boolean answered;
+
+		private Stream(final int id, final String message,
+				final Listener listener, final long[] marks) {
+
+			this.id = id;
+			this.message = message;
+			this.listener = listener;
+			this.marks = marks;
+
+		}
+
+		private synchronized void mark(final int phase) {
+
+			marks[phase + 1] = System.nanoTime();
+
+		}
+
+		private synchronized void headers(final List<String[]> headers) {
+
+			if (marks[RequestTiming.FIRST_BYTE + 1] == 0L) {
+				mark(RequestTiming.FIRST_BYTE);
+			}
+			if (answered) {
+				for (final String[] header : headers) {
+					trailers.append(header[0]).append(": ").append(header[1])
+							.append("\r\n");
+				}
+				return;
+			}
+
+			final StringBuilder text = new StringBuilder(256);
+			String status = "";
+			for (final String[] header : headers) {
+				if (header[0].equals(":status")) {
+					status = header[1];
+				}
+			}
+			text.append("HTTP/2 ").append(status).append("\r\n");
+			for (final String[] header : headers) {
+				if (!header[0].startsWith(":")) {
+					text.append(header[0]).append(": ").append(header[1])
+							.append("\r\n");
+				}
+			}
+			text.append("\r\n");
+			try {
+				head.write(text.toString().getBytes("ISO-8859-1"));
+			} catch (final IOException e) {
+				throw new IllegalStateException(e.getMessage());
+			}
+			answered = !status.startsWith("1");
+
+		}
+
+		private synchronized void data(final byte[] data, final int offset,
+				final int length) {
+
+			if (marks[RequestTiming.FIRST_BYTE + 1] == 0L) {
+				mark(RequestTiming.FIRST_BYTE);
+			}
+			body.write(data, offset, length);
+
+		}
+
+		private synchronized byte[] getReply() {
+
+			mark(RequestTiming.DOWNLOAD);
+			final ByteArrayOutputStream reply = new ByteArrayOutputStream(
+					head.size() + body.size() + trailers.length());
+			try {
+				head.writeTo(reply);
+				body.writeTo(reply);
+				reply.write(trailers.toString().getBytes("ISO-8859-1"));
+			} catch (final UnsupportedEncodingException e) {
+				throw new IllegalStateException(e.getMessage());
+			} catch (final IOException e) {
+				throw new IllegalStateException(e.getMessage());
+			}
+			return reply.toByteArray();
+
+		}
+
+		private synchronized long[] getMarks() {
+
+			return marks.clone();
+
+		}
+
+		private synchronized RequestTiming getTiming() {
+
+			return new RequestTiming(marks.clone());
+
+		}
+
+		/**
+		 * @return RequestTiming the timing up to the request being written,
+		 *         so that the failure counts as before reaching the target
+		 */
+		private synchronized RequestTiming getUnsentTiming() {
+
+			final long[] unsent = marks.clone();
+			for (int phase = RequestTiming.WRITE + 1; phase < unsent.length; phase++) {
+				unsent[phase] = 0L;
+			}
+			return new RequestTiming(unsent);
+
+		}
+
+	}
+
+}
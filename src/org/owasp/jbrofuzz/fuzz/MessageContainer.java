@@ -56,23 +56,46 @@ public class MessageContainer {
 	private transient String textRequest;
 	private transient int responseTime;
 	private transient String reply;
+	private transient RequestTiming timing;
 	
 	
 	public MessageContainer(final FuzzingPanel fuzzingPanel) {
 
+		this(fuzzingPanel.getCounter(), fuzzingPanel.getTextURL(),
+				fuzzingPanel.getPayload(), fuzzingPanel.getEncodedPayload());
+
+	}
+
+	/**
+	 * <p>
+	 * Create a message container that does not read the current state of the
+	 * fuzzing panel, for messages that are queued up before being sent.
+	 * </p>
+	 * 
+	 * @param filename The unique, sequential file name of the message
+	 * @param textURL The target URL
+	 * @param payload The payload, or payloads
+	 * @param encodedPayload The encoded payload, or payloads
+	 * 
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	public MessageContainer(final String filename, final String textURL,
+			final String payload, final String encodedPayload) {
+
 		// Set the start & end time
 		start = new Date();
 		end = start;
 		// Set the filename
-		filename = fuzzingPanel.getCounter();
+		this.filename = filename;
 		// Set the text URL
-		textURL = fuzzingPanel.getTextURL();
+		this.textURL = textURL;
 		// Set the default status
 		status = "---";
 		// Set the current payload
-		payload = fuzzingPanel.getPayload();
+		this.payload = payload;
 		// Set the encoded paoylad
-		encodedPayload = fuzzingPanel.getEncodedPayload();
+		this.encodedPayload = encodedPayload;
 		// Initialise the byte length
 		replyByteLength = 0;
 		// Create the StringBuffer starting with a comment
@@ -92,11 +115,15 @@ public class MessageContainer {
 	}
 	
 	public String getEndDateFull(){
-		return SD_FORMAT.format(this.end);
+		synchronized (SD_FORMAT) {
+			return SD_FORMAT.format(this.end);
+		}
 	}
 	
 	public String getEndDateShort(){
-		return SH_FORMAT.format(this.end);
+		synchronized (SH_FORMAT) {
+			return SH_FORMAT.format(this.end);
+		}
 	}
 	
 	public int getEndDateNumerical(){
@@ -107,6 +134,10 @@ public class MessageContainer {
 		return (int) this.start.getTime();
 	}
 
+	public long getStartTimeMillis(){
+		return this.start.getTime();
+	}
+
 	private void append(final int input) {
 
 		message.append(input);
@@ -141,6 +172,10 @@ public class MessageContainer {
 
 	}
 
+	public void setByteCount(int byteCount) {
+		this.replyByteLength = byteCount;
+	}
+
 	public String getFileName() {
 
 		return filename;
@@ -167,6 +202,24 @@ public class MessageContainer {
 
 	}
 	
+	/**
+	 * <p>
+	 * Get the time taken by each phase of the request on the wire, as
+	 * opposed to the response time, which also includes building the
+	 * request and handling the reply.
+	 * </p>
+	 * 
+	 * @return RequestTiming the timing, or null if the request was not sent
+	 * 
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	public RequestTiming getTiming() {
+
+		return timing;
+
+	}
+
 	public void setResponseTime(int responseTime){
 		this.responseTime = responseTime;
 	}
@@ -175,7 +228,7 @@ public class MessageContainer {
 
 	public String getStartDateFull() {
 
-		synchronized (this) {
+		synchronized (SD_FORMAT) {
 			return SD_FORMAT.format(start);
 		}
 
@@ -183,7 +236,7 @@ public class MessageContainer {
 
 	public String getStartDateShort() {
 
-		synchronized (this) {
+		synchronized (SH_FORMAT) {
 			return SH_FORMAT.format(start);
 		}
 
@@ -222,7 +275,9 @@ public class MessageContainer {
 		status = connection.getStatus();
 		// Update the end time
 		end = new Date();
-		// Update the reply byte length
+		// Update the time taken on the wire
+		timing = connection.getTiming();
+		// Update the reply byte length, as on the wire
 		replyByteLength = reply.getBytes().length;
 
 		this.append(getResponseTime());
@@ -235,8 +290,9 @@ public class MessageContainer {
 		this.append(connection.getMessage());
 		// Append the distinguishing response from reply
 		message.append("--jbrofuzz-->\n");
-		// Finally write the reply string
-		message.append(reply);
+		// Finally write the reply string, de-chunked and inflated for the
+		// graphs and the output to compare
+		message.append(connection.getDecodedReply());
 	}
 
 
@@ -255,6 +311,8 @@ public class MessageContainer {
 
 		// Update the end time
 		end = new Date();
+		// Update the time taken on the wire, up to the error
+		timing = conException.getTiming();
 
 		this.append(getResponseTime());
 		this.append(getStartDateFull());
@@ -276,6 +334,22 @@ public class MessageContainer {
 		this.message.append(message);
 	}
 
+	/**
+	 * <p>
+	 * Replace the whole record of this message, as returned by
+	 * toString(), e.g. with one sent by a worker of a distributed run.
+	 * </p>
+	 * 
+	 * @param record The record, starting with its comment
+	 * 
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	public void setRecord(final String record) {
+		message.setLength(0);
+		message.append(record);
+	}
+
 	@Override
 	public String toString() {
 
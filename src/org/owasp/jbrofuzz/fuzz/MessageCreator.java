@@ -34,7 +34,6 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import org.owasp.jbrofuzz.JBroFuzz;
 import org.owasp.jbrofuzz.encode.EncoderHashCore;
-import org.owasp.jbrofuzz.version.JBroFuzzPrefs;
 
 /**
  * <p>
@@ -67,29 +66,51 @@ public class MessageCreator {
 
 	public MessageCreator(final String url, final String message, final String payload, final int start, final int finish) {
 
-		// Perform the necessary encoding on the payload specified
-		this.payload = payload;
+		this(url, message, payload, start, finish, RunConfiguration.fromPreferences(JBroFuzz.PREFS));
+
+	}
+
+	public MessageCreator(final String url, final String message, final String payload, final int start, final int finish, final RunConfiguration configuration) {
+
 		// Split the message and add in-between
-		// TODO: Calculate the length of the message
-		final StringBuffer messageBuffer = new StringBuffer();
-		messageBuffer.append(message.substring(0, start));
-		messageBuffer.append(this.payload);
-		messageBuffer.append(message.substring(finish));
+		this(url, message.substring(0, start) + payload + message.substring(finish), payload, configuration);
 
-		// Set the end of line character from the preferences
-		final boolean endLineChar = JBroFuzz.PREFS.getBoolean(JBroFuzzPrefs.FUZZING[1].getId(), true);
-		END_LINE = endLineChar ? "\r\n" : "\n";
+	}
 
-		this.message = stringReplace("\n", messageBuffer.toString(),
-				END_LINE);
+	/**
+	 * <p>
+	 * Create a message from a request in which the payloads have already
+	 * been put in place, e.g. by a FuzzRequest with more than one fuzz point.
+	 * </p>
+	 * 
+	 * @param url The target URL
+	 * @param message The request, including any payloads
+	 * @param payload The payload, or payloads, as to be displayed
+	 * @param configuration The settings of the run this message is part of
+	 * 
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	public MessageCreator(final String url, final String message, final String payload, final RunConfiguration configuration) {
+
+		this.payload = payload;
+
+		// Set the end of line character from the run configuration
+		END_LINE = configuration.getEndOfLine();
 
+		this.message = stringReplace("\n", message, END_LINE);
+
+		// Raw transports put the request on the wire as it is
+		if (Endpoint.isRaw(url)) {
+			return;
+		}
 
 		// By now we have the complete message with the payload in the right
 		// location
 		this.message = doAppendCRLF(this.message);
 		
-		final boolean addConnectionClosedHeader = JBroFuzz.PREFS.getBoolean(JBroFuzzPrefs.FUZZING[5].getId(), true);
-		if(addConnectionClosedHeader){
+		// Pipelined requests need the connection to stay open
+		if(configuration.isConnectionCloseHeader() && !configuration.isPipelined()){
 			this.message = doConnectionCloseHeader(this.message);			
 		}
 		
@@ -99,8 +120,7 @@ public class MessageCreator {
 		
 		
 		// Do a Base64, basic auth header append
-		final boolean addAuthHeader = JBroFuzz.PREFS.getBoolean(JBroFuzzPrefs.FUZZING[4].getId(), true);
-		if(addAuthHeader) {
+		if(configuration.isBasicAuthHeader()) {
 			this.message = doBasicAuthHeader(url, this.message);
 		}
 	}
@@ -0,0 +1,406 @@
+/**
+ * JbroFuzz 2.5
+ *
+ * JBroFuzz - A stateless network protocol fuzzer for web applications.
+ * 
+ * Copyright (C) 2007 - 2010 subere@uncon.org
+ *
+ * This file is part of JBroFuzz.
+ * 
+ * JBroFuzz is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * JBroFuzz is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with JBroFuzz.  If not, see <http://www.gnu.org/licenses/>.
+ * Alternatively, write to the Free Software Foundation, Inc., 51 
+ * Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Verbatim copying and distribution of this entire program file is 
+ * permitted in any medium without royalty provided this notice 
+ * is preserved. 
+ * 
+ */
+package org.owasp.jbrofuzz.fuzz;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.List;
+
+/**
+ * <p>
+ * A connection putting several requests on the wire at once, as HTTP/1.1
+ * pipelining, and reading their replies back in the same order.
+ * </p>
+ * 
+ * <p>
+ * Each reply is delimited by its Content-Length, its chunks or the status
+ * of the reply, so that the connection does not have to be closed between
+ * replies. Reading stops early, leaving the rest of the requests
+ * unanswered, if the server closes the connection, if what comes back
+ * does not look like the next reply, or if a reply can only end with the
+ * connection.
+ * </p>
+ * 
+ * <p>
+ * The first reply is timed from the start of the connection; each of the
+ * following ones from the end of the reply before it, without the phases
+ * it shares with the first one.
+ * </p>
+ * 
+ * @version 2.5
+ * @since 2.5
+ */
+class PipelinedConnection {
+
+	private static final int RECV_BUF_SIZE = 64 * 1024;
+
+	private final List<String> messages;
+
+	private final int port;
+
+	private final Socket socket;
+
+	private final InputStream inStream;
+
+	// The marks of the phases shared by all requests
+	private final long[] marks = new long[RequestTiming.PHASES.length + 1];
+
+	// The index of the next reply to read
+	private int next;
+
+	// The System.nanoTime() at which the last reply was read
+	private long lastRead;
+
+	// Why reading stopped, null while replies are expected
+	private String ended;
+
+	/**
+	 * <p>
+	 * Connect to the given endpoint and put all the messages on the wire,
+	 * one after the other.
+	 * </p>
+	 * 
+	 * @param endpoint The target, typically resolved once for the run
+	 * @param messages The messages to put on the wire, each keeping the
+	 *            connection open
+	 * @param socketTimeout The timeout in seconds, for connecting and for
+	 *            each read
+	 * @throws ConnectionException if the messages cannot be put on the wire
+	 */
+	PipelinedConnection(final Endpoint endpoint, final List<String> messages,
+			final int socketTimeout) throws ConnectionException {
+
+		this.messages = messages;
+		this.port = endpoint.getPort();
+
+		marks[0] = System.nanoTime();
+		Socket opened = null;
+		try {
+			opened = SocketConnection.open(endpoint, socketTimeout, marks);
+
+			final ByteArrayOutputStream requests = new ByteArrayOutputStream();
+			for (final String message : messages) {
+				requests.write(message.getBytes());
+			}
+			opened.setSendBufferSize(requests.size());
+			opened.setReceiveBufferSize(RECV_BUF_SIZE);
+
+			final OutputStream outStream = opened.getOutputStream();
+			requests.writeTo(outStream);
+			outStream.flush();
+			marks[RequestTiming.WRITE + 1] = System.nanoTime();
+
+			socket = opened;
+			inStream = new BufferedInputStream(opened.getInputStream(),
+					RECV_BUF_SIZE);
+
+		} catch (final IOException e) {
+
+			close(opened);
+			throw new ConnectionException("An IO Error occured: " + 
+					". \n\nThis could also be a Connection Timeout, " +
+					"\ntry increasing the value under Preferences ->" +
+					" Fuzzing\n", new RequestTiming(marks.clone()));
+
+		}
+		lastRead = marks[RequestTiming.WRITE + 1];
+
+	}
+
+	/**
+	 * <p>
+	 * Read the reply to the next request.
+	 * </p>
+	 * 
+	 * @return Connection the request and its reply, or null if no more
+	 *         replies can be read
+	 */
+	Connection next() {
+
+		if ((ended != null) || (next >= messages.size())) {
+			return null;
+		}
+
+		final long[] replyMarks = new long[marks.length];
+		if (next == 0) {
+			System.arraycopy(marks, 0, replyMarks, 0, marks.length);
+		} else {
+			replyMarks[0] = lastRead;
+		}
+
+		final String message = messages.get(next);
+		final ByteArrayOutputStream reply = new ByteArrayOutputStream();
+		try {
+			if (!readReply(message, reply, replyMarks)) {
+				return null;
+			}
+		} catch (final IOException e) {
+			ended = "reply " + (next + 1) + " could not be read: "
+					+ e.getMessage();
+			return null;
+		}
+		lastRead = replyMarks[RequestTiming.DOWNLOAD + 1];
+
+		next++;
+		return new Connection(new SocketConnection(message, port, reply
+				.toByteArray(), replyMarks));
+
+	}
+
+	/**
+	 * @return int the number of replies read so far
+	 */
+	int getReplied() {
+		return next;
+	}
+
+	/**
+	 * @return String why no more replies could be read, or null if all
+	 *         the replies have been read or are still expected
+	 */
+	String getEnded() {
+		return ended;
+	}
+
+	void close() {
+
+		close(socket);
+
+	}
+
+	private static void close(final Socket socket) {
+
+		if (socket != null) {
+			try {
+				socket.close();
+			} catch (final IOException e) {
+				// Closing anyway
+			}
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Read a whole reply, including any interim 1xx reply before it.
+	 * </p>
+	 * 
+	 * @return false if the next reply could not be found, having set ended
+	 */
+	private boolean readReply(final String message,
+			final ByteArrayOutputStream reply, final long[] replyMarks)
+			throws IOException {
+
+		final boolean headRequest = message.regionMatches(true, 0, "HEAD ", 0, 5);
+
+		while (true) {
+
+			final String header = readHead(reply, replyMarks);
+			if (header == null) {
+				ended = "the connection was closed";
+				return false;
+			}
+			if (!header.startsWith("HTTP/1.")) {
+				ended = "reply " + (next + 1) + " was out of sync";
+				return false;
+			}
+
+			final int status = getStatus(header);
+			if ((status >= 100) && (status < 200) && (status != 101)) {
+				// Interim reply, the final one follows
+				continue;
+			}
+			if ((status < 100) || (status == 101)) {
+				ended = "reply " + (next + 1) + " cannot be pipelined";
+				return false;
+			}
+
+			final String lower = header.toLowerCase();
+			if (lower.indexOf("\nconnection: close") >= 0
+					|| (header.startsWith("HTTP/1.0") && lower
+							.indexOf("\nconnection: keep-alive") < 0)) {
+				ended = "the server closed the connection";
+			}
+
+			if (headRequest || (status == 204) || (status == 304)) {
+				// No body
+			} else if (lower.indexOf("\ntransfer-encoding: chunked") >= 0) {
+				readChunks(reply);
+			} else {
+				final long length = getContentLength(lower);
+				if (length >= 0L) {
+					copy(reply, length);
+				} else {
+					// Only the end of the connection ends the body
+					copy(reply, Long.MAX_VALUE);
+					ended = "a reply without a length ended the connection";
+				}
+			}
+			replyMarks[RequestTiming.DOWNLOAD + 1] = System.nanoTime();
+			return true;
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Read the status line and headers of a reply, up to and including the
+	 * empty line, copying them to the reply.
+	 * </p>
+	 * 
+	 * @return String the status line and headers, or null if the connection
+	 *         was closed before any of it
+	 */
+	private String readHead(final ByteArrayOutputStream reply,
+			final long[] replyMarks) throws IOException {
+
+		final StringBuilder header = new StringBuilder();
+		int previous = -1;
+		int got;
+		while ((got = inStream.read()) > -1) {
+			if (replyMarks[RequestTiming.FIRST_BYTE + 1] == 0L) {
+				replyMarks[RequestTiming.FIRST_BYTE + 1] = System.nanoTime();
+			}
+			reply.write(got);
+			if (got == '\r') {
+				continue;
+			}
+			if ((got == '\n') && (previous == '\n')) {
+				return header.toString();
+			}
+			header.append((char) got);
+			previous = got;
+		}
+		return header.length() == 0 ? null : header.toString();
+
+	}
+
+	private void readChunks(final ByteArrayOutputStream reply)
+			throws IOException {
+
+		while (true) {
+			final String line = readLine(reply);
+			final int extension = line.indexOf(';');
+			final long size;
+			try {
+				size = Long.parseLong((extension < 0 ? line : line.substring(
+						0, extension)).trim(), 16);
+			} catch (final NumberFormatException e) {
+				throw new IOException("Invalid chunk size: " + line);
+			}
+			if (size == 0L) {
+				// Trailers, up to an empty line
+				while (readLine(reply).length() > 0) {
+					// Copied
+				}
+				return;
+			}
+			copy(reply, size);
+			readLine(reply);
+		}
+
+	}
+
+	private String readLine(final ByteArrayOutputStream reply)
+			throws IOException {
+
+		final StringBuilder line = new StringBuilder();
+		int got;
+		while ((got = inStream.read()) != '\n') {
+			if (got < 0) {
+				throw new IOException("Connection closed within a chunk");
+			}
+			reply.write(got);
+			if (got != '\r') {
+				line.append((char) got);
+			}
+		}
+		reply.write(got);
+		return line.toString();
+
+	}
+
+	private void copy(final ByteArrayOutputStream reply, final long length)
+			throws IOException {
+
+		final byte[] recv = new byte[8192];
+		long left = length;
+		while (left > 0L) {
+			final int got = inStream.read(recv, 0, (int) Math.min(left,
+					recv.length));
+			if (got < 0) {
+				if (length == Long.MAX_VALUE) {
+					return;
+				}
+				throw new IOException("Connection closed within a reply");
+			}
+			reply.write(recv, 0, got);
+			left -= got;
+		}
+
+	}
+
+	private static int getStatus(final String header) {
+
+		final int space = header.indexOf(' ');
+		if ((space < 0) || (header.length() < space + 4)) {
+			return -1;
+		}
+		try {
+			return Integer.parseInt(header.substring(space + 1, space + 4));
+		} catch (final NumberFormatException e) {
+			return -1;
+		}
+
+	}
+
+	private static long getContentLength(final String lowerHeader) {
+
+		final int start = lowerHeader.indexOf("\ncontent-length:");
+		if (start < 0) {
+			return -1L;
+		}
+		int end = lowerHeader.indexOf('\n', start + 1);
+		if (end < 0) {
+			end = lowerHeader.length();
+		}
+		try {
+			return Long.parseLong(lowerHeader.substring(start + 16, end).trim());
+		} catch (final NumberFormatException e) {
+			return -1L;
+		}
+
+	}
+
+}
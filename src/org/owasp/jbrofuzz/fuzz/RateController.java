@@ -0,0 +1,464 @@
+/**
+ * JbroFuzz 2.5
+ *
+ * JBroFuzz - A stateless network protocol fuzzer for web applications.
+ * 
+ * Copyright (C) 2007 - 2010 subere@uncon.org
+ *
+ * This file is part of JBroFuzz.
+ * 
+ * JBroFuzz is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * JBroFuzz is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with JBroFuzz.  If not, see <http://www.gnu.org/licenses/>.
+ * Alternatively, write to the Free Software Foundation, Inc., 51 
+ * Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Verbatim copying and distribution of this entire program file is 
+ * permitted in any medium without royalty provided this notice 
+ * is preserved. 
+ * 
+ */
+package org.owasp.jbrofuzz.fuzz;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+
+import org.owasp.jbrofuzz.system.Logger;
+
+/**
+ * <p>
+ * The limit on the requests put on the wire to a single target, at the same
+ * time and per second.
+ * </p>
+ * 
+ * <p>
+ * A fixed controller lets through as many concurrent requests as the engine
+ * has threads, no faster than the rate given, if any.
+ * </p>
+ * 
+ * <p>
+ * An adaptive controller starts with a single request in flight and adjusts
+ * its window the way TCP congestion control does: the window doubles with
+ * every window of successful replies until congestion is first seen, grows
+ * by one request per window thereafter, and is cut by 30%, at most once per
+ * window, on congestion. Congestion is a failed request (a timeout, a refused
+ * or reset connection), a 429 or a 503, or a smoothed response time more
+ * than twice the lowest seen recently. Once the window is down to a single
+ * request, further congestion doubles a pause between requests, which
+ * shrinks again with every successful reply.
+ * </p>
+ * 
+ * <p>
+ * The number of threads and the requests per second of the session remain
+ * hard caps an adaptive controller never goes above.
+ * </p>
+ * 
+ * <p>
+ * Either kind of controller also acts as a circuit breaker: after a given
+ * number of consecutive failed requests, sending to the target is
+ * suspended. After a second, a single request is let through as a probe;
+ * if it gets a reply, sending resumes, otherwise the wait before the next
+ * probe is doubled, up to a minute. Requests waiting for the target to
+ * resume are held, not dropped.
+ * </p>
+ * 
+ * @version 2.5
+ * @since 2.5
+ */
+public class RateController {
+
+	/**
+	 * <p>
+	 * The longest pause an adaptive controller waits between requests to a
+	 * target that keeps failing, in milliseconds.
+	 * </p>
+	 */
+	public static final long MAX_PAUSE = 5000L;
+
+	/**
+	 * <p>
+	 * The longest time a circuit breaker waits before probing a target that
+	 * has stopped replying, in milliseconds.
+	 * </p>
+	 */
+	public static final long MAX_OPEN = 60000L;
+
+	// The time first waited before probing, in milliseconds
+	private static final long MIN_OPEN = 1000L;
+
+	// The pause first waited once the window is down to a single request
+	private static final long MIN_PAUSE = 10L;
+
+	// The share of the window kept on congestion, as in TCP CUBIC
+	private static final double DECREASE = 0.7D;
+
+	// Response times within this many ms of the lowest are never congestion
+	private static final long LATENCY_TOLERANCE = 10L;
+
+	private final String target;
+
+	private final int maxLimit;
+
+	private final long minInterval;
+
+	private final boolean adaptive;
+
+	private final int breakerThreshold;
+
+	private double limit;
+
+	private double threshold;
+
+	private long pause;
+
+	private double smoothedLatency;
+
+	private double minLatency;
+
+	private int inFlight;
+
+	private long tickets;
+
+	private long lastDecrease;
+
+	private long nextSend;
+
+	private long decreases;
+
+	private int consecutiveFailures;
+
+	private boolean open;
+
+	private boolean probing;
+
+	private long probe;
+
+	private long probeAt;
+
+	private long openMillis;
+
+	private long opened;
+
+	private boolean closed;
+
+	/**
+	 * <p>
+	 * Create a controller for the given target.
+	 * </p>
+	 * 
+	 * @param target The target, as returned by getTarget()
+	 * @param maxLimit The most requests ever in flight at the same time
+	 * @param maxRate The most requests per second, 0 for no limit
+	 * @param adaptive True to adapt to the replies, false for a fixed limit
+	 * @param breakerThreshold The consecutive failures after which the target
+	 *            is suspended, 0 for never
+	 */
+	public RateController(final String target, final int maxLimit,
+			final int maxRate, final boolean adaptive,
+			final int breakerThreshold) {
+
+		this.target = target;
+		this.maxLimit = Math.max(1, maxLimit);
+		this.minInterval = maxRate > 0 ? 1000000000L / maxRate : 0L;
+		this.adaptive = adaptive;
+		this.breakerThreshold = Math.max(0, breakerThreshold);
+
+		limit = adaptive ? 1D : this.maxLimit;
+		threshold = this.maxLimit;
+		smoothedLatency = -1D;
+		minLatency = -1D;
+
+	}
+
+	/**
+	 * <p>
+	 * Return the target a URL is sent to, as host:port, or the URL itself if
+	 * it cannot be read.
+	 * </p>
+	 * 
+	 * @param url The URL
+	 * @return String the target
+	 */
+	public static String getTarget(final String url) {
+
+		if (Endpoint.isRaw(url)) {
+			try {
+				return Endpoint.parse(url).getTarget();
+			} catch (final ConnectionException e) {
+				return url;
+			}
+		}
+		try {
+			final URL target = new URL(url);
+			final int port = target.getPort() == -1 ? target.getDefaultPort()
+					: target.getPort();
+			return target.getHost().toLowerCase() + ':' + port;
+		} catch (final MalformedURLException e) {
+			return url;
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Wait for the window and the pace to allow another request to be put on
+	 * the wire, and for the target to be resumed if it has been suspended.
+	 * </p>
+	 * 
+	 * @return long the ticket to hand back once the request completes, or -1
+	 * if the controller has been closed
+	 * 
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public synchronized long acquire() throws InterruptedException {
+
+		while (!closed) {
+			final long now = System.nanoTime();
+			if (open && probing) {
+				wait();
+			} else if (open && (now - probeAt < 0)) {
+				waitNanos(probeAt - now);
+			} else if (inFlight >= (int) limit) {
+				wait();
+			} else if (now - nextSend < 0) {
+				waitNanos(nextSend - now);
+			} else {
+				inFlight++;
+				nextSend = now + Math.max(minInterval, pause * 1000000L);
+				if (open) {
+					probing = true;
+					probe = tickets + 1;
+				}
+				return ++tickets;
+			}
+		}
+		return -1L;
+
+	}
+
+	/**
+	 * <p>
+	 * Record a reply to a request let through by acquire().
+	 * </p>
+	 * 
+	 * @param ticket The ticket returned by acquire()
+	 * @param status The status code of the reply, e.g. "200"
+	 * @param millis The response time, in milliseconds
+	 */
+	public synchronized void replied(final long ticket, final String status,
+			final long millis) {
+
+		inFlight--;
+		consecutiveFailures = 0;
+		if (open) {
+			open = false;
+			probing = false;
+			Logger.log("Resuming requests to " + target, 1);
+		}
+		if (adaptive) {
+			// A server turning requests away answers faster than it serves
+			if ("429".equals(status) || "503".equals(status)) {
+				congested(ticket);
+			} else if (observe(millis) && (limit > 1D)) {
+				congested(ticket);
+			} else {
+				increase();
+			}
+		}
+		notifyAll();
+
+	}
+
+	/**
+	 * <p>
+	 * Record a request let through by acquire() that got no reply.
+	 * </p>
+	 * 
+	 * @param ticket The ticket returned by acquire()
+	 */
+	public synchronized void failed(final long ticket) {
+
+		inFlight--;
+		consecutiveFailures++;
+		if (adaptive) {
+			congested(ticket);
+		}
+		if (open && probing && (ticket == probe)) {
+			probing = false;
+			openMillis = Math.min(MAX_OPEN, openMillis * 2L);
+			probeAt = System.nanoTime() + openMillis * 1000000L;
+		} else if (!open && (breakerThreshold > 0)
+				&& (consecutiveFailures >= breakerThreshold)) {
+			open = true;
+			opened++;
+			openMillis = MIN_OPEN;
+			probeAt = System.nanoTime() + openMillis * 1000000L;
+			Logger.log("Suspending requests to " + target + " after "
+					+ consecutiveFailures + " consecutive failures", 2);
+		}
+		notifyAll();
+
+	}
+
+	/**
+	 * <p>
+	 * Hand back a ticket for a request that was never put on the wire.
+	 * </p>
+	 * 
+	 * @param ticket The ticket returned by acquire()
+	 */
+	public synchronized void cancel(final long ticket) {
+
+		inFlight--;
+		if (probing && (ticket == probe)) {
+			probing = false;
+		}
+		notifyAll();
+
+	}
+
+	/**
+	 * <p>
+	 * Let any thread waiting in acquire() through, with no ticket.
+	 * </p>
+	 */
+	public synchronized void close() {
+
+		closed = true;
+		notifyAll();
+
+	}
+
+	private void waitNanos(final long nanos) throws InterruptedException {
+
+		wait(Math.max(1L, nanos / 1000000L), (int) (nanos % 1000000L));
+
+	}
+
+	/**
+	 * <p>
+	 * Update the smoothed and lowest response times, the lowest one slowly
+	 * rising towards the current ones, so that a target that has become
+	 * slower for good is eventually taken as it is.
+	 * </p>
+	 * 
+	 * @return true if the smoothed response time points to congestion
+	 */
+	private boolean observe(final long millis) {
+
+		if (smoothedLatency < 0D) {
+			smoothedLatency = millis;
+			minLatency = millis;
+			return false;
+		}
+		smoothedLatency += (millis - smoothedLatency) / 8D;
+		if (millis < minLatency) {
+			minLatency = millis;
+		} else {
+			minLatency += (millis - minLatency) / 256D;
+		}
+		return smoothedLatency > 2D * minLatency + LATENCY_TOLERANCE;
+
+	}
+
+	private void increase() {
+
+		if (pause > 0L) {
+			pause = pause * 9L / 10L;
+			if (pause < MIN_PAUSE) {
+				pause = 0L;
+			}
+		} else if (limit < threshold) {
+			limit += 1D;
+		} else {
+			limit += 1D / limit;
+		}
+		limit = Math.min(limit, maxLimit);
+
+	}
+
+	private void congested(final long ticket) {
+
+		// Once per window: requests sent before the last decrease saw the
+		// old window
+		if (ticket <= lastDecrease) {
+			return;
+		}
+		lastDecrease = tickets;
+		decreases++;
+
+		if (limit >= 2D) {
+			limit = Math.max(1D, limit * DECREASE);
+			threshold = limit;
+		} else {
+			limit = 1D;
+			threshold = 1D;
+			pause = pause == 0L ? Math.max(MIN_PAUSE, (long) smoothedLatency)
+					: Math.min(MAX_PAUSE, pause * 2L);
+		}
+
+	}
+
+	public String getTarget() {
+		return target;
+	}
+
+	public boolean isAdaptive() {
+		return adaptive;
+	}
+
+	/**
+	 * @return int the requests currently allowed in flight at the same time
+	 */
+	public synchronized int getLimit() {
+		return (int) limit;
+	}
+
+	/**
+	 * @return long the current pause between requests, in milliseconds
+	 */
+	public synchronized long getPause() {
+		return pause;
+	}
+
+	/**
+	 * @return long the number of times the window was reduced
+	 */
+	public synchronized long getDecreases() {
+		return decreases;
+	}
+
+	public synchronized int getInFlight() {
+		return inFlight;
+	}
+
+	/**
+	 * @return boolean true while requests to the target are suspended
+	 */
+	public synchronized boolean isSuspended() {
+		return open;
+	}
+
+	/**
+	 * @return long the number of times requests to the target were suspended
+	 */
+	public synchronized long getSuspensions() {
+		return opened;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return target + " limit=" + (int) limit + " pause=" + pause
+				+ "ms decreases=" + decreases + " suspended=" + opened;
+	}
+
+}
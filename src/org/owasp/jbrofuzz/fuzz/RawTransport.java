@@ -0,0 +1,436 @@
+/**
+ * JbroFuzz 2.5
+ *
+ * JBroFuzz - A stateless network protocol fuzzer for web applications.
+ * 
+ * Copyright (C) 2007 - 2010 subere@uncon.org
+ *
+ * This file is part of JBroFuzz.
+ * 
+ * JBroFuzz is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * JBroFuzz is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with JBroFuzz.  If not, see <http://www.gnu.org/licenses/>.
+ * Alternatively, write to the Free Software Foundation, Inc., 51 
+ * Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Verbatim copying and distribution of this entire program file is 
+ * permitted in any medium without royalty provided this notice 
+ * is preserved. 
+ * 
+ */
+package org.owasp.jbrofuzz.fuzz;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * <p>
+ * Sends requests over the raw transports, tcp://, tls:// and udp://, as
+ * they are, and reads back each reply as the framing of the run gives it.
+ * </p>
+ * 
+ * <p>
+ * Requests and replies are read and written as ISO-8859-1, each character
+ * of a request being a byte on the wire, so that binary protocols can be
+ * fuzzed with payloads of any byte.
+ * </p>
+ * 
+ * <p>
+ * Connections are kept open once a reply has been read, unless the
+ * framing is close, and taken by the next request to the same target;
+ * a connection the target closed in the meantime is replaced by a new one
+ * for the same request. Over udp://, a connected datagram channel is kept
+ * the same way, and any datagram still waiting on it, e.g. a reply that
+ * came in late, is dropped before the next request.
+ * </p>
+ * 
+ * @version 2.5
+ * @since 2.5
+ */
+final class RawTransport {
+
+	// The largest datagram
+	private static final int MAX_DATAGRAM = 65536;
+
+	private static final String CHARSET = "ISO-8859-1";
+
+	private final Framing framing;
+
+	private final int socketTimeout;
+
+	// The idle connections and channels to each target
+	private final ConcurrentMap<String, ConcurrentLinkedQueue<Link>> idle;
+
+	private volatile boolean closed;
+
+	/**
+	 * @param configuration The settings of the run, for its framing and
+	 *            socket timeout
+	 */
+	RawTransport(final RunConfiguration configuration) {
+
+		framing = configuration.getFraming();
+		socketTimeout = configuration.getSocketTimeout();
+		idle = new ConcurrentHashMap<String, ConcurrentLinkedQueue<Link>>();
+
+	}
+
+	/**
+	 * <p>
+	 * Put a request on the wire to a raw endpoint and read back its reply.
+	 * </p>
+	 * 
+	 * @param endpoint The endpoint, of a raw transport
+	 * @param message The request, as it is to go on the wire
+	 * @return Connection the request and its reply
+	 * @throws ConnectionException if the request could not be sent, or the
+	 *             reply could not be read as the framing gives it
+	 */
+	Connection send(final Endpoint endpoint, final String message)
+			throws ConnectionException {
+
+		final byte[] request = toBytes(message);
+
+		for (boolean reused = true;;) {
+			final long[] marks = new long[RequestTiming.PHASES.length + 1];
+			marks[0] = System.nanoTime();
+
+			Link link = reused ? take(endpoint.getTarget()) : null;
+			reused = link != null;
+			try {
+				if (link == null) {
+					link = endpoint.isDatagram() ? new Channel(endpoint, marks)
+							: new Stream(endpoint, marks);
+				}
+				final byte[] reply = link.exchange(request, marks);
+				marks[RequestTiming.DOWNLOAD + 1] = System.nanoTime();
+
+				if (link.isOpen() && framing.isReusable() && !closed) {
+					give(endpoint.getTarget(), link);
+				} else {
+					link.close();
+				}
+				return new Connection(new SocketConnection(message, endpoint
+						.getPort(), reply, marks, true));
+
+			} catch (final IOException e) {
+				if (link != null) {
+					link.close();
+				}
+				// A connection kept open may have been closed by the target,
+				// while a target not replying in time would not reply again
+				if (reused && !endpoint.isDatagram()
+						&& !(e instanceof SocketTimeoutException)
+						&& (marks[RequestTiming.FIRST_BYTE + 1] == 0L)) {
+					reused = false;
+					continue;
+				}
+				throw new ConnectionException("An IO Error occured: "
+						+ e.getMessage() + "\n", new RequestTiming(marks));
+			}
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Close every connection and channel kept open; those in use are
+	 * closed once their reply is read.
+	 * </p>
+	 */
+	void close() {
+
+		closed = true;
+		for (final ConcurrentLinkedQueue<Link> links : idle.values()) {
+			Link link;
+			while ((link = links.poll()) != null) {
+				link.close();
+			}
+		}
+
+	}
+
+	private Link take(final String target) {
+
+		final ConcurrentLinkedQueue<Link> links = idle.get(target);
+		return links == null ? null : links.poll();
+
+	}
+
+	private void give(final String target, final Link link) {
+
+		ConcurrentLinkedQueue<Link> links = idle.get(target);
+		if (links == null) {
+			final ConcurrentLinkedQueue<Link> created = new ConcurrentLinkedQueue<Link>();
+			links = idle.putIfAbsent(target, created);
+			if (links == null) {
+				links = created;
+			}
+		}
+		links.add(link);
+		// Closed meanwhile, not to leave the link open
+		if (closed && links.remove(link)) {
+			link.close();
+		}
+
+	}
+
+	static byte[] toBytes(final String message) {
+
+		try {
+			return message.getBytes(CHARSET);
+		} catch (final UnsupportedEncodingException e) {
+			return message.getBytes();
+		}
+
+	}
+
+	static String toString(final byte[] reply) {
+
+		try {
+			return new String(reply, CHARSET);
+		} catch (final UnsupportedEncodingException e) {
+			return new String(reply);
+		}
+
+	}
+
+	private static InetAddress resolve(final Endpoint endpoint,
+			final long[] marks) throws IOException {
+
+		final InetAddress address = endpoint.getAddress() != null ? endpoint
+				.getAddress() : InetAddress.getByName(endpoint.getHost());
+		marks[RequestTiming.DNS + 1] = System.nanoTime();
+		return address;
+
+	}
+
+	/**
+	 * <p>
+	 * A connection or a channel to a target, used by one request at a
+	 * time.
+	 * </p>
+	 */
+	private interface Link {
+
+		/**
+		 * @return byte[] the reply to the request
+		 */
+		byte[] exchange(byte[] request, long[] marks) throws IOException;
+
+		boolean isOpen();
+
+		void close();
+
+	}
+
+	/**
+	 * <p>
+	 * A tcp:// or tls:// connection.
+	 * </p>
+	 */
+	private final class Stream implements Link {
+
+		private final Socket socket;
+
+		private final InputStream in;
+
+		private final OutputStream out;
+
+		// Whether the target has closed the connection
+		private boolean ended;
+
+		private int exchanges;
+
+		Stream(final Endpoint endpoint, final long[] marks) throws IOException {
+
+			socket = SocketConnection.open(endpoint, socketTimeout, marks);
+			socket.setTcpNoDelay(true);
+			out = socket.getOutputStream();
+			in = new BufferedInputStream(socket.getInputStream()) {
+				@Override
+				public synchronized int read() throws IOException {
+					return end(super.read());
+				}
+
+				@Override
+				public synchronized int read(final byte[] b, final int off,
+						final int len) throws IOException {
+					return end(super.read(b, off, len));
+				}
+			};
+
+		}
+
+		private int end(final int got) {
+			if (got < 0) {
+				ended = true;
+			}
+			return got;
+		}
+
+		public byte[] exchange(final byte[] request, final long[] marks)
+				throws IOException {
+
+			out.write(request);
+			out.flush();
+			marks[RequestTiming.WRITE + 1] = System.nanoTime();
+			final byte[] reply = framing.read(socket, in, marks);
+			if (ended && (reply.length == 0) && (exchanges > 0)) {
+				throw new EOFException("Connection closed before the request");
+			}
+			exchanges++;
+			return reply;
+
+		}
+
+		public boolean isOpen() {
+			return !ended && !socket.isClosed();
+		}
+
+		public void close() {
+			IOUtils.closeQuietly(in);
+			IOUtils.closeQuietly(out);
+			try {
+				socket.close();
+			} catch (final IOException e) {
+				// Closing anyway
+			}
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * A udp:// channel, connected to its target so that only its
+	 * datagrams are received.
+	 * </p>
+	 */
+	private final class Channel implements Link {
+
+		private final DatagramChannel channel;
+
+		private final Selector selector;
+
+		private final ByteBuffer buffer = ByteBuffer.allocate(MAX_DATAGRAM);
+
+		Channel(final Endpoint endpoint, final long[] marks) throws IOException {
+
+			final InetAddress address = resolve(endpoint, marks);
+			channel = DatagramChannel.open();
+			try {
+				channel.connect(new InetSocketAddress(address, endpoint
+						.getPort()));
+				channel.configureBlocking(false);
+				selector = Selector.open();
+				channel.register(selector, SelectionKey.OP_READ);
+			} catch (final IOException e) {
+				channel.close();
+				throw e;
+			}
+			marks[RequestTiming.CONNECT + 1] = System.nanoTime();
+
+		}
+
+		public byte[] exchange(final byte[] request, final long[] marks)
+				throws IOException {
+
+			// Drop what came in after the previous reply
+			buffer.clear();
+			while (channel.read(buffer) > 0) {
+				buffer.clear();
+			}
+
+			channel.write(ByteBuffer.wrap(request));
+			marks[RequestTiming.WRITE + 1] = System.nanoTime();
+
+			final int pause = framing.getIdle();
+			final List<byte[]> datagrams = new ArrayList<byte[]>();
+			int size = 0;
+			while (true) {
+				final long wait = pause > 0 ? pause : socketTimeout * 1000L;
+				selector.selectedKeys().clear();
+				if (selector.select(Math.max(1L, wait)) == 0) {
+					// Without a pause to end it, a reply is a datagram
+					if ((pause > 0) || !datagrams.isEmpty()) {
+						break;
+					}
+					throw new IOException("No reply within " + socketTimeout
+							+ " s");
+				}
+				buffer.clear();
+				final int got = channel.read(buffer);
+				if (got <= 0) {
+					continue;
+				}
+				if (marks[RequestTiming.FIRST_BYTE + 1] == 0L) {
+					marks[RequestTiming.FIRST_BYTE + 1] = System.nanoTime();
+				}
+				final byte[] datagram = new byte[got];
+				buffer.flip();
+				buffer.get(datagram);
+				datagrams.add(datagram);
+				size += got;
+				if ((pause == 0) || (size >= ResponseDecoder.MAX_SIZE)) {
+					break;
+				}
+			}
+
+			final byte[] reply = new byte[size];
+			int offset = 0;
+			for (final byte[] datagram : datagrams) {
+				System.arraycopy(datagram, 0, reply, offset, datagram.length);
+				offset += datagram.length;
+			}
+			return reply;
+
+		}
+
+		public boolean isOpen() {
+			return channel.isOpen();
+		}
+
+		public void close() {
+			try {
+				selector.close();
+			} catch (final IOException e) {
+				// Closing anyway
+			}
+			try {
+				channel.close();
+			} catch (final IOException e) {
+				// Closing anyway
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,177 @@
+/**
+ * JbroFuzz 2.5
+ *
+ * JBroFuzz - A stateless network protocol fuzzer for web applications.
+ * 
+ * Copyright (C) 2007 - 2010 subere@uncon.org
+ *
+ * This file is part of JBroFuzz.
+ * 
+ * JBroFuzz is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * JBroFuzz is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with JBroFuzz.  If not, see <http://www.gnu.org/licenses/>.
+ * Alternatively, write to the Free Software Foundation, Inc., 51 
+ * Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Verbatim copying and distribution of this entire program file is 
+ * permitted in any medium without royalty provided this notice 
+ * is preserved. 
+ * 
+ */
+package org.owasp.jbrofuzz.fuzz;
+
+/**
+ * <p>
+ * The time taken by each phase of a request on the wire, measured with
+ * System.nanoTime() and kept in microseconds.
+ * </p>
+ * 
+ * <p>
+ * The phases are DNS resolution, TCP connect, TLS handshake, writing the
+ * request, waiting for the first byte of the reply and downloading the rest
+ * of it. A phase that was not reached, e.g. because the connection failed
+ * or there was no TLS handshake to perform, is reported as -1.
+ * </p>
+ * 
+ * <p>
+ * Unlike the response time of a message container, which also includes
+ * building the message and handling the reply, these times only cover the
+ * socket, telling the server apart from the client.
+ * </p>
+ * 
+ * @version 2.5
+ * @since 2.5
+ */
+public final class RequestTiming {
+
+	public static final int DNS = 0;
+
+	public static final int CONNECT = 1;
+
+	public static final int HANDSHAKE = 2;
+
+	public static final int WRITE = 3;
+
+	public static final int FIRST_BYTE = 4;
+
+	public static final int DOWNLOAD = 5;
+
+	/**
+	 * <p>The names of the phases, in order.</p>
+	 */
+	public static final String[] PHASES = { 
+		"DNS", "Connect", "TLS", "Write", "TTFB", "Download" 
+	};
+
+	private final int[] micros;
+
+	/**
+	 * <p>
+	 * Create a timing record from the System.nanoTime() taken at the start
+	 * and at the end of each phase. The array has one more entry than there
+	 * are phases; an entry of 0 marks a phase that was not reached.
+	 * </p>
+	 * 
+	 * @param marks the start, followed by the end of each phase
+	 */
+	RequestTiming(final long[] marks) {
+
+		micros = new int[PHASES.length];
+		long previous = marks[0];
+		for (int i = 0; i < micros.length; i++) {
+			if (marks[i + 1] == 0L) {
+				micros[i] = -1;
+			} else {
+				final long elapsed = (marks[i + 1] - previous) / 1000L;
+				micros[i] = (int) Math.min(elapsed, Integer.MAX_VALUE);
+				previous = marks[i + 1];
+			}
+		}
+
+	}
+
+	/**
+	 * <p>Return the time taken by a phase.</p>
+	 * 
+	 * @param phase one of DNS, CONNECT, HANDSHAKE, WRITE, FIRST_BYTE or
+	 *              DOWNLOAD
+	 * @return int the time in microseconds, or -1 if the phase was not reached
+	 */
+	public int getMicros(final int phase) {
+
+		return micros[phase];
+
+	}
+
+	/**
+	 * <p>Return the time taken by all the phases that were reached.</p>
+	 * 
+	 * @return long the time in microseconds
+	 */
+	public long getTotalMicros() {
+
+		long total = 0L;
+		for (final int value : micros) {
+			if (value > 0) {
+				total += value;
+			}
+		}
+		return total;
+
+	}
+
+	/**
+	 * <p>Return the time taken by a phase, in milliseconds with three
+	 * decimals, or "-" if the phase was not reached.</p>
+	 * 
+	 * @param phase the phase
+	 * @return String the time in milliseconds
+	 */
+	public String toMillisString(final int phase) {
+
+		final int value = micros[phase];
+		if (value < 0) {
+			return "-";
+		}
+		final StringBuffer output = new StringBuffer();
+		output.append(value / 1000).append('.');
+		final int fraction = value % 1000;
+		if (fraction < 100) {
+			output.append('0');
+		}
+		if (fraction < 10) {
+			output.append('0');
+		}
+		output.append(fraction);
+		return output.toString();
+
+	}
+
+	/**
+	 * <p>Return the phases as <code>name=ms</code> pairs, separated by
+	 * spaces.</p>
+	 */
+	@Override
+	public String toString() {
+
+		final StringBuffer output = new StringBuffer();
+		for (int i = 0; i < PHASES.length; i++) {
+			if (i > 0) {
+				output.append(' ');
+			}
+			output.append(PHASES[i]).append('=').append(toMillisString(i));
+		}
+		return output.toString();
+
+	}
+
+}
@@ -0,0 +1,160 @@
+/**
+ * JbroFuzz 2.5
+ *
+ * JBroFuzz - A stateless network protocol fuzzer for web applications.
+ * 
+ * Copyright (C) 2007 - 2010 subere@uncon.org
+ *
+ * This file is part of JBroFuzz.
+ * 
+ * JBroFuzz is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * JBroFuzz is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with JBroFuzz.  If not, see <http://www.gnu.org/licenses/>.
+ * Alternatively, write to the Free Software Foundation, Inc., 51 
+ * Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Verbatim copying and distribution of this entire program file is 
+ * permitted in any medium without royalty provided this notice 
+ * is preserved. 
+ * 
+ */
+package org.owasp.jbrofuzz.fuzz;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.owasp.jbrofuzz.system.Logger;
+
+/**
+ * <p>
+ * The endpoints of a run, each URL being parsed and its host resolved once,
+ * on the first request to it, rather than for every payload.
+ * </p>
+ * 
+ * <p>
+ * Every request of a run thus goes to the same address, even if the name
+ * of the target resolves to more than one, so that its results can be
+ * compared. A host that cannot be resolved is looked up again on the next
+ * request.
+ * </p>
+ * 
+ * <p>
+ * Hosts can also be pinned to a chosen address, bypassing DNS, with a list
+ * of <code>host=address</code> pairs separated by commas; an address on
+ * its own applies to any host, e.g.:
+ * </p>
+ * 
+ * <pre>
+ * www.example.com=192.0.2.10, api.example.com=192.0.2.11
+ * </pre>
+ * 
+ * @version 2.5
+ * @since 2.5
+ */
+public class Resolver {
+
+	// The key of an address pinned for any host
+	private static final String ANY_HOST = "";
+
+	private final Map<String, String> pins;
+
+	private final ConcurrentMap<String, Endpoint> endpoints;
+
+	/**
+	 * <p>
+	 * Create a resolver, with the hosts pinned as given.
+	 * </p>
+	 * 
+	 * @param pins The pinned hosts, as host=address pairs separated by
+	 *            commas, or an empty String for none
+	 */
+	public Resolver(final String pins) {
+
+		this.pins = new HashMap<String, String>();
+		this.endpoints = new ConcurrentHashMap<String, Endpoint>();
+
+		for (final String pin : pins.split(",")) {
+			final String entry = pin.trim();
+			if (entry.length() == 0) {
+				continue;
+			}
+			final int equals = entry.indexOf('=');
+			if (equals < 0) {
+				this.pins.put(ANY_HOST, entry);
+			} else {
+				this.pins.put(entry.substring(0, equals).trim().toLowerCase(),
+						entry.substring(equals + 1).trim());
+			}
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Return the endpoint of a URL, resolved unless its host could not be
+	 * resolved.
+	 * </p>
+	 * 
+	 * @param url The URL
+	 * @return Endpoint the endpoint
+	 * @throws ConnectionException if the URL is malformed or of an unknown
+	 *             protocol, or if the address its host is pinned to is not
+	 *             valid
+	 */
+	public Endpoint get(final String url) throws ConnectionException {
+
+		final Endpoint cached = endpoints.get(url);
+		if (cached != null) {
+			return cached;
+		}
+
+		final Endpoint endpoint = Endpoint.parse(url);
+		final String host = endpoint.getHost().toLowerCase();
+		String pin = pins.get(host);
+		if (pin == null) {
+			pin = pins.get(ANY_HOST);
+		}
+
+		final Endpoint resolved;
+		if (pin == null) {
+			try {
+				resolved = endpoint.resolve(InetAddress.getByName(endpoint
+						.getHost()));
+			} catch (final UnknownHostException e) {
+				// Leave it to the connection to fail looking it up
+				return endpoint;
+			}
+		} else {
+			try {
+				// Keep the name of the host, for the TLS handshake
+				resolved = endpoint.resolve(InetAddress.getByAddress(endpoint
+						.getHost(), InetAddress.getByName(pin).getAddress()));
+			} catch (final UnknownHostException e) {
+				throw new ConnectionException("Cannot resolve the address "
+						+ endpoint.getHost() + " is pinned to: " + pin + "\n");
+			}
+		}
+
+		final Endpoint previous = endpoints.putIfAbsent(url, resolved);
+		if (previous != null) {
+			return previous;
+		}
+		Logger.log("Sending " + url + " to " + resolved, 0);
+		return resolved;
+
+	}
+
+}
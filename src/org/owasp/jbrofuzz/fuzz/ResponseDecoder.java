@@ -0,0 +1,546 @@
+/**
+ * JbroFuzz 2.5
+ *
+ * JBroFuzz - A stateless network protocol fuzzer for web applications.
+ * 
+ * Copyright (C) 2007 - 2010 subere@uncon.org
+ *
+ * This file is part of JBroFuzz.
+ * 
+ * JBroFuzz is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * JBroFuzz is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with JBroFuzz.  If not, see <http://www.gnu.org/licenses/>.
+ * Alternatively, write to the Free Software Foundation, Inc., 51 
+ * Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Verbatim copying and distribution of this entire program file is 
+ * permitted in any medium without royalty provided this notice 
+ * is preserved. 
+ * 
+ */
+package org.owasp.jbrofuzz.fuzz;
+
+import java.io.ByteArrayOutputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * <p>
+ * Decodes a reply as it comes off the wire: the body is de-chunked if sent
+ * with Transfer-Encoding: chunked, and inflated if sent with
+ * Content-Encoding: gzip or deflate, so that the reply can be read and
+ * compared as the server meant it.
+ * </p>
+ * 
+ * <p>
+ * Bytes are decoded as they are written, into a buffer of at most
+ * MAX_SIZE bytes; the raw reply is kept by the connection, not here. A
+ * reply sent without either encoding is not copied at all, and neither is
+ * one that cannot be decoded: getDecoded() returns null for both, and the
+ * raw reply stands for the decoded one.
+ * </p>
+ * 
+ * <p>
+ * The head of the reply, including any interim 1xx replies, is kept as
+ * sent, followed by the decoded body; trailers are dropped.
+ * </p>
+ * 
+ * @version 2.5
+ * @since 2.5
+ */
+public final class ResponseDecoder {
+
+	/**
+	 * <p>
+	 * The most bytes a decoded reply is kept to, the same as read by the
+	 * graphs; 1 Mb.
+	 * </p>
+	 */
+	public static final int MAX_SIZE = 1048576;
+
+	/**
+	 * <p>
+	 * Appended to a decoded reply cut short at the maximum size.
+	 * </p>
+	 */
+	public static final String TRUNCATED = "\n[JBROFUZZ DECODED REPLY TRUNCATED]\n";
+
+	// The longest head, or gzip header, looked through
+	private static final int MAX_HEAD = 65536;
+
+	// Reading the status line and headers
+	private static final int HEAD = 0;
+	// Decoding the body
+	private static final int BODY = 1;
+	// Not encoded, nothing to decode
+	private static final int IDENTITY = 2;
+	// Malformed, left as sent
+	private static final int FAILED = 3;
+	// Decoded in full, or up to the maximum size
+	private static final int DONE = 4;
+
+	// The states of de-chunking
+	private static final int SIZE = 0;
+	private static final int EXTENSION = 1;
+	private static final int DATA = 2;
+	private static final int DATA_END = 3;
+	private static final int TRAILER = 4;
+
+	private final int maxSize;
+
+	private final ByteArrayOutputStream head = new ByteArrayOutputStream(512);
+
+	private ByteArrayOutputStream out;
+
+	private int state = HEAD;
+
+	private int lineLength;
+
+	private boolean chunked;
+
+	private int chunkState = SIZE;
+
+	private long chunkLeft;
+
+	private int sizeDigits;
+
+	// "gzip", "deflate" or null for no content coding
+	private String coding;
+
+	// The gzip header, or the first bytes of deflate, until understood
+	private ByteArrayOutputStream preamble;
+
+	private Inflater inflater;
+
+	private byte[] buffer;
+
+	private boolean truncated;
+
+	public ResponseDecoder() {
+
+		this(MAX_SIZE);
+
+	}
+
+	/**
+	 * @param maxSize The most bytes to keep of the decoded reply
+	 */
+	public ResponseDecoder(final int maxSize) {
+
+		this.maxSize = Math.max(0, maxSize);
+
+	}
+
+	/**
+	 * <p>
+	 * Decode a reply read in full.
+	 * </p>
+	 * 
+	 * @param reply The reply, as read off the wire
+	 * @return byte[] the decoded reply, or null if not encoded
+	 */
+	public static byte[] decode(final byte[] reply) {
+
+		final ResponseDecoder decoder = new ResponseDecoder();
+		try {
+			decoder.write(reply, 0, reply.length);
+			return decoder.getDecoded();
+		} finally {
+			decoder.release();
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Decode the next bytes of the reply, as read off the wire.
+	 * </p>
+	 */
+	public void write(final byte[] bytes, final int offset, final int length) {
+
+		int i = offset;
+		final int end = offset + length;
+		while ((state == HEAD) && (i < end)) {
+			readHead(bytes[i++]);
+		}
+		if ((state == BODY) && (i < end)) {
+			if (chunked) {
+				dechunk(bytes, i, end - i);
+			} else {
+				inflate(bytes, i, end - i);
+			}
+		}
+
+	}
+
+	/**
+	 * @return boolean true if the reply was found to be chunked or
+	 *         compressed, and could be decoded
+	 */
+	public boolean isEncoded() {
+
+		return (state == BODY) || (state == DONE);
+
+	}
+
+	/**
+	 * @return boolean true if the decoded reply was cut short at the
+	 *         maximum size
+	 */
+	public boolean isTruncated() {
+
+		return truncated;
+
+	}
+
+	/**
+	 * <p>
+	 * Free the native memory of the Inflater, if any, at once rather than
+	 * when collected; to be called when the reply is abandoned before
+	 * getDecoded(), e.g. as the read fails. Calling it again does nothing.
+	 * </p>
+	 */
+	public void release() {
+
+		if (inflater != null) {
+			inflater.end();
+			inflater = null;
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Finish decoding and return the decoded reply. A reply cut short on
+	 * the wire is decoded as far as it goes.
+	 * </p>
+	 * 
+	 * @return byte[] the decoded reply, or null if the reply was not
+	 *         encoded or could not be decoded
+	 */
+	public byte[] getDecoded() {
+
+		release();
+		if (!isEncoded()) {
+			return null;
+		}
+		state = DONE;
+		if (truncated) {
+			try {
+				final byte[] marker = TRUNCATED.getBytes("ISO-8859-1");
+				out.write(marker, 0, marker.length);
+			} catch (final UnsupportedEncodingException e) {
+				throw new IllegalStateException(e.getMessage());
+			}
+			truncated = false;
+		}
+		return out.toByteArray();
+
+	}
+
+	private void readHead(final byte b) {
+
+		head.write(b);
+		if (b == '\n') {
+			if (lineLength == 0) {
+				endHead();
+				return;
+			}
+			lineLength = 0;
+		} else if (b != '\r') {
+			lineLength++;
+		}
+		if (head.size() > MAX_HEAD) {
+			state = IDENTITY;
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Find out from the headers read how the body is encoded, if at all.
+	 * </p>
+	 */
+	private void endHead() {
+
+		final String text;
+		try {
+			text = head.toString("ISO-8859-1");
+		} catch (final UnsupportedEncodingException e) {
+			throw new IllegalStateException(e.getMessage());
+		}
+		final String[] lines = text.split("\r?\n");
+
+		// The status line of an interim reply is followed by another head
+		final String[] status = lines[0].split(" ");
+		final boolean interim = (status.length > 1) && status[1].startsWith("1")
+				&& status[0].startsWith("HTTP/");
+
+		boolean chunkedHeader = false;
+		String codingHeader = null;
+		for (int i = 1; i < lines.length; i++) {
+			final int colon = lines[i].indexOf(':');
+			if (colon <= 0) {
+				continue;
+			}
+			final String name = lines[i].substring(0, colon).trim();
+			final String value = lines[i].substring(colon + 1).trim()
+					.toLowerCase();
+			if (name.equalsIgnoreCase("Transfer-Encoding")) {
+				chunkedHeader |= value.endsWith("chunked");
+			} else if (name.equalsIgnoreCase("Content-Encoding")) {
+				// With more than one coding, the last one was applied last
+				final String[] codings = value.split(",");
+				codingHeader = codings[codings.length - 1].trim();
+			}
+		}
+
+		if (interim) {
+			getOut().write(head.toByteArray(), 0, head.size());
+			head.reset();
+			lineLength = 0;
+			return;
+		}
+
+		chunked = chunkedHeader;
+		if ("gzip".equals(codingHeader) || "x-gzip".equals(codingHeader)) {
+			coding = "gzip";
+		} else if ("deflate".equals(codingHeader)) {
+			coding = "deflate";
+		}
+		if (!chunked && (coding == null)) {
+			state = IDENTITY;
+			out = null;
+			return;
+		}
+		getOut().write(head.toByteArray(), 0, head.size());
+		state = BODY;
+
+	}
+
+	private ByteArrayOutputStream getOut() {
+
+		if (out == null) {
+			out = new ByteArrayOutputStream(4096);
+		}
+		return out;
+
+	}
+
+	/**
+	 * <p>
+	 * Take the chunk sizes and the line ends around them out of the body,
+	 * passing on the data of each chunk.
+	 * </p>
+	 */
+	private void dechunk(final byte[] bytes, final int offset, final int length) {
+
+		int i = offset;
+		final int end = offset + length;
+		while ((i < end) && (state == BODY)) {
+
+			if (chunkState == DATA) {
+				final int n = (int) Math.min(chunkLeft, end - i);
+				inflate(bytes, i, n);
+				i += n;
+				chunkLeft -= n;
+				if (chunkLeft == 0L) {
+					chunkState = DATA_END;
+				}
+				continue;
+			}
+
+			final int c = bytes[i++] & 0xFF;
+			switch (chunkState) {
+			case SIZE:
+				final int digit = Character.digit(c, 16);
+				if (digit >= 0) {
+					chunkLeft = chunkLeft * 16 + digit;
+					if (++sizeDigits > 8) {
+						state = FAILED;
+					}
+				} else if ((c == ';') || (c == ' ') || (c == '\t')) {
+					chunkState = EXTENSION;
+				} else if (c == '\n') {
+					endSize();
+				} else if (c != '\r') {
+					state = FAILED;
+				}
+				break;
+			case EXTENSION:
+				if (c == '\n') {
+					endSize();
+				}
+				break;
+			case DATA_END:
+				if (c == '\n') {
+					chunkState = SIZE;
+				} else if (c != '\r') {
+					state = FAILED;
+				}
+				break;
+			default:
+				// Trailers, up to the empty line ending the body
+				if (c == '\n') {
+					if (lineLength == 0) {
+						state = DONE;
+					}
+					lineLength = 0;
+				} else if (c != '\r') {
+					lineLength++;
+				}
+				break;
+			}
+		}
+
+	}
+
+	private void endSize() {
+
+		if (sizeDigits == 0) {
+			state = FAILED;
+		} else if (chunkLeft == 0L) {
+			chunkState = TRAILER;
+			lineLength = 0;
+		} else {
+			chunkState = DATA;
+		}
+		sizeDigits = 0;
+
+	}
+
+	/**
+	 * <p>
+	 * Inflate the data of the body, if compressed, once the gzip header or
+	 * the kind of deflate stream is known.
+	 * </p>
+	 */
+	private void inflate(final byte[] bytes, final int offset, final int length) {
+
+		if (coding == null) {
+			emit(bytes, offset, length);
+			return;
+		}
+
+		if (inflater == null) {
+			if (preamble == null) {
+				preamble = new ByteArrayOutputStream(64);
+			}
+			preamble.write(bytes, offset, length);
+			final byte[] start = preamble.toByteArray();
+			final int skip;
+			if (coding.equals("gzip")) {
+				skip = getGzipHeaderLength(start);
+			} else if (start.length >= 2) {
+				// zlib as the standard says, or raw deflate as some send
+				final boolean zlib = ((start[0] & 0x0F) == 8)
+						&& ((((start[0] & 0xFF) << 8) | (start[1] & 0xFF)) % 31 == 0);
+				inflater = new Inflater(!zlib);
+				skip = 0;
+			} else {
+				skip = -1;
+			}
+			if ((skip == -1) && (start.length <= MAX_HEAD)) {
+				// More is needed
+				return;
+			}
+			if (skip < 0) {
+				state = FAILED;
+				return;
+			}
+			if (inflater == null) {
+				inflater = new Inflater(true);
+			}
+			buffer = new byte[8192];
+			preamble = null;
+			inflate(start, skip, start.length - skip);
+			return;
+		}
+
+		if (inflater.finished()) {
+			// The gzip trailer, or anything after the stream
+			return;
+		}
+		inflater.setInput(bytes, offset, length);
+		try {
+			while (state == BODY) {
+				final int n = inflater.inflate(buffer);
+				if (n > 0) {
+					emit(buffer, 0, n);
+				} else if (inflater.finished() || inflater.needsInput()) {
+					break;
+				} else if (inflater.needsDictionary()) {
+					state = FAILED;
+				}
+			}
+		} catch (final DataFormatException e) {
+			state = FAILED;
+		}
+
+	}
+
+	/**
+	 * @return int the length of the gzip header at the start of the given
+	 *         bytes, -1 if more bytes are needed, -2 if not gzip
+	 */
+	private static int getGzipHeaderLength(final byte[] start) {
+
+		if (start.length < 10) {
+			return -1;
+		}
+		if (((start[0] & 0xFF) != 0x1F) || ((start[1] & 0xFF) != 0x8B)
+				|| (start[2] != 8)) {
+			return -2;
+		}
+		final int flags = start[3] & 0xFF;
+		int length = 10;
+		if ((flags & 0x04) != 0) {
+			// FEXTRA
+			if (start.length < length + 2) {
+				return -1;
+			}
+			length += 2 + ((start[length] & 0xFF) | ((start[length + 1] & 0xFF) << 8));
+		}
+		for (final int flag : new int[] { 0x08, 0x10 }) {
+			// FNAME and FCOMMENT, zero terminated
+			if ((flags & flag) != 0) {
+				do {
+					if (length >= start.length) {
+						return -1;
+					}
+				} while (start[length++] != 0);
+			}
+		}
+		if ((flags & 0x02) != 0) {
+			// FHCRC
+			length += 2;
+		}
+		return length <= start.length ? length : -1;
+
+	}
+
+	private void emit(final byte[] bytes, final int offset, final int length) {
+
+		// None left if the head alone is over the size kept
+		final int room = Math.max(0, maxSize - out.size());
+		if (length > room) {
+			out.write(bytes, offset, room);
+			truncated = true;
+			state = DONE;
+		} else {
+			out.write(bytes, offset, length);
+		}
+
+	}
+
+}
@@ -0,0 +1,549 @@
+/**
+ * JbroFuzz 2.5
+ *
+ * JBroFuzz - A stateless network protocol fuzzer for web applications.
+ * 
+ * Copyright (C) 2007 - 2010 subere@uncon.org
+ *
+ * This file is part of JBroFuzz.
+ * 
+ * JBroFuzz is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * JBroFuzz is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with JBroFuzz.  If not, see <http://www.gnu.org/licenses/>.
+ * Alternatively, write to the Free Software Foundation, Inc., 51 
+ * Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Verbatim copying and distribution of this entire program file is 
+ * permitted in any medium without royalty provided this notice 
+ * is preserved. 
+ * 
+ */
+package org.owasp.jbrofuzz.fuzz;
+
+import java.util.prefs.Preferences;
+
+import org.owasp.jbrofuzz.fuzz.ui.FuzzersPanel;
+import org.owasp.jbrofuzz.version.JBroFuzzPrefs;
+
+/**
+ * <p>
+ * The settings of a fuzzing run, read from the preferences once, as the run
+ * starts.
+ * </p>
+ * 
+ * <p>
+ * A run configuration cannot be changed; it is handed to the engine, the
+ * connections, the message creator and the storage, so that none of them
+ * needs to go back to the preferences for each request, and so that changing
+ * the preferences half way through does not affect a run in progress.
+ * </p>
+ * 
+ * <p>
+ * The settings that determine what goes on the wire can be written to, and
+ * read back from, a session file as a list of <code>id=value</code> lines,
+ * the id being that of the corresponding preference.
+ * </p>
+ * 
+ * @version 2.5
+ * @since 2.5
+ */
+public final class RunConfiguration {
+
+	/**
+	 * The id of the iteration mode, as written to a session file
+	 */
+	public static final String ITERATION_MODE = "fuzz.iteration.mode";
+
+	/**
+	 * The most times a request can be retried
+	 */
+	public static final int MAX_RETRIES = 5;
+
+	private final int socketTimeout;
+
+	private final boolean endOfLineCRLF;
+
+	private final boolean basicAuthHeader;
+
+	private final boolean connectionCloseHeader;
+
+	private final int showOnTheWire;
+
+	private final int threads;
+
+	private final int iterationMode;
+
+	private final String sessionId;
+
+	private final String databaseName;
+
+	private final int metricsInterval;
+
+	private final boolean recordProfile;
+
+	private final boolean adaptive;
+
+	private final int maxRate;
+
+	private final int retries;
+
+	private final int breakerThreshold;
+
+	private final String pins;
+
+	private final int pipeline;
+
+	private final int streams;
+
+	private final int connections;
+
+	private final int perHost;
+
+	private final int share;
+
+	private final Framing framing;
+
+	private final boolean spillCache;
+
+	private RunConfiguration(final int socketTimeout,
+			final boolean endOfLineCRLF, final boolean basicAuthHeader,
+			final boolean connectionCloseHeader, final int showOnTheWire,
+			final int threads, final int iterationMode, final String sessionId,
+			final String databaseName, final int metricsInterval,
+			final boolean recordProfile, final boolean adaptive,
+			final int maxRate, final int retries, final int breakerThreshold,
+			final String pins, final int pipeline, final int streams,
+			final int connections, final int perHost, final int share,
+			final String framing, final boolean spillCache) {
+
+		// Validate, as under Preferences -> Fuzzing
+		this.socketTimeout = ((socketTimeout < 1) || (socketTimeout > 51)) ? 7
+				: socketTimeout;
+		this.endOfLineCRLF = endOfLineCRLF;
+		this.basicAuthHeader = basicAuthHeader;
+		this.connectionCloseHeader = connectionCloseHeader;
+		this.showOnTheWire = ((showOnTheWire < 0) || (showOnTheWire > 3)) ? 3
+				: showOnTheWire;
+		this.threads = Math.max(1, Math.min(threads, FuzzingEngine.MAX_THREADS));
+		this.iterationMode = iterationMode;
+		this.sessionId = sessionId;
+		this.databaseName = databaseName;
+		this.metricsInterval = Math.max(0, metricsInterval);
+		this.recordProfile = recordProfile;
+		this.adaptive = adaptive;
+		this.maxRate = Math.max(0, maxRate);
+		this.retries = Math.max(0, Math.min(retries, MAX_RETRIES));
+		this.breakerThreshold = Math.max(0, breakerThreshold);
+		this.pins = pins.replace('\n', ' ').replace('\r', ' ').trim();
+		this.pipeline = Math.max(1, Math.min(pipeline, FuzzingEngine.MAX_PIPELINE));
+		this.streams = Math.max(0, Math.min(streams, FuzzingEngine.MAX_STREAMS));
+		this.connections = Math.max(0, connections);
+		this.perHost = Math.max(0, perHost);
+		this.share = Math.max(1, Math.min(share, Scheduler.MAX_WEIGHT));
+		Framing readFraming;
+		try {
+			readFraming = Framing.parse(framing);
+		} catch (final IllegalArgumentException e) {
+			readFraming = Framing.parse(Framing.DEFAULT);
+		}
+		this.framing = readFraming;
+		this.spillCache = spillCache;
+
+	}
+
+	/**
+	 * <p>
+	 * Take a snapshot of the current preferences, for a sequential run.
+	 * </p>
+	 * 
+	 * @param prefs The preferences, typically JBroFuzz.PREFS
+	 * @return RunConfiguration the configuration
+	 */
+	public static RunConfiguration fromPreferences(final Preferences prefs) {
+
+		return fromPreferences(prefs, FuzzersPanel.SEQUENTIAL, prefs.get(
+				"sessionId", ""));
+
+	}
+
+	/**
+	 * <p>
+	 * Take a snapshot of the current preferences, for a run in the given
+	 * iteration mode, storing its results under the given session.
+	 * </p>
+	 * 
+	 * @param prefs The preferences, typically JBroFuzz.PREFS
+	 * @param iterationMode FuzzersPanel.SEQUENTIAL or a FuzzList mode
+	 * @param sessionId The session the results are stored under
+	 * @return RunConfiguration the configuration
+	 */
+	public static RunConfiguration fromPreferences(final Preferences prefs,
+			final int iterationMode, final String sessionId) {
+
+		return new RunConfiguration(
+				prefs.getInt(JBroFuzzPrefs.FUZZING[0].getId(), 7),
+				prefs.getBoolean(JBroFuzzPrefs.FUZZING[1].getId(), true),
+				prefs.getBoolean(JBroFuzzPrefs.FUZZING[4].getId(), true),
+				prefs.getBoolean(JBroFuzzPrefs.FUZZING[5].getId(), true),
+				prefs.getInt(JBroFuzzPrefs.FUZZINGONTHEWIRE[1].getId(), 3),
+				prefs.getInt(JBroFuzzPrefs.FUZZINGENGINE[0].getId(), 1),
+				iterationMode,
+				sessionId,
+				prefs.get(JBroFuzzPrefs.DBSETTINGS[12].getId(), ""),
+				prefs.getInt(JBroFuzzPrefs.FUZZINGENGINE[1].getId(), 0),
+				prefs.getBoolean(JBroFuzzPrefs.FUZZINGENGINE[2].getId(), false),
+				prefs.getBoolean(JBroFuzzPrefs.FUZZINGENGINE[3].getId(), false),
+				prefs.getInt(JBroFuzzPrefs.FUZZINGENGINE[4].getId(), 0),
+				prefs.getInt(JBroFuzzPrefs.FUZZINGENGINE[5].getId(), 2),
+				prefs.getInt(JBroFuzzPrefs.FUZZINGENGINE[6].getId(), 10),
+				prefs.get(JBroFuzzPrefs.FUZZINGENGINE[7].getId(), ""),
+				prefs.getInt(JBroFuzzPrefs.FUZZINGENGINE[8].getId(), 1),
+				prefs.getInt(JBroFuzzPrefs.FUZZINGENGINE[9].getId(), 0),
+				prefs.getInt(JBroFuzzPrefs.FUZZINGENGINE[10].getId(), 64),
+				prefs.getInt(JBroFuzzPrefs.FUZZINGENGINE[11].getId(), 32),
+				prefs.getInt(JBroFuzzPrefs.FUZZINGENGINE[12].getId(), 1),
+				prefs.get(JBroFuzzPrefs.FUZZINGENGINE[13].getId(), Framing.DEFAULT),
+				prefs.getBoolean(JBroFuzzPrefs.FUZZING[6].getId(), true));
+
+	}
+
+	/**
+	 * <p>
+	 * Read a configuration from the <code>id=value</code> lines written by
+	 * toString(). Settings that are missing or cannot be read are taken from
+	 * the defaults given.
+	 * </p>
+	 * 
+	 * @param lines The lines, as found in a session file
+	 * @param defaults The configuration to take any missing settings from
+	 * @return RunConfiguration the configuration
+	 */
+	public static RunConfiguration parse(final String[] lines,
+			final RunConfiguration defaults) {
+
+		int socketTimeout = defaults.socketTimeout;
+		boolean endOfLineCRLF = defaults.endOfLineCRLF;
+		boolean basicAuthHeader = defaults.basicAuthHeader;
+		boolean connectionCloseHeader = defaults.connectionCloseHeader;
+		int showOnTheWire = defaults.showOnTheWire;
+		int threads = defaults.threads;
+		boolean adaptive = defaults.adaptive;
+		int maxRate = defaults.maxRate;
+		int retries = defaults.retries;
+		int breakerThreshold = defaults.breakerThreshold;
+		String pins = defaults.pins;
+		int pipeline = defaults.pipeline;
+		int streams = defaults.streams;
+		int share = defaults.share;
+		String framing = defaults.framing.toString();
+		int iterationMode = defaults.iterationMode;
+		// FUZZING[4] and FUZZING[5] share the same id
+		boolean sharedIdSeen = false;
+
+		for (final String line : lines) {
+
+			final int equals = line.indexOf('=');
+			if (equals < 1) {
+				continue;
+			}
+			final String id = line.substring(0, equals).trim();
+			final String value = line.substring(equals + 1).trim();
+
+			try {
+				if (id.equals(JBroFuzzPrefs.FUZZING[0].getId())) {
+					socketTimeout = Integer.parseInt(value);
+				} else if (id.equals(JBroFuzzPrefs.FUZZING[1].getId())) {
+					endOfLineCRLF = Boolean.parseBoolean(value);
+				} else if (id.equals(JBroFuzzPrefs.FUZZING[4].getId()) && !sharedIdSeen) {
+					basicAuthHeader = Boolean.parseBoolean(value);
+					sharedIdSeen = true;
+				} else if (id.equals(JBroFuzzPrefs.FUZZING[5].getId())) {
+					connectionCloseHeader = Boolean.parseBoolean(value);
+				} else if (id.equals(JBroFuzzPrefs.FUZZINGONTHEWIRE[1].getId())) {
+					showOnTheWire = Integer.parseInt(value);
+				} else if (id.equals(JBroFuzzPrefs.FUZZINGENGINE[0].getId())) {
+					threads = Integer.parseInt(value);
+				} else if (id.equals(JBroFuzzPrefs.FUZZINGENGINE[3].getId())) {
+					adaptive = Boolean.parseBoolean(value);
+				} else if (id.equals(JBroFuzzPrefs.FUZZINGENGINE[4].getId())) {
+					maxRate = Integer.parseInt(value);
+				} else if (id.equals(JBroFuzzPrefs.FUZZINGENGINE[5].getId())) {
+					retries = Integer.parseInt(value);
+				} else if (id.equals(JBroFuzzPrefs.FUZZINGENGINE[6].getId())) {
+					breakerThreshold = Integer.parseInt(value);
+				} else if (id.equals(JBroFuzzPrefs.FUZZINGENGINE[7].getId())) {
+					pins = value;
+				} else if (id.equals(JBroFuzzPrefs.FUZZINGENGINE[8].getId())) {
+					pipeline = Integer.parseInt(value);
+				} else if (id.equals(JBroFuzzPrefs.FUZZINGENGINE[9].getId())) {
+					streams = Integer.parseInt(value);
+				} else if (id.equals(JBroFuzzPrefs.FUZZINGENGINE[12].getId())) {
+					share = Integer.parseInt(value);
+				} else if (id.equals(JBroFuzzPrefs.FUZZINGENGINE[13].getId())) {
+					framing = value;
+				} else if (id.equals(ITERATION_MODE)) {
+					iterationMode = Integer.parseInt(value);
+				}
+			} catch (final NumberFormatException e) {
+				// Keep the default
+			}
+		}
+
+		return new RunConfiguration(socketTimeout, endOfLineCRLF,
+				basicAuthHeader, connectionCloseHeader, showOnTheWire, threads,
+				iterationMode, defaults.sessionId, defaults.databaseName,
+				defaults.metricsInterval, defaults.recordProfile, adaptive,
+				maxRate, retries, breakerThreshold, pins, pipeline, streams,
+				defaults.connections, defaults.perHost, share, framing,
+				defaults.spillCache);
+
+	}
+
+	/**
+	 * <p>
+	 * Write the settings of this configuration back to the preferences, e.g.
+	 * after opening a session file.
+	 * </p>
+	 * 
+	 * @param prefs The preferences, typically JBroFuzz.PREFS
+	 */
+	public void applyTo(final Preferences prefs) {
+
+		prefs.putInt(JBroFuzzPrefs.FUZZING[0].getId(), socketTimeout);
+		prefs.putBoolean(JBroFuzzPrefs.FUZZING[1].getId(), endOfLineCRLF);
+		prefs.putBoolean(JBroFuzzPrefs.FUZZING[4].getId(), basicAuthHeader);
+		prefs.putBoolean(JBroFuzzPrefs.FUZZING[5].getId(), connectionCloseHeader);
+		prefs.putInt(JBroFuzzPrefs.FUZZINGONTHEWIRE[1].getId(), showOnTheWire);
+		prefs.putInt(JBroFuzzPrefs.FUZZINGENGINE[0].getId(), threads);
+		prefs.putBoolean(JBroFuzzPrefs.FUZZINGENGINE[3].getId(), adaptive);
+		prefs.putInt(JBroFuzzPrefs.FUZZINGENGINE[4].getId(), maxRate);
+		prefs.putInt(JBroFuzzPrefs.FUZZINGENGINE[5].getId(), retries);
+		prefs.putInt(JBroFuzzPrefs.FUZZINGENGINE[6].getId(), breakerThreshold);
+		prefs.put(JBroFuzzPrefs.FUZZINGENGINE[7].getId(), pins);
+		prefs.putInt(JBroFuzzPrefs.FUZZINGENGINE[8].getId(), pipeline);
+		prefs.putInt(JBroFuzzPrefs.FUZZINGENGINE[9].getId(), streams);
+		prefs.putInt(JBroFuzzPrefs.FUZZINGENGINE[12].getId(), share);
+		prefs.put(JBroFuzzPrefs.FUZZINGENGINE[13].getId(), framing.toString());
+
+	}
+
+	/**
+	 * @return int the socket timeout, in seconds
+	 */
+	public int getSocketTimeout() {
+		return socketTimeout;
+	}
+
+	/**
+	 * @return String "\r\n" or "\n", as selected under Preferences
+	 */
+	public String getEndOfLine() {
+		return endOfLineCRLF ? "\r\n" : "\n";
+	}
+
+	public boolean isBasicAuthHeader() {
+		return basicAuthHeader;
+	}
+
+	public boolean isConnectionCloseHeader() {
+		return connectionCloseHeader;
+	}
+
+	/**
+	 * @return int 0 show nothing, 1 requests, 2 responses, 3 both
+	 */
+	public int getShowOnTheWire() {
+		return showOnTheWire;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	public int getIterationMode() {
+		return iterationMode;
+	}
+
+	public String getSessionId() {
+		return sessionId;
+	}
+
+	public String getDatabaseName() {
+		return databaseName;
+	}
+
+	/**
+	 * @return int the seconds between writing the engine metrics to the
+	 * session directory, 0 for never
+	 */
+	public int getMetricsInterval() {
+		return metricsInterval;
+	}
+
+	/**
+	 * @return boolean true to record a Flight Recorder profile of the run
+	 */
+	public boolean isRecordProfile() {
+		return recordProfile;
+	}
+
+	/**
+	 * @return boolean true to adapt the request rate to each target
+	 */
+	public boolean isAdaptive() {
+		return adaptive;
+	}
+
+	/**
+	 * @return int the most requests per second to a single target, 0 for no
+	 * limit
+	 */
+	public int getMaxRate() {
+		return maxRate;
+	}
+
+	/**
+	 * @return int the times a request that failed before reaching the
+	 * target is retried
+	 */
+	public int getRetries() {
+		return retries;
+	}
+
+	/**
+	 * @return int the consecutive failures after which a target is paused,
+	 * 0 for never
+	 */
+	public int getBreakerThreshold() {
+		return breakerThreshold;
+	}
+
+	/**
+	 * @return String the addresses hosts are pinned to, as host=address
+	 * pairs separated by commas, empty for none
+	 */
+	public String getPins() {
+		return pins;
+	}
+
+	/**
+	 * @return int the most requests put on a connection before reading the
+	 * replies, 1 for one request per connection
+	 */
+	public int getPipeline() {
+		return pipeline;
+	}
+
+	/**
+	 * <p>
+	 * Pipelining is not used with a limit on the requests per second, as
+	 * that limit is kept to by connection, nor over HTTP/2.
+	 * </p>
+	 * 
+	 * @return boolean true if requests are to be pipelined
+	 */
+	public boolean isPipelined() {
+		return (pipeline > 1) && (maxRate == 0) && (streams == 0);
+	}
+
+	/**
+	 * @return int the most requests sent at a time on an HTTP/2
+	 * connection, 0 for HTTP/1.1
+	 */
+	public int getStreams() {
+		return streams;
+	}
+
+	/**
+	 * @return boolean true if requests are to be sent over HTTP/2, to the
+	 * targets that speak it
+	 */
+	public boolean isHttp2() {
+		return streams > 0;
+	}
+
+	/**
+	 * @return int the most connections open at a time by all the sessions
+	 * running, 0 for no limit
+	 */
+	public int getConnections() {
+		return connections;
+	}
+
+	/**
+	 * @return int the most connections open at a time to a single target by
+	 * all the sessions running, 0 for no limit
+	 */
+	public int getPerHost() {
+		return perHost;
+	}
+
+	/**
+	 * @return int the connections this session is granted in each turn
+	 * when the sessions running are short of them
+	 */
+	public int getShare() {
+		return share;
+	}
+
+	/**
+	 * @return Framing how the replies over tcp://, tls:// and udp:// are
+	 * told apart
+	 */
+	public Framing getFraming() {
+		return framing;
+	}
+
+	/**
+	 * @return boolean true to spill the encoded payloads that do not fit in
+	 * memory to disk
+	 */
+	public boolean isSpillCache() {
+		return spillCache;
+	}
+
+	/**
+	 * <p>
+	 * Return the settings that determine what goes on the wire, one
+	 * <code>id=value</code> per line, with no new line at the end.
+	 * </p>
+	 * 
+	 * <p>
+	 * As FUZZING[4] and FUZZING[5] share an id, the first of the two lines
+	 * is the authorization header and the second one the connection header.
+	 * </p>
+	 */
+	@Override
+	public String toString() {
+
+		final StringBuffer output = new StringBuffer();
+		output.append(JBroFuzzPrefs.FUZZING[0].getId()).append('=').append(socketTimeout).append('\n');
+		output.append(JBroFuzzPrefs.FUZZING[1].getId()).append('=').append(endOfLineCRLF).append('\n');
+		output.append(JBroFuzzPrefs.FUZZING[4].getId()).append('=').append(basicAuthHeader).append('\n');
+		output.append(JBroFuzzPrefs.FUZZING[5].getId()).append('=').append(connectionCloseHeader).append('\n');
+		output.append(JBroFuzzPrefs.FUZZINGONTHEWIRE[1].getId()).append('=').append(showOnTheWire).append('\n');
+		output.append(JBroFuzzPrefs.FUZZINGENGINE[0].getId()).append('=').append(threads).append('\n');
+		output.append(JBroFuzzPrefs.FUZZINGENGINE[3].getId()).append('=').append(adaptive).append('\n');
+		output.append(JBroFuzzPrefs.FUZZINGENGINE[4].getId()).append('=').append(maxRate).append('\n');
+		output.append(JBroFuzzPrefs.FUZZINGENGINE[5].getId()).append('=').append(retries).append('\n');
+		output.append(JBroFuzzPrefs.FUZZINGENGINE[6].getId()).append('=').append(breakerThreshold).append('\n');
+		output.append(JBroFuzzPrefs.FUZZINGENGINE[7].getId()).append('=').append(pins).append('\n');
+		output.append(JBroFuzzPrefs.FUZZINGENGINE[8].getId()).append('=').append(pipeline).append('\n');
+		output.append(JBroFuzzPrefs.FUZZINGENGINE[9].getId()).append('=').append(streams).append('\n');
+		output.append(JBroFuzzPrefs.FUZZINGENGINE[12].getId()).append('=').append(share).append('\n');
+		output.append(JBroFuzzPrefs.FUZZINGENGINE[13].getId()).append('=').append(framing).append('\n');
+		output.append(ITERATION_MODE).append('=').append(iterationMode);
+		return output.toString();
+
+	}
+
+}
@@ -0,0 +1,421 @@
+/**
+ * JbroFuzz 2.5
+ *
+ * JBroFuzz - A stateless network protocol fuzzer for web applications.
+ * 
+ * Copyright (C) 2007 - 2010 subere@uncon.org
+ *
+ * This file is part of JBroFuzz.
+ * 
+ * JBroFuzz is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * JBroFuzz is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with JBroFuzz.  If not, see <http://www.gnu.org/licenses/>.
+ * Alternatively, write to the Free Software Foundation, Inc., 51 
+ * Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Verbatim copying and distribution of this entire program file is 
+ * permitted in any medium without royalty provided this notice 
+ * is preserved. 
+ * 
+ */
+package org.owasp.jbrofuzz.fuzz;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * The limit on the requests put on the wire by all the sessions running at
+ * the same time, shared between them.
+ * </p>
+ * 
+ * <p>
+ * Each session registers with a weight and asks for a permit before
+ * putting a request on the wire, handing it back once the request
+ * completes. A permit stands for a connection: a single request, a
+ * pipelined batch of requests, or a single HTTP/2 stream. No more permits
+ * than the connection budget are out at a time, and no more than the per
+ * host limit to any one target, across all the sessions.
+ * </p>
+ * 
+ * <p>
+ * When permits are short, the sessions waiting for them take turns in
+ * weighted round-robin: each turn grants a session as many permits as its
+ * weight before moving on to the next one. A session with nothing waiting,
+ * or waiting only on targets at their limit, gives up its turn. A large
+ * run thus gets no more than its share of the budget while smaller runs
+ * are waiting, and all of it while they are not.
+ * </p>
+ * 
+ * @version 2.5
+ * @since 2.5
+ */
+public class Scheduler {
+
+	/**
+	 * <p>
+	 * The heaviest weight a session can have.
+	 * </p>
+	 */
+	public static final int MAX_WEIGHT = 16;
+
+	private final List<Session> sessions;
+
+	private final Map<String, Integer> hosts;
+
+	private int connections;
+
+	private int perHost;
+
+	private int inFlight;
+
+	// The session whose turn it is, and the permits left in its turn
+	private int turn;
+
+	private int credit;
+
+	/**
+	 * <p>
+	 * Create a scheduler with the given limits.
+	 * </p>
+	 * 
+	 * @param connections The most permits out at a time, 0 for no limit
+	 * @param perHost The most permits out to a single target, 0 for no limit
+	 */
+	public Scheduler(final int connections, final int perHost) {
+
+		sessions = new ArrayList<Session>();
+		hosts = new HashMap<String, Integer>();
+		setLimits(connections, perHost);
+
+	}
+
+	/**
+	 * <p>
+	 * Change the limits, e.g. as a session is started with new preferences.
+	 * Permits already out are kept; new ones are granted within the new
+	 * limits.
+	 * </p>
+	 * 
+	 * @param connections The most permits out at a time, 0 for no limit
+	 * @param perHost The most permits out to a single target, 0 for no limit
+	 */
+	public synchronized void setLimits(final int connections, final int perHost) {
+
+		this.connections = Math.max(0, connections);
+		this.perHost = Math.max(0, perHost);
+		dispatch();
+
+	}
+
+	public synchronized int getConnections() {
+		return connections;
+	}
+
+	public synchronized int getPerHost() {
+		return perHost;
+	}
+
+	/**
+	 * @return int the permits out, across all sessions
+	 */
+	public synchronized int getInFlight() {
+		return inFlight;
+	}
+
+	/**
+	 * <p>
+	 * Register a session, taking its share of the permits from now on.
+	 * </p>
+	 * 
+	 * @param name The name of the session, for the record
+	 * @param weight The permits the session is granted in each turn, between
+	 *            1 and MAX_WEIGHT
+	 * @return Session the session, to be closed once the run is over
+	 */
+	public synchronized Session open(final String name, final int weight) {
+
+		final Session session = new Session(name, weight);
+		sessions.add(session);
+		return session;
+
+	}
+
+	/**
+	 * <p>
+	 * Grant the waiting requests as many permits as the limits allow, in
+	 * turn.
+	 * </p>
+	 */
+	private void dispatch() {
+
+		boolean granted = false;
+		while ((connections == 0) || (inFlight < connections)) {
+			final Waiter waiter = next();
+			if (waiter == null) {
+				break;
+			}
+			waiter.granted = true;
+			inFlight++;
+			final Integer count = hosts.get(waiter.target);
+			hosts.put(waiter.target, count == null ? 1 : count + 1);
+			waiter.session.inFlight++;
+			granted = true;
+		}
+		if (granted) {
+			notifyAll();
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Take the next request to be granted a permit, in weighted round-robin
+	 * between the sessions.
+	 * </p>
+	 * 
+	 * @return Waiter the request, null if none can be granted one
+	 */
+	private Waiter next() {
+
+		final int size = sessions.size();
+		if (size == 0) {
+			return null;
+		}
+		// Every session is looked at once, and the first one again with a
+		// full turn if it began with none left
+		for (int i = 0; i <= size; i++) {
+			if (turn >= size) {
+				turn = 0;
+				credit = sessions.get(0).weight;
+			}
+			final Session session = sessions.get(turn);
+			if (credit > 0) {
+				final Waiter waiter = session.take();
+				if (waiter != null) {
+					credit--;
+					return waiter;
+				}
+			}
+			turn = (turn + 1) % size;
+			credit = sessions.get(turn).weight;
+		}
+		return null;
+
+	}
+
+	private synchronized boolean acquire(final Session session,
+			final String target) throws InterruptedException {
+
+		if (session.closed) {
+			return false;
+		}
+		final Waiter waiter = new Waiter(session, target);
+		session.waiting.add(waiter);
+		dispatch();
+		try {
+			while (!waiter.granted && !session.closed) {
+				wait();
+			}
+		} catch (final InterruptedException e) {
+			if (waiter.granted) {
+				release(session, target);
+			} else {
+				session.waiting.remove(waiter);
+			}
+			throw e;
+		}
+		return waiter.granted;
+
+	}
+
+	private synchronized void release(final Session session, final String target) {
+
+		inFlight--;
+		session.inFlight--;
+		final Integer count = hosts.get(target);
+		if ((count == null) || (count <= 1)) {
+			hosts.remove(target);
+		} else {
+			hosts.put(target, count - 1);
+		}
+		dispatch();
+
+	}
+
+	private synchronized void close(final Session session) {
+
+		if (session.closed) {
+			return;
+		}
+		session.closed = true;
+		session.waiting.clear();
+		final int index = sessions.indexOf(session);
+		sessions.remove(index);
+		if (index < turn) {
+			turn--;
+		} else if ((index == turn) && (turn < sessions.size())) {
+			// The next session takes over the turn
+			credit = sessions.get(turn).weight;
+		}
+		notifyAll();
+		dispatch();
+
+	}
+
+	private boolean isFull(final String target) {
+
+		if (perHost == 0) {
+			return false;
+		}
+		final Integer count = hosts.get(target);
+		return (count != null) && (count >= perHost);
+
+	}
+
+	/**
+	 * <p>
+	 * A session registered with the scheduler, typically the run of a
+	 * fuzzing tab, through which its engines ask for permits.
+	 * </p>
+	 */
+	public final class Session {
+
+		private final String name;
+
+		private final int weight;
+
+		private final LinkedList<Waiter> waiting;
+
+		private int inFlight;
+
+		private boolean closed;
+
+		private Session(final String name, final int weight) {
+
+			this.name = name;
+			this.weight = Math.max(1, Math.min(weight, MAX_WEIGHT));
+			waiting = new LinkedList<Waiter>();
+
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public int getWeight() {
+			return weight;
+		}
+
+		/**
+		 * @return int the permits out to this session
+		 */
+		public int getInFlight() {
+			synchronized (Scheduler.this) {
+				return inFlight;
+			}
+		}
+
+		/**
+		 * @return int the requests of this session waiting for a permit
+		 */
+		public int getWaiting() {
+			synchronized (Scheduler.this) {
+				return waiting.size();
+			}
+		}
+
+		/**
+		 * <p>
+		 * Wait for a permit to put a request to the given target on the
+		 * wire.
+		 * </p>
+		 * 
+		 * @param target The target, as returned by RateController.getTarget()
+		 * @return boolean true once granted, false if the session has been
+		 *         closed, in which case there is nothing to release
+		 * 
+		 * @throws InterruptedException if interrupted while waiting
+		 */
+		public boolean acquire(final String target) throws InterruptedException {
+			return Scheduler.this.acquire(this, target);
+		}
+
+		/**
+		 * <p>
+		 * Hand back a permit granted by acquire(), once the request has
+		 * completed.
+		 * </p>
+		 * 
+		 * @param target The target given to acquire()
+		 */
+		public void release(final String target) {
+			Scheduler.this.release(this, target);
+		}
+
+		/**
+		 * <p>
+		 * Leave the scheduler, turning away the requests still waiting for
+		 * a permit. Permits already out are still to be released.
+		 * </p>
+		 */
+		public void close() {
+			Scheduler.this.close(this);
+		}
+
+		public boolean isClosed() {
+			synchronized (Scheduler.this) {
+				return closed;
+			}
+		}
+
+		// The first request waiting on a target below its limit
+		private Waiter take() {
+
+			for (final Iterator<Waiter> i = waiting.iterator(); i.hasNext();) {
+				final Waiter waiter = i.next();
+				if (!isFull(waiter.target)) {
+					i.remove();
+					return waiter;
+				}
+			}
+			return null;
+
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * A request waiting for a permit.
+	 * </p>
+	 */
+	private static final class Waiter {
+
+		private final Session session;
+
+		private final String target;
+
+		private boolean granted;
+
+		private Waiter(final Session session, final String target) {
+			this.session = session;
+			this.target = target;
+		}
+
+	}
+
+}
@@ -33,16 +33,17 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.MalformedURLException;
 import java.net.Socket;
 
+import javax.net.ssl.SSLSocket;
 import javax.net.ssl.SSLSocketFactory;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
-import org.owasp.jbrofuzz.JBroFuzz;
-import org.owasp.jbrofuzz.version.JBroFuzzPrefs;
+import org.owasp.jbrofuzz.fuzz.http2.Http2Session;
 
 /**
  * Description: The class responsible for making the connection for the purposes
@@ -64,18 +65,26 @@ class SocketConnection {
 	private final static int RECV_BUF_SIZE = 256 * 1024;
 
 	// Singleton SSLSocket factory used with it's factory
-	private static SSLSocketFactory mSSLSocketFactory;
+	private static volatile SSLSocketFactory mSSLSocketFactory;
 
 
 	private final transient String message;
 	private transient Socket mSocket;
 	private transient String reply;	
+	// The reply decoded, null if the same as the reply
+	private transient String decodedReply;
 	private transient int port;
 
 	private transient InputStream inStream;
 	private transient OutputStream outStream;
 
-	private int socketTimeout;
+	private final int socketTimeout;
+
+	// True for a reply over a raw transport, which is not HTTP
+	private final boolean raw;
+
+	// The System.nanoTime() at the start and at the end of each phase
+	private final long[] marks = new long[RequestTiming.PHASES.length + 1];
 
 	/**
 	 * <p>
@@ -84,15 +93,18 @@ class SocketConnection {
 	 * the wire.
 	 * </p>
 	 * 
-	 * @param urlString
-	 *            The url string from which the protocol (e.g. "https"), the
-	 *            host (e.g. www.owasp.org) and the port number will be
-	 *            determined.
+	 * @param endpoint
+	 *            The protocol (e.g. "https"), host (e.g. www.owasp.org) and
+	 *            port to connect to, along with the address of the host if
+	 *            already resolved.
 	 * 
 	 * @param message
 	 *            of what to put on the wire, once a connection has been
 	 *            established.
 	 * 
+	 * @param socketTimeout
+	 *            the timeout in seconds, as read from the run configuration
+	 * 
 	 * @throws ConnectionException
 	 * @author daemonmidi@gmail.com
 	 * @version 2.4
@@ -102,38 +114,22 @@ class SocketConnection {
 	 * @version 2.0
 	 * @since 0.1
 	 */
-	protected SocketConnection(final String protocol, final String host, final int port, final String message)
+	protected SocketConnection(final Endpoint endpoint, final String message,
+			final int socketTimeout)
 	throws ConnectionException {
 
 		final byte[] recv = new byte[SocketConnection.RECV_BUF_SIZE];
 		this.message = message;
+		this.port = endpoint.getPort();
+
+		// The timeout value on the Socket
+		this.socketTimeout = socketTimeout;
+		this.raw = false;
 		
-		// Get the timeout value on the Socket
-		socketTimeout = JBroFuzz.PREFS.getInt(JBroFuzzPrefs.FUZZING[0].getId(), 7);
-		// validate
-		if( (socketTimeout < 1) || (socketTimeout > 51) ) {
-			socketTimeout = 7;
-		}
-		
+		marks[0] = System.nanoTime();
+		ResponseDecoder decoder = null;
 		try {
-			if (protocol.equalsIgnoreCase("https")) {
-
-				// Make sure we have a factory for the SSL socket
-				if (mSSLSocketFactory == null) {
-					mSSLSocketFactory = Connection.getSocketFactory();
-				}
-
-				// Handle HTTPS differently then HTTP
-				mSocket = mSSLSocketFactory.createSocket(host, port);
-				mSocket.setSoTimeout(socketTimeout * 1000);
-
-			} else {
-
-				// Handle HTTP differently then HTTPS
-				mSocket = new Socket();
-				mSocket.connect(new InetSocketAddress(host, port),
-						socketTimeout * 1000);
-			}
+			mSocket = open(endpoint, socketTimeout, marks);
 
 			// Set buffers, streams, smile...
 			mSocket.setSendBufferSize(this.message.getBytes().length);
@@ -144,16 +140,24 @@ class SocketConnection {
 
 			// Put message on the wire
 			outStream.write(this.message.getBytes());
+			outStream.flush();
+			mark(RequestTiming.WRITE);
 			// Start timer
 			final SocketTimer timer = new SocketTimer(this, socketTimeout * 1000);
 			timer.start();
 
 			// Read response, see what you have back
 			final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+			decoder = new ResponseDecoder();
 			int got;
 			while ((got = inStream.read(recv)) > -1) {
+				if (marks[RequestTiming.FIRST_BYTE + 1] == 0L) {
+					mark(RequestTiming.FIRST_BYTE);
+				}
 				baos.write(recv, 0, got);
+				decoder.write(recv, 0, got);
 			}
+			mark(RequestTiming.DOWNLOAD);
 
 			// If the timer is not reset, close() will be called
 			timer.reset();
@@ -166,11 +170,12 @@ class SocketConnection {
 			mSocket.close();
 
 			reply = new String(baos.toByteArray());
+			setDecodedReply(decoder.getDecoded());
 
 		} catch (final MalformedURLException e1) {
 
 			reply = "Malformed URL: " + e1.getMessage() + "\n";
-			throw new ConnectionException(reply);
+			throw new ConnectionException(reply, getTiming());
 
 		} catch (final IOException e3) {
 
@@ -178,14 +183,177 @@ class SocketConnection {
 			". \n\nThis could also be a Connection Timeout, " +
 			"\ntry increasing the value under Preferences ->" +
 			" Fuzzing\n";
-			throw new ConnectionException(reply);
+			throw new ConnectionException(reply, getTiming());
 
 		} finally {
 
 			IOUtils.closeQuietly(inStream);
 			IOUtils.closeQuietly(outStream);
+			if (decoder != null) {
+				decoder.release();
+			}
+
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * The constructor for a reply read off a connection shared with other
+	 * requests, such as a PipelinedConnection.
+	 * </p>
+	 * 
+	 * @param message The message put on the wire
+	 * @param port The port the message was sent to
+	 * @param reply The reply read back
+	 * @param marks The System.nanoTime() at the start and at the end of
+	 *            each phase, 0 for the phases skipped
+	 * 
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	SocketConnection(final String message, final int port,
+			final byte[] reply, final long[] marks) {
+
+		this(message, port, reply, marks, false);
+
+	}
+
+	/**
+	 * <p>
+	 * The constructor for a reply read as above, or over a raw transport,
+	 * in which case the reply is read as ISO-8859-1, every byte being a
+	 * character of its own, and is neither de-chunked nor inflated.
+	 * </p>
+	 * 
+	 * @param raw True for a reply over a raw transport
+	 * 
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	SocketConnection(final String message, final int port,
+			final byte[] reply, final long[] marks, final boolean raw) {
+
+		this.message = message;
+		this.port = port;
+		this.raw = raw;
+		if (raw) {
+			this.reply = RawTransport.toString(reply);
+		} else {
+			this.reply = new String(reply);
+			setDecodedReply(ResponseDecoder.decode(reply));
+		}
+		this.socketTimeout = 0;
+		System.arraycopy(marks, 0, this.marks, 0, this.marks.length);
+
+	}
+
+	/**
+	 * <p>
+	 * Open a socket to the given endpoint, layering SSL over it for https,
+	 * and mark the end of the DNS, connect and handshake phases.
+	 * </p>
+	 * 
+	 * @param endpoint The endpoint to connect to
+	 * @param socketTimeout The timeout in seconds, for connecting and for
+	 *            each read
+	 * @param marks The marks to set, as taken by RequestTiming
+	 * @return Socket the connected socket
+	 * @throws IOException if the socket cannot be opened
+	 * 
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	static Socket open(final Endpoint endpoint, final int socketTimeout,
+			final long[] marks) throws IOException {
+
+		return open(endpoint, socketTimeout, marks, null);
 
+	}
+
+	/**
+	 * <p>
+	 * Open a socket as above, offering the given application protocols
+	 * (ALPN) in the TLS handshake of https.
+	 * </p>
+	 * 
+	 * <p>
+	 * ALPN needs Java 8u252 or later; on earlier versions no protocol is
+	 * offered, and the server picks its default, typically HTTP/1.1.
+	 * </p>
+	 * 
+	 * @param protocols The protocols to offer, e.g. "h2", or null for none
+	 * 
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	static Socket open(final Endpoint endpoint, final int socketTimeout,
+			final long[] marks, final String[] protocols) throws IOException {
+
+		final String host = endpoint.getHost();
+		final int port = endpoint.getPort();
+
+		// Resolve the host on its own, to time it, unless already done
+		final InetAddress address = endpoint.getAddress() != null ? endpoint
+				.getAddress() : InetAddress.getByName(host);
+		marks[RequestTiming.DNS + 1] = System.nanoTime();
+
+		Socket socket = new Socket();
+		try {
+			socket.connect(new InetSocketAddress(address, port),
+					socketTimeout * 1000);
+			socket.setSoTimeout(socketTimeout * 1000);
+			marks[RequestTiming.CONNECT + 1] = System.nanoTime();
+
+			if (endpoint.isSecure()) {
+
+				// Make sure we have a factory for the SSL socket
+				if (mSSLSocketFactory == null) {
+					mSSLSocketFactory = Connection.getSocketFactory();
+				}
+
+				// Layer SSL over the connected socket and shake hands
+				final SSLSocket sslSocket = (SSLSocket) mSSLSocketFactory
+						.createSocket(socket, host, port, true);
+				socket = sslSocket;
+				if (protocols != null) {
+					Http2Session.setApplicationProtocols(sslSocket, protocols);
+				}
+				sslSocket.startHandshake();
+				marks[RequestTiming.HANDSHAKE + 1] = System.nanoTime();
+
+			}
+		} catch (final IOException e) {
+			try {
+				socket.close();
+			} catch (final IOException e2) {
+				// Failed already
+			}
+			throw e;
 		}
+		return socket;
+
+	}
+
+	private void mark(final int phase) {
+
+		marks[phase + 1] = System.nanoTime();
+
+	}
+
+	/**
+	 * <p>
+	 * Return the time taken by each phase of the connection so far.
+	 * </p>
+	 * 
+	 * @return RequestTiming the timing of this connection
+	 * 
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	public RequestTiming getTiming() {
+
+		return new RequestTiming(marks.clone());
 
 	}
 
@@ -218,8 +386,33 @@ class SocketConnection {
 	}
 
 
+	/**
+	 * @return String the reply, de-chunked and inflated if need be
+	 * 
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	public String getDecodedReply() {
+
+		if (decodedReply == null) {
+			return getReply();
+		}
+		return decodedReply;
+
+	}
+
+	private void setDecodedReply(final byte[] decoded) {
+
+		decodedReply = decoded == null ? null : new String(decoded);
+
+	}
+
 	public String getStatus() {
 
+		// Replies over a raw transport have no status line
+		if (raw) {
+			return reply.isEmpty() ? "---" : "000";
+		}
 		try {
 			final String out = reply.split(" ")[1].substring(0, 3);
 
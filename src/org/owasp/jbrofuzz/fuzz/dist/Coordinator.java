@@ -0,0 +1,685 @@
+/**
+ * JbroFuzz 2.5
+ *
+ * JBroFuzz - A stateless network protocol fuzzer for web applications.
+ * 
+ * Copyright (C) 2007 - 2010 subere@uncon.org
+ *
+ * This file is part of JBroFuzz.
+ * 
+ * JBroFuzz is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * JBroFuzz is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with JBroFuzz.  If not, see <http://www.gnu.org/licenses/>.
+ * Alternatively, write to the Free Software Foundation, Inc., 51 
+ * Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Verbatim copying and distribution of this entire program file is 
+ * permitted in any medium without royalty provided this notice 
+ * is preserved. 
+ * 
+ */
+package org.owasp.jbrofuzz.fuzz.dist;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Set;
+
+import org.owasp.jbrofuzz.core.Database;
+import org.owasp.jbrofuzz.core.NoSuchFuzzerException;
+import org.owasp.jbrofuzz.encode.EncodedPayloadCache;
+import org.owasp.jbrofuzz.fuzz.FailedPayloads;
+import org.owasp.jbrofuzz.fuzz.FuzzingRun;
+import org.owasp.jbrofuzz.fuzz.MessageContainer;
+import org.owasp.jbrofuzz.fuzz.RunConfiguration;
+import org.owasp.jbrofuzz.fuzz.io.SessionFile;
+import org.owasp.jbrofuzz.io.StorageInterface;
+import org.owasp.jbrofuzz.system.Logger;
+
+/**
+ * <p>
+ * Splits the payload positions of a session into chunks and leases them
+ * to the workers that connect to it, over plain TCP, merging the results
+ * they send back into a single store.
+ * </p>
+ * 
+ * <p>
+ * Chunks are cut as workers ask for them, one series after another. A
+ * chunk is leased again if its worker disconnects, or sends back nothing
+ * for longer than the lease; messages received twice as a result are
+ * stored once. Each message is named after its place in the whole run,
+ * so that the store holds the same files whichever worker sent them.
+ * </p>
+ * 
+ * <p>
+ * A worker must present the secret of the coordinator in its hello, or
+ * is disconnected before being sent the session. Unless one is set, the
+ * secret is made up at random and has to be handed to the workers. The
+ * hello has to come soon after connecting, with a short name and secret,
+ * and only so many connections are served at once, so that hosts not
+ * knowing the secret cannot tie the coordinator up.
+ * </p>
+ * 
+ * @see Worker
+ * @version 2.5
+ * @since 2.5
+ */
+public class Coordinator {
+
+	/**
+	 * <p>
+	 * The default number of payload positions in a chunk.
+	 * </p>
+	 */
+	public static final int DEFAULT_CHUNK = 100;
+
+	/**
+	 * <p>
+	 * The default time, in milliseconds, a worker has to send back a
+	 * result before its chunk is leased to another.
+	 * </p>
+	 */
+	public static final long DEFAULT_LEASE = 30000L;
+
+	/**
+	 * <p>
+	 * The default time, in milliseconds, a worker has to send its hello
+	 * after connecting.
+	 * </p>
+	 */
+	public static final int DEFAULT_HELLO_TIMEOUT = 10000;
+
+	/**
+	 * <p>
+	 * The most connections served at once, workers or not; any more are
+	 * closed as soon as accepted.
+	 * </p>
+	 */
+	public static final int MAX_CONNECTIONS = 64;
+
+	// How long a worker is told to wait when every chunk is leased
+	private static final long WAIT_MILLIS = 500L;
+
+	private final String session;
+
+	private final String url;
+
+	private final RunConfiguration configuration;
+
+	private final StorageInterface storage;
+
+	private final int chunkSize;
+
+	private final int targets;
+
+	private final int[] series;
+
+	private final long[] sizes;
+
+	private final long[] offsets;
+
+	// The chunks cut and not done, by id
+	private final Map<Integer, Lease> open = new HashMap<Integer, Lease>();
+
+	// The chunks to lease again, first in first out
+	private final LinkedList<Lease> pending = new LinkedList<Lease>();
+
+	private final FailedPayloads failures = new FailedPayloads();
+
+	private final Set<Socket> sockets = new HashSet<Socket>();
+
+	private final Object storageLock = new Object();
+
+	private long leaseMillis = DEFAULT_LEASE;
+
+	private int helloTimeout = DEFAULT_HELLO_TIMEOUT;
+
+	private String secret = new BigInteger(130, new SecureRandom())
+			.toString(32);
+
+	// The next chunk to cut
+	private int nextSeries;
+
+	private long nextFrom;
+
+	private int nextId;
+
+	private int chunks;
+
+	private int released;
+
+	private long results;
+
+	private ServerSocket server;
+
+	private volatile boolean closed;
+
+	/**
+	 * @param session The text of the .jbrofuzz session file to run
+	 * @param url The URL, or URLs, to fuzz, in place of that of the session
+	 * @param database The database of fuzzers
+	 * @param configuration The configuration of the run, for its iteration
+	 *            mode and the session to store the results in
+	 * @param storage The store to write every result to
+	 * @param chunkSize The number of payload positions in a chunk
+	 * @throws IOException if the session is not valid
+	 * @throws NoSuchFuzzerException if a fuzzer is not in the database
+	 */
+	public Coordinator(final String session, final String url,
+			final Database database, final RunConfiguration configuration,
+			final StorageInterface storage, final int chunkSize)
+			throws IOException, NoSuchFuzzerException {
+
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("Chunk size must be positive");
+		}
+		this.session = session;
+		this.url = url;
+		this.configuration = configuration;
+		this.storage = storage;
+		this.chunkSize = chunkSize;
+
+		final FuzzingRun run = SessionFile.parse(session, "session",
+				database).createRun(url, database, new EncodedPayloadCache(),
+				configuration.getIterationMode());
+		targets = run.getTargets().length;
+		series = run.getSeries();
+		sizes = new long[series.length];
+		for (int i = 0; i < series.length; i++) {
+			sizes[i] = run.getSeriesSize(series[i]);
+		}
+		offsets = Protocol.getOffsets(run);
+
+	}
+
+	/**
+	 * <p>
+	 * Set the time a worker has to send back a result before its chunk is
+	 * leased to another.
+	 * </p>
+	 * 
+	 * @param millis The lease, in milliseconds
+	 */
+	public synchronized void setLease(final long millis) {
+		leaseMillis = Math.max(1L, millis);
+	}
+
+	/**
+	 * <p>
+	 * Set the time a worker has to send its hello after connecting, before
+	 * it is disconnected.
+	 * </p>
+	 * 
+	 * @param millis The timeout, in milliseconds
+	 */
+	public synchronized void setHelloTimeout(final int millis) {
+		helloTimeout = Math.max(1, millis);
+	}
+
+	private synchronized int getHelloTimeout() {
+		return helloTimeout;
+	}
+
+	/**
+	 * <p>
+	 * Set the secret workers must present to be sent the session.
+	 * </p>
+	 * 
+	 * @param secret The secret, not empty
+	 */
+	public synchronized void setSecret(final String secret) {
+		if ((secret == null) || (secret.length() == 0)) {
+			throw new IllegalArgumentException("The secret must not be empty");
+		}
+		this.secret = secret;
+	}
+
+	public synchronized String getSecret() {
+		return secret;
+	}
+
+	/**
+	 * <p>
+	 * Start accepting workers on the given port of every interface, in the
+	 * background.
+	 * </p>
+	 * 
+	 * @param port The port, 0 for any free one
+	 * @throws IOException if the port cannot be bound
+	 */
+	public void start(final int port) throws IOException {
+		start(null, port);
+	}
+
+	/**
+	 * <p>
+	 * Start accepting workers on the given address and port, in the
+	 * background.
+	 * </p>
+	 * 
+	 * @param address The address to bind to, null for every interface
+	 * @param port The port, 0 for any free one
+	 * @throws IOException if the address is not known or the port cannot
+	 *             be bound
+	 */
+	public void start(final String address, final int port)
+			throws IOException {
+
+		server = new ServerSocket(port, 50, address == null ? null
+				: InetAddress.getByName(address));
+		final Thread acceptor = new Thread(new Runnable() {
+
+			public void run() {
+				while (!closed) {
+					try {
+						final Socket socket = server.accept();
+						synchronized (sockets) {
+							if (sockets.size() >= MAX_CONNECTIONS) {
+								Logger.log("Coordinator turned away "
+										+ socket.getRemoteSocketAddress() + ", "
+										+ MAX_CONNECTIONS + " connections open", 2);
+								close(socket);
+								continue;
+							}
+							sockets.add(socket);
+						}
+						final Thread handler = new Thread(new Handler(socket),
+								"JBroFuzz Coordinator "
+										+ socket.getRemoteSocketAddress());
+						handler.setDaemon(true);
+						handler.start();
+					} catch (final IOException e) {
+						if (!closed) {
+							Logger.log("Coordinator cannot accept: "
+									+ e.getMessage(), 3);
+						}
+					}
+				}
+			}
+		}, "JBroFuzz Coordinator");
+		acceptor.setDaemon(true);
+		acceptor.start();
+
+	}
+
+	public int getPort() {
+		return server.getLocalPort();
+	}
+
+	/**
+	 * <p>
+	 * Wait for every chunk to be done, leasing again the chunks of workers
+	 * that have gone quiet.
+	 * </p>
+	 * 
+	 * @param millis The longest time to wait, 0 for no limit
+	 * @return true if every chunk is done
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public synchronized boolean await(final long millis)
+			throws InterruptedException {
+
+		final long until = System.currentTimeMillis() + millis;
+		while (!isFinished()) {
+			final long now = System.currentTimeMillis();
+			if ((millis > 0) && (now >= until)) {
+				return false;
+			}
+			expire(now);
+			wait(millis > 0 ? Math.min(WAIT_MILLIS, until - now) : WAIT_MILLIS);
+		}
+		return true;
+
+	}
+
+	/**
+	 * <p>
+	 * Stop accepting workers and disconnect those still connected; if every
+	 * chunk is done, workers are given a little time to ask for a lease and
+	 * be told so before.
+	 * </p>
+	 */
+	public void stop() {
+
+		closed = true;
+		try {
+			if (server != null) {
+				server.close();
+			}
+		} catch (final IOException e) {
+			// Closing anyway
+		}
+		final long until = System.currentTimeMillis() + 2 * WAIT_MILLIS;
+		synchronized (sockets) {
+			try {
+				while (isFinished() && !sockets.isEmpty()) {
+					final long left = until - System.currentTimeMillis();
+					if (left <= 0) {
+						break;
+					}
+					sockets.wait(left);
+				}
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			for (final Socket socket : sockets) {
+				close(socket);
+			}
+			sockets.clear();
+		}
+
+	}
+
+	/**
+	 * @return FailedPayloads the payloads that got no reply, by series and
+	 *         position as in a run of the whole session
+	 */
+	public FailedPayloads getFailures() {
+		return failures;
+	}
+
+	/**
+	 * @return int the number of chunks done
+	 */
+	public synchronized int getChunks() {
+		return chunks;
+	}
+
+	/**
+	 * @return int the number of times a chunk has been leased again
+	 */
+	public synchronized int getReleased() {
+		return released;
+	}
+
+	/**
+	 * @return long the number of messages stored, not counting those
+	 *         received twice
+	 */
+	public synchronized long getResults() {
+		return results;
+	}
+
+	private synchronized boolean isFinished() {
+		return open.isEmpty() && !hasNext();
+	}
+
+	/**
+	 * @return true if there is a chunk left to cut
+	 */
+	private boolean hasNext() {
+
+		while ((nextSeries < series.length) && (nextFrom >= sizes[nextSeries])) {
+			nextSeries++;
+			nextFrom = 0L;
+		}
+		return nextSeries < series.length;
+
+	}
+
+	/**
+	 * <p>
+	 * Lease the next chunk to the given worker, a chunk to lease again if
+	 * any, or else a new one.
+	 * </p>
+	 * 
+	 * @return Lease the chunk, or null if none is left to lease
+	 */
+	private synchronized Lease lease(final Object holder) {
+
+		final long now = System.currentTimeMillis();
+		expire(now);
+
+		Lease lease = pending.poll();
+		if ((lease == null) && hasNext()) {
+			final long to = Math.min(sizes[nextSeries], nextFrom + chunkSize);
+			lease = new Lease(nextId++, series[nextSeries], nextFrom, to,
+					targets);
+			nextFrom = to;
+			open.put(Integer.valueOf(lease.id), lease);
+		}
+		if (lease != null) {
+			lease.holder = holder;
+			lease.expires = now + leaseMillis;
+			lease.leases++;
+		}
+		return lease;
+
+	}
+
+	/**
+	 * <p>
+	 * Take back the chunks of workers that have sent nothing for longer
+	 * than the lease.
+	 * </p>
+	 */
+	private void expire(final long now) {
+
+		for (final Lease lease : open.values()) {
+			if ((lease.holder != null) && (lease.expires < now)) {
+				Logger.log("Lease of " + lease + " expired", 2);
+				lease.holder = null;
+				pending.add(lease);
+				released++;
+			}
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Take back the chunks of a worker that has gone away, to lease them
+	 * again before any other.
+	 * </p>
+	 */
+	private synchronized void release(final Object holder) {
+
+		for (final Iterator<Lease> i = open.values().iterator(); i.hasNext();) {
+			final Lease lease = i.next();
+			if (lease.holder == holder) {
+				Logger.log("Leasing " + lease + " again", 2);
+				lease.holder = null;
+				pending.addFirst(lease);
+				released++;
+			}
+		}
+
+	}
+
+	/**
+	 * @return false if the message is not part of an open chunk, or has
+	 *         been received before
+	 */
+	private synchronized boolean receive(final Object holder, final int id,
+			final int s, final long index, final int target) {
+
+		final Lease lease = open.get(Integer.valueOf(id));
+		if ((lease == null) || (lease.series != s)
+				|| !lease.receive(index, target)) {
+			return false;
+		}
+		if (lease.holder == holder) {
+			lease.expires = System.currentTimeMillis() + leaseMillis;
+		}
+		results++;
+		return true;
+
+	}
+
+	private synchronized void complete(final int id) {
+
+		final Lease lease = open.remove(Integer.valueOf(id));
+		if (lease == null) {
+			return;
+		}
+		lease.done = true;
+		pending.remove(lease);
+		chunks++;
+		notifyAll();
+
+	}
+
+	private static void close(final Socket socket) {
+
+		try {
+			socket.close();
+		} catch (final IOException e) {
+			// Closing anyway
+		}
+
+	}
+
+	// Compare in constant time, not to tell how much of a guess was right
+	private boolean isSecret(final String given) throws IOException {
+
+		if (given == null) {
+			return false;
+		}
+		return MessageDigest.isEqual(getSecret().getBytes("UTF-8"), given
+				.getBytes("UTF-8"));
+
+	}
+
+	/**
+	 * <p>
+	 * Serves one worker, until it disconnects or the run is over.
+	 * </p>
+	 */
+	private final class Handler implements Runnable {
+
+		private final Socket socket;
+
+		private String name;
+
+		Handler(final Socket socket) {
+			this.socket = socket;
+			name = socket.getRemoteSocketAddress().toString();
+		}
+
+		public void run() {
+
+			try {
+				// Not to be held up by a connection that is not a worker
+				socket.setSoTimeout(getHelloTimeout());
+				final DataInputStream in = new DataInputStream(
+						new BufferedInputStream(socket.getInputStream()));
+				final DataOutputStream out = new DataOutputStream(
+						new BufferedOutputStream(socket.getOutputStream()));
+
+				if (in.readByte() != Protocol.HELLO) {
+					throw new IOException("Expected a hello");
+				}
+				name = Protocol.readString(in, Protocol.MAX_HELLO_LENGTH)
+						+ " (" + name + ")";
+				if (!isSecret(Protocol.readString(in,
+						Protocol.MAX_HELLO_LENGTH))) {
+					throw new IOException("Wrong secret");
+				}
+				socket.setSoTimeout(0);
+				Logger.log("Worker " + name + " connected", 0);
+
+				out.writeByte(Protocol.SESSION);
+				Protocol.writeString(out, url);
+				out.writeInt(configuration.getIterationMode());
+				Protocol.writeString(out, session);
+				out.flush();
+
+				while (true) {
+					final byte type = in.readByte();
+					if (type == Protocol.LEASE) {
+						lease(out);
+					} else if (type == Protocol.RESULT) {
+						result(in);
+					} else if (type == Protocol.DONE) {
+						complete(in.readInt());
+					} else {
+						throw new IOException("Unexpected frame " + type);
+					}
+				}
+
+			} catch (final IOException e) {
+				if (!closed) {
+					Logger.log("Worker " + name + " disconnected: "
+							+ e.getMessage(), 1);
+				}
+			} finally {
+				release(this);
+				close(socket);
+				synchronized (sockets) {
+					sockets.remove(socket);
+					sockets.notifyAll();
+				}
+			}
+
+		}
+
+		private void lease(final DataOutputStream out) throws IOException {
+
+			final Lease lease = Coordinator.this.lease(this);
+			if (lease != null) {
+				out.writeByte(Protocol.CHUNK);
+				out.writeInt(lease.id);
+				out.writeInt(lease.series);
+				out.writeLong(lease.from);
+				out.writeLong(lease.to);
+			} else if (isFinished()) {
+				out.writeByte(Protocol.END);
+			} else {
+				out.writeByte(Protocol.WAIT);
+				out.writeLong(WAIT_MILLIS);
+			}
+			out.flush();
+
+		}
+
+		private void result(final DataInputStream in) throws IOException {
+
+			final int id = in.readInt();
+			final int s = in.readInt();
+			final long index = in.readLong();
+			final int target = in.readInt();
+			final boolean replied = in.readBoolean();
+
+			if ((s < 0) || (s >= offsets.length) || (index < 0)) {
+				throw new IOException("Unexpected position " + s + " "
+						+ index);
+			}
+
+			final MessageContainer container = Protocol.readContainer(in,
+					Protocol.getFileName(offsets[s] + index, targets, target));
+			if (!receive(this, id, s, index, target)) {
+				return;
+			}
+			if (!replied) {
+				failures.add(s, index, target);
+			}
+			synchronized (storageLock) {
+				storage.writeFuzzFile(container, configuration);
+			}
+
+		}
+	}
+
+}
@@ -0,0 +1,109 @@
+/**
+ * JbroFuzz 2.5
+ *
+ * JBroFuzz - A stateless network protocol fuzzer for web applications.
+ * 
+ * Copyright (C) 2007 - 2010 subere@uncon.org
+ *
+ * This file is part of JBroFuzz.
+ * 
+ * JBroFuzz is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * JBroFuzz is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with JBroFuzz.  If not, see <http://www.gnu.org/licenses/>.
+ * Alternatively, write to the Free Software Foundation, Inc., 51 
+ * Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Verbatim copying and distribution of this entire program file is 
+ * permitted in any medium without royalty provided this notice 
+ * is preserved. 
+ * 
+ */
+package org.owasp.jbrofuzz.fuzz.dist;
+
+import java.util.BitSet;
+
+/**
+ * <p>
+ * A chunk of the payload positions of a series, leased to one worker at
+ * a time.
+ * </p>
+ * 
+ * <p>
+ * A chunk is leased again if its worker goes away or stops sending back
+ * results for longer than the lease; the messages received for it are
+ * tracked, so that those sent twice are only stored once.
+ * </p>
+ * 
+ * @version 2.5
+ * @since 2.5
+ */
+final class Lease {
+
+	final int id;
+
+	final int series;
+
+	final long from;
+
+	final long to;
+
+	// The messages received, by position within the chunk and target
+	private final BitSet received = new BitSet();
+
+	private final int targets;
+
+	// The worker holding the lease, null if none
+	Object holder;
+
+	long expires;
+
+	int leases;
+
+	boolean done;
+
+	Lease(final int id, final int series, final long from, final long to,
+			final int targets) {
+
+		this.id = id;
+		this.series = series;
+		this.from = from;
+		this.to = to;
+		this.targets = targets;
+
+	}
+
+	/**
+	 * @return false if the message has been received before, or is not
+	 *         part of this chunk
+	 */
+	boolean receive(final long index, final int target) {
+
+		if ((index < from) || (index >= to) || (target < 0)
+				|| (target >= targets)) {
+			return false;
+		}
+		final int bit = (int) (index - from) * targets + target;
+		if (received.get(bit)) {
+			return false;
+		}
+		received.set(bit);
+		return true;
+
+	}
+
+	@Override
+	public String toString() {
+		return "chunk " + id + " (series " + series + ", " + from + " to "
+				+ to + ")";
+	}
+
+}
@@ -0,0 +1,247 @@
+/**
+ * JbroFuzz 2.5
+ *
+ * JBroFuzz - A stateless network protocol fuzzer for web applications.
+ * 
+ * Copyright (C) 2007 - 2010 subere@uncon.org
+ *
+ * This file is part of JBroFuzz.
+ * 
+ * JBroFuzz is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * JBroFuzz is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with JBroFuzz.  If not, see <http://www.gnu.org/licenses/>.
+ * Alternatively, write to the Free Software Foundation, Inc., 51 
+ * Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Verbatim copying and distribution of this entire program file is 
+ * permitted in any medium without royalty provided this notice 
+ * is preserved. 
+ * 
+ */
+package org.owasp.jbrofuzz.fuzz.dist;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Date;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.commons.lang.StringUtils;
+import org.owasp.jbrofuzz.core.NoSuchFuzzerException;
+import org.owasp.jbrofuzz.fuzz.FuzzingRun;
+import org.owasp.jbrofuzz.fuzz.MessageContainer;
+
+/**
+ * <p>
+ * The frames exchanged between the coordinator and the workers of a
+ * distributed run, over a plain TCP connection.
+ * </p>
+ * 
+ * <p>
+ * Each frame is a single byte of type, followed by its fields as written
+ * by a DataOutputStream. A worker says hello, with the secret of the
+ * coordinator, and is sent the session; it then asks for a lease, is
+ * sent a chunk of payload positions (or told to wait, or that the run is
+ * over), streams back a result for each message of the chunk and says
+ * when the chunk is done, before asking for the next lease.
+ * </p>
+ * 
+ * <p>
+ * The contents of a message are deflated, so that a result takes little
+ * more than the reply it carries compresses to.
+ * </p>
+ * 
+ * @version 2.5
+ * @since 2.5
+ */
+final class Protocol {
+
+	/** Worker: name, secret of the coordinator */
+	static final byte HELLO = 'H';
+
+	/** Coordinator: target URL, iteration mode, session file text */
+	static final byte SESSION = 'S';
+
+	/** Worker: asks for the next chunk */
+	static final byte LEASE = 'L';
+
+	/** Coordinator: lease id, series, first position, position after last */
+	static final byte CHUNK = 'C';
+
+	/** Coordinator: milliseconds to wait before asking again */
+	static final byte WAIT = 'W';
+
+	/** Coordinator: every chunk is done */
+	static final byte END = 'E';
+
+	/** Worker: lease id, series, position, target, replied, contents */
+	static final byte RESULT = 'R';
+
+	/** Worker: lease id, every message of which has been sent */
+	static final byte DONE = 'D';
+
+	// No string sent is anywhere near as long as this
+	private static final int MAX_LENGTH = 1 << 28;
+
+	/** The longest name or secret read from a hello, in bytes */
+	static final int MAX_HELLO_LENGTH = 1024;
+
+	private Protocol() {
+
+	}
+
+	static void writeString(final DataOutputStream out, final String value)
+			throws IOException {
+
+		if (value == null) {
+			out.writeInt(-1);
+			return;
+		}
+		final byte[] bytes = value.getBytes("UTF-8");
+		out.writeInt(bytes.length);
+		out.write(bytes);
+
+	}
+
+	static String readString(final DataInputStream in) throws IOException {
+		return readString(in, MAX_LENGTH);
+	}
+
+	/**
+	 * <p>
+	 * Read a string, refusing one longer than the given number of bytes
+	 * before reading any of it.
+	 * </p>
+	 */
+	static String readString(final DataInputStream in, final int maxLength)
+			throws IOException {
+
+		final int length = in.readInt();
+		if (length < 0) {
+			return null;
+		}
+		if (length > maxLength) {
+			throw new IOException("String of " + length + " bytes received");
+		}
+		final byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, "UTF-8");
+
+	}
+
+	/**
+	 * <p>
+	 * Return the first position of each series of a run, counting the
+	 * payloads of all the series before it, so that a message can be named
+	 * after its place in the whole run by any process.
+	 * </p>
+	 * 
+	 * @param run The run
+	 * @return long[] the offset of each series, indexed by series
+	 * @throws NoSuchFuzzerException if a fuzzer is not in the database
+	 */
+	static long[] getOffsets(final FuzzingRun run)
+			throws NoSuchFuzzerException {
+
+		final int[] series = run.getSeries();
+		final long[] offsets = new long[series[series.length - 1] + 1];
+		long offset = 0L;
+		for (final int s : series) {
+			offsets[s] = offset;
+			offset += run.getSeriesSize(s);
+		}
+		return offsets;
+
+	}
+
+	/**
+	 * @return String the name of the message to the given target of the
+	 *         payload at the given position of the whole run
+	 */
+	static String getFileName(final long position, final int targets,
+			final int target) {
+
+		return StringUtils.leftPad(Long.toString(position * targets + target
+				+ 1), 10, '0');
+
+	}
+
+	/**
+	 * <p>
+	 * Write the contents of a message that has been replied to, or has
+	 * failed, as a deflated block.
+	 * </p>
+	 */
+	static void writeContainer(final DataOutputStream out,
+			final MessageContainer container) throws IOException {
+
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final DataOutputStream block = new DataOutputStream(
+				new DeflaterOutputStream(bytes));
+		writeString(block, container.getTextURL());
+		writeString(block, container.getPayload());
+		writeString(block, container.getEncodedPayload());
+		writeString(block, container.getTextRequest());
+		writeString(block, container.getReply());
+		writeString(block, container.getStatus());
+		block.writeLong(container.getStartTimeMillis());
+		block.writeLong(container.getStartTimeMillis()
+				+ container.getResponseTime());
+		block.writeInt(container.getByteCount());
+		writeString(block, container.getMessage());
+		block.close();
+
+		out.writeInt(bytes.size());
+		bytes.writeTo(out);
+
+	}
+
+	/**
+	 * <p>
+	 * Read the contents of a message as written above, into a container of
+	 * the given name.
+	 * </p>
+	 */
+	static MessageContainer readContainer(final DataInputStream in,
+			final String fileName) throws IOException {
+
+		final int length = in.readInt();
+		if ((length < 0) || (length > MAX_LENGTH)) {
+			throw new IOException("Block of " + length + " bytes received");
+		}
+		final byte[] bytes = new byte[length];
+		in.readFully(bytes);
+
+		// Closing releases the native memory of the Inflater at once
+		final DataInputStream block = new DataInputStream(
+				new InflaterInputStream(new ByteArrayInputStream(bytes)));
+		try {
+			final MessageContainer container = new MessageContainer(fileName,
+					readString(block), readString(block), readString(block));
+			container.setTextRequest(readString(block));
+			container.setReply(readString(block));
+			container.setStatus(readString(block));
+			container.setStartDate(new Date(block.readLong()));
+			container.setEnd(new Date(block.readLong()));
+			container.setByteCount(block.readInt());
+			container.setRecord(readString(block));
+			return container;
+		} finally {
+			block.close();
+		}
+
+	}
+
+}
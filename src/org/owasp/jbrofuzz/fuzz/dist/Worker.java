@@ -0,0 +1,405 @@
+/**
+ * JbroFuzz 2.5
+ *
+ * JBroFuzz - A stateless network protocol fuzzer for web applications.
+ * 
+ * Copyright (C) 2007 - 2010 subere@uncon.org
+ *
+ * This file is part of JBroFuzz.
+ * 
+ * JBroFuzz is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * JBroFuzz is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with JBroFuzz.  If not, see <http://www.gnu.org/licenses/>.
+ * Alternatively, write to the Free Software Foundation, Inc., 51 
+ * Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Verbatim copying and distribution of this entire program file is 
+ * permitted in any medium without royalty provided this notice 
+ * is preserved. 
+ * 
+ */
+package org.owasp.jbrofuzz.fuzz.dist;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.owasp.jbrofuzz.JBroFuzz;
+import org.owasp.jbrofuzz.core.Database;
+import org.owasp.jbrofuzz.core.NoSuchFuzzerException;
+import org.owasp.jbrofuzz.encode.EncodedPayloadCache;
+import org.owasp.jbrofuzz.fuzz.Connection;
+import org.owasp.jbrofuzz.fuzz.ConnectionException;
+import org.owasp.jbrofuzz.fuzz.FuzzingEngine;
+import org.owasp.jbrofuzz.fuzz.FuzzingRun;
+import org.owasp.jbrofuzz.fuzz.MessageContainer;
+import org.owasp.jbrofuzz.fuzz.MessageCreator;
+import org.owasp.jbrofuzz.fuzz.RunConfiguration;
+import org.owasp.jbrofuzz.fuzz.io.SessionFile;
+import org.owasp.jbrofuzz.fuzz.stats.EngineMetrics;
+import org.owasp.jbrofuzz.system.Logger;
+
+/**
+ * <p>
+ * Connects to a coordinator, runs the chunks of payload positions it
+ * leases, and streams a result back for every message sent, until the
+ * coordinator says the run is over.
+ * </p>
+ * 
+ * <p>
+ * The session is sent by the coordinator; the engines are set up from
+ * its [Configuration] section, if any, or else from the preferences of
+ * this process, and kept for every chunk. A chunk is only reported done
+ * once every one of its messages has been replied to, or has failed.
+ * </p>
+ * 
+ * <p>
+ * A worker presenting a secret other than that of the coordinator is
+ * disconnected, and run() throws an IOException.
+ * </p>
+ * 
+ * @see Coordinator
+ * @version 2.5
+ * @since 2.5
+ */
+public class Worker {
+
+	private final String host;
+
+	private final int port;
+
+	private final Database database;
+
+	private final String name;
+
+	private volatile String secret = "";
+
+	private final EngineMetrics metrics = new EngineMetrics();
+
+	private final List<FuzzingEngine> engines = new ArrayList<FuzzingEngine>();
+
+	private volatile Socket socket;
+
+	private volatile boolean stopped;
+
+	private int chunks;
+
+	/**
+	 * @param host The host of the coordinator
+	 * @param port The port of the coordinator
+	 * @param database The database of fuzzers
+	 * @param name The name to report this worker by
+	 */
+	public Worker(final String host, final int port,
+			final Database database, final String name) {
+
+		this.host = host;
+		this.port = port;
+		this.database = database;
+		this.name = name;
+
+	}
+
+	/**
+	 * <p>
+	 * Set the secret of the coordinator, to present in the hello.
+	 * </p>
+	 * 
+	 * @param secret The secret
+	 */
+	public void setSecret(final String secret) {
+		this.secret = secret;
+	}
+
+	/**
+	 * <p>
+	 * Run chunks until the coordinator says the run is over.
+	 * </p>
+	 * 
+	 * @throws IOException if the coordinator cannot be reached, goes away
+	 *             or sends a session that is not valid
+	 * @throws NoSuchFuzzerException if a fuzzer of the session is not in
+	 *             the database
+	 * @throws InterruptedException if interrupted while running
+	 */
+	public void run() throws IOException, NoSuchFuzzerException,
+			InterruptedException {
+
+		socket = new Socket(host, port);
+		socket.setTcpNoDelay(true);
+		try {
+			final DataInputStream in = new DataInputStream(
+					new BufferedInputStream(socket.getInputStream()));
+			final DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(socket.getOutputStream()));
+
+			out.writeByte(Protocol.HELLO);
+			Protocol.writeString(out, name);
+			Protocol.writeString(out, secret);
+			out.flush();
+
+			if (in.readByte() != Protocol.SESSION) {
+				throw new IOException("Expected a session");
+			}
+			final String url = Protocol.readString(in);
+			final int mode = in.readInt();
+			final SessionFile session = SessionFile.parse(Protocol
+					.readString(in), "session", database);
+			final RunConfiguration configuration = session
+					.getConfiguration(RunConfiguration.fromPreferences(
+							JBroFuzz.PREFS, mode, ""));
+			final FuzzingRun run = session.createRun(url, database,
+					new EncodedPayloadCache(), mode);
+			final long[] offsets = Protocol.getOffsets(run);
+
+			synchronized (engines) {
+				for (int t = 0; t < run.getTargets().length; t++) {
+					engines.add(new FuzzingEngine(configuration, metrics));
+				}
+			}
+			Logger.log("Worker " + name + " running " + run.getURL()
+					+ " for " + host + ":" + port, 0);
+
+			while (!stopped) {
+				out.writeByte(Protocol.LEASE);
+				out.flush();
+
+				final byte type = in.readByte();
+				if (type == Protocol.CHUNK) {
+					final int id = in.readInt();
+					final int series = in.readInt();
+					final long from = in.readLong();
+					final long to = in.readLong();
+					runChunk(run.createRangeRun(series, from, to), id,
+							offsets, out);
+					chunks++;
+				} else if (type == Protocol.WAIT) {
+					Thread.sleep(in.readLong());
+				} else if (type == Protocol.END) {
+					break;
+				} else {
+					throw new IOException("Unexpected frame " + type);
+				}
+			}
+
+		} finally {
+			socket.close();
+			synchronized (engines) {
+				for (final FuzzingEngine engine : engines) {
+					engine.stop();
+					engine.finish();
+				}
+				engines.clear();
+			}
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Stop running chunks and disconnect; the chunk in progress is leased
+	 * to another worker.
+	 * </p>
+	 */
+	public void stop() {
+
+		stopped = true;
+		synchronized (engines) {
+			for (final FuzzingEngine engine : engines) {
+				engine.stop();
+			}
+		}
+		final Socket current = socket;
+		if (current != null) {
+			try {
+				current.close();
+			} catch (final IOException e) {
+				// Closing anyway
+			}
+		}
+
+	}
+
+	/**
+	 * @return int the number of chunks run
+	 */
+	public int getChunks() {
+		return chunks;
+	}
+
+	public EngineMetrics getMetrics() {
+		return metrics;
+	}
+
+	private void runChunk(final FuzzingRun run, final int id,
+			final long[] offsets, final DataOutputStream out)
+			throws IOException, InterruptedException {
+
+		final Chunk chunk = new Chunk(id, run.getTargets(), offsets, out);
+		run.run(engines, chunk);
+		chunk.await();
+
+		synchronized (out) {
+			out.writeByte(Protocol.DONE);
+			out.writeInt(id);
+			out.flush();
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * The listener of the run of a chunk, sending back the result of each
+	 * message as it comes in and counting the messages still outstanding.
+	 * </p>
+	 */
+	private final class Chunk implements FuzzingRun.Listener,
+			FuzzingEngine.Callback {
+
+		private final int id;
+
+		private final String[] targets;
+
+		private final long[] offsets;
+
+		private final DataOutputStream out;
+
+		private int outstanding;
+
+		private IOException error;
+
+		Chunk(final int id, final String[] targets, final long[] offsets,
+				final DataOutputStream out) {
+
+			this.id = id;
+			this.targets = targets;
+			this.offsets = offsets;
+			this.out = out;
+
+		}
+
+		public FuzzingEngine.Callback createCallback(final String series) {
+			return this;
+		}
+
+		public MessageContainer createContainer(final int series,
+				final long index, final String url, final String payload,
+				final String encodedPayload, final MessageCreator message) {
+
+			int target = 0;
+			while ((target < targets.length - 1) && !targets[target].equals(url)) {
+				target++;
+			}
+			final Position container = new Position(Protocol.getFileName(
+					offsets[series] + index, targets.length, target), url,
+					payload, encodedPayload, series, index, target);
+			container.setTextRequest(message.getMessageForDisplayPurposes());
+			synchronized (this) {
+				outstanding++;
+			}
+			return container;
+
+		}
+
+		public void replied(final MessageContainer outputMessage,
+				final Connection connection) {
+
+			outputMessage.setReply(connection.getDecodedReply());
+			outputMessage.setConnection(connection);
+			send((Position) outputMessage, true);
+
+		}
+
+		public void failed(final MessageContainer outputMessage,
+				final ConnectionException e) {
+
+			outputMessage.setException(e);
+			send((Position) outputMessage, false);
+
+		}
+
+		private void send(final Position container, final boolean replied) {
+
+			try {
+				synchronized (out) {
+					out.writeByte(Protocol.RESULT);
+					out.writeInt(id);
+					out.writeInt(container.series);
+					out.writeLong(container.index);
+					out.writeInt(container.target);
+					out.writeBoolean(replied);
+					Protocol.writeContainer(out, container);
+					out.flush();
+				}
+			} catch (final IOException e) {
+				synchronized (this) {
+					error = e;
+				}
+			}
+			synchronized (this) {
+				outstanding--;
+				notifyAll();
+			}
+
+		}
+
+		/**
+		 * <p>
+		 * Wait for every message of the chunk to be replied to, or to fail.
+		 * </p>
+		 */
+		synchronized void await() throws IOException, InterruptedException {
+
+			while ((outstanding > 0) && (error == null) && !stopped) {
+				wait(1000L);
+			}
+			if (error != null) {
+				throw error;
+			}
+			if (stopped) {
+				throw new IOException("Worker stopped");
+			}
+
+		}
+	}
+
+	/**
+	 * <p>
+	 * A message, along with the position of its payload and its target.
+	 * </p>
+	 */
+	private static final class Position extends MessageContainer {
+
+		final int series;
+
+		final long index;
+
+		final int target;
+
+		Position(final String filename, final String url,
+				final String payload, final String encodedPayload,
+				final int series, final long index, final int target) {
+
+			super(filename, url, payload, encodedPayload);
+			this.series = series;
+			this.index = index;
+			this.target = target;
+
+		}
+	}
+
+}
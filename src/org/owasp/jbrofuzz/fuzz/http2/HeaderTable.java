@@ -0,0 +1,225 @@
+/**
+ * JbroFuzz 2.5
+ *
+ * JBroFuzz - A stateless network protocol fuzzer for web applications.
+ * 
+ * Copyright (C) 2007 - 2010 subere@uncon.org
+ *
+ * This file is part of JBroFuzz.
+ * 
+ * JBroFuzz is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * JBroFuzz is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with JBroFuzz.  If not, see <http://www.gnu.org/licenses/>.
+ * Alternatively, write to the Free Software Foundation, Inc., 51 
+ * Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Verbatim copying and distribution of this entire program file is 
+ * permitted in any medium without royalty provided this notice 
+ * is preserved. 
+ * 
+ */
+package org.owasp.jbrofuzz.fuzz.http2;
+
+import java.net.ProtocolException;
+import java.util.LinkedList;
+
+/**
+ * <p>
+ * The table of header fields that HPACK refers to by index: the 61 entries
+ * of the static table, followed by those of the dynamic table, the most
+ * recently added first.
+ * </p>
+ * 
+ * <p>
+ * Each side of a connection keeps a dynamic table for each direction, the
+ * encoder of one and the decoder of the other adding the same entries in
+ * the same order.
+ * </p>
+ * 
+ * @version 2.5
+ * @since 2.5
+ */
+final class HeaderTable {
+
+	static final String[][] STATIC = {
+		{ ":authority", "" },
+		{ ":method", "GET" },
+		{ ":method", "POST" },
+		{ ":path", "/" },
+		{ ":path", "/index.html" },
+		{ ":scheme", "http" },
+		{ ":scheme", "https" },
+		{ ":status", "200" },
+		{ ":status", "204" },
+		{ ":status", "206" },
+		{ ":status", "304" },
+		{ ":status", "400" },
+		{ ":status", "404" },
+		{ ":status", "500" },
+		{ "accept-charset", "" },
+		{ "accept-encoding", "gzip, deflate" },
+		{ "accept-language", "" },
+		{ "accept-ranges", "" },
+		{ "accept", "" },
+		{ "access-control-allow-origin", "" },
+		{ "age", "" },
+		{ "allow", "" },
+		{ "authorization", "" },
+		{ "cache-control", "" },
+		{ "content-disposition", "" },
+		{ "content-encoding", "" },
+		{ "content-language", "" },
+		{ "content-length", "" },
+		{ "content-location", "" },
+		{ "content-range", "" },
+		{ "content-type", "" },
+		{ "cookie", "" },
+		{ "date", "" },
+		{ "etag", "" },
+		{ "expect", "" },
+		{ "expires", "" },
+		{ "from", "" },
+		{ "host", "" },
+		{ "if-match", "" },
+		{ "if-modified-since", "" },
+		{ "if-none-match", "" },
+		{ "if-range", "" },
+		{ "if-unmodified-since", "" },
+		{ "last-modified", "" },
+		{ "link", "" },
+		{ "location", "" },
+		{ "max-forwards", "" },
+		{ "proxy-authenticate", "" },
+		{ "proxy-authorization", "" },
+		{ "range", "" },
+		{ "referer", "" },
+		{ "refresh", "" },
+		{ "retry-after", "" },
+		{ "server", "" },
+		{ "set-cookie", "" },
+		{ "strict-transport-security", "" },
+		{ "transfer-encoding", "" },
+		{ "user-agent", "" },
+		{ "vary", "" },
+		{ "via", "" },
+		{ "www-authenticate", "" }
+	};
+
+	// The overhead of each entry, as counted towards the size of the table
+	private static final int ENTRY_OVERHEAD = 32;
+
+	private final LinkedList<String[]> dynamic = new LinkedList<String[]>();
+
+	private int size;
+
+	private int maxSize;
+
+	HeaderTable(final int maxSize) {
+
+		this.maxSize = maxSize;
+
+	}
+
+	/**
+	 * @param index The index, from 1
+	 * @return String[] the name and value at that index
+	 * @throws ProtocolException if there is no entry at that index
+	 */
+	String[] get(final int index) throws ProtocolException {
+
+		if ((index > 0) && (index <= STATIC.length)) {
+			return STATIC[index - 1];
+		}
+		if ((index > STATIC.length) && (index <= STATIC.length + dynamic.size())) {
+			return dynamic.get(index - STATIC.length - 1);
+		}
+		throw new ProtocolException("HPACK: no header at index " + index);
+
+	}
+
+	/**
+	 * <p>
+	 * Find a header field in the table.
+	 * </p>
+	 * 
+	 * @return int the index of the name and value, the negative index of
+	 *         the name alone, or 0 if neither is found
+	 */
+	int find(final String name, final String value) {
+
+		int nameIndex = 0;
+		for (int i = 0; i < STATIC.length; i++) {
+			if (STATIC[i][0].equals(name)) {
+				if (STATIC[i][1].equals(value)) {
+					return i + 1;
+				}
+				if (nameIndex == 0) {
+					nameIndex = -(i + 1);
+				}
+			}
+		}
+		int index = STATIC.length;
+		for (final String[] entry : dynamic) {
+			index++;
+			if (entry[0].equals(name)) {
+				if (entry[1].equals(value)) {
+					return index;
+				}
+				if (nameIndex == 0) {
+					nameIndex = -index;
+				}
+			}
+		}
+		return nameIndex;
+
+	}
+
+	void add(final String name, final String value) {
+
+		final int entrySize = size(name, value);
+		evict(maxSize - entrySize);
+		// An entry larger than the table empties it, without being added
+		if (entrySize <= maxSize) {
+			dynamic.addFirst(new String[] { name, value });
+			size += entrySize;
+		}
+
+	}
+
+	void setMaxSize(final int maxSize) {
+
+		this.maxSize = maxSize;
+		evict(maxSize);
+
+	}
+
+	int getMaxSize() {
+		return maxSize;
+	}
+
+	private void evict(final int room) {
+
+		while ((size > Math.max(0, room)) && !dynamic.isEmpty()) {
+			final String[] entry = dynamic.removeLast();
+			size -= size(entry[0], entry[1]);
+		}
+
+	}
+
+	private static int size(final String name, final String value) {
+
+		// Header strings hold one byte per character, as ISO-8859-1
+		return name.length() + value.length() + ENTRY_OVERHEAD;
+
+	}
+
+}
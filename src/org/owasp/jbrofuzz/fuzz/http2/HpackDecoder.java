@@ -0,0 +1,163 @@
+/**
+ * JbroFuzz 2.5
+ *
+ * JBroFuzz - A stateless network protocol fuzzer for web applications.
+ * 
+ * Copyright (C) 2007 - 2010 subere@uncon.org
+ *
+ * This file is part of JBroFuzz.
+ * 
+ * JBroFuzz is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * JBroFuzz is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with JBroFuzz.  If not, see <http://www.gnu.org/licenses/>.
+ * Alternatively, write to the Free Software Foundation, Inc., 51 
+ * Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Verbatim copying and distribution of this entire program file is 
+ * permitted in any medium without royalty provided this notice 
+ * is preserved. 
+ * 
+ */
+package org.owasp.jbrofuzz.fuzz.http2;
+
+import java.io.UnsupportedEncodingException;
+import java.net.ProtocolException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * Decompresses header blocks into header fields, as in RFC 7541.
+ * </p>
+ * 
+ * <p>
+ * Header blocks must be decoded in the order they are received in, as each
+ * one may add to the dynamic table the following ones refer to.
+ * </p>
+ * 
+ * @version 2.5
+ * @since 2.5
+ */
+final class HpackDecoder {
+
+	private final HeaderTable table;
+
+	// The largest table the encoder may use, as given in our settings
+	private final int maxTableSize;
+
+	HpackDecoder(final int maxTableSize) {
+
+		this.maxTableSize = maxTableSize;
+		table = new HeaderTable(maxTableSize);
+
+	}
+
+	/**
+	 * @return List the name and value of each field, in order
+	 * @throws ProtocolException if the block cannot be decoded, after which
+	 *             the connection cannot be used
+	 */
+	List<String[]> decode(final byte[] block, final int offset,
+			final int length) throws ProtocolException {
+
+		final List<String[]> headers = new ArrayList<String[]>();
+		final int[] position = { offset };
+		final int end = offset + length;
+
+		while (position[0] < end) {
+
+			final int first = block[position[0]] & 0xFF;
+
+			if ((first & 0x80) != 0) {
+				// Indexed field
+				final int index = readInteger(block, position, end, 7);
+				headers.add(table.get(index));
+
+			} else if ((first & 0xE0) == 0x20) {
+				// Dynamic table size update
+				final int size = readInteger(block, position, end, 5);
+				if (size > maxTableSize) {
+					throw new ProtocolException("HPACK: table size " + size
+							+ " over " + maxTableSize);
+				}
+				table.setMaxSize(size);
+
+			} else {
+				// Literal, with incremental indexing (01), without indexing
+				// (0000) or never indexed (0001)
+				final boolean indexing = (first & 0xC0) == 0x40;
+				final int index = readInteger(block, position, end,
+						indexing ? 6 : 4);
+				final String name = index > 0 ? table.get(index)[0]
+						: readString(block, position, end);
+				final String value = readString(block, position, end);
+				if (indexing) {
+					table.add(name, value);
+				}
+				headers.add(new String[] { name, value });
+			}
+		}
+		return headers;
+
+	}
+
+	private static int readInteger(final byte[] block, final int[] position,
+			final int end, final int prefix) throws ProtocolException {
+
+		final int max = (1 << prefix) - 1;
+		int value = block[position[0]++] & max;
+		if (value < max) {
+			return value;
+		}
+		int shift = 0;
+		int b;
+		do {
+			if (position[0] >= end) {
+				throw new ProtocolException("HPACK: truncated integer");
+			}
+			b = block[position[0]++] & 0xFF;
+			value += (b & 0x7F) << shift;
+			shift += 7;
+			if ((shift > 28) || (value < 0)) {
+				throw new ProtocolException("HPACK: integer too large");
+			}
+		} while ((b & 0x80) != 0);
+		return value;
+
+	}
+
+	private static String readString(final byte[] block, final int[] position,
+			final int end) throws ProtocolException {
+
+		if (position[0] >= end) {
+			throw new ProtocolException("HPACK: truncated string");
+		}
+		final boolean huffman = (block[position[0]] & 0x80) != 0;
+		final int length = readInteger(block, position, end, 7);
+		if (length > end - position[0]) {
+			throw new ProtocolException("HPACK: truncated string");
+		}
+		final int start = position[0];
+		position[0] += length;
+		try {
+			if (huffman) {
+				return new String(Huffman.decode(block, start, length),
+						"ISO-8859-1");
+			}
+			return new String(block, start, length, "ISO-8859-1");
+		} catch (final UnsupportedEncodingException e) {
+			throw new IllegalStateException(e.getMessage());
+		}
+
+	}
+
+}
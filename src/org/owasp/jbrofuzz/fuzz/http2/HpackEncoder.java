@@ -0,0 +1,170 @@
+/**
+ * JbroFuzz 2.5
+ *
+ * JBroFuzz - A stateless network protocol fuzzer for web applications.
+ * 
+ * Copyright (C) 2007 - 2010 subere@uncon.org
+ *
+ * This file is part of JBroFuzz.
+ * 
+ * JBroFuzz is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * JBroFuzz is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with JBroFuzz.  If not, see <http://www.gnu.org/licenses/>.
+ * Alternatively, write to the Free Software Foundation, Inc., 51 
+ * Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Verbatim copying and distribution of this entire program file is 
+ * permitted in any medium without royalty provided this notice 
+ * is preserved. 
+ * 
+ */
+package org.owasp.jbrofuzz.fuzz.http2;
+
+import java.io.ByteArrayOutputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.List;
+
+/**
+ * <p>
+ * Compresses header fields into header blocks, as in RFC 7541.
+ * </p>
+ * 
+ * <p>
+ * Fields already in the table are sent as an index; the others are added
+ * to the dynamic table, so that repeating them in later requests on the
+ * same connection takes a single byte, except for credentials, which are
+ * never indexed. Strings are Huffman coded whenever that makes them
+ * shorter.
+ * </p>
+ * 
+ * <p>
+ * Header blocks must be sent in the order they are encoded in.
+ * </p>
+ * 
+ * @version 2.5
+ * @since 2.5
+ */
+final class HpackEncoder {
+
+	// The largest dynamic table used, whatever the decoder allows
+	static final int TABLE_SIZE = 4096;
+
+	private final HeaderTable table = new HeaderTable(TABLE_SIZE);
+
+	// A table size to announce at the start of the next block, or -1
+	private int sizeUpdate = -1;
+
+	/**
+	 * <p>
+	 * Limit the dynamic table to the size the decoder allows, as given in
+	 * its SETTINGS_HEADER_TABLE_SIZE.
+	 * </p>
+	 */
+	void setMaxTableSize(final int maxSize) {
+
+		final int size = Math.min(maxSize, TABLE_SIZE);
+		if (size != table.getMaxSize()) {
+			table.setMaxSize(size);
+			sizeUpdate = size;
+		}
+
+	}
+
+	/**
+	 * @param headers The names, in lower case, and values of the fields
+	 * @return byte[] the header block
+	 */
+	byte[] encode(final List<String[]> headers) {
+
+		final ByteArrayOutputStream output = new ByteArrayOutputStream(256);
+		if (sizeUpdate >= 0) {
+			writeInteger(output, 0x20, 5, sizeUpdate);
+			sizeUpdate = -1;
+		}
+
+		for (final String[] header : headers) {
+
+			final String name = header[0];
+			final String value = header[1];
+			final int index = table.find(name, value);
+
+			if (index > 0) {
+				writeInteger(output, 0x80, 7, index);
+				continue;
+			}
+
+			final boolean sensitive = name.equals("authorization")
+					|| name.equals("proxy-authorization");
+			if (sensitive) {
+				// Literal never indexed
+				writeInteger(output, 0x10, 4, -index);
+			} else {
+				// Literal with incremental indexing
+				writeInteger(output, 0x40, 6, -index);
+			}
+			if (index == 0) {
+				writeString(output, name);
+			}
+			writeString(output, value);
+			if (!sensitive) {
+				table.add(name, value);
+			}
+		}
+		return output.toByteArray();
+
+	}
+
+	/**
+	 * <p>
+	 * Write an integer with a prefix of the given number of bits, the rest
+	 * of the first byte being the given flags.
+	 * </p>
+	 */
+	static void writeInteger(final ByteArrayOutputStream output,
+			final int flags, final int prefix, final int value) {
+
+		final int max = (1 << prefix) - 1;
+		if (value < max) {
+			output.write(flags | value);
+			return;
+		}
+		output.write(flags | max);
+		int rest = value - max;
+		while (rest >= 0x80) {
+			output.write((rest & 0x7F) | 0x80);
+			rest >>>= 7;
+		}
+		output.write(rest);
+
+	}
+
+	private static void writeString(final ByteArrayOutputStream output,
+			final String value) {
+
+		final byte[] bytes;
+		try {
+			bytes = value.getBytes("ISO-8859-1");
+		} catch (final UnsupportedEncodingException e) {
+			throw new IllegalStateException(e.getMessage());
+		}
+		final int huffman = Huffman.encodedLength(bytes);
+		if (huffman < bytes.length) {
+			writeInteger(output, 0x80, 7, huffman);
+			Huffman.encode(bytes, output);
+		} else {
+			writeInteger(output, 0x00, 7, bytes.length);
+			output.write(bytes, 0, bytes.length);
+		}
+
+	}
+
+}
@@ -0,0 +1,779 @@
+/**
+ * JbroFuzz 2.5
+ *
+ * JBroFuzz - A stateless network protocol fuzzer for web applications.
+ * 
+ * Copyright (C) 2007 - 2010 subere@uncon.org
+ *
+ * This file is part of JBroFuzz.
+ * 
+ * JBroFuzz is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * JBroFuzz is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with JBroFuzz.  If not, see <http://www.gnu.org/licenses/>.
+ * Alternatively, write to the Free Software Foundation, Inc., 51 
+ * Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Verbatim copying and distribution of this entire program file is 
+ * permitted in any medium without royalty provided this notice 
+ * is preserved. 
+ * 
+ */
+package org.owasp.jbrofuzz.fuzz.http2;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ProtocolException;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSocket;
+
+/**
+ * <p>
+ * One side of an HTTP/2 connection, as in RFC 7540: the framing, the
+ * settings, the HPACK compression of header blocks and the flow control
+ * common to a client and a server.
+ * </p>
+ * 
+ * <p>
+ * Frames are read by run(), typically from a thread of their own, which
+ * answers settings and pings, grants flow control credit for the data it
+ * reads and passes streams on to the subclass. Frames may be written from
+ * any thread; header blocks are encoded and written in one go, so that
+ * they reach the other side in the order they were encoded in.
+ * </p>
+ * 
+ * @version 2.5
+ * @since 2.5
+ */
+public abstract class Http2Session implements Runnable {
+
+	/**
+	 * The bytes a client opens a connection with, before its settings
+	 */
+	public static final String PREFACE = "PRI * HTTP/2.0\r\n\r\nSM\r\n\r\n";
+
+	/**
+	 * The protocol id of HTTP/2 over TLS, as negotiated with ALPN
+	 */
+	public static final String PROTOCOL = "h2";
+
+	protected static final int DATA = 0x0;
+
+	protected static final int HEADERS = 0x1;
+
+	protected static final int RST_STREAM = 0x3;
+
+	protected static final int SETTINGS = 0x4;
+
+	protected static final int PUSH_PROMISE = 0x5;
+
+	protected static final int PING = 0x6;
+
+	protected static final int GOAWAY = 0x7;
+
+	protected static final int WINDOW_UPDATE = 0x8;
+
+	protected static final int CONTINUATION = 0x9;
+
+	protected static final int END_STREAM = 0x1;
+
+	protected static final int ACK = 0x1;
+
+	protected static final int END_HEADERS = 0x4;
+
+	protected static final int PADDED = 0x8;
+
+	protected static final int PRIORITY = 0x20;
+
+	protected static final int HEADER_TABLE_SIZE = 0x1;
+
+	protected static final int ENABLE_PUSH = 0x2;
+
+	protected static final int MAX_CONCURRENT_STREAMS = 0x3;
+
+	protected static final int INITIAL_WINDOW_SIZE = 0x4;
+
+	protected static final int MAX_FRAME_SIZE = 0x5;
+
+	public static final int NO_ERROR = 0x0;
+
+	public static final int PROTOCOL_ERROR = 0x1;
+
+	public static final int REFUSED_STREAM = 0x7;
+
+	public static final int CANCEL = 0x8;
+
+	private static final String[] ERRORS = { "NO_ERROR", "PROTOCOL_ERROR",
+			"INTERNAL_ERROR", "FLOW_CONTROL_ERROR", "SETTINGS_TIMEOUT",
+			"STREAM_CLOSED", "FRAME_SIZE_ERROR", "REFUSED_STREAM", "CANCEL",
+			"COMPRESSION_ERROR", "CONNECT_ERROR", "ENHANCE_YOUR_CALM",
+			"INADEQUATE_SECURITY", "HTTP_1_1_REQUIRED" };
+
+	// The largest frame read, the default SETTINGS_MAX_FRAME_SIZE
+	private static final int MAX_FRAME = 16384;
+
+	// The flow control window of a connection and of a stream at the start
+	protected static final int DEFAULT_WINDOW = 65535;
+
+	private static final byte[] EMPTY = new byte[0];
+
+	protected final Object writeLock = new Object();
+
+	private final Socket socket;
+
+	private final InputStream in;
+
+	private final OutputStream out;
+
+	private final HpackEncoder encoder = new HpackEncoder();
+
+	private final HpackDecoder decoder = new HpackDecoder(HpackEncoder.TABLE_SIZE);
+
+	private final byte[] frameHeader = new byte[9];
+
+	// The flow control credit granted by the other side, for the
+	// connection and for each of the streams open
+	private final Object windowLock = new Object();
+
+	private int sendWindow = DEFAULT_WINDOW;
+
+	private final Map<Integer, int[]> streamWindows = new HashMap<Integer, int[]>();
+
+	private int peerInitialWindow = DEFAULT_WINDOW;
+
+	private volatile int peerMaxFrame = MAX_FRAME;
+
+	private volatile int peerMaxStreams = Integer.MAX_VALUE;
+
+	private volatile boolean closed;
+
+	/**
+	 * @param socket The connected socket
+	 * @param in The stream to read frames from, past the preface for a
+	 *            server
+	 * @param out The stream to write frames to, buffered
+	 */
+	protected Http2Session(final Socket socket, final InputStream in,
+			final OutputStream out) {
+
+		this.socket = socket;
+		this.in = in;
+		this.out = out;
+
+	}
+
+	/**
+	 * @return String the name of an error code, e.g. "REFUSED_STREAM"
+	 */
+	public static String getErrorName(final int errorCode) {
+
+		if ((errorCode >= 0) && (errorCode < ERRORS.length)) {
+			return ERRORS[errorCode];
+		}
+		return "0x" + Integer.toHexString(errorCode);
+
+	}
+
+	/**
+	 * <p>
+	 * Set the application protocols offered (ALPN) in the TLS handshake of
+	 * a socket, most preferred first, before the handshake starts.
+	 * </p>
+	 * 
+	 * <p>
+	 * ALPN needs Java 8u252 or later, and is looked up by reflection; on
+	 * earlier versions nothing is offered, and HTTP/1.1 is spoken.
+	 * </p>
+	 * 
+	 * @param socket The socket, not yet connected or handshaken
+	 * @param protocols The protocols, e.g. "h2" and "http/1.1"
+	 */
+	public static void setApplicationProtocols(final SSLSocket socket,
+			final String[] protocols) {
+
+		try {
+			final SSLParameters parameters = socket.getSSLParameters();
+			SSLParameters.class.getMethod("setApplicationProtocols",
+					String[].class).invoke(parameters, (Object) protocols);
+			socket.setSSLParameters(parameters);
+		} catch (final Exception e) {
+			// No ALPN on this version of Java
+		}
+
+	}
+
+	/**
+	 * @return String the application protocol agreed in the TLS handshake
+	 *         of a socket, or "" if none was
+	 */
+	public static String getApplicationProtocol(final Socket socket) {
+
+		if (!(socket instanceof SSLSocket)) {
+			return "";
+		}
+		try {
+			final Object protocol = SSLSocket.class.getMethod(
+					"getApplicationProtocol").invoke(socket);
+			return protocol == null ? "" : (String) protocol;
+		} catch (final Exception e) {
+			return "";
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Read frames until the connection is closed, then call onClosed().
+	 * </p>
+	 */
+	public void run() {
+
+		IOException cause = null;
+		try {
+			while (!closed) {
+				try {
+					readFrame();
+				} catch (final SocketTimeoutException e) {
+					if (!onIdle()) {
+						cause = e;
+						break;
+					}
+				}
+			}
+		} catch (final IOException e) {
+			// Reading fails once closed on this side
+			cause = closed ? null : e;
+		} finally {
+			close();
+			onClosed(cause);
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Read and handle a single frame, along with any CONTINUATION frames
+	 * of a header block.
+	 * </p>
+	 * 
+	 * @return int the type of the frame
+	 * @throws IOException if the connection fails, or if the other side does
+	 *             not speak HTTP/2
+	 */
+	protected int readFrame() throws IOException {
+
+		final byte[] payload = readPayload();
+		final int type = frameHeader[3] & 0xFF;
+		final int flags = frameHeader[4] & 0xFF;
+		final int stream = readInt(frameHeader, 5) & 0x7FFFFFFF;
+		if ((payload.length < 4) && ((type == RST_STREAM) || (type == WINDOW_UPDATE))) {
+			throw new ProtocolException("HTTP/2: short frame of type " + type);
+		}
+
+		switch (type) {
+
+		case DATA: {
+			final int[] range = unpad(payload, flags, 0);
+			onData(stream, payload, range[0], range[1], (flags & END_STREAM) != 0);
+			// Grant back the credit used, padding included
+			if (payload.length > 0) {
+				writeWindowUpdate(0, payload.length);
+				if ((flags & END_STREAM) == 0) {
+					writeWindowUpdate(stream, payload.length);
+				}
+				flush();
+			}
+			break;
+		}
+
+		case HEADERS: {
+			final int[] range = unpad(payload, flags, (flags & PRIORITY) != 0 ? 5 : 0);
+			final byte[] block = readHeaderBlock(stream, flags, payload, range);
+			onHeaders(stream, decoder.decode(block, 0, block.length),
+					(flags & END_STREAM) != 0);
+			break;
+		}
+
+		case PUSH_PROMISE: {
+			// Not asked for; decoded all the same, to keep the table in step
+			final int[] range = unpad(payload, flags, 4);
+			final int promised = readInt(payload, range[0] - 4) & 0x7FFFFFFF;
+			final byte[] block = readHeaderBlock(stream, flags, payload, range);
+			decoder.decode(block, 0, block.length);
+			writeReset(promised, CANCEL);
+			break;
+		}
+
+		case RST_STREAM:
+			closeStream(stream);
+			onReset(stream, readInt(payload, 0));
+			break;
+
+		case SETTINGS:
+			if ((flags & ACK) == 0) {
+				applySettings(payload);
+				synchronized (writeLock) {
+					writeFrame(SETTINGS, ACK, 0, EMPTY, 0, 0);
+					flush();
+				}
+				onSettings();
+			}
+			break;
+
+		case PING:
+			if ((flags & ACK) == 0) {
+				synchronized (writeLock) {
+					writeFrame(PING, ACK, 0, payload, 0, payload.length);
+					flush();
+				}
+			}
+			break;
+
+		case GOAWAY:
+			if (payload.length < 8) {
+				throw new ProtocolException("HTTP/2: short GOAWAY frame");
+			}
+			onGoAway(readInt(payload, 0) & 0x7FFFFFFF, readInt(payload, 4));
+			break;
+
+		case WINDOW_UPDATE: {
+			final int increment = readInt(payload, 0) & 0x7FFFFFFF;
+			synchronized (windowLock) {
+				if (stream == 0) {
+					sendWindow += increment;
+				} else {
+					final int[] window = streamWindows.get(Integer.valueOf(stream));
+					if (window != null) {
+						window[0] += increment;
+					}
+				}
+				windowLock.notifyAll();
+			}
+			break;
+		}
+
+		default:
+			// PRIORITY and unknown frame types are ignored
+			break;
+		}
+		return type;
+
+	}
+
+	private byte[] readPayload() throws IOException {
+
+		readFully(frameHeader);
+		final int length = ((frameHeader[0] & 0xFF) << 16)
+				| ((frameHeader[1] & 0xFF) << 8) | (frameHeader[2] & 0xFF);
+		if (length > MAX_FRAME) {
+			throw new ProtocolException("HTTP/2: frame of " + length
+					+ " bytes, over " + MAX_FRAME);
+		}
+		final byte[] payload = new byte[length];
+		readFully(payload);
+		return payload;
+
+	}
+
+	private void readFully(final byte[] buffer) throws IOException {
+
+		int read = 0;
+		while (read < buffer.length) {
+			final int got = in.read(buffer, read, buffer.length - read);
+			if (got < 0) {
+				throw new EOFException("HTTP/2: connection closed");
+			}
+			read += got;
+		}
+
+	}
+
+	/**
+	 * @return int[] the offset and length of the payload, past the given
+	 *         number of bytes and without any padding
+	 */
+	private static int[] unpad(final byte[] payload, final int flags,
+			final int skip) throws ProtocolException {
+
+		int offset = skip;
+		int length = payload.length - skip;
+		if ((flags & PADDED) != 0) {
+			if (payload.length == 0) {
+				throw new ProtocolException("HTTP/2: short padded frame");
+			}
+			final int padding = payload[0] & 0xFF;
+			offset++;
+			length -= 1 + padding;
+		}
+		if (length < 0) {
+			throw new ProtocolException("HTTP/2: invalid padding");
+		}
+		return new int[] { offset, length };
+
+	}
+
+	private byte[] readHeaderBlock(final int stream, final int flags,
+			final byte[] payload, final int[] range) throws IOException {
+
+		final ByteArrayOutputStream block = new ByteArrayOutputStream(
+				range[1]);
+		block.write(payload, range[0], range[1]);
+		boolean end = (flags & END_HEADERS) != 0;
+		while (!end) {
+			final byte[] continuation = readPayload();
+			if (((frameHeader[3] & 0xFF) != CONTINUATION)
+					|| ((readInt(frameHeader, 5) & 0x7FFFFFFF) != stream)) {
+				throw new ProtocolException("HTTP/2: header block interrupted");
+			}
+			block.write(continuation, 0, continuation.length);
+			end = (frameHeader[4] & END_HEADERS) != 0;
+		}
+		return block.toByteArray();
+
+	}
+
+	private void applySettings(final byte[] payload) {
+
+		for (int i = 0; i + 6 <= payload.length; i += 6) {
+			final int id = ((payload[i] & 0xFF) << 8) | (payload[i + 1] & 0xFF);
+			final int value = readInt(payload, i + 2);
+			switch (id) {
+			case HEADER_TABLE_SIZE:
+				synchronized (writeLock) {
+					encoder.setMaxTableSize(value);
+				}
+				break;
+			case MAX_CONCURRENT_STREAMS:
+				peerMaxStreams = value;
+				break;
+			case INITIAL_WINDOW_SIZE:
+				synchronized (windowLock) {
+					final int delta = value - peerInitialWindow;
+					peerInitialWindow = value;
+					for (final int[] window : streamWindows.values()) {
+						window[0] += delta;
+					}
+					windowLock.notifyAll();
+				}
+				break;
+			case MAX_FRAME_SIZE:
+				peerMaxFrame = value;
+				break;
+			default:
+				break;
+			}
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Write the preface a client opens the connection with, without
+	 * flushing it; its settings are to follow.
+	 * </p>
+	 */
+	protected void writePreface() throws IOException {
+
+		synchronized (writeLock) {
+			out.write(PREFACE.getBytes("ISO-8859-1"));
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Write a frame, without flushing it.
+	 * </p>
+	 */
+	protected void writeFrame(final int type, final int flags,
+			final int stream, final byte[] payload, final int offset,
+			final int length) throws IOException {
+
+		synchronized (writeLock) {
+			out.write(length >>> 16);
+			out.write(length >>> 8);
+			out.write(length);
+			out.write(type);
+			out.write(flags);
+			writeInt(stream);
+			out.write(payload, offset, length);
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Write a SETTINGS frame of the given id and value pairs, without
+	 * flushing it.
+	 * </p>
+	 */
+	protected void writeSettings(final int... settings) throws IOException {
+
+		final byte[] payload = new byte[settings.length * 3];
+		for (int i = 0; i + 1 < settings.length; i += 2) {
+			final int at = i * 3;
+			payload[at] = (byte) (settings[i] >>> 8);
+			payload[at + 1] = (byte) settings[i];
+			putInt(payload, at + 2, settings[i + 1]);
+		}
+		writeFrame(SETTINGS, 0, 0, payload, 0, payload.length);
+
+	}
+
+	protected void writeWindowUpdate(final int stream, final int increment)
+			throws IOException {
+
+		final byte[] payload = new byte[4];
+		putInt(payload, 0, increment);
+		writeFrame(WINDOW_UPDATE, 0, stream, payload, 0, 4);
+
+	}
+
+	/**
+	 * <p>
+	 * Encode and write a header block, in as many frames as it takes, and
+	 * flush it.
+	 * </p>
+	 */
+	protected void writeHeaders(final int stream, final List<String[]> headers,
+			final boolean endStream) throws IOException {
+
+		synchronized (writeLock) {
+			final byte[] block = encoder.encode(headers);
+			final int maxFrame = peerMaxFrame;
+			int offset = 0;
+			do {
+				final int length = Math.min(maxFrame, block.length - offset);
+				final boolean last = offset + length == block.length;
+				if (offset == 0) {
+					writeFrame(HEADERS, (last ? END_HEADERS : 0)
+							| (endStream ? END_STREAM : 0), stream, block,
+							offset, length);
+				} else {
+					writeFrame(CONTINUATION, last ? END_HEADERS : 0, stream,
+							block, offset, length);
+				}
+				offset += length;
+			} while (offset < block.length);
+			flush();
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Write the data of a stream, waiting for flow control credit as
+	 * needed, and flush it. Nothing more is written if the stream is closed
+	 * in the meantime.
+	 * </p>
+	 * 
+	 * @throws IOException if the connection is closed
+	 * @throws InterruptedException if interrupted while waiting for credit
+	 */
+	protected void writeData(final int stream, final byte[] data,
+			final boolean endStream) throws IOException, InterruptedException {
+
+		int offset = 0;
+		do {
+			int length = data.length - offset;
+			if (length > 0) {
+				synchronized (windowLock) {
+					int[] window = streamWindows.get(Integer.valueOf(stream));
+					while (!closed && (window != null)
+							&& ((sendWindow <= 0) || (window[0] <= 0))) {
+						windowLock.wait();
+						window = streamWindows.get(Integer.valueOf(stream));
+					}
+					if (closed) {
+						throw new IOException("HTTP/2: connection closed");
+					}
+					if (window == null) {
+						return;
+					}
+					length = Math.min(Math.min(length, peerMaxFrame), Math
+							.min(sendWindow, window[0]));
+					sendWindow -= length;
+					window[0] -= length;
+				}
+			}
+			final boolean last = offset + length == data.length;
+			synchronized (writeLock) {
+				writeFrame(DATA, last && endStream ? END_STREAM : 0, stream,
+						data, offset, length);
+				if (last) {
+					flush();
+				}
+			}
+			offset += length;
+		} while (offset < data.length);
+
+	}
+
+	protected void writeReset(final int stream, final int errorCode)
+			throws IOException {
+
+		final byte[] payload = new byte[4];
+		putInt(payload, 0, errorCode);
+		synchronized (writeLock) {
+			writeFrame(RST_STREAM, 0, stream, payload, 0, 4);
+			flush();
+		}
+		closeStream(stream);
+
+	}
+
+	protected void writeGoAway(final int lastStream, final int errorCode)
+			throws IOException {
+
+		final byte[] payload = new byte[8];
+		putInt(payload, 0, lastStream);
+		putInt(payload, 4, errorCode);
+		synchronized (writeLock) {
+			writeFrame(GOAWAY, 0, 0, payload, 0, 8);
+			flush();
+		}
+
+	}
+
+	protected void flush() throws IOException {
+
+		synchronized (writeLock) {
+			out.flush();
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Start the flow control of a stream, before writing its data.
+	 * </p>
+	 */
+	protected void openStream(final int stream) {
+
+		synchronized (windowLock) {
+			streamWindows.put(Integer.valueOf(stream), new int[] { peerInitialWindow });
+		}
+
+	}
+
+	protected void closeStream(final int stream) {
+
+		synchronized (windowLock) {
+			streamWindows.remove(Integer.valueOf(stream));
+			windowLock.notifyAll();
+		}
+
+	}
+
+	/**
+	 * @return int the most streams the other side allows open at a time
+	 */
+	protected int getPeerMaxStreams() {
+		return peerMaxStreams;
+	}
+
+	public boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * <p>
+	 * Close the connection at once, without a GOAWAY.
+	 * </p>
+	 */
+	public void close() {
+
+		closed = true;
+		synchronized (windowLock) {
+			windowLock.notifyAll();
+		}
+		try {
+			socket.close();
+		} catch (final IOException e) {
+			// Closing anyway
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Called when the connection has been idle for the read timeout of the
+	 * socket.
+	 * </p>
+	 * 
+	 * @return boolean true to keep reading, false to close the connection
+	 */
+	protected boolean onIdle() {
+		return true;
+	}
+
+	/**
+	 * <p>
+	 * Called once the settings of the other side have been applied and
+	 * acknowledged.
+	 * </p>
+	 */
+	protected void onSettings() {
+		// Nothing to do by default
+	}
+
+	protected abstract void onHeaders(int stream, List<String[]> headers,
+			boolean endStream) throws IOException;
+
+	protected abstract void onData(int stream, byte[] data, int offset,
+			int length, boolean endStream) throws IOException;
+
+	protected abstract void onReset(int stream, int errorCode);
+
+	protected abstract void onGoAway(int lastStream, int errorCode);
+
+	/**
+	 * @param cause The failure that closed the connection, or null if closed
+	 *            on this side
+	 */
+	protected abstract void onClosed(IOException cause);
+
+	private void writeInt(final int value) throws IOException {
+
+		out.write(value >>> 24);
+		out.write(value >>> 16);
+		out.write(value >>> 8);
+		out.write(value);
+
+	}
+
+	private static int readInt(final byte[] bytes, final int offset) {
+
+		return ((bytes[offset] & 0xFF) << 24) | ((bytes[offset + 1] & 0xFF) << 16)
+				| ((bytes[offset + 2] & 0xFF) << 8) | (bytes[offset + 3] & 0xFF);
+
+	}
+
+	private static void putInt(final byte[] bytes, final int offset,
+			final int value) {
+
+		bytes[offset] = (byte) (value >>> 24);
+		bytes[offset + 1] = (byte) (value >>> 16);
+		bytes[offset + 2] = (byte) (value >>> 8);
+		bytes[offset + 3] = (byte) value;
+
+	}
+
+}
@@ -0,0 +1,177 @@
+/**
+ * JbroFuzz 2.5
+ *
+ * JBroFuzz - A stateless network protocol fuzzer for web applications.
+ * 
+ * Copyright (C) 2007 - 2010 subere@uncon.org
+ *
+ * This file is part of JBroFuzz.
+ * 
+ * JBroFuzz is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * JBroFuzz is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with JBroFuzz.  If not, see <http://www.gnu.org/licenses/>.
+ * Alternatively, write to the Free Software Foundation, Inc., 51 
+ * Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Verbatim copying and distribution of this entire program file is 
+ * permitted in any medium without royalty provided this notice 
+ * is preserved. 
+ * 
+ */
+package org.owasp.jbrofuzz.fuzz.http2;
+
+import java.io.ByteArrayOutputStream;
+import java.net.ProtocolException;
+
+/**
+ * <p>
+ * The Huffman code HPACK compresses header names and values with, as given
+ * in Appendix B of RFC 7541.
+ * </p>
+ * 
+ * <p>
+ * The code is canonical: codes of the same length are consecutive, in the
+ * order of their symbols, and each length follows on from the one before.
+ * Only the length of the code of each symbol is therefore listed, the codes
+ * themselves being worked out from the lengths.
+ * </p>
+ * 
+ * @version 2.5
+ * @since 2.5
+ */
+final class Huffman {
+
+	// The length of the code of each byte value, and of EOS (256)
+	private static final int[] LENGTHS = {
+		13, 23, 28, 28, 28, 28, 28, 28, 28, 24, 30, 28, 28, 30, 28, 28,
+		28, 28, 28, 28, 28, 28, 30, 28, 28, 28, 28, 28, 28, 28, 28, 28,
+		6, 10, 10, 12, 13, 6, 8, 11, 10, 10, 8, 11, 8, 6, 6, 6,
+		5, 5, 5, 6, 6, 6, 6, 6, 6, 6, 7, 8, 15, 6, 12, 10,
+		13, 6, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7,
+		7, 7, 7, 7, 7, 7, 7, 7, 8, 7, 8, 13, 19, 13, 14, 6,
+		15, 5, 6, 5, 6, 5, 6, 6, 6, 5, 7, 7, 6, 6, 6, 5,
+		6, 7, 6, 5, 5, 6, 7, 7, 7, 7, 7, 15, 11, 14, 13, 28,
+		20, 22, 20, 20, 22, 22, 22, 23, 22, 23, 23, 23, 23, 23, 24, 23,
+		24, 24, 22, 23, 24, 23, 23, 23, 23, 21, 22, 23, 22, 23, 23, 24,
+		22, 21, 20, 22, 22, 23, 23, 21, 23, 22, 22, 24, 21, 22, 23, 23,
+		21, 21, 22, 21, 23, 22, 23, 23, 20, 22, 22, 22, 23, 22, 22, 23,
+		26, 26, 20, 19, 22, 23, 22, 25, 26, 26, 26, 27, 27, 26, 24, 25,
+		19, 21, 26, 27, 27, 26, 27, 24, 21, 21, 26, 26, 28, 27, 27, 27,
+		20, 24, 20, 21, 22, 21, 21, 23, 22, 22, 25, 25, 24, 24, 26, 23,
+		26, 27, 26, 26, 27, 27, 27, 27, 27, 28, 27, 27, 27, 27, 27, 26,
+		30
+	};
+
+	private static final int EOS = 256;
+
+	private static final int[] CODES = new int[LENGTHS.length];
+
+	// The symbols, by the length and then the value of their code
+	private static final int[] SYMBOLS = new int[LENGTHS.length];
+
+	// For each length, the first code of that length, the index of its
+	// symbol in SYMBOLS and the number of codes of that length
+	private static final int[] FIRST_CODE = new int[31];
+
+	private static final int[] FIRST_INDEX = new int[31];
+
+	private static final int[] COUNT = new int[31];
+
+	static {
+
+		int index = 0;
+		int code = 0;
+		for (int length = 1; length < COUNT.length; length++) {
+			FIRST_CODE[length] = code;
+			FIRST_INDEX[length] = index;
+			for (int symbol = 0; symbol < LENGTHS.length; symbol++) {
+				if (LENGTHS[symbol] == length) {
+					CODES[symbol] = code++;
+					SYMBOLS[index++] = symbol;
+					COUNT[length]++;
+				}
+			}
+			code <<= 1;
+		}
+
+	}
+
+	private Huffman() {
+	}
+
+	/**
+	 * @return int the number of bytes the given bytes take once encoded
+	 */
+	static int encodedLength(final byte[] input) {
+
+		long bits = 0L;
+		for (final byte b : input) {
+			bits += LENGTHS[b & 0xFF];
+		}
+		return (int) ((bits + 7L) / 8L);
+
+	}
+
+	static void encode(final byte[] input, final ByteArrayOutputStream output) {
+
+		long current = 0L;
+		int bits = 0;
+		for (final byte b : input) {
+			final int symbol = b & 0xFF;
+			current = (current << LENGTHS[symbol]) | CODES[symbol];
+			bits += LENGTHS[symbol];
+			while (bits >= 8) {
+				bits -= 8;
+				output.write((int) (current >>> bits));
+			}
+		}
+		if (bits > 0) {
+			// Padded with the most significant bits of EOS, all ones
+			output.write((int) ((current << (8 - bits)) | (0xFF >>> bits)));
+		}
+
+	}
+
+	static byte[] decode(final byte[] input, final int offset, final int length)
+			throws ProtocolException {
+
+		final ByteArrayOutputStream output = new ByteArrayOutputStream(
+				length * 8 / 5);
+		int code = 0;
+		int bits = 0;
+		for (int i = offset; i < offset + length; i++) {
+			for (int bit = 7; bit >= 0; bit--) {
+				code = (code << 1) | ((input[i] >>> bit) & 1);
+				bits++;
+				final int position = code - FIRST_CODE[bits];
+				if ((position >= 0) && (position < COUNT[bits])) {
+					final int symbol = SYMBOLS[FIRST_INDEX[bits] + position];
+					if (symbol == EOS) {
+						throw new ProtocolException("HPACK: EOS in a string");
+					}
+					output.write(symbol);
+					code = 0;
+					bits = 0;
+				} else if (bits == 30) {
+					throw new ProtocolException("HPACK: invalid Huffman code");
+				}
+			}
+		}
+		// Only up to 7 bits of padding, all ones, may remain
+		if ((bits > 7) || (code != (1 << bits) - 1)) {
+			throw new ProtocolException("HPACK: invalid Huffman padding");
+		}
+		return output.toByteArray();
+
+	}
+
+}
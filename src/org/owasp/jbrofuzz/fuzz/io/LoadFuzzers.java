@@ -30,10 +30,13 @@
 package org.owasp.jbrofuzz.fuzz.io;
 
 import java.io.File;
+import java.io.IOException;
 
 import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
 
+import org.apache.commons.lang.ArrayUtils;
+import org.apache.commons.lang.StringUtils;
 import org.owasp.jbrofuzz.JBroFuzz;
 import org.owasp.jbrofuzz.core.Database;
 import org.owasp.jbrofuzz.system.Logger;
@@ -73,17 +76,33 @@ public class LoadFuzzers {
 			Logger.log("Opening: " + file.getName(), 1);
 
 			final String path = file.getAbsolutePath().toLowerCase();
-			// If the file does not end in .jbrf, return
+			final String wordlists = JBroFuzz.PREFS.get(JBroFuzzPrefs.DIRS[4].getId(), "");
+			// If the file does not end in .jbrf, add it as a wordlist
 			if (!path.endsWith(".jbrf")) {
 
-				JOptionPane.showMessageDialog(fc,
-						"The file selected is not a valid .jbrf file",
-						" JBroFuzz - Open ", JOptionPane.WARNING_MESSAGE);
-				return;
-			}
+				final Database database = mWindow.getJBroFuzz().getDatabase();
+				try {
+					database.addWordlist(file);
+				} catch (final IOException e) {
+					JOptionPane.showMessageDialog(fc,
+							"The file selected cannot be read as a .jbrf file or a wordlist",
+							" JBroFuzz - Open ", JOptionPane.WARNING_MESSAGE);
+					return;
+				}
+				// Remember it for the next start-up
+				if (!ArrayUtils.contains(StringUtils.split(wordlists, File.pathSeparator), file.getAbsolutePath())) {
+					JBroFuzz.PREFS.put(JBroFuzzPrefs.DIRS[4].getId(), wordlists.length() == 0 ? file.getAbsolutePath()
+							: wordlists + File.pathSeparator + file.getAbsolutePath());
+				}
+				mWindow.getJBroFuzz().setDatabase(database);
+
+			} else {
 
-			final Database updateDB = new Database(path);
-			mWindow.getJBroFuzz().setDatabase(updateDB);
+				final Database updateDB = new Database(path);
+				updateDB.addWordlists(wordlists);
+				mWindow.getJBroFuzz().setDatabase(updateDB);
+
+			}
 			mWindow.getPanelPayloads().updateFuzzers();
 			
 			// Finally save as a preference the directory location
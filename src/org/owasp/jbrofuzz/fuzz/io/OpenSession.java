@@ -47,6 +47,7 @@ import org.apache.commons.lang.StringUtils;
 import org.owasp.jbrofuzz.JBroFuzz;
 import org.owasp.jbrofuzz.core.Prototype;
 import org.owasp.jbrofuzz.encode.EncoderHashCore;
+import org.owasp.jbrofuzz.fuzz.RunConfiguration;
 import org.owasp.jbrofuzz.system.Logger;
 import org.owasp.jbrofuzz.ui.JBroFuzzWindow;
 import org.owasp.jbrofuzz.util.JBroFuzzFileFilter;
@@ -239,6 +240,16 @@ public class OpenSession {
 			return;
 		}
 
+		// An optional [Configuration] section follows the transforms
+		int configurationLine = fileNoOfLines - 1;
+		for (int configurationLineCounter = transformsLine + 1; configurationLineCounter < fileNoOfLines - 1; configurationLineCounter++) {
+
+			if (fileContentsArray[configurationLineCounter].equals("[Configuration]")) {
+				configurationLine = configurationLineCounter;
+				break;
+			}
+		}
+
 		// File ends with [End]
 		if (!fileContentsArray[fileNoOfLines - 1].equals("[End]")) {
 			Logger.log("Invalid File: Last line is not [End]", 3);
@@ -331,12 +342,12 @@ public class OpenSession {
 		// -> Load Transforms to Table
 
 		// If more than 1024 lines of transforms, return
-		if (fileNoOfLines - 1 - transformsLine - 1 > 1024) {
+		if (configurationLine - transformsLine - 1 > 1024) {
 			Logger.log("Invalid File: More than 1024 Transforms Identified", 3);
 			return;
 		}
 
-		for (int j = transformsLine + 1; j < fileNoOfLines - 1; j++) {
+		for (int j = transformsLine + 1; j < configurationLine; j++) {
 
 			final String[] transformLineArray = fileContentsArray[j].split(",");
 			final int noOfElements = transformLineArray.length;
@@ -428,6 +439,23 @@ public class OpenSession {
 
 		}
 
+		// -> Load Configuration
+		if (configurationLine < fileNoOfLines - 1) {
+
+			final String[] configurationLines = new String[fileNoOfLines - 1 - configurationLine - 1];
+			System.arraycopy(fileContentsArray, configurationLine + 1, configurationLines, 0, configurationLines.length);
+
+			final RunConfiguration configuration = RunConfiguration.parse(
+					configurationLines,
+					RunConfiguration.fromPreferences(JBroFuzz.PREFS));
+			configuration.applyTo(JBroFuzz.PREFS);
+			mWindow.getPanelFuzzing().getFuzzersPanel().setIterationMode(
+					configuration.getIterationMode());
+
+			Logger.log("Loaded Configuration: "
+					+ configuration.toString().replace('\n', ' '), 1);
+		}
+
 		// Finally, tell the frame this is the file opened
 		// and save the directory location
 		mWindow.setOpenFileTo(file);
@@ -44,6 +44,7 @@ import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.owasp.jbrofuzz.JBroFuzz;
+import org.owasp.jbrofuzz.fuzz.RunConfiguration;
 import org.owasp.jbrofuzz.fuzz.ui.FuzzersTableModel;
 import org.owasp.jbrofuzz.fuzz.ui.TransformsTableModel;
 import org.owasp.jbrofuzz.system.Logger;
@@ -148,6 +149,27 @@ public class Save {
 	 */
 	public static void writeFile(final File outputFile, final String url, final String request, final String fuzzers, final String transforms) {
 
+		Save.writeFile(outputFile, url, request, fuzzers, transforms, null);
+
+	}
+
+	/**
+	 * <p>Method for writing a ".jbrofuzz" file, as above, followed by a
+	 * [Configuration] section holding the settings of the run.</p>
+	 * 
+	 * @param The file to which data will be written to.
+	 * @param The URL string, as specified in the fuzzing tab.
+	 * @param The request string, as specified in the fuzzing tab.
+	 * @param The fuzzers, specified in consecutive CSV type lines.
+	 * @param The transforms, specified also in consecutive CSV type lines.
+	 * @param The configuration, as given by RunConfiguration.toString();
+	 * if null, no [Configuration] section is written.
+	 * 
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	public static void writeFile(final File outputFile, final String url, final String request, final String fuzzers, final String transforms, final String configuration) {
+
 		try {
 
 			final PrintWriter out = new PrintWriter(outputFile);
@@ -166,6 +188,10 @@ public class Save {
 			out.println(fuzzers);
 			out.println("[Transforms]");
 			out.println(transforms);
+			if (configuration != null) {
+				out.println("[Configuration]");
+				out.println(configuration);
+			}
 			out.println("[End]");
 
 			if (out.checkError()) {
@@ -205,8 +231,12 @@ public class Save {
 		final String request = mWindow.getPanelFuzzing().getTextRequest();
 		final String fuzzers = Save.getTableDataInCSVFormat(mWindow.getPanelFuzzing().getFuzzersPanel().getFuzzersTableModel());
 		final String transforms = Save.getTableOfTransformsInCSVFormat(mWindow);
+		final String configuration = RunConfiguration.fromPreferences(
+				JBroFuzz.PREFS,
+				mWindow.getPanelFuzzing().getFuzzersPanel().getIterationMode(),
+				"").toString();
 		
-		Save.writeFile(outputFile, url, request, fuzzers, transforms);
+		Save.writeFile(outputFile, url, request, fuzzers, transforms, configuration);
 		
 	}
 	
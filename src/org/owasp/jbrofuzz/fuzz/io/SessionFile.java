@@ -0,0 +1,278 @@
+/**
+ * JbroFuzz 2.5
+ *
+ * JBroFuzz - A stateless network protocol fuzzer for web applications.
+ * 
+ * Copyright (C) 2007 - 2010 subere@uncon.org
+ *
+ * This file is part of JBroFuzz.
+ * 
+ * JBroFuzz is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * JBroFuzz is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with JBroFuzz.  If not, see <http://www.gnu.org/licenses/>.
+ * Alternatively, write to the Free Software Foundation, Inc., 51 
+ * Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Verbatim copying and distribution of this entire program file is 
+ * permitted in any medium without royalty provided this notice 
+ * is preserved. 
+ * 
+ */
+package org.owasp.jbrofuzz.fuzz.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.io.FileUtils;
+import org.owasp.jbrofuzz.core.Database;
+import org.owasp.jbrofuzz.core.Prototype;
+import org.owasp.jbrofuzz.encode.EncodedPayloadCache;
+import org.owasp.jbrofuzz.encode.EncoderHashCore;
+import org.owasp.jbrofuzz.fuzz.FuzzingRun;
+import org.owasp.jbrofuzz.fuzz.RunConfiguration;
+import org.owasp.jbrofuzz.fuzz.ui.TransformsTableModel;
+import org.owasp.jbrofuzz.system.Logger;
+
+/**
+ * <p>
+ * A .jbrofuzz session file, read without a window to load it into, for
+ * running it from the command line.
+ * </p>
+ * 
+ * <p>
+ * The file is validated in the same way as through File -> Open; lines
+ * of fuzzers or transforms that are not valid are logged and skipped.
+ * </p>
+ * 
+ * @see OpenSession
+ * @see Save
+ * @version 2.5
+ * @since 2.5
+ */
+public final class SessionFile {
+
+	private final String url;
+
+	private final String request;
+
+	private final List<String> categories = new ArrayList<String>();
+
+	private final List<int[]> points = new ArrayList<int[]>();
+
+	private final List<TransformsTableModel> transforms = new ArrayList<TransformsTableModel>();
+
+	private final String[] configuration;
+
+	private SessionFile(final String url, final String request,
+			final String[] configuration) {
+
+		this.url = url;
+		this.request = request;
+		this.configuration = configuration;
+
+	}
+
+	/**
+	 * <p>
+	 * Read a session file, keeping only the fuzzers found in the given
+	 * database.
+	 * </p>
+	 * 
+	 * @param file The .jbrofuzz file
+	 * @param database The database of fuzzers
+	 * @return SessionFile the session
+	 * @throws IOException if the file cannot be read, or is not a valid
+	 *             session file
+	 */
+	public static SessionFile read(final File file, final Database database)
+			throws IOException {
+
+		return parse(FileUtils.readFileToString(file, "UTF-8"), file
+				.getName(), database);
+
+	}
+
+	/**
+	 * <p>
+	 * Parse the text of a session file, e.g. as sent by the coordinator
+	 * of a distributed run, keeping only the fuzzers found in the given
+	 * database.
+	 * </p>
+	 * 
+	 * @param text The contents of a .jbrofuzz file
+	 * @param name The name to report the session by, if not valid
+	 * @param database The database of fuzzers
+	 * @return SessionFile the session
+	 * @throws IOException if the text is not a valid session file
+	 */
+	public static SessionFile parse(final String text, final String name,
+			final Database database) throws IOException {
+
+		final String[] lines = text.replace("\r", "").split("\n");
+
+		if (lines.length < 12 || !lines[0].equals("[JBroFuzz]")
+				|| !lines[2].equals("[Fuzzing]")
+				|| !lines[4].equals("[Comment]") || !lines[6].equals("[URL]")
+				|| !lines[8].equals("[Request]")
+				|| !lines[lines.length - 1].equals("[End]")) {
+			throw new IOException("Invalid File: " + name
+					+ " is not a .jbrofuzz session file");
+		}
+
+		final int fuzzersLine = indexOf(lines, "[Fuzzers]", 8);
+		final int transformsLine = indexOf(lines, "[Transforms]", fuzzersLine);
+		if (fuzzersLine < 0 || transformsLine < 0) {
+			throw new IOException("Invalid File: Cannot find a [Fuzzers] and a [Transforms] line");
+		}
+		// An optional [Configuration] section follows the transforms
+		int configurationLine = indexOf(lines, "[Configuration]", transformsLine);
+		if (configurationLine < 0) {
+			configurationLine = lines.length - 1;
+		}
+
+		final StringBuffer requestBuffer = new StringBuffer();
+		for (int i = 9; i < fuzzersLine; i++) {
+			requestBuffer.append(lines[i]);
+			requestBuffer.append('\n');
+		}
+
+		final String[] configuration = new String[Math.max(0, lines.length - 2
+				- configurationLine)];
+		System.arraycopy(lines, configurationLine + 1, configuration, 0,
+				configuration.length);
+
+		final SessionFile session = new SessionFile(lines[7], requestBuffer
+				.toString(), configuration);
+
+		// Fuzzer lines: 044-USR-AGN,39,177
+		for (int i = fuzzersLine + 1; i < transformsLine; i++) {
+
+			final String[] fuzzer = lines[i].split(",");
+			try {
+				final int start = Integer.parseInt(fuzzer[1]);
+				final int end = Integer.parseInt(fuzzer[2]);
+				if (fuzzer.length != 3 || !Prototype.isValidFuzzerID(fuzzer[0])
+						|| !database.containsPrototype(fuzzer[0]) || start < 0
+						|| end < 0 || start > requestBuffer.length()
+						|| end > requestBuffer.length()) {
+					throw new IllegalArgumentException();
+				}
+				session.categories.add(fuzzer[0]);
+				session.points.add(new int[] { start, end });
+				session.transforms.add(new TransformsTableModel());
+			} catch (final RuntimeException e) {
+				Logger.log("Fuzzer Line Syntax Error: " + (i + 1), 2);
+			}
+		}
+
+		// Transform lines: 1,Hexadecimal (UPP),<base64 prefix>,<base64 suffix>
+		for (int i = transformsLine + 1; i < configurationLine; i++) {
+
+			final String[] transform = lines[i].split(",");
+			try {
+				final int fuzzerNumber = Integer.parseInt(transform[0]);
+				if (transform.length > 4
+						|| !EncoderHashCore.isValidCode(transform[1])) {
+					throw new IllegalArgumentException();
+				}
+				session.transforms.get(fuzzerNumber - 1).addRow(transform[1],
+						decode(transform, 2), decode(transform, 3));
+			} catch (final RuntimeException e) {
+				Logger.log("Transform Line Syntax Error: " + (i + 1), 2);
+			}
+		}
+
+		return session;
+
+	}
+
+	public String getURL() {
+		return url;
+	}
+
+	public String getRequest() {
+		return request;
+	}
+
+	public int getFuzzerCount() {
+		return categories.size();
+	}
+
+	/**
+	 * <p>
+	 * Return the configuration of the session file, with any settings it
+	 * does not hold taken from the defaults given.
+	 * </p>
+	 * 
+	 * @param defaults The configuration to take any missing settings from
+	 * @return RunConfiguration the configuration
+	 */
+	public RunConfiguration getConfiguration(final RunConfiguration defaults) {
+		return RunConfiguration.parse(configuration, defaults);
+	}
+
+	/**
+	 * <p>
+	 * Create a run of this session, against the given URL.
+	 * </p>
+	 * 
+	 * @param targetURL The URL to fuzz, in place of that of the session
+	 * @param database The database of fuzzers
+	 * @param cache The cache of encoded payloads
+	 * @param mode FuzzersPanel.SEQUENTIAL or a FuzzList mode
+	 * @return FuzzingRun the run
+	 */
+	public FuzzingRun createRun(final String targetURL,
+			final Database database, final EncodedPayloadCache cache,
+			final int mode) {
+
+		final FuzzingRun run = new FuzzingRun(database, cache, targetURL,
+				request, mode);
+		for (int i = 0; i < categories.size(); i++) {
+			run.addFuzzer(categories.get(i), points.get(i)[0],
+					points.get(i)[1], transforms.get(i));
+		}
+		return run;
+
+	}
+
+	private static int indexOf(final String[] lines, final String line,
+			final int from) {
+
+		for (int i = from + 1; i < lines.length - 1; i++) {
+			if (lines[i].equals(line)) {
+				return i;
+			}
+		}
+		return -1;
+
+	}
+
+	private static String decode(final String[] transform, final int index) {
+
+		if (transform.length <= index) {
+			return "";
+		}
+		try {
+			return new String(Base64.decodeBase64(transform[index].getBytes()),
+					"UTF-8");
+		} catch (final UnsupportedEncodingException e) {
+			return "";
+		}
+
+	}
+
+}
@@ -0,0 +1,391 @@
+/**
+ * JbroFuzz 2.5
+ *
+ * JBroFuzz - A stateless network protocol fuzzer for web applications.
+ * 
+ * Copyright (C) 2007 - 2010 subere@uncon.org
+ *
+ * This file is part of JBroFuzz.
+ * 
+ * JBroFuzz is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * JBroFuzz is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with JBroFuzz.  If not, see <http://www.gnu.org/licenses/>.
+ * Alternatively, write to the Free Software Foundation, Inc., 51 
+ * Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Verbatim copying and distribution of this entire program file is 
+ * permitted in any medium without royalty provided this notice 
+ * is preserved. 
+ * 
+ */
+package org.owasp.jbrofuzz.fuzz.loopback;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+
+import org.apache.commons.lang.StringUtils;
+import org.owasp.jbrofuzz.JBroFuzz;
+import org.owasp.jbrofuzz.core.Database;
+import org.owasp.jbrofuzz.encode.EncodedPayloadCache;
+import org.owasp.jbrofuzz.fuzz.Connection;
+import org.owasp.jbrofuzz.fuzz.ConnectionException;
+import org.owasp.jbrofuzz.fuzz.FuzzingEngine;
+import org.owasp.jbrofuzz.fuzz.FuzzingRun;
+import org.owasp.jbrofuzz.fuzz.MessageContainer;
+import org.owasp.jbrofuzz.fuzz.MessageCreator;
+import org.owasp.jbrofuzz.fuzz.RunConfiguration;
+import org.owasp.jbrofuzz.fuzz.io.SessionFile;
+import org.owasp.jbrofuzz.fuzz.stats.EngineMetrics;
+import org.owasp.jbrofuzz.fuzz.ui.FuzzersPanel;
+import org.owasp.jbrofuzz.io.StorageHandler;
+
+/**
+ * <p>
+ * Runs a session against a LoopbackServer, without a window, and reports
+ * on the whole pipeline from the fuzzers to the storage: requests per
+ * second, latency percentiles, CPU time and allocation rate.
+ * </p>
+ * 
+ * <p>
+ * The session is run with the settings of its [Configuration] section,
+ * if any, or else with those of the preferences; results are stored as
+ * they would be from the fuzzing panel.
+ * </p>
+ * 
+ * @version 2.5
+ * @since 2.5
+ */
+public class LoopbackBenchmark {
+
+	// How often the bytes allocated by each thread are sampled
+	private static final long SAMPLE_MILLIS = 100L;
+
+	private final SessionFile session;
+
+	private final LoopbackServer server;
+
+	private int counter;
+
+	/**
+	 * @param session The session to run
+	 * @param server The server to run it against, started if not running
+	 */
+	public LoopbackBenchmark(final SessionFile session,
+			final LoopbackServer server) {
+
+		this.session = session;
+		this.server = server;
+
+	}
+
+	/**
+	 * <p>
+	 * Run the session against the loopback server and return the report.
+	 * </p>
+	 * 
+	 * @param database The database to create the fuzzers from
+	 * @return String the report, over several lines
+	 * @throws java.io.IOException if the loopback server cannot be started
+	 * @throws InterruptedException if interrupted while running
+	 */
+	public String run(final Database database) throws java.io.IOException,
+			InterruptedException {
+
+		server.start();
+
+		final String sessionName = "loopback-" + System.currentTimeMillis();
+		final RunConfiguration configuration = session
+				.getConfiguration(RunConfiguration.fromPreferences(
+						JBroFuzz.PREFS, FuzzersPanel.SEQUENTIAL, sessionName));
+		final FuzzingRun run = session.createRun(server.getURL(), database,
+				new EncodedPayloadCache(), configuration.getIterationMode());
+
+		final EngineMetrics metrics = new EngineMetrics();
+		final StorageHandler storage = new StorageHandler();
+		final FuzzingEngine engine = new FuzzingEngine(configuration, metrics);
+
+		final long servedBefore = server.getRequestCount();
+		final long gcCountBefore = getGarbageCollections();
+		final long gcTimeBefore = getGarbageCollectionTime();
+		final AllocationSampler allocations = new AllocationSampler();
+		final long cpuBefore = getProcessCpuTime();
+		final long start = System.nanoTime();
+
+		try {
+			run.run(engine, createListener(configuration, metrics, storage));
+		} finally {
+			engine.finish();
+		}
+
+		final long elapsed = System.nanoTime() - start;
+		final long cpu = getProcessCpuTime() - cpuBefore;
+		final long allocated = allocations.stop();
+		final double seconds = Math.max(elapsed, 1L) / 1E9D;
+
+		final StringBuilder report = new StringBuilder();
+		line(report, "Target", server.getURL() + " (" + server + ")");
+		line(report, "Threads", engine.getThreadCount()
+				+ (engine.getPipeline() > 1 ? ", pipelining up to "
+						+ engine.getPipeline() + " requests each" : "")
+				+ (engine.getStreams() > 0 ? ", HTTP/2 with up to "
+						+ engine.getStreams() + " streams" : ""));
+		line(report, "Rate", (configuration.isAdaptive() ? "adaptive" : "fixed")
+				+ ", at most " + (configuration.getMaxRate() > 0 ? configuration
+						.getMaxRate()
+						+ " requests/s" : "unlimited") + ", "
+				+ engine.getController(server.getURL()));
+		line(report, "Requests", metrics.getRequestsCompleted()
+				+ " completed, " + metrics.getErrors() + " errors "
+				+ metrics.getErrorsByType() + ", " + metrics.getRetries()
+				+ " retries, " + (server.getRequestCount() - servedBefore)
+				+ " served");
+		line(report, "Throughput", String.format(
+				"%.1f requests/s over %.3f s", metrics
+						.getRequestsCompleted()
+						/ seconds, seconds));
+		line(report, "Latency", String.format(
+				"mean %.1f, p50 %d, p90 %d, p99 %d, max %d ms", metrics
+						.getLatencyMean(), metrics.getLatencyP50(), metrics
+						.getLatencyP90(), metrics.getLatencyP99(), metrics
+						.getLatencyMax()));
+		line(report, "Transforms", String.format("mean %.1f, p99 %d us",
+				metrics.getTransformMeanMicros(), metrics
+						.getTransformP99Micros()));
+		line(report, "CPU", cpu < 0 ? "not available" : String.format(
+				"%.3f s, %.1f%% of %d processors", cpu / 1E9D, cpu * 100D
+						/ elapsed
+						/ Runtime.getRuntime().availableProcessors(),
+				Runtime.getRuntime().availableProcessors()));
+		line(report, "Allocation", allocated < 0 ? "not available" : String
+				.format("%.1f MB, %.1f MB/s", allocated / 1048576D, allocated
+						/ 1048576D / seconds));
+		line(report, "GC", (getGarbageCollections() - gcCountBefore)
+				+ " collections, "
+				+ (getGarbageCollectionTime() - gcTimeBefore) + " ms");
+		final String location = storage.getLocationURIString();
+		line(report, "Stored in", location.length() > 0 ? location
+				: "the database");
+		return report.toString();
+
+	}
+
+	/**
+	 * <p>
+	 * Create the listener of the run, storing every reply as the fuzzing
+	 * panel does, one at a time.
+	 * </p>
+	 */
+	private FuzzingRun.Listener createListener(
+			final RunConfiguration configuration, final EngineMetrics metrics,
+			final StorageHandler storage) {
+
+		final Object storageLock = new Object();
+
+		final FuzzingEngine.Callback callback = new FuzzingEngine.Callback() {
+
+			public void replied(final MessageContainer outputMessage,
+					final Connection connection) {
+
+				outputMessage.setReply(connection.getDecodedReply());
+				outputMessage.setConnection(connection);
+				record(outputMessage);
+
+			}
+
+			public void failed(final MessageContainer outputMessage,
+					final ConnectionException e) {
+
+				outputMessage.setException(e);
+				record(outputMessage);
+
+			}
+
+			private void record(final MessageContainer outputMessage) {
+
+				metrics.storeQueued();
+				synchronized (storageLock) {
+					storage.writeFuzzFile(outputMessage, configuration);
+				}
+				metrics.stored();
+
+			}
+		};
+
+		return new FuzzingRun.Listener() {
+
+			public FuzzingEngine.Callback createCallback(final String series) {
+				return callback;
+			}
+
+			public MessageContainer createContainer(final int series,
+					final long index, final String url, final String payload,
+					final String encodedPayload, final MessageCreator message) {
+
+				final MessageContainer container = new MessageContainer(
+						StringUtils.leftPad(Integer.toString(++counter), 10,
+								'0'), url, payload, encodedPayload);
+				container.setTextRequest(message
+						.getMessageForDisplayPurposes());
+				return container;
+
+			}
+		};
+
+	}
+
+	private static void line(final StringBuilder report, final String name,
+			final String value) {
+
+		report.append(StringUtils.rightPad(name + ":", 12)).append(value)
+				.append('\n');
+
+	}
+
+	/**
+	 * @return long The CPU time of this process in nanoseconds, or -1 if
+	 *         not available on this JVM
+	 */
+	private static long getProcessCpuTime() {
+
+		try {
+			final Method method = Class.forName(
+					"com.sun.management.OperatingSystemMXBean").getMethod(
+					"getProcessCpuTime");
+			return ((Long) method.invoke(ManagementFactory
+					.getOperatingSystemMXBean())).longValue();
+		} catch (final Exception e) {
+			return -1L;
+		}
+
+	}
+
+	private static long getGarbageCollections() {
+
+		long count = 0L;
+		for (final GarbageCollectorMXBean bean : ManagementFactory
+				.getGarbageCollectorMXBeans()) {
+			count += Math.max(0L, bean.getCollectionCount());
+		}
+		return count;
+
+	}
+
+	private static long getGarbageCollectionTime() {
+
+		long time = 0L;
+		for (final GarbageCollectorMXBean bean : ManagementFactory
+				.getGarbageCollectorMXBeans()) {
+			time += Math.max(0L, bean.getCollectionTime());
+		}
+		return time;
+
+	}
+
+	/**
+	 * <p>
+	 * Samples the bytes allocated by every live thread, so that those of
+	 * the sender threads are counted even once they have ended; at most the
+	 * last sampling period of a thread that ends is missed.
+	 * </p>
+	 */
+	private static final class AllocationSampler {
+
+		// No thread allocates a terabyte in the course of a benchmark
+		private static final long MAX_THREAD_BYTES = 1L << 40;
+
+		private final ThreadMXBean threads = ManagementFactory
+				.getThreadMXBean();
+
+		private final Map<Long, Long> first = new HashMap<Long, Long>();
+
+		private final Map<Long, Long> last = new HashMap<Long, Long>();
+
+		private final Timer timer = new Timer("JBroFuzz Allocation Sampler",
+				true);
+
+		private volatile Method method;
+
+		AllocationSampler() {
+
+			try {
+				method = Class.forName("com.sun.management.ThreadMXBean")
+						.getMethod("getThreadAllocatedBytes", long[].class);
+			} catch (final Exception e) {
+				return;
+			}
+			sample(first);
+			timer.schedule(new TimerTask() {
+				@Override
+				public void run() {
+					sample(last);
+				}
+			}, SAMPLE_MILLIS, SAMPLE_MILLIS);
+
+		}
+
+		/**
+		 * @return long The bytes allocated since created, or -1 if not
+		 *         available on this JVM
+		 */
+		long stop() {
+
+			timer.cancel();
+			if (method == null) {
+				return -1L;
+			}
+			sample(last);
+
+			long total = 0L;
+			synchronized (last) {
+				for (final Map.Entry<Long, Long> entry : last.entrySet()) {
+					final Long before = first.get(entry.getKey());
+					total += entry.getValue().longValue()
+							- (before == null ? 0L : before.longValue());
+				}
+			}
+			return total;
+
+		}
+
+		private void sample(final Map<Long, Long> into) {
+
+			try {
+				final long[] ids = threads.getAllThreadIds();
+				final long[] bytes = (long[]) method.invoke(threads, ids);
+				synchronized (into) {
+					for (int i = 0; i < ids.length; i++) {
+						// A thread that is ending may report any value
+						if (bytes[i] < 0L || bytes[i] > MAX_THREAD_BYTES) {
+							continue;
+						}
+						final Long previous = into.get(Long.valueOf(ids[i]));
+						if (previous == null || previous.longValue() <= bytes[i]) {
+							into.put(Long.valueOf(ids[i]), Long
+									.valueOf(bytes[i]));
+						}
+					}
+				}
+			} catch (final Exception e) {
+				method = null;
+			}
+
+		}
+
+	}
+
+}
@@ -0,0 +1,829 @@
+/**
+ * JbroFuzz 2.5
+ *
+ * JBroFuzz - A stateless network protocol fuzzer for web applications.
+ * 
+ * Copyright (C) 2007 - 2010 subere@uncon.org
+ *
+ * This file is part of JBroFuzz.
+ * 
+ * JBroFuzz is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * JBroFuzz is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with JBroFuzz.  If not, see <http://www.gnu.org/licenses/>.
+ * Alternatively, write to the Free Software Foundation, Inc., 51 
+ * Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Verbatim copying and distribution of this entire program file is 
+ * permitted in any medium without royalty provided this notice 
+ * is preserved. 
+ * 
+ */
+package org.owasp.jbrofuzz.fuzz.loopback;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocket;
+
+import org.apache.commons.io.IOUtils;
+import org.owasp.jbrofuzz.fuzz.http2.Http2Session;
+import org.owasp.jbrofuzz.system.Logger;
+
+/**
+ * <p>
+ * A stand-in HTTP/HTTPS server, listening on the loopback interface, for
+ * tuning and benchmarking the fuzzing engine against a target that is
+ * both safe to hit and repeatable.
+ * </p>
+ * 
+ * <p>
+ * Every request is answered, after a configurable latency, with a response
+ * body of a configurable size, sent either with a Content-Length or in
+ * chunks. A configurable percentage of requests is answered with a 500
+ * Internal Server Error instead. Connections are kept alive for a
+ * configurable time, unless the client asks for them to be closed.
+ * </p>
+ * 
+ * <p>
+ * With a capacity set, requests beyond that many being answered at the same
+ * time are turned away at once with a 503 Service Unavailable, as an
+ * overloaded server would.
+ * </p>
+ * 
+ * <p>
+ * Clients speaking HTTP/2 are answered in kind, be it agreed with ALPN over
+ * HTTPS or assumed with prior knowledge over HTTP; every stream is
+ * answered as a request would be, with a Content-Length.
+ * </p>
+ * 
+ * <p>
+ * The settings can be given as a single line of comma separated key=value
+ * pairs, as on the command line:
+ * </p>
+ * 
+ * <pre>
+ * latency=5,size=2048,chunk=512,keepalive=0,errors=1,capacity=4,https=false,http2=true,port=0
+ * </pre>
+ * 
+ * @version 2.5
+ * @since 2.5
+ */
+public class LoopbackServer {
+
+	private static final String KEYSTORE_PASSWORD = "jbrofuzz";
+
+	// The time to wait for the first request of a connection, in milliseconds
+	private static final int REQUEST_TIMEOUT = 30000;
+
+	private int port;
+
+	private int latency;
+
+	private int responseSize = 1024;
+
+	private int chunkSize;
+
+	private int keepAlive;
+
+	private int errorRate;
+
+	private int capacity;
+
+	private boolean secure;
+
+	private boolean http2 = true;
+
+	private File keyStore;
+
+	private String keyStorePassword = KEYSTORE_PASSWORD;
+
+	private final AtomicLong requests = new AtomicLong();
+
+	private final AtomicInteger busy = new AtomicInteger();
+
+	private final Random random = new Random();
+
+	private byte[] body;
+
+	private ServerSocket serverSocket;
+
+	private ExecutorService executor;
+
+	private volatile boolean running;
+
+	/**
+	 * <p>
+	 * Apply the settings given as comma separated key=value pairs, with
+	 * keys: port, latency (ms), size (bytes), chunk (bytes, 0 for a
+	 * Content-Length), keepalive (ms, 0 to close every connection), errors
+	 * (% of requests), capacity (concurrent requests, 0 for no limit),
+	 * https and http2 (true or false).
+	 * </p>
+	 * 
+	 * @param settings The settings, e.g. "latency=5,size=2048,https=true"
+	 * @throws IllegalArgumentException if a key or value is not valid
+	 */
+	public void configure(final String settings) {
+
+		for (final String setting : settings.split(",")) {
+
+			if (setting.trim().length() == 0) {
+				continue;
+			}
+			final int equals = setting.indexOf('=');
+			if (equals < 1) {
+				throw new IllegalArgumentException("Invalid loopback setting: " + setting);
+			}
+			final String key = setting.substring(0, equals).trim();
+			final String value = setting.substring(equals + 1).trim();
+
+			try {
+				if (key.equals("port")) {
+					setPort(Integer.parseInt(value));
+				} else if (key.equals("latency")) {
+					setLatency(Integer.parseInt(value));
+				} else if (key.equals("size")) {
+					setResponseSize(Integer.parseInt(value));
+				} else if (key.equals("chunk")) {
+					setChunkSize(Integer.parseInt(value));
+				} else if (key.equals("keepalive")) {
+					setKeepAlive(Integer.parseInt(value));
+				} else if (key.equals("errors")) {
+					setErrorRate(Integer.parseInt(value));
+				} else if (key.equals("capacity")) {
+					setCapacity(Integer.parseInt(value));
+				} else if (key.equals("https")) {
+					setSecure(Boolean.parseBoolean(value));
+				} else if (key.equals("http2")) {
+					setHttp2(Boolean.parseBoolean(value));
+				} else {
+					throw new IllegalArgumentException("Unknown loopback setting: " + key);
+				}
+			} catch (final NumberFormatException e) {
+				throw new IllegalArgumentException("Invalid loopback setting: " + setting);
+			}
+		}
+
+	}
+
+	public void setPort(final int port) {
+		this.port = Math.max(0, port);
+	}
+
+	/**
+	 * @param latency The time to wait before answering, in milliseconds
+	 */
+	public void setLatency(final int latency) {
+		this.latency = Math.max(0, latency);
+	}
+
+	/**
+	 * @param responseSize The size of the response body, in bytes
+	 */
+	public void setResponseSize(final int responseSize) {
+		this.responseSize = Math.max(0, responseSize);
+	}
+
+	/**
+	 * @param chunkSize The size of each chunk of the response body, in
+	 *            bytes; 0 to send a Content-Length instead
+	 */
+	public void setChunkSize(final int chunkSize) {
+		this.chunkSize = Math.max(0, chunkSize);
+	}
+
+	/**
+	 * @param keepAlive The time to keep an idle connection open for, in
+	 *            milliseconds; 0 to close the connection after each response
+	 */
+	public void setKeepAlive(final int keepAlive) {
+		this.keepAlive = Math.max(0, keepAlive);
+	}
+
+	/**
+	 * @param errorRate The percentage of requests to answer with a 500
+	 */
+	public void setErrorRate(final int errorRate) {
+		this.errorRate = Math.min(100, Math.max(0, errorRate));
+	}
+
+	/**
+	 * @param capacity The most requests answered at the same time, the rest
+	 *            getting a 503; 0 for no limit
+	 */
+	public void setCapacity(final int capacity) {
+		this.capacity = Math.max(0, capacity);
+	}
+
+	/**
+	 * @param secure True to serve HTTPS, rather than HTTP
+	 */
+	public void setSecure(final boolean secure) {
+		this.secure = secure;
+	}
+
+	/**
+	 * @param http2 True to answer clients speaking HTTP/2, false to speak
+	 *            HTTP/1.1 only
+	 */
+	public void setHttp2(final boolean http2) {
+		this.http2 = http2;
+	}
+
+	/**
+	 * <p>
+	 * Serve HTTPS with the key found in the given JKS key store, rather than
+	 * with a self signed key generated on start.
+	 * </p>
+	 * 
+	 * @param keyStore The key store
+	 * @param password The password of the key store and of its key
+	 */
+	public void setKeyStore(final File keyStore, final String password) {
+		this.keyStore = keyStore;
+		this.keyStorePassword = password;
+	}
+
+	/**
+	 * <p>
+	 * Start listening on the loopback interface, on the port set or on any
+	 * free port if none has been set.
+	 * </p>
+	 * 
+	 * @throws IOException if the server socket cannot be created
+	 */
+	public synchronized void start() throws IOException {
+
+		if (running) {
+			return;
+		}
+
+		body = createBody(responseSize);
+		serverSocket = secure ? createSecureServerSocket() : new ServerSocket();
+		serverSocket.setReuseAddress(true);
+		serverSocket.bind(new InetSocketAddress(InetAddress
+				.getByName("127.0.0.1"), port), 512);
+
+		executor = Executors.newCachedThreadPool(new ThreadFactory() {
+			public Thread newThread(final Runnable runnable) {
+				final Thread thread = new Thread(runnable, "JBroFuzz Loopback");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		running = true;
+		executor.execute(new Runnable() {
+			public void run() {
+				accept();
+			}
+		});
+
+		Logger.log("Loopback server listening on " + getURL() + " with "
+				+ this, 1);
+
+	}
+
+	/**
+	 * <p>
+	 * Stop listening and close all connections.
+	 * </p>
+	 */
+	public synchronized void stop() {
+
+		if (!running) {
+			return;
+		}
+		running = false;
+		try {
+			serverSocket.close();
+		} catch (final IOException e) {
+			// Closing anyway
+		}
+		executor.shutdownNow();
+
+	}
+
+	public boolean isRunning() {
+		return running;
+	}
+
+	public int getPort() {
+		return serverSocket == null ? port : serverSocket.getLocalPort();
+	}
+
+	/**
+	 * @return String The URL of this server, e.g. http://127.0.0.1:8080/
+	 */
+	public String getURL() {
+		return (secure ? "https" : "http") + "://127.0.0.1:" + getPort() + "/";
+	}
+
+	/**
+	 * @return long The number of requests answered since started
+	 */
+	public long getRequestCount() {
+		return requests.get();
+	}
+
+	@Override
+	public String toString() {
+		return "latency=" + latency + ",size=" + responseSize + ",chunk="
+				+ chunkSize + ",keepalive=" + keepAlive + ",errors="
+				+ errorRate + ",capacity=" + capacity + ",https=" + secure
+				+ ",http2=" + http2;
+	}
+
+	private void accept() {
+
+		while (running) {
+			try {
+				final Socket socket = serverSocket.accept();
+				executor.execute(new Runnable() {
+					public void run() {
+						serve(socket);
+					}
+				});
+			} catch (final IOException e) {
+				if (running) {
+					Logger.log("Loopback server could not accept: " + e.getMessage(), 2);
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Answer the requests of a single connection, until either side closes
+	 * it or it has been idle for longer than the keep alive time.
+	 * </p>
+	 */
+	private void serve(final Socket socket) {
+
+		try {
+			socket.setTcpNoDelay(true);
+			// Allow for the handshake and the first request to take a while
+			socket.setSoTimeout(REQUEST_TIMEOUT);
+			if (http2 && (socket instanceof SSLSocket)) {
+				Http2Session.setApplicationProtocols((SSLSocket) socket,
+						new String[] { Http2Session.PROTOCOL, "http/1.1" });
+			}
+			final InputStream in = new BufferedInputStream(socket
+					.getInputStream());
+			final OutputStream out = new BufferedOutputStream(socket
+					.getOutputStream());
+
+			boolean open = true;
+			while (open && running) {
+
+				final String head = readHead(in);
+				if (head == null) {
+					break;
+				}
+				if (http2 && head.trim().equals("PRI * HTTP/2.0")) {
+					serveHttp2(socket, in, out);
+					break;
+				}
+				final String lowerHead = head.toLowerCase();
+				skip(in, contentLength(lowerHead));
+
+				// HTTP/1.0 closes, unless asked otherwise; HTTP/1.1 the reverse
+				final int lineEnd = head.indexOf('\n');
+				final boolean http10 = (lineEnd < 0 ? head : head.substring(0,
+						lineEnd)).trim().endsWith("HTTP/1.0");
+				open = keepAlive > 0
+						&& lowerHead.indexOf("\nconnection: close") < 0
+						&& (!http10 || lowerHead.indexOf("\nconnection: keep-alive") >= 0);
+
+				respond(out, answer(), open);
+				requests.incrementAndGet();
+				// Wait for the next request for no longer than the keep alive
+				socket.setSoTimeout(keepAlive);
+			}
+
+		} catch (final SocketTimeoutException e) {
+			// Idle for longer than the keep alive time
+		} catch (final IOException e) {
+			// The client went away
+		} catch (final InterruptedException e) {
+			// Stopped
+		} finally {
+			try {
+				socket.close();
+			} catch (final IOException e) {
+				// Closing anyway
+			}
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Wait for the latency set, unless over capacity, and pick the status
+	 * to answer a request with.
+	 * </p>
+	 * 
+	 * @return int 503 if over capacity, 500 for the share of errors set,
+	 *         200 otherwise
+	 */
+	private int answer() throws InterruptedException {
+
+		final boolean overloaded = busy.incrementAndGet() > capacity
+				&& capacity > 0;
+		try {
+			if (!overloaded && latency > 0) {
+				Thread.sleep(latency);
+			}
+		} finally {
+			busy.decrementAndGet();
+		}
+
+		if (overloaded) {
+			return 503;
+		}
+		synchronized (random) {
+			return random.nextInt(100) < errorRate ? 500 : 200;
+		}
+
+	}
+
+	private static String getReason(final int status) {
+
+		return status == 500 ? "Internal Server Error"
+				: status == 503 ? "Service Unavailable" : "OK";
+
+	}
+
+	private byte[] getContent(final int status) throws IOException {
+
+		return status == 200 ? body : ("<html><body>" + getReason(status)
+				+ "</body></html>\r\n").getBytes("ISO-8859-1");
+
+	}
+
+	private void respond(final OutputStream out, final int status,
+			final boolean open) throws IOException {
+
+		final String reason = getReason(status);
+		final byte[] content = getContent(status);
+
+		final StringBuilder head = new StringBuilder(256);
+		head.append("HTTP/1.1 ").append(status).append(' ').append(reason)
+				.append("\r\n");
+		head.append("Server: JBroFuzz Loopback\r\n");
+		head.append("Content-Type: text/html\r\n");
+		head.append(open ? "Connection: keep-alive\r\n" : "Connection: close\r\n");
+		if (chunkSize > 0) {
+			head.append("Transfer-Encoding: chunked\r\n\r\n");
+		} else {
+			head.append("Content-Length: ").append(content.length).append("\r\n\r\n");
+		}
+		out.write(head.toString().getBytes("ISO-8859-1"));
+
+		if (chunkSize > 0) {
+			for (int offset = 0; offset < content.length; offset += chunkSize) {
+				final int length = Math.min(chunkSize, content.length - offset);
+				out.write((Integer.toHexString(length) + "\r\n").getBytes("ISO-8859-1"));
+				out.write(content, offset, length);
+				out.write('\r');
+				out.write('\n');
+			}
+			out.write("0\r\n\r\n".getBytes("ISO-8859-1"));
+		} else {
+			out.write(content);
+		}
+		out.flush();
+
+	}
+
+	/**
+	 * <p>
+	 * Speak HTTP/2 on a connection, once the first line of the client
+	 * preface has been read, until either side closes it or it has been
+	 * idle for longer than the keep alive time.
+	 * </p>
+	 */
+	private void serveHttp2(final Socket socket, final InputStream in,
+			final OutputStream out) throws IOException {
+
+		final byte[] rest = new byte[6];
+		new DataInputStream(in).readFully(rest);
+		if (!new String(rest, "ISO-8859-1").equals("SM\r\n\r\n")) {
+			return;
+		}
+		socket.setSoTimeout(keepAlive > 0 ? keepAlive : REQUEST_TIMEOUT);
+
+		final Http2Handler handler = new Http2Handler(socket, in, out);
+		handler.start();
+		handler.run();
+
+	}
+
+	/**
+	 * <p>
+	 * Read the request line and headers, up to and excluding the blank
+	 * line; lines may end in CRLF or in LF alone.
+	 * </p>
+	 * 
+	 * @return String the head, with LF line endings, or null at the end of
+	 *         the stream
+	 */
+	private static String readHead(final InputStream in) throws IOException {
+
+		final ByteArrayOutputStream head = new ByteArrayOutputStream(512);
+		int lineLength = 0;
+		int c;
+		while ((c = in.read()) != -1) {
+			if (c == '\r') {
+				continue;
+			}
+			if (c == '\n') {
+				if (lineLength == 0) {
+					if (head.size() == 0) {
+						// Blank lines before the request line
+						continue;
+					}
+					return head.toString("ISO-8859-1");
+				}
+				lineLength = 0;
+			} else {
+				lineLength++;
+			}
+			head.write(c);
+		}
+		return null;
+
+	}
+
+	private static int contentLength(final String lowerHead) {
+
+		final int index = lowerHead.indexOf("\ncontent-length:");
+		if (index < 0) {
+			return 0;
+		}
+		int end = lowerHead.indexOf('\n', index + 1);
+		if (end < 0) {
+			end = lowerHead.length();
+		}
+		try {
+			return Integer.parseInt(lowerHead.substring(index + 16, end).trim());
+		} catch (final NumberFormatException e) {
+			return 0;
+		}
+
+	}
+
+	private static void skip(final InputStream in, final int length)
+			throws IOException {
+
+		for (int i = 0; i < length; i++) {
+			if (in.read() == -1) {
+				return;
+			}
+		}
+
+	}
+
+	private static byte[] createBody(final int size) throws IOException {
+
+		final byte[] open = "<html><body>\n".getBytes("ISO-8859-1");
+		final byte[] close = "</body></html>\n".getBytes("ISO-8859-1");
+		final byte[] content = new byte[size];
+		for (int i = 0; i < size; i++) {
+			// Lines of 63 letters, each followed by a new line
+			content[i] = (i % 64 == 63) ? (byte) '\n' : (byte) ('a' + i % 26);
+		}
+		if (size >= open.length + close.length) {
+			System.arraycopy(open, 0, content, 0, open.length);
+			System.arraycopy(close, 0, content, size - close.length, close.length);
+		}
+		return content;
+
+	}
+
+	private ServerSocket createSecureServerSocket() throws IOException {
+
+		if (keyStore == null) {
+			keyStore = generateKeyStore();
+		}
+
+		FileInputStream in = null;
+		try {
+			in = new FileInputStream(keyStore);
+			final KeyStore store = KeyStore.getInstance("JKS");
+			store.load(in, keyStorePassword.toCharArray());
+
+			final KeyManagerFactory factory = KeyManagerFactory
+					.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+			factory.init(store, keyStorePassword.toCharArray());
+
+			final SSLContext context = SSLContext.getInstance("TLS");
+			context.init(factory.getKeyManagers(), null, null);
+			return context.getServerSocketFactory().createServerSocket();
+
+		} catch (final GeneralSecurityException e) {
+			throw new IOException("Cannot load the key store " + keyStore + ": " + e.getMessage());
+		} finally {
+			IOUtils.closeQuietly(in);
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Generate a self signed key for 127.0.0.1, with the keytool of the
+	 * running Java installation, in a temporary key store.
+	 * </p>
+	 */
+	private File generateKeyStore() throws IOException {
+
+		final File store = File.createTempFile("jbrofuzz-loopback", ".jks");
+		store.delete();
+		store.deleteOnExit();
+
+		final File keytool = new File(new File(System.getProperty("java.home"), "bin"), "keytool");
+		final Process process = new ProcessBuilder(keytool.getPath(),
+				"-genkeypair", "-alias", "loopback", "-keyalg", "RSA",
+				"-keysize", "2048", "-validity", "1", "-dname",
+				"CN=127.0.0.1", "-storetype", "JKS", "-keystore",
+				store.getPath(), "-storepass", KEYSTORE_PASSWORD, "-keypass",
+				KEYSTORE_PASSWORD).redirectErrorStream(true).start();
+		try {
+			final String output = IOUtils.toString(process.getInputStream());
+			if (process.waitFor() != 0) {
+				throw new IOException("Cannot generate a key with " + keytool + ": " + output.trim());
+			}
+		} catch (final InterruptedException e) {
+			throw new IOException("Interrupted while generating a key");
+		} finally {
+			IOUtils.closeQuietly(process.getInputStream());
+			IOUtils.closeQuietly(process.getOutputStream());
+		}
+		keyStorePassword = KEYSTORE_PASSWORD;
+		return store;
+
+	}
+
+	/**
+	 * <p>
+	 * The server side of an HTTP/2 connection, answering every stream once
+	 * its request is read in full, from a thread of its own.
+	 * </p>
+	 */
+	private final class Http2Handler extends Http2Session {
+
+		// The streams whose request body is still to come
+		private final Set<Integer> reading = Collections
+				.synchronizedSet(new HashSet<Integer>());
+
+		private Http2Handler(final Socket socket, final InputStream in,
+				final OutputStream out) {
+
+			super(socket, in, out);
+
+		}
+
+		/**
+		 * <p>
+		 * Send the settings of the server, the rest of its preface.
+		 * </p>
+		 */
+		private void start() throws IOException {
+
+			synchronized (writeLock) {
+				writeSettings();
+				flush();
+			}
+
+		}
+
+		@Override
+		protected boolean onIdle() {
+
+			// Idle for longer than the keep alive time
+			return false;
+
+		}
+
+		@Override
+		protected void onHeaders(final int stream,
+				final List<String[]> headers, final boolean endStream) {
+
+			if (reading.contains(Integer.valueOf(stream))) {
+				// Trailers
+				if (endStream && reading.remove(Integer.valueOf(stream))) {
+					answer(stream);
+				}
+				return;
+			}
+			openStream(stream);
+			if (endStream) {
+				answer(stream);
+			} else {
+				reading.add(Integer.valueOf(stream));
+			}
+
+		}
+
+		@Override
+		protected void onData(final int stream, final byte[] data,
+				final int offset, final int length, final boolean endStream) {
+
+			if (endStream && reading.remove(Integer.valueOf(stream))) {
+				answer(stream);
+			}
+
+		}
+
+		@Override
+		protected void onReset(final int stream, final int errorCode) {
+
+			reading.remove(Integer.valueOf(stream));
+
+		}
+
+		@Override
+		protected void onGoAway(final int lastStream, final int errorCode) {
+
+			// The client closes the connection once done
+
+		}
+
+		@Override
+		protected void onClosed(final IOException cause) {
+
+			reading.clear();
+
+		}
+
+		private void answer(final int stream) {
+
+			executor.execute(new Runnable() {
+				public void run() {
+					try {
+						final int status = LoopbackServer.this.answer();
+						final byte[] content = getContent(status);
+
+						final List<String[]> headers = new ArrayList<String[]>(4);
+						headers.add(new String[] { ":status", Integer.toString(status) });
+						headers.add(new String[] { "server", "JBroFuzz Loopback" });
+						headers.add(new String[] { "content-type", "text/html" });
+						headers.add(new String[] { "content-length", Integer.toString(content.length) });
+						writeHeaders(stream, headers, content.length == 0);
+						if (content.length > 0) {
+							writeData(stream, content, true);
+						}
+						requests.incrementAndGet();
+
+					} catch (final InterruptedException e) {
+						// Stopped
+					} catch (final IOException e) {
+						// The client went away
+						close();
+					} finally {
+						closeStream(stream);
+					}
+				}
+			});
+
+		}
+
+	}
+
+}
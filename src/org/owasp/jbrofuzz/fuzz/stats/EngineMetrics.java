@@ -0,0 +1,602 @@
+/**
+ * JbroFuzz 2.5
+ *
+ * JBroFuzz - A stateless network protocol fuzzer for web applications.
+ * 
+ * Copyright (C) 2007 - 2010 subere@uncon.org
+ *
+ * This file is part of JBroFuzz.
+ * 
+ * JBroFuzz is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * JBroFuzz is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with JBroFuzz.  If not, see <http://www.gnu.org/licenses/>.
+ * Alternatively, write to the Free Software Foundation, Inc., 51 
+ * Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Verbatim copying and distribution of this entire program file is 
+ * permitted in any medium without royalty provided this notice 
+ * is preserved. 
+ * 
+ */
+package org.owasp.jbrofuzz.fuzz.stats;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.commons.io.FileUtils;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.owasp.jbrofuzz.fuzz.ConnectionException;
+import org.owasp.jbrofuzz.fuzz.MessageContainer;
+import org.owasp.jbrofuzz.fuzz.RateController;
+import org.owasp.jbrofuzz.fuzz.RequestTiming;
+import org.owasp.jbrofuzz.system.Logger;
+
+/**
+ * <p>
+ * The metrics of the fuzzing engine: requests sent, in flight and completed,
+ * bytes on the wire, errors by type, latency percentiles, the concurrency
+ * limit of each target, the number of replies waiting to be stored and the
+ * time taken by transforms.
+ * </p>
+ *
+ * <p>
+ * All counters and histograms are lock-free, so that recording from the
+ * sender threads does not slow them down. Reads taken during a run are
+ * approximate.
+ * </p>
+ *
+ * <p>
+ * The metrics can be registered as an MXBean, for jconsole and other JMX
+ * clients, and written periodically as JSON to the session directory.
+ * </p>
+ *
+ * @version 2.5
+ * @since 2.5
+ */
+public class EngineMetrics implements EngineMetricsMXBean {
+
+	/**
+	 * <p>The name under which the metrics are registered with JMX.</p>
+	 */
+	public static final String OBJECT_NAME = "org.owasp.jbrofuzz:type=EngineMetrics";
+
+	/**
+	 * <p>The name of the file written to the session directory.</p>
+	 */
+	public static final String FILE_NAME = "metrics.json";
+
+	/**
+	 * <p>The error type of a request that failed before reaching the wire,
+	 * e.g. due to a malformed URL.</p>
+	 */
+	public static final String SETUP = "Setup";
+
+	// The number of seconds over which completions are counted
+	private static final int RATE_SLOTS = 4;
+
+	private final AtomicLong sent = new AtomicLong();
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	private final AtomicLong completed = new AtomicLong();
+
+	private final AtomicLong bytesSent = new AtomicLong();
+
+	private final AtomicLong bytesReceived = new AtomicLong();
+
+	private final AtomicLong errors = new AtomicLong();
+
+	private final AtomicLong retries = new AtomicLong();
+
+	private final ConcurrentMap<String, AtomicLong> errorsByType =
+		new ConcurrentHashMap<String, AtomicLong>();
+
+	private final LatencyHistogram latency = new LatencyHistogram();
+
+	private final ConcurrentMap<String, RateController> controllers =
+		new ConcurrentHashMap<String, RateController>();
+
+	private final AtomicInteger storageQueue = new AtomicInteger();
+
+	private final LatencyHistogram transforms = new LatencyHistogram(
+			LatencyHistogram.DEFAULT_HIGHEST_VALUE * 1000L);
+
+	private final AtomicLongArray rateSeconds = new AtomicLongArray(RATE_SLOTS);
+
+	private final AtomicLongArray rateCounts = new AtomicLongArray(RATE_SLOTS);
+
+	private ScheduledExecutorService dumper;
+
+	private File dumpFile;
+
+	private final Object writeLock = new Object();
+
+	// The name these metrics are registered under with JMX, if any
+	private ObjectName registered;
+
+	/**
+	 * <p>Record a request put on the wire.</p>
+	 *
+	 * @param message the message sent
+	 */
+	public void sent(final String message) {
+
+		sent.incrementAndGet();
+		inFlight.incrementAndGet();
+		bytesSent.addAndGet(message.length());
+
+	}
+
+	/**
+	 * <p>Record a reply, once the message container has been updated with
+	 * it.</p>
+	 *
+	 * @param container the message container of the request
+	 */
+	public void replied(final MessageContainer container) {
+
+		inFlight.decrementAndGet();
+		completed.incrementAndGet();
+		bytesReceived.addAndGet(container.getByteCount());
+		latency.record(Math.max(0, container.getResponseTime()));
+		countCompletion();
+
+	}
+
+	/**
+	 * <p>Record a failed request, under the phase it failed in.</p>
+	 *
+	 * @param container the message container of the request
+	 * @param exception the reason for the failure
+	 */
+	public void failed(final MessageContainer container,
+			final ConnectionException exception) {
+
+		inFlight.decrementAndGet();
+		completed.incrementAndGet();
+		errors.incrementAndGet();
+		countCompletion();
+
+		final String type = getErrorType(exception.getTiming(),
+				container.getTextURL());
+		AtomicLong count = errorsByType.get(type);
+		if (count == null) {
+			final AtomicLong created = new AtomicLong();
+			count = errorsByType.putIfAbsent(type, created);
+			if (count == null) {
+				count = created;
+			}
+		}
+		count.incrementAndGet();
+
+	}
+
+	/**
+	 * <p>Record a failed request that is about to be sent again; only the
+	 * last attempt counts as completed.</p>
+	 *
+	 * @param container the message container of the request
+	 * @param exception the reason for the failure
+	 */
+	public void retried(final MessageContainer container,
+			final ConnectionException exception) {
+
+		inFlight.decrementAndGet();
+		retries.incrementAndGet();
+
+	}
+
+	/**
+	 * <p>Record the rate controller of a target, to report its limit.</p>
+	 *
+	 * @param controller the controller, as created by the engine
+	 */
+	public void controlled(final RateController controller) {
+
+		controllers.put(controller.getTarget(), controller);
+
+	}
+
+	/**
+	 * <p>Return the phase a request failed in: the one after the last phase
+	 * completed, skipping the TLS handshake for plain HTTP.</p>
+	 */
+	private static String getErrorType(final RequestTiming timing,
+			final String url) {
+
+		if (timing == null) {
+			return SETUP;
+		}
+		int last = -1;
+		for (int i = 0; i < RequestTiming.PHASES.length; i++) {
+			if (timing.getMicros(i) >= 0) {
+				last = i;
+			}
+		}
+		int phase = Math.min(last + 1, RequestTiming.DOWNLOAD);
+		if (phase == RequestTiming.HANDSHAKE
+				&& !url.regionMatches(true, 0, "https", 0, 5)) {
+			phase = RequestTiming.WRITE;
+		}
+		return RequestTiming.PHASES[phase];
+
+	}
+
+	private void countCompletion() {
+
+		final long second = System.currentTimeMillis() / 1000L;
+		final int slot = (int) (second % RATE_SLOTS);
+		final long previous = rateSeconds.get(slot);
+		if (previous != second && rateSeconds.compareAndSet(slot, previous, second)) {
+			rateCounts.set(slot, 0L);
+		}
+		rateCounts.incrementAndGet(slot);
+
+	}
+
+	/**
+	 * <p>Record a reply waiting to be stored.</p>
+	 */
+	public void storeQueued() {
+
+		storageQueue.incrementAndGet();
+
+	}
+
+	/**
+	 * <p>Record a reply stored.</p>
+	 */
+	public void stored() {
+
+		storageQueue.decrementAndGet();
+
+	}
+
+	/**
+	 * <p>Record the time taken to transform a payload.</p>
+	 *
+	 * @param nanos the time taken, in nanoseconds
+	 */
+	public void transformed(final long nanos) {
+
+		transforms.record(Math.max(0L, nanos / 1000L));
+
+	}
+
+	public long getRequestsSent() {
+		return sent.get();
+	}
+
+	public int getRequestsInFlight() {
+		return inFlight.get();
+	}
+
+	public long getRequestsCompleted() {
+		return completed.get();
+	}
+
+	/**
+	 * <p>Return the number of requests completed during the last whole
+	 * second.</p>
+	 */
+	public long getCompletedPerSecond() {
+
+		final long second = System.currentTimeMillis() / 1000L - 1L;
+		final int slot = (int) (second % RATE_SLOTS);
+		return rateSeconds.get(slot) == second ? rateCounts.get(slot) : 0L;
+
+	}
+
+	public long getBytesSent() {
+		return bytesSent.get();
+	}
+
+	public long getBytesReceived() {
+		return bytesReceived.get();
+	}
+
+	public long getErrors() {
+		return errors.get();
+	}
+
+	public Map<String, Long> getErrorsByType() {
+
+		final Map<String, Long> output = new TreeMap<String, Long>();
+		for (final Map.Entry<String, AtomicLong> entry : errorsByType.entrySet()) {
+			output.put(entry.getKey(), Long.valueOf(entry.getValue().get()));
+		}
+		return output;
+
+	}
+
+	public Map<String, Integer> getConcurrencyLimits() {
+
+		final Map<String, Integer> output = new TreeMap<String, Integer>();
+		for (final RateController controller : controllers.values()) {
+			output.put(controller.getTarget(), Integer.valueOf(controller.getLimit()));
+		}
+		return output;
+
+	}
+
+	public long getRetries() {
+		return retries.get();
+	}
+
+	public int getSuspendedTargets() {
+
+		int output = 0;
+		for (final RateController controller : controllers.values()) {
+			if (controller.isSuspended()) {
+				output++;
+			}
+		}
+		return output;
+
+	}
+
+	public long getLimitDecreases() {
+
+		long output = 0L;
+		for (final RateController controller : controllers.values()) {
+			output += controller.getDecreases();
+		}
+		return output;
+
+	}
+
+	public double getLatencyMean() {
+		return latency.getMean();
+	}
+
+	public long getLatencyP50() {
+		return latency.getValueAtPercentile(50D);
+	}
+
+	public long getLatencyP90() {
+		return latency.getValueAtPercentile(90D);
+	}
+
+	public long getLatencyP99() {
+		return latency.getValueAtPercentile(99D);
+	}
+
+	public long getLatencyMax() {
+		return latency.getMax();
+	}
+
+	public int getStorageQueueDepth() {
+		return storageQueue.get();
+	}
+
+	public long getTransforms() {
+		return transforms.getCount();
+	}
+
+	public double getTransformMeanMicros() {
+		return transforms.getMean();
+	}
+
+	public long getTransformP99Micros() {
+		return transforms.getValueAtPercentile(99D);
+	}
+
+	/**
+	 * <p>Clear all metrics, typically as a new run starts. Requests still in
+	 * flight from a previous run may leave the in flight count negative
+	 * until they complete.</p>
+	 */
+	public void reset() {
+
+		sent.set(0L);
+		inFlight.set(0);
+		completed.set(0L);
+		bytesSent.set(0L);
+		bytesReceived.set(0L);
+		errors.set(0L);
+		retries.set(0L);
+		errorsByType.clear();
+		controllers.clear();
+		latency.reset();
+		transforms.reset();
+		for (int i = 0; i < RATE_SLOTS; i++) {
+			rateSeconds.set(i, 0L);
+			rateCounts.set(i, 0L);
+		}
+
+	}
+
+	/**
+	 * <p>Return the metrics as a JSON object.</p>
+	 *
+	 * @return JSONObject the metrics
+	 * @throws JSONException if a value cannot be written
+	 */
+	public JSONObject toJSON() throws JSONException {
+
+		final JSONObject output = new JSONObject();
+		output.put("timestamp", System.currentTimeMillis());
+		output.put("requestsSent", getRequestsSent());
+		output.put("requestsInFlight", getRequestsInFlight());
+		output.put("requestsCompleted", getRequestsCompleted());
+		output.put("completedPerSecond", getCompletedPerSecond());
+		output.put("bytesSent", getBytesSent());
+		output.put("bytesReceived", getBytesReceived());
+		output.put("errors", getErrors());
+		output.put("errorsByType", getErrorsByType());
+		output.put("concurrencyLimits", getConcurrencyLimits());
+		output.put("limitDecreases", getLimitDecreases());
+		output.put("retries", getRetries());
+		output.put("suspendedTargets", getSuspendedTargets());
+		output.put("latencyMean", getLatencyMean());
+		output.put("latencyP50", getLatencyP50());
+		output.put("latencyP90", getLatencyP90());
+		output.put("latencyP99", getLatencyP99());
+		output.put("latencyMax", getLatencyMax());
+		output.put("storageQueueDepth", getStorageQueueDepth());
+		output.put("transforms", getTransforms());
+		output.put("transformMeanMicros", getTransformMeanMicros());
+		output.put("transformP99Micros", getTransformP99Micros());
+		return output;
+
+	}
+
+	/**
+	 * <p>Register these metrics with the platform MBean server, replacing
+	 * any metrics registered before.</p>
+	 */
+	public void register() {
+
+		register(null);
+
+	}
+
+	/**
+	 * <p>Register these metrics with the platform MBean server under the
+	 * given name, e.g. "Fuzzing 2" for the metrics of a further fuzzing
+	 * panel, replacing any metrics registered under it before.</p>
+	 * 
+	 * @param panel the name added to the ObjectName, or null for none
+	 */
+	public synchronized void register(final String panel) {
+
+		try {
+			final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			final ObjectName name = new ObjectName(panel == null ? OBJECT_NAME
+					: OBJECT_NAME + ",name=" + panel);
+			if (server.isRegistered(name)) {
+				server.unregisterMBean(name);
+			}
+			server.registerMBean(this, name);
+			registered = name;
+		} catch (final JMException e) {
+			Logger.log("Could not register the engine metrics: " + e.getMessage(), 3);
+		} catch (final SecurityException e) {
+			Logger.log("Not allowed to register the engine metrics", 3);
+		}
+
+	}
+
+	/**
+	 * <p>Remove these metrics from the platform MBean server, if they
+	 * were registered.</p>
+	 */
+	public synchronized void unregister() {
+
+		if (registered == null) {
+			return;
+		}
+		try {
+			final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			if (server.isRegistered(registered)) {
+				server.unregisterMBean(registered);
+			}
+		} catch (final JMException e) {
+			Logger.log("Could not unregister the engine metrics: " + e.getMessage(), 3);
+		} catch (final SecurityException e) {
+			Logger.log("Not allowed to unregister the engine metrics", 3);
+		}
+		registered = null;
+
+	}
+
+	/**
+	 * <p>Start writing the metrics to a file in the given directory, every
+	 * so many seconds, until stopDump() is called.</p>
+	 *
+	 * @param directory the session directory
+	 * @param seconds the seconds between writes; less than 1 for never
+	 */
+	public synchronized void startDump(final File directory, final int seconds) {
+
+		stopDump();
+		if (seconds < 1) {
+			return;
+		}
+		dumpFile = new File(directory, FILE_NAME);
+		dumper = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			public Thread newThread(final Runnable runnable) {
+				final Thread thread = new Thread(runnable, "JBroFuzz Metrics");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		final File file = dumpFile;
+		dumper.scheduleAtFixedRate(new Runnable() {
+			public void run() {
+				writeTo(file);
+			}
+		}, seconds, seconds, TimeUnit.SECONDS);
+
+	}
+
+	/**
+	 * <p>Stop writing the metrics, writing them one last time if a dump was
+	 * in progress.</p>
+	 */
+	public synchronized void stopDump() {
+
+		if (dumper == null) {
+			return;
+		}
+		dumper.shutdown();
+		dumper = null;
+		writeTo(dumpFile);
+		dumpFile = null;
+
+	}
+
+	/**
+	 * <p>Write the metrics to a file, replacing it as a whole so readers
+	 * never see half a file.</p>
+	 *
+	 * @param file the file to write to
+	 */
+	public void writeTo(final File file) {
+
+		final File temporary = new File(file.getPath() + ".tmp");
+		synchronized (writeLock) {
+			try {
+				FileUtils.writeStringToFile(temporary, toJSON().toString(2));
+				if (!temporary.renameTo(file)) {
+					file.delete();
+					if (!temporary.renameTo(file)) {
+						Logger.log("Could not write the engine metrics to " + file, 3);
+					}
+				}
+			} catch (final IOException e) {
+				Logger.log("Could not write the engine metrics: " + e.getMessage(), 3);
+			} catch (final JSONException e) {
+				Logger.log("Could not write the engine metrics: " + e.getMessage(), 3);
+			}
+		}
+
+	}
+
+}
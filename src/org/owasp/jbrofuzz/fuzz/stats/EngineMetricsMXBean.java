@@ -0,0 +1,93 @@
+/**
+ * JbroFuzz 2.5
+ *
+ * JBroFuzz - A stateless network protocol fuzzer for web applications.
+ * 
+ * Copyright (C) 2007 - 2010 subere@uncon.org
+ *
+ * This file is part of JBroFuzz.
+ * 
+ * JBroFuzz is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * JBroFuzz is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with JBroFuzz.  If not, see <http://www.gnu.org/licenses/>.
+ * Alternatively, write to the Free Software Foundation, Inc., 51 
+ * Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Verbatim copying and distribution of this entire program file is 
+ * permitted in any medium without royalty provided this notice 
+ * is preserved. 
+ * 
+ */
+package org.owasp.jbrofuzz.fuzz.stats;
+
+import java.util.Map;
+
+/**
+ * <p>
+ * The management interface of the engine metrics, as seen from jconsole or
+ * any other JMX client.
+ * </p>
+ * 
+ * <p>
+ * Latencies are in milliseconds, transform times in microseconds.
+ * </p>
+ * 
+ * @version 2.5
+ * @since 2.5
+ */
+public interface EngineMetricsMXBean {
+
+	long getRequestsSent();
+
+	int getRequestsInFlight();
+
+	long getRequestsCompleted();
+
+	long getCompletedPerSecond();
+
+	long getBytesSent();
+
+	long getBytesReceived();
+
+	long getErrors();
+
+	Map<String, Long> getErrorsByType();
+
+	Map<String, Integer> getConcurrencyLimits();
+
+	long getLimitDecreases();
+
+	long getRetries();
+
+	int getSuspendedTargets();
+
+	double getLatencyMean();
+
+	long getLatencyP50();
+
+	long getLatencyP90();
+
+	long getLatencyP99();
+
+	long getLatencyMax();
+
+	int getStorageQueueDepth();
+
+	long getTransforms();
+
+	double getTransformMeanMicros();
+
+	long getTransformP99Micros();
+
+	void reset();
+
+}
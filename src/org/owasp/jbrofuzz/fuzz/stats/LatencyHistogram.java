@@ -0,0 +1,300 @@
+/**
+ * JbroFuzz 2.5
+ *
+ * JBroFuzz - A stateless network protocol fuzzer for web applications.
+ * 
+ * Copyright (C) 2007 - 2010 subere@uncon.org
+ *
+ * This file is part of JBroFuzz.
+ * 
+ * JBroFuzz is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * JBroFuzz is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with JBroFuzz.  If not, see <http://www.gnu.org/licenses/>.
+ * Alternatively, write to the Free Software Foundation, Inc., 51 
+ * Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Verbatim copying and distribution of this entire program file is 
+ * permitted in any medium without royalty provided this notice 
+ * is preserved. 
+ * 
+ */
+package org.owasp.jbrofuzz.fuzz.stats;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>
+ * A latency histogram using log-linear buckets, in the manner of an HDR
+ * histogram.
+ * </p>
+ * 
+ * <p>
+ * Values below 32 are counted exactly; above that, each power of two is
+ * split into 16 equal sub-buckets, which keeps the relative error of any
+ * reported percentile under roughly 6%, regardless of the magnitude of the
+ * value. The histogram is unit-agnostic; response times are recorded in
+ * milliseconds.
+ * </p>
+ * 
+ * <p>
+ * Recording is lock-free and can be called from any number of threads.
+ * Reads taken while values are being recorded are approximate.
+ * </p>
+ * 
+ * @version 2.5
+ * @since 2.5
+ */
+public class LatencyHistogram {
+
+	// The number of bits used for the linear part of each bucket
+	private static final int SUB_BUCKET_BITS = 5;
+
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+	private static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT >> 1;
+
+	/**
+	 * <p>The default highest trackable value, one hour in milliseconds.</p>
+	 */
+	public static final long DEFAULT_HIGHEST_VALUE = 3600000L;
+
+	private final long highestValue;
+
+	private final AtomicLongArray counts;
+
+	private final AtomicLong totalCount;
+
+	private final AtomicLong totalSum;
+
+	private final AtomicLong maxValue;
+
+	private final AtomicLong minValue;
+
+	/**
+	 * <p>Create a histogram tracking values up to one hour in milliseconds.</p>
+	 */
+	public LatencyHistogram() {
+
+		this(DEFAULT_HIGHEST_VALUE);
+
+	}
+
+	/**
+	 * <p>Create a histogram tracking values from zero up to the given value.
+	 * Larger values are recorded as the highest value.</p>
+	 * 
+	 * @param highestValue the highest trackable value, at least 2
+	 */
+	public LatencyHistogram(final long highestValue) {
+
+		if (highestValue < 2) {
+			throw new IllegalArgumentException("Highest value must be at least 2");
+		}
+		this.highestValue = highestValue;
+
+		counts = new AtomicLongArray(indexOf(highestValue) + 1);
+		totalCount = new AtomicLong();
+		totalSum = new AtomicLong();
+		maxValue = new AtomicLong(0L);
+		minValue = new AtomicLong(Long.MAX_VALUE);
+
+	}
+
+	/**
+	 * <p>Return the bucket index for a non-negative value.</p>
+	 * 
+	 * @param value the value
+	 * @return int the index of the bucket holding the value
+	 */
+	static int indexOf(final long value) {
+
+		if (value < SUB_BUCKET_COUNT) {
+			return (int) value;
+		}
+		final int magnitude = 63 - Long.numberOfLeadingZeros(value);
+		final int shift = magnitude - SUB_BUCKET_BITS + 1;
+		final int sub = (int) (value >>> shift);
+
+		return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF
+				+ (sub - SUB_BUCKET_HALF);
+
+	}
+
+	/**
+	 * <p>Return the highest value that falls within the bucket of the given
+	 * index.</p>
+	 * 
+	 * @param index the bucket index
+	 * @return long the upper bound (inclusive) of the bucket
+	 */
+	static long highestValueAt(final int index) {
+
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+		final int offset = index - SUB_BUCKET_COUNT;
+		final int shift = offset / SUB_BUCKET_HALF + 1;
+		final long sub = offset % SUB_BUCKET_HALF + SUB_BUCKET_HALF;
+
+		return ((sub + 1) << shift) - 1;
+
+	}
+
+	/**
+	 * <p>Record a single value. Negative values are recorded as zero.</p>
+	 * 
+	 * @param value the value to record
+	 */
+	public void record(final long value) {
+
+		final long v = Math.min(Math.max(value, 0L), highestValue);
+
+		counts.incrementAndGet(indexOf(v));
+		totalCount.incrementAndGet();
+		totalSum.addAndGet(v);
+
+		long current = maxValue.get();
+		while (v > current && !maxValue.compareAndSet(current, v)) {
+			current = maxValue.get();
+		}
+		current = minValue.get();
+		while (v < current && !minValue.compareAndSet(current, v)) {
+			current = minValue.get();
+		}
+
+	}
+
+	/**
+	 * <p>Add all the values recorded in another histogram to this one.</p>
+	 * 
+	 * @param other the histogram to add; it must have been created with the
+	 *              same highest value
+	 */
+	public void add(final LatencyHistogram other) {
+
+		if (other.highestValue != highestValue) {
+			throw new IllegalArgumentException("Histograms have different ranges");
+		}
+		for (int i = 0; i < counts.length(); i++) {
+			final long c = other.counts.get(i);
+			if (c != 0L) {
+				counts.addAndGet(i, c);
+			}
+		}
+		totalCount.addAndGet(other.totalCount.get());
+		totalSum.addAndGet(other.totalSum.get());
+
+		final long otherMax = other.maxValue.get();
+		long current = maxValue.get();
+		while (otherMax > current && !maxValue.compareAndSet(current, otherMax)) {
+			current = maxValue.get();
+		}
+		final long otherMin = other.minValue.get();
+		current = minValue.get();
+		while (otherMin < current && !minValue.compareAndSet(current, otherMin)) {
+			current = minValue.get();
+		}
+
+	}
+
+	/**
+	 * <p>Return the number of values recorded.</p>
+	 * 
+	 * @return long the count
+	 */
+	public long getCount() {
+
+		return totalCount.get();
+
+	}
+
+	/**
+	 * <p>Return the highest value recorded, or 0 if empty.</p>
+	 * 
+	 * @return long the maximum
+	 */
+	public long getMax() {
+
+		return maxValue.get();
+
+	}
+
+	/**
+	 * <p>Return the lowest value recorded, or 0 if empty.</p>
+	 * 
+	 * @return long the minimum
+	 */
+	public long getMin() {
+
+		final long min = minValue.get();
+		return min == Long.MAX_VALUE ? 0L : min;
+
+	}
+
+	/**
+	 * <p>Return the arithmetic mean of the values recorded, or 0 if empty.</p>
+	 * 
+	 * @return double the mean
+	 */
+	public double getMean() {
+
+		final long count = totalCount.get();
+		return count == 0L ? 0D : (double) totalSum.get() / count;
+
+	}
+
+	/**
+	 * <p>Return the value at the given percentile, e.g. 99.0 for p99.</p>
+	 * 
+	 * <p>The value returned is the upper bound of the bucket containing the
+	 * percentile, capped at the highest value recorded.</p>
+	 * 
+	 * @param percentile a value between 0 and 100
+	 * @return long the value at that percentile, or 0 if empty
+	 */
+	public long getValueAtPercentile(final double percentile) {
+
+		final long count = totalCount.get();
+		if (count == 0L) {
+			return 0L;
+		}
+		final double p = Math.min(Math.max(percentile, 0D), 100D);
+		final long target = Math.max(1L, (long) Math.ceil(p / 100D * count));
+
+		long seen = 0L;
+		for (int i = 0; i < counts.length(); i++) {
+			seen += counts.get(i);
+			if (seen >= target) {
+				return Math.min(highestValueAt(i), getMax());
+			}
+		}
+		return getMax();
+
+	}
+
+	/**
+	 * <p>Clear all values recorded.</p>
+	 */
+	public void reset() {
+
+		for (int i = 0; i < counts.length(); i++) {
+			counts.set(i, 0L);
+		}
+		totalCount.set(0L);
+		totalSum.set(0L);
+		maxValue.set(0L);
+		minValue.set(Long.MAX_VALUE);
+
+	}
+
+}
@@ -0,0 +1,366 @@
+/**
+ * JbroFuzz 2.5
+ *
+ * JBroFuzz - A stateless network protocol fuzzer for web applications.
+ * 
+ * Copyright (C) 2007 - 2010 subere@uncon.org
+ *
+ * This file is part of JBroFuzz.
+ * 
+ * JBroFuzz is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * JBroFuzz is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with JBroFuzz.  If not, see <http://www.gnu.org/licenses/>.
+ * Alternatively, write to the Free Software Foundation, Inc., 51 
+ * Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Verbatim copying and distribution of this entire program file is 
+ * permitted in any medium without royalty provided this notice 
+ * is preserved. 
+ * 
+ */
+package org.owasp.jbrofuzz.fuzz.stats;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.owasp.jbrofuzz.fuzz.MessageContainer;
+import org.owasp.jbrofuzz.fuzz.RequestTiming;
+
+/**
+ * <p>
+ * Streaming response time statistics for a fuzzing session.
+ * </p>
+ * 
+ * <p>
+ * Response times are recorded as they happen into one latency histogram per
+ * time window, both for the session as a whole and for each named series
+ * (typically one per fuzzer). Percentiles can then be read for any window,
+ * without keeping the individual response times around.
+ * </p>
+ * 
+ * <p>
+ * The number of windows is bounded: once a session runs past the last window,
+ * the window length is doubled and adjacent windows are merged, so memory use
+ * stays constant for runs of any length.
+ * </p>
+ * 
+ * @version 2.5
+ * @since 2.5
+ */
+public class ResponseTimeStatistics {
+
+	/**
+	 * <p>The name of the series holding all the values recorded.</p>
+	 */
+	public static final String ALL = "All";
+
+	/**
+	 * <p>The prefix of the series holding the time taken by each phase of a
+	 * request on the wire, e.g. "Phase TTFB". These series are recorded in
+	 * microseconds and do not count towards {@link #ALL}.</p>
+	 */
+	public static final String PHASE = "Phase ";
+
+	/**
+	 * <p>The default length of a window, in milliseconds.</p>
+	 */
+	public static final long DEFAULT_WINDOW_MILLIS = 1000L;
+
+	/**
+	 * <p>The default maximum number of windows kept per series.</p>
+	 */
+	public static final int DEFAULT_MAX_WINDOWS = 240;
+
+	private final int maxWindows;
+
+	private final long initialWindowMillis;
+
+	private final Map<String, List<LatencyHistogram>> windows;
+
+	private final Map<String, LatencyHistogram> totals;
+
+	private long windowMillis;
+
+	private long origin;
+
+	private int windowCount;
+
+	/**
+	 * <p>Create statistics with one second windows, coarsening after four
+	 * minutes.</p>
+	 */
+	public ResponseTimeStatistics() {
+
+		this(DEFAULT_WINDOW_MILLIS, DEFAULT_MAX_WINDOWS);
+
+	}
+
+	/**
+	 * <p>Create statistics with the given initial window length and maximum
+	 * number of windows.</p>
+	 * 
+	 * @param windowMillis the initial window length in milliseconds
+	 * @param maxWindows the number of windows after which the window length 
+	 *                   is doubled; at least 2
+	 */
+	public ResponseTimeStatistics(final long windowMillis, final int maxWindows) {
+
+		if (windowMillis < 1 || maxWindows < 2) {
+			throw new IllegalArgumentException("Invalid window settings");
+		}
+		this.windowMillis = windowMillis;
+		initialWindowMillis = windowMillis;
+		this.maxWindows = maxWindows;
+
+		windows = new LinkedHashMap<String, List<LatencyHistogram>>();
+		totals = new LinkedHashMap<String, LatencyHistogram>();
+		origin = -1L;
+		windowCount = 0;
+
+		windows.put(ALL, new ArrayList<LatencyHistogram>());
+		totals.put(ALL, new LatencyHistogram());
+
+	}
+
+	/**
+	 * <p>Record the response time of a message, under the given series.</p>
+	 * 
+	 * @param series the series, e.g. the fuzzer name, or null for none
+	 * @param message the message container, after its reply has been set
+	 */
+	public void record(final String series, final MessageContainer message) {
+
+		record(series, message.getStartTimeMillis(), message
+				.getResponseTime());
+
+		final RequestTiming timing = message.getTiming();
+		if (timing != null) {
+			recordPhases(message.getStartTimeMillis(), timing);
+		}
+
+	}
+
+	/**
+	 * <p>Record the time taken by each phase of a request on the wire, under
+	 * the {@link #PHASE} series, in microseconds. Phases not reached are
+	 * skipped.</p>
+	 * 
+	 * @param timestamp the time the request was sent, in milliseconds
+	 * @param timing the timing of the request
+	 */
+	public synchronized void recordPhases(final long timestamp,
+			final RequestTiming timing) {
+
+		final int index = windowOf(timestamp);
+
+		for (int i = 0; i < RequestTiming.PHASES.length; i++) {
+			final int micros = timing.getMicros(i);
+			if (micros >= 0) {
+				recordAt(PHASE + RequestTiming.PHASES[i], index, micros);
+			}
+		}
+
+	}
+
+	/**
+	 * <p>Return true if the given series holds the time taken by a phase on
+	 * the wire, in microseconds.</p>
+	 * 
+	 * @param series the series name
+	 * @return boolean true for a phase series
+	 */
+	public static boolean isPhase(final String series) {
+
+		return series.startsWith(PHASE);
+
+	}
+
+	/**
+	 * <p>Record a response time, under the given series. The value is always
+	 * recorded under {@link #ALL} as well.</p>
+	 * 
+	 * <p>The first value recorded sets the origin of the time line; values
+	 * with an earlier timestamp count towards the first window.</p>
+	 * 
+	 * @param series the series, e.g. the fuzzer name, or null for none
+	 * @param timestamp the time the request was sent, in milliseconds
+	 * @param responseTime the response time, in milliseconds
+	 */
+	public synchronized void record(final String series, final long timestamp,
+			final long responseTime) {
+
+		final int index = windowOf(timestamp);
+
+		recordAt(ALL, index, responseTime);
+		if (series != null && !ALL.equals(series)) {
+			recordAt(series, index, responseTime);
+		}
+
+	}
+
+	/**
+	 * <p>Return the index of the window for a timestamp, coarsening the
+	 * windows if needed.</p>
+	 */
+	private int windowOf(final long timestamp) {
+
+		if (origin < 0) {
+			origin = timestamp;
+		}
+		int index = (int) (Math.max(timestamp - origin, 0L) / windowMillis);
+		while (index >= maxWindows) {
+			coarsen();
+			index = (int) (Math.max(timestamp - origin, 0L) / windowMillis);
+		}
+		windowCount = Math.max(windowCount, index + 1);
+
+		return index;
+
+	}
+
+	private void recordAt(final String series, final int index,
+			final long responseTime) {
+
+		// Phases are in microseconds, allow for the same hour
+		final long highestValue = isPhase(series) ?
+				LatencyHistogram.DEFAULT_HIGHEST_VALUE * 1000L :
+				LatencyHistogram.DEFAULT_HIGHEST_VALUE;
+
+		List<LatencyHistogram> list = windows.get(series);
+		if (list == null) {
+			list = new ArrayList<LatencyHistogram>();
+			windows.put(series, list);
+			totals.put(series, new LatencyHistogram(highestValue));
+		}
+		while (list.size() <= index) {
+			list.add(null);
+		}
+		LatencyHistogram histogram = list.get(index);
+		if (histogram == null) {
+			histogram = new LatencyHistogram(highestValue);
+			list.set(index, histogram);
+		}
+		histogram.record(responseTime);
+		totals.get(series).record(responseTime);
+
+	}
+
+	/**
+	 * <p>Double the window length, merging each pair of adjacent windows.</p>
+	 */
+	private void coarsen() {
+
+		for (final List<LatencyHistogram> list : windows.values()) {
+
+			final List<LatencyHistogram> merged = new ArrayList<LatencyHistogram>(
+					(list.size() + 1) / 2);
+			for (int i = 0; i < list.size(); i += 2) {
+				LatencyHistogram first = list.get(i);
+				final LatencyHistogram second = i + 1 < list.size() ? list
+						.get(i + 1) : null;
+				if (first == null) {
+					first = second;
+				} else if (second != null) {
+					first.add(second);
+				}
+				merged.add(first);
+			}
+			list.clear();
+			list.addAll(merged);
+
+		}
+		windowMillis *= 2;
+		windowCount = (windowCount + 1) / 2;
+
+	}
+
+	/**
+	 * <p>Return the names of all series, starting with {@link #ALL}.</p>
+	 * 
+	 * @return String[] the series names
+	 */
+	public synchronized String[] getSeriesNames() {
+
+		return windows.keySet().toArray(new String[windows.size()]);
+
+	}
+
+	/**
+	 * <p>Return the current window length, in milliseconds.</p>
+	 * 
+	 * @return long the window length
+	 */
+	public synchronized long getWindowMillis() {
+
+		return windowMillis;
+
+	}
+
+	/**
+	 * <p>Return the number of windows spanned so far.</p>
+	 * 
+	 * @return int the number of windows
+	 */
+	public synchronized int getWindowCount() {
+
+		return windowCount;
+
+	}
+
+	/**
+	 * <p>Return the histogram of a series for a given window.</p>
+	 * 
+	 * @param series the series name
+	 * @param index the window index
+	 * @return LatencyHistogram the histogram, or null if nothing was recorded
+	 */
+	public synchronized LatencyHistogram getWindow(final String series,
+			final int index) {
+
+		final List<LatencyHistogram> list = windows.get(series);
+		if (list == null || index < 0 || index >= list.size()) {
+			return null;
+		}
+		return list.get(index);
+
+	}
+
+	/**
+	 * <p>Return the histogram of a series over the whole session.</p>
+	 * 
+	 * @param series the series name
+	 * @return LatencyHistogram the histogram, or null for an unknown series
+	 */
+	public synchronized LatencyHistogram getTotal(final String series) {
+
+		return totals.get(series);
+
+	}
+
+	/**
+	 * <p>Clear all values and series recorded.</p>
+	 */
+	public synchronized void reset() {
+
+		windows.clear();
+		totals.clear();
+		windows.put(ALL, new ArrayList<LatencyHistogram>());
+		totals.put(ALL, new LatencyHistogram());
+		origin = -1L;
+		windowCount = 0;
+		windowMillis = initialWindowMillis;
+
+	}
+
+}
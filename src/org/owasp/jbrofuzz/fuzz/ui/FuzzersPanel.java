@@ -1,8 +1,11 @@
 package org.owasp.jbrofuzz.fuzz.ui;
 
 import java.awt.BorderLayout;
+import java.awt.FlowLayout;
 
 import javax.swing.BorderFactory;
+import javax.swing.JComboBox;
+import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
@@ -11,10 +14,18 @@ import javax.swing.event.ListSelectionListener;
 
 import org.owasp.jbrofuzz.core.Database;
 import org.owasp.jbrofuzz.system.Logger;
+import org.owasp.jbrofuzz3.message.FuzzList;
 
 public class FuzzersPanel extends JPanel {
 	
 	private static final long serialVersionUID = -9150023615230879357L;
+
+	/**
+	 * The iteration mode running each fuzzer in turn, on its own fuzz point
+	 */
+	public static final int SEQUENTIAL = -1;
+
+	private final JComboBox modeBox;
 	private FuzzersTableModel mFuzzTableModel;
 	private FuzzerTable fuzzersTable;
 	private FuzzingPanel fp;
@@ -57,6 +68,20 @@ public class FuzzersPanel extends JPanel {
 		fuzzersScrollPane.setVerticalScrollBarPolicy(20);
 
 		add(fuzzersScrollPane, BorderLayout.CENTER);
+
+		// How the fuzzers are iterated through, when more than one is added
+		final String[] modes = new String[FuzzList.MODES.length + 1];
+		modes[0] = "Sequential";
+		System.arraycopy(FuzzList.MODES, 0, modes, 1, FuzzList.MODES.length);
+
+		modeBox = new JComboBox(modes);
+		modeBox.setToolTipText("Sequential runs one fuzzer after the other; "
+				+ "the other modes put a payload on every fuzz point of each request");
+
+		final JPanel modePanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 2));
+		modePanel.add(new JLabel("Iteration: "));
+		modePanel.add(modeBox);
+		add(modePanel, BorderLayout.PAGE_END);
 		
 		fuzzersTableSelectionListen();
 		
@@ -99,6 +124,27 @@ public class FuzzersPanel extends JPanel {
 		return mFuzzTableModel.getRowCount();
 	}
 
+	/**
+	 * <p>
+	 * Return the selected iteration mode: SEQUENTIAL, or one of the modes of
+	 * a FuzzList.
+	 * </p>
+	 * 
+	 * @return int the iteration mode
+	 * 
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	public int getIterationMode() {
+		return modeBox.getSelectedIndex() - 1;
+	}
+
+	public void setIterationMode(final int mode) {
+		if ((mode >= SEQUENTIAL) && (mode < FuzzList.MODES.length)) {
+			modeBox.setSelectedIndex(mode + 1);
+		}
+	}
+
 	
 	
 	/**
@@ -33,8 +33,12 @@ import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Font;
 import java.awt.Insets;
+import java.io.File;
+import java.io.IOException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.Locale;
 
 import javax.swing.BorderFactory;
@@ -50,15 +54,22 @@ import javax.swing.text.StyledEditorKit;
 
 import org.apache.commons.lang.StringUtils;
 import org.owasp.jbrofuzz.JBroFuzz;
-import org.owasp.jbrofuzz.core.Fuzzer;
-import org.owasp.jbrofuzz.core.NoSuchFuzzerException;
-import org.owasp.jbrofuzz.encode.EncoderHashCore;
 import org.owasp.jbrofuzz.fuzz.Connection;
 import org.owasp.jbrofuzz.fuzz.ConnectionException;
+import org.owasp.jbrofuzz.fuzz.FailedPayloads;
+import org.owasp.jbrofuzz.fuzz.FuzzingEngine;
+import org.owasp.jbrofuzz.fuzz.FuzzingRun;
 import org.owasp.jbrofuzz.fuzz.MessageContainer;
 import org.owasp.jbrofuzz.fuzz.MessageCreator;
+import org.owasp.jbrofuzz.fuzz.RunConfiguration;
+import org.owasp.jbrofuzz.fuzz.Scheduler;
+import org.owasp.jbrofuzz.fuzz.stats.EngineMetrics;
+import org.owasp.jbrofuzz.fuzz.stats.ResponseTimeStatistics;
+import org.owasp.jbrofuzz.io.StorageHandler;
+import org.owasp.jbrofuzz.io.StorageInterface;
 import org.owasp.jbrofuzz.payloads.PayloadsDialog;
 import org.owasp.jbrofuzz.system.Logger;
+import org.owasp.jbrofuzz.system.Profiler;
 import org.owasp.jbrofuzz.ui.AbstractPanel;
 import org.owasp.jbrofuzz.ui.JBroFuzzWindow;
 import org.owasp.jbrofuzz.util.NonWrappingTextPane;
@@ -91,6 +102,12 @@ import org.owasp.jbrofuzz.version.JBroFuzzPrefs;
  * Finally, all output (apart from being saved to file) is presented in the
  * second tab inside the output table.
  * </p>
+ * 
+ * <p>
+ * More than one of these panels can be open, each running a session of its
+ * own, with its own target, fuzzers, output and storage. The panels running
+ * at the same time share the connections of the Scheduler of JBroFuzz.
+ * </p>
  */
 public class FuzzingPanel extends AbstractPanel {
 
@@ -102,7 +119,7 @@ public class FuzzingPanel extends AbstractPanel {
 	private final WireTextArea mWireTextArea;
 	private final FuzzSplitPane mainPane, bottomPane;
 	private final JTabbedPane fuzzerWindowPane;
-	private boolean stopped;
+	private volatile boolean stopped;
 	private String payload, encodedPayload;
 	private JPanel topPanel;
 	private TransformsPanel transformsPanel;
@@ -114,6 +131,30 @@ public class FuzzingPanel extends AbstractPanel {
 	private static final SimpleDateFormat SH_FORMAT = new SimpleDateFormat(
 			"DDD-HH-mm-ss-SSS", Locale.ENGLISH);
 	private String sessionName = null;
+	// The response time statistics of the current session
+	private final ResponseTimeStatistics responseTimes;
+	// The engines sending the requests of the current run, one per target
+	private List<FuzzingEngine> senders;
+	// The current run, generating the requests
+	private FuzzingRun run;
+	// The session of the current run with the scheduler
+	private Scheduler.Session session;
+	// The number of this panel, 1 for the first one
+	private final int number;
+	// Where the results of this panel are stored
+	private final StorageInterface storage;
+	// The metrics of the runs of this panel
+	private final EngineMetrics metrics;
+	// The settings of the current or most recent run
+	private RunConfiguration runConfiguration;
+	// Replies are recorded one at a time, whichever thread they come from
+	private final Object outputLock = new Object();
+
+	/**
+	 * The separator between the payloads of a request with more than one
+	 * fuzz point, as shown in the output table
+	 */
+	public static final String PAYLOAD_SEPARATOR = FuzzingRun.PAYLOAD_SEPARATOR;
 
 	/**
 	 * <p>
@@ -127,11 +168,44 @@ public class FuzzingPanel extends AbstractPanel {
 	 */
 	public FuzzingPanel(final JBroFuzzWindow mWindow) {
 
-		super(" Fuzzing ", mWindow);
+		this(mWindow, 1);
+
+	}
+
+	/**
+	 * <p>
+	 * Create the given fuzzing panel of the window: the first one stores its
+	 * results where JBroFuzz does and records the metrics registered with
+	 * JMX, while each further one, e.g. " Fuzzing 2 ", has a directory and
+	 * metrics of its own.
+	 * </p>
+	 * 
+	 * @param mWindow
+	 *            FrameWindow
+	 * @param number
+	 *            The number of the panel, from 1
+	 * 
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	public FuzzingPanel(final JBroFuzzWindow mWindow, final int number) {
+
+		super(number == 1 ? " Fuzzing " : " Fuzzing " + number + " ", mWindow);
+
+		this.number = number;
+		if (number == 1) {
+			storage = mWindow.getJBroFuzz().getStorageHandler();
+			metrics = mWindow.getJBroFuzz().getMetrics();
+		} else {
+			storage = new StorageHandler();
+			metrics = new EngineMetrics();
+			metrics.register("Fuzzing " + number);
+		}
 
 		counter = 0;
 		payload = "";
 		stopped = true;
+		responseTimes = new ResponseTimeStatistics();
 
 		// Set the enabled options: Start, Stop, Pause, Add, Remove
 		setOptionsAvailable(true, false, false, true, false);
@@ -146,7 +220,7 @@ public class FuzzingPanel extends AbstractPanel {
 		urlField.setEditable(true);
 		urlField.setVisible(true);
 		urlField.setFont(new Font("Verdana", Font.BOLD, 12));
-		urlField.setToolTipText("[{Protocol} :// {Host} [:{Port}]]");
+		urlField.setToolTipText("[{Protocol} :// {Host} [:{Port}]], or more than one, separated by spaces, to send every payload to each");
 		urlField.setMargin(new Insets(1, 1, 1, 1));
 		urlField.setBackground(Color.WHITE);
 		urlField.setForeground(Color.BLACK);
@@ -222,6 +296,43 @@ public class FuzzingPanel extends AbstractPanel {
 	public String getSessionName(){
 		return sessionName;
 	}
+
+	/**
+	 * @return int the number of this panel, 1 for the first one
+	 */
+	public int getNumber() {
+		return number;
+	}
+
+	/**
+	 * <p>
+	 * Return where the results of this panel are stored, the storage handler
+	 * of JBroFuzz for the first panel.
+	 * </p>
+	 * 
+	 * @return StorageInterface the storage of this panel
+	 * 
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	public StorageInterface getStorageHandler() {
+		return storage;
+	}
+
+	/**
+	 * <p>
+	 * Return the response time statistics, recorded as each reply is
+	 * received, for the current or most recent run.
+	 * </p>
+	 * 
+	 * @return ResponseTimeStatistics the response time statistics
+	 * 
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	public ResponseTimeStatistics getResponseTimeStatistics() {
+		return responseTimes;
+	}
 	
 	public void setSessionName(String sessionId){
 		this.sessionName = sessionId;
@@ -412,6 +523,32 @@ public class FuzzingPanel extends AbstractPanel {
 	 * </p>
 	 */
 	public void start() {
+		start(null);
+	}
+
+	/**
+	 * <p>
+	 * Send again the payloads of the most recent run that got no reply, with
+	 * the fuzzers, target and request of that run.
+	 * </p>
+	 */
+	public void rerunFailures() {
+		if (!stopped) {
+			return;
+		}
+		if ((run == null) || run.getFailures().isEmpty()) {
+			Logger.log("There are no failed requests to re-run", 1);
+			return;
+		}
+		start(run.createFailuresRun());
+	}
+
+	/**
+	 * <p>
+	 * Start the given run, or a run of the fuzzers table if null.
+	 * </p>
+	 */
+	private void start(final FuzzingRun rerun) {
 		if (!stopped) {
 		 	return;
 		}
@@ -431,116 +568,248 @@ public class FuzzingPanel extends AbstractPanel {
 			sessionName = SD_FORMAT.format(new Date());
 		}
 
-		for (int i = 0; i < Math.max(fuzzers_added, 1); i++) {
-
-			String category;
-			// TransformsRow[] transforms;
-			TransformsTableModel transforms;
-
-			int start, end;
-			// If no fuzzers have been added, send a single plain request
-			if (fuzzers_added < 1) {
-				category = "000-ZER-ONE";
-				transforms = new TransformsTableModel();
-				start = end = 0;
-			} else {
-				category = fuzzersPanel.getCategory(i);
-				transforms = transformsPanel.getTransforms(i);
-				start = fuzzersPanel.getStart(i);
-				end = fuzzersPanel.getEnd(i);
+		responseTimes.reset();
+
+		// Read the preferences once, for the whole run
+		final int mode = rerun == null ? fuzzersPanel.getIterationMode()
+				: rerun.getMode();
+		runConfiguration = RunConfiguration.fromPreferences(JBroFuzz.PREFS,
+				mode, sessionName);
+
+		final File sessionDirectory = new File(storage
+				.getLocationCanonicalPath());
+
+		metrics.reset();
+		metrics.startDump(sessionDirectory,
+				runConfiguration.getMetricsInterval());
+
+		final Object recording = runConfiguration.isRecordProfile()
+				? Profiler.startRecording(new File(sessionDirectory,
+						sessionName + ".jfr"))
+				: null;
+
+		getFrame().getJBroFuzz().configureEncodedPayloadCache(runConfiguration);
+
+		final FuzzingRun run;
+		if (rerun == null) {
+			run = new FuzzingRun(getFrame().getJBroFuzz().getDatabase(),
+					getFrame().getJBroFuzz().getEncodedPayloadCache(),
+					getTextURL(), getTextRequest(), mode);
+			for (int i = 0; i < fuzzers_added; i++) {
+				run.addFuzzer(fuzzersPanel.getCategory(i), fuzzersPanel
+						.getStart(i), fuzzersPanel.getEnd(i), transformsPanel
+						.getTransforms(i));
 			}
+		} else {
+			run = rerun;
+		}
+		this.run = run;
+
+		// Take turns for connections with the sessions of other panels
+		final Scheduler scheduler = getFrame().getJBroFuzz().getScheduler();
+		scheduler.setLimits(runConfiguration.getConnections(),
+				runConfiguration.getPerHost());
+		final Scheduler.Session session = scheduler.open(sessionName,
+				runConfiguration.getShare());
+		this.session = session;
+
+		// An engine for each target, so that each has connections of its own
+		final List<FuzzingEngine> engines = new ArrayList<FuzzingEngine>();
+		for (int t = 0; t < run.getTargets().length; t++) {
+			engines.add(new FuzzingEngine(runConfiguration, metrics, session));
+		}
+		senders = engines;
 
+		try {
+			run.run(engines, createListener());
+		} catch (final InterruptedException e) {
+			for (final FuzzingEngine engine : engines) {
+				engine.stop();
+			}
+		} finally {
 			try {
-				for (final Fuzzer f = getFrame().getJBroFuzz().getDatabase()
-						.createFuzzer(category, Math.abs(end - start)); f
-						.hasNext();) {
-
-					if (stopped)
-						return;
-
-					// Get the default value
-					final int showOnTheWire = JBroFuzz.PREFS.getInt(
-							JBroFuzzPrefs.FUZZINGONTHEWIRE[1].getId(), 3);
-
-					// Set the payload, has to be called before the
-					// MessageWriter constructor
-					payload = f.next();
-
-					encodedPayload = EncoderHashCore.encodeMany(payload,
-							transforms);
-
-					final MessageCreator currentMessage = new MessageCreator(
-							getTextURL(), getTextRequest(), encodedPayload,
-							start, end);
-					final MessageContainer outputMessage = new MessageContainer(
-							this);
-					outputMessage.setTextRequest(currentMessage
+				for (final FuzzingEngine engine : engines) {
+					engine.finish();
+				}
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			session.close();
+			metrics.stopDump();
+			Profiler.stopRecording(recording);
+			recordFailures(run.getFailures(), sessionDirectory);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Write the payloads of a run that got no reply to the session
+	 * directory, for the record.
+	 * </p>
+	 */
+	private static void recordFailures(final FailedPayloads failures,
+			final File sessionDirectory) {
+
+		if (failures.isEmpty()) {
+			return;
+		}
+		Logger.log(failures.size() + " requests got no reply; Panel -> "
+				+ "Re-run Failures sends them again", 2);
+		try {
+			failures.write(new File(sessionDirectory, FailedPayloads.FILE_NAME));
+		} catch (final IOException e) {
+			Logger.log("Could not write the failed requests: " + e.getMessage(), 3);
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Create the listener of a run, holding on to the current payload and
+	 * putting each message on the console as it goes out on the wire.
+	 * </p>
+	 */
+	private FuzzingRun.Listener createListener() {
+
+		final int showOnTheWire = runConfiguration.getShowOnTheWire();
+
+		return new FuzzingRun.Listener() {
+
+			public FuzzingEngine.Callback createCallback(final String series) {
+
+				return FuzzingPanel.this.createCallback(series);
+
+			}
+
+			public MessageContainer createContainer(final int series,
+					final long index, final String url, final String payload,
+					final String encodedPayload, final MessageCreator currentMessage) {
+
+				// Set the payload, has to be called before the
+				// MessageContainer constructor
+				FuzzingPanel.this.payload = payload;
+				FuzzingPanel.this.encodedPayload = encodedPayload;
+
+				final MessageContainer outputMessage = new MessageContainer(
+						FuzzingPanel.this);
+				outputMessage.setTextURL(url);
+				outputMessage.setTextRequest(currentMessage
+						.getMessageForDisplayPurposes());
+
+				// Put the message on the console as it goes out on the wire
+				if ((showOnTheWire == 1) || // 1 show only requests
+						(showOnTheWire == 3)) {// 3 show both requests and
+												// responses
+					// Show message
+					mWireTextArea.setText(currentMessage
 							.getMessageForDisplayPurposes());
+				}
+				return outputMessage;
+
+			}
+		};
+	}
+
+	/**
+	 * <p>
+	 * Create the callback updating the output table, the response times of
+	 * the given series and the storage, as each reply comes back.
+	 * </p>
+	 * 
+	 * <p>
+	 * Replies may come back from more than one sender thread; they are
+	 * recorded one at a time.
+	 * </p>
+	 * 
+	 * @param series The response time series, or null for none
+	 * @return FuzzingEngine.Callback the callback to hand to the engine
+	 */
+	private FuzzingEngine.Callback createCallback(final String series) {
+
+		final RunConfiguration configuration = runConfiguration;
+		final int showOnTheWire = configuration.getShowOnTheWire();
+
+		return new FuzzingEngine.Callback() {
+
+			public void replied(final MessageContainer outputMessage,
+					final Connection connection) {
+
+				outputMessage.setReply(connection.getDecodedReply());
+				Logger.log("received: ", outputMessage.getReply(), 3);
+
+				// Update the message writer
+				outputMessage.setConnection(connection);
+
+				// Update the console (on the wire tab) with the output
+				if ((showOnTheWire == 2) || // 2 for showing only
+											// responses
+						(showOnTheWire == 3)) {// 3 for showing requests
+												// and responses
+
+					mWireTextArea.setText(connection.getReply());
 
-					// Put the message on the console as it goes out on the wire
-					if ((showOnTheWire == 1) || // 1 show only requests
-							(showOnTheWire == 3)) {// 3 show both requests and
-													// responses
-						// Show message
-						mWireTextArea.setText(currentMessage
-								.getMessageForDisplayPurposes());
-					}
-
-					try {
-
-						// Connect
-						final Connection connection = new Connection(
-								getTextURL(), currentMessage.getMessage());
-						outputMessage.setReply(connection.getReply());
-						Logger.log("received: " + outputMessage.getReply(), 3);						
-						
-						// Update the message writer
-						outputMessage.setConnection(connection);
-
-						// Update the console (on the wire tab) with the output
-						if ((showOnTheWire == 2) || // 2 for showing only
-													// responses
-								(showOnTheWire == 3)) {// 3 for showing requests
-														// and responses
-
-							// toConsole("\n-->\n--> [JBROFUZZ FUZZING RESPONSE] -->\n-->\n");
-							mWireTextArea.setText(connection.getReply());
-
-						}
-
-						// Update the last row, indicating success
-						outputPanel.getOutputTableModel().addNewRow(
-								outputMessage);
-
-					} catch (final ConnectionException e1) {
-						// Update the message writer
-						outputMessage.setException(e1);
-
-						// Update the console (on the wire tab) with the
-						// exception
-						if ((showOnTheWire == 2) || // 2 for showing only
-													// responses
-								(showOnTheWire == 3)) {// 3 for showing requests
-														// and responses
-
-							// toConsole("\n--> [JBROFUZZ FUZZING RESPONSE] <--\n");
-							mWireTextArea
-									.setText("A connection exception occurred.");
-							outputMessage.setReply(mWireTextArea.getText());
-							Logger.log("reply set to: " + outputMessage.getReply(), 3);
-						}
-
-						// Update the last row, indicating an error
-						outputPanel.getOutputTableModel().addNewRow(
-								outputMessage);
-					}
-					this.getFrame().getJBroFuzz().getStorageHandler()
-							.writeFuzzFile(outputMessage, sessionName);
 				}
 
-			} catch (final NoSuchFuzzerException exp) {
-				Logger.log("The fuzzer could not be found...", 3);
+				// Update the last row, indicating success
+				record(series, outputMessage, configuration);
 			}
+
+			public void failed(final MessageContainer outputMessage,
+					final ConnectionException e1) {
+
+				// Update the message writer
+				outputMessage.setException(e1);
+
+				// Update the console (on the wire tab) with the
+				// exception
+				if ((showOnTheWire == 2) || // 2 for showing only
+											// responses
+						(showOnTheWire == 3)) {// 3 for showing requests
+												// and responses
+
+					mWireTextArea
+							.setText("A connection exception occurred.");
+					outputMessage.setReply("A connection exception occurred.");
+					Logger.log("reply set to: ", outputMessage.getReply(), 3);
+				}
+
+				// Update the last row, indicating an error
+				record(series, outputMessage, configuration);
+			}
+		};
+	}
+
+	private void record(final String series,
+			final MessageContainer outputMessage,
+			final RunConfiguration configuration) {
+
+		// Replies waiting here make up the storage queue
+		metrics.storeQueued();
+
+		synchronized (outputLock) {
+
+			outputPanel.getOutputTableModel().addNewRow(outputMessage);
+
+			responseTimes.record(series, outputMessage);
+
+			final Object stored = Profiler.begin(Profiler.RESULT_STORED);
+			storage.writeFuzzFile(outputMessage, configuration);
+			Profiler.commit(stored, outputMessage.getFileName());
+		}
+
+		metrics.stored();
+	}
+
+	/**
+	 * <p>
+	 * Stop any fuzzing taking place and remove the metrics of this panel
+	 * from JMX, as the panel is being closed.
+	 * </p>
+	 */
+	public void close() {
+		stop();
+		if (number != 1) {
+			metrics.unregister();
 		}
 	}
 
@@ -555,6 +824,19 @@ public class FuzzingPanel extends AbstractPanel {
 			return;
 		}
 		stopped = true;
+		// Stop generating messages and drop any that have not been sent yet
+		if (run != null) {
+			run.stop();
+		}
+		if (senders != null) {
+			for (final FuzzingEngine engine : senders) {
+				engine.stop();
+			}
+		}
+		// Turn away the requests waiting for a connection
+		if (session != null) {
+			session.close();
+		}
 		// Start, Stop, Pause, Add, Remove
 		setOptionsAvailable(true, false, false, true, true);
 		final int total = fuzzersPanel.getRowCount();
@@ -569,12 +851,30 @@ public class FuzzingPanel extends AbstractPanel {
 		urlField.setEditable(true);
 		urlField.setBackground(Color.WHITE);
 		urlField.setForeground(Color.BLACK);
+
+		// Plot the response times of the run that just finished
+		getFrame().getPanelWebDirectories().plotResponseTimes(responseTimes);
 	}
 
 	public String getPayload() {
 		return payload;
 	}
 
+	/**
+	 * <p>
+	 * Return the settings of the current run, or of the most recent one;
+	 * null if no run has been started.
+	 * </p>
+	 * 
+	 * @return RunConfiguration the run configuration
+	 * 
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	public RunConfiguration getRunConfiguration() {
+		return runConfiguration;
+	}
+
 	public String getEncodedPayload() {
 		return encodedPayload;
 	}
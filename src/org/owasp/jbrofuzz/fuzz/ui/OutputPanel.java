@@ -220,8 +220,7 @@ public class OutputPanel extends JPanel{
 
 							public String doInBackground() {
 
-								final String directory = fp.getFrame()
-										.getJBroFuzz().getStorageHandler()
+								final String directory = fp.getStorageHandler()
 										.getLocationURIString();
 								final File selFile = new File(directory, name
 										+ ".html");
@@ -245,11 +244,11 @@ public class OutputPanel extends JPanel{
 									
 									String sqlStatement1 = "Select payload from message where filename='" + name + "' and sessionId ='" + fp.getSessionName() + "'";
 									String sqlStatement2 = "Select reply from message where filename='" + name + "' and sessionId ='" + fp.getSessionName() + "'";
-									String[] result = fp.getFrame().getJBroFuzz().getStorageHandler().readTableRow(sqlStatement1);
+									String[] result = fp.getStorageHandler().readTableRow(sqlStatement1);
 									if (result.length > 0){
 										request = result[0];
 									}
-									String[] result2 = fp.getFrame().getJBroFuzz().getStorageHandler().readTableRow(sqlStatement2);
+									String[] result2 = fp.getStorageHandler().readTableRow(sqlStatement2);
 									if (result2.length > 0){
 										response = result2[0];
 									}
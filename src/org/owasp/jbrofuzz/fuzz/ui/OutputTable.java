@@ -77,6 +77,9 @@ public class OutputTable extends JTable {
 			if (i == 6) {
 				column.setPreferredWidth(60);
 			}
+			if (i > 6) {
+				column.setPreferredWidth(40);
+			}
 		}
 
 	}
@@ -33,6 +33,7 @@ import javax.swing.table.DefaultTableModel;
 
 import org.apache.commons.lang.StringUtils;
 import org.owasp.jbrofuzz.fuzz.MessageContainer;
+import org.owasp.jbrofuzz.fuzz.RequestTiming;
 
 public class OutputTableModel extends DefaultTableModel {
 
@@ -41,7 +42,8 @@ public class OutputTableModel extends DefaultTableModel {
 	// The names of the columns within the table of generators
 	private static final String[] COLUMNNAMES = { 
 		"No", "Target", "Payload", "Encoded Payload", "Status Code", 
-		"Time Taken (ms)", "Bytes Received" 
+		"Time Taken (ms)", "Bytes Received", "DNS (ms)", "Connect (ms)", 
+		"TLS (ms)", "Write (ms)", "TTFB (ms)", "Download (ms)" 
 	};
 	
 	public OutputTableModel() {
@@ -54,6 +56,9 @@ public class OutputTableModel extends DefaultTableModel {
 	}
 	
 	public void addNewRow(MessageContainer outputMessage) {
+		
+		final RequestTiming timing = outputMessage.getTiming();
+		
 		this.addRow(new Object[] {
 
 				outputMessage.getFileName(), 
@@ -62,12 +67,27 @@ public class OutputTableModel extends DefaultTableModel {
 				StringUtils.abbreviate(outputMessage.getEncodedPayload(), 50),
 				outputMessage.getStatus(),
 				StringUtils.leftPad("" + outputMessage.getResponseTime(), 5, '0'),
-				StringUtils.leftPad("" + outputMessage.getByteCount(), 8, '0')
+				StringUtils.leftPad("" + outputMessage.getByteCount(), 8, '0'),
+				getPhase(timing, RequestTiming.DNS),
+				getPhase(timing, RequestTiming.CONNECT),
+				getPhase(timing, RequestTiming.HANDSHAKE),
+				getPhase(timing, RequestTiming.WRITE),
+				getPhase(timing, RequestTiming.FIRST_BYTE),
+				getPhase(timing, RequestTiming.DOWNLOAD)
 
 		});
 		
 	}
 	
+	private static String getPhase(final RequestTiming timing, final int phase) {
+		
+		if (timing == null || timing.getMicros(phase) < 0) {
+			return "-";
+		}
+		return StringUtils.leftPad(timing.toMillisString(phase), 9, '0');
+		
+	}
+	
 	public void clearAllRows() {
 		
 		while(this.getRowCount() > 0) {
@@ -98,7 +98,7 @@ public final class RightClickPopups {
 					return;
 				}
 
-				final String sURI = mFuzzingPanel.getFrame().getJBroFuzz().getStorageHandler()
+				final String sURI = mFuzzingPanel.getStorageHandler()
 				.getLocationURIString();
 
 				Browser.init();
@@ -147,7 +147,7 @@ public final class RightClickPopups {
 				final String fileName = (String) area.getModel()
 				.getValueAt(area.convertRowIndexToModel(c), 0)
 				+ ".html";
-				final String s = mFuzzingPanel.getFrame().getJBroFuzz().getStorageHandler()
+				final String s = mFuzzingPanel.getStorageHandler()
 				.getFuzzURIString(fileName);
 
 				Browser.init();
@@ -171,7 +171,7 @@ public final class RightClickPopups {
 
 					mFuzzingPanel.clearOutputTable();
 					// Create a new directory to store all data
-					mFuzzingPanel.getFrame().getJBroFuzz().getStorageHandler()
+					mFuzzingPanel.getStorageHandler()
 					.createNewLocation();
 
 				} else {
@@ -187,7 +187,7 @@ public final class RightClickPopups {
 
 						mFuzzingPanel.clearOutputTable();
 						// Create a new directory to store all data
-						mFuzzingPanel.getFrame().getJBroFuzz().getStorageHandler().createNewLocation();
+						mFuzzingPanel.getStorageHandler().createNewLocation();
 					}
 
 				}
@@ -42,6 +42,7 @@ import javax.swing.JTextArea;
 import javax.swing.SwingConstants;
 import javax.swing.text.BadLocationException;
 
+import org.owasp.jbrofuzz.fuzz.stats.ResponseTimeStatistics;
 import org.owasp.jbrofuzz.graph.utils.DBWalker;
 import org.owasp.jbrofuzz.graph.utils.JohnyWalker;
 import org.owasp.jbrofuzz.io.StorageHandler;
@@ -183,6 +184,23 @@ public class GraphingPanel extends AbstractPanel {
 	public void pause() {
 	}
 
+	/**
+	 * <p>
+	 * Method for plotting the response time statistics of a fuzzing session,
+	 * as recorded while the session was running.
+	 * </p>
+	 * 
+	 * @param statistics the response time statistics of the session
+	 * 
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	public void plotResponseTimes(final ResponseTimeStatistics statistics) {
+
+		rightPanel.plot(statistics);
+
+	}
+
 	@Override
 	public boolean isStoppedEnabled() {
 		return stopped;
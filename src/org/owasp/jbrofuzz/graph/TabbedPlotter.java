@@ -35,6 +35,7 @@ import javax.swing.JTabbedPane;
 import javax.swing.SwingConstants;
 import javax.swing.SwingWorker;
 
+import org.owasp.jbrofuzz.fuzz.stats.ResponseTimeStatistics;
 import org.owasp.jbrofuzz.graph.canvas.HammingDistanceChart;
 import org.owasp.jbrofuzz.graph.canvas.JaccardIndexChart;
 import org.owasp.jbrofuzz.graph.canvas.ResponseHeaderSizeChart;
@@ -161,4 +162,22 @@ class TabbedPlotter extends JTabbedPane {
 
 	}
 
+	/**
+	 * <p>
+	 * Method for plotting the response time statistics recorded during a
+	 * fuzzing session on the response time tab.
+	 * </p>
+	 * 
+	 * @param statistics the response time statistics of the session
+	 * 
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	protected void plot(final ResponseTimeStatistics statistics) {
+
+		rTimeChart = new ResponseTimeChart(statistics);
+		setComponentAt(1, rTimeChart.getPlotCanvas());
+
+	}
+
 }
@@ -38,23 +38,47 @@ import org.apache.commons.io.IOUtils;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
-import org.jfree.chart.labels.StandardCategoryToolTipGenerator;
-import org.jfree.chart.plot.Plot;
+import org.jfree.chart.labels.StandardXYToolTipGenerator;
 import org.jfree.chart.plot.PlotOrientation;
-import org.jfree.chart.renderer.category.CategoryItemRenderer;
-import org.jfree.data.category.DefaultCategoryDataset;
+import org.jfree.chart.plot.XYPlot;
+import org.jfree.data.xy.XYSeries;
+import org.jfree.data.xy.XYSeriesCollection;
 import org.jfree.ui.Align;
+import org.owasp.jbrofuzz.fuzz.stats.LatencyHistogram;
+import org.owasp.jbrofuzz.fuzz.stats.ResponseTimeStatistics;
 import org.owasp.jbrofuzz.version.ImageCreator;
 
+/**
+ * <p>
+ * The response time chart, plotting p50, p90, p99 and maximum response times
+ * per time window, as well as the p99 of each fuzzer and the p50 of each
+ * phase on the wire (DNS, connect, TLS, write, TTFB, download), as a time
+ * series.
+ * </p>
+ * 
+ * <p>
+ * The chart either renders the statistics recorded live during a fuzzing 
+ * session, or statistics recreated from a directory of fuzzing output files,
+ * using the response time in each file header and the time each file was 
+ * written.
+ * </p>
+ * 
+ * @author subere@uncon.org
+ * @version 2.5
+ * @since 1.2
+ */
 public class ResponseTimeChart {
 
 	private static final int MAX_CHARS = 32;
-	// The x-axis filenames
-	private final String[] xData;
+
+	private static final double[] PERCENTILES = { 50D, 90D, 99D };
+
+	// The x-axis file timestamps
+	private final long[] xData;
 	// The y-axis data
 	private final int[] yData;
 
-	private final DefaultCategoryDataset dataset;
+	private final ResponseTimeStatistics statistics;
 
 	public ResponseTimeChart() {
 
@@ -64,10 +88,29 @@ public class ResponseTimeChart {
 
 	public ResponseTimeChart(final int size) {
 
-		xData = new String[size];
+		xData = new long[size];
 		yData = new int[size];
 
-		dataset = new DefaultCategoryDataset();
+		statistics = new ResponseTimeStatistics();
+
+	}
+
+	/**
+	 * <p>
+	 * Create a chart from statistics that have been recorded, or are being
+	 * recorded, during a fuzzing session.
+	 * </p>
+	 * 
+	 * @param statistics the response time statistics
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	public ResponseTimeChart(final ResponseTimeStatistics statistics) {
+
+		xData = new long[0];
+		yData = new int[0];
+
+		this.statistics = statistics;
 
 	}
 
@@ -126,49 +169,142 @@ public class ResponseTimeChart {
 	 * Method for creating the final Chart.
 	 * </p>
 	 * 
+	 * <p>
+	 * For charts created from output files, this records the response times
+	 * read into the statistics, earliest file first.
+	 * </p>
 	 * 
 	 * @see #ResponseTimeChart(int)
 	 * @author subere@uncon.org
-	 * @version 1.3
+	 * @version 2.5
 	 * @since 1.2
 	 */
 	public void createFinalPlotCanvas() {
 
+		int first = -1;
+		for (int i = 0; i < xData.length; i++) {
+			if (yData[i] >= 0 && (first < 0 || xData[i] < xData[first])) {
+				first = i;
+			}
+		}
+		if (first < 0) {
+			return;
+		}
+
+		statistics.record(null, xData[first], yData[first]);
+		for (int i = 0; i < xData.length; i++) {
+			if (i != first && yData[i] >= 0) {
+				statistics.record(null, xData[i], yData[i]);
+			}
+		}
+
 	}
 
 	public ChartPanel getPlotCanvas() {
 
-		final JFreeChart chart = ChartFactory.createBarChart(
-				"JBroFuzz Response Time Bar Chart", // chart title
-				"File Name", // domain axis label
+		final XYSeriesCollection dataset = new XYSeriesCollection();
+
+		final String[] names = statistics.getSeriesNames();
+		final int windows = statistics.getWindowCount();
+		final double seconds = statistics.getWindowMillis() / 1000D;
+
+		for (final double percentile : PERCENTILES) {
+			final XYSeries series = new XYSeries("p" + (int) percentile);
+			for (int w = 0; w < windows; w++) {
+				final LatencyHistogram h = 
+					statistics.getWindow(ResponseTimeStatistics.ALL, w);
+				if (h != null) {
+					series.add(w * seconds, h.getValueAtPercentile(percentile));
+				}
+			}
+			dataset.addSeries(series);
+		}
+
+		final XYSeries max = new XYSeries("max");
+		for (int w = 0; w < windows; w++) {
+			final LatencyHistogram h = 
+				statistics.getWindow(ResponseTimeStatistics.ALL, w);
+			if (h != null) {
+				max.add(w * seconds, h.getMax());
+			}
+		}
+		dataset.addSeries(max);
+
+		// One p99 series per fuzzer, if more than the total is recorded
+		for (final String name : names) {
+			if (ResponseTimeStatistics.ALL.equals(name)
+					|| ResponseTimeStatistics.isPhase(name)) {
+				continue;
+			}
+			final XYSeries series = new XYSeries("p99 " + name);
+			for (int w = 0; w < windows; w++) {
+				final LatencyHistogram h = statistics.getWindow(name, w);
+				if (h != null) {
+					series.add(w * seconds, h.getValueAtPercentile(99D));
+				}
+			}
+			dataset.addSeries(series);
+		}
+
+		// One p50 series per phase on the wire, recorded in microseconds
+		for (final String name : names) {
+			if (!ResponseTimeStatistics.isPhase(name)) {
+				continue;
+			}
+			final XYSeries series = new XYSeries("p50 "
+					+ name.substring(ResponseTimeStatistics.PHASE.length()));
+			for (int w = 0; w < windows; w++) {
+				final LatencyHistogram h = statistics.getWindow(name, w);
+				if (h != null) {
+					series.add(w * seconds,
+							h.getValueAtPercentile(50D) / 1000D);
+				}
+			}
+			dataset.addSeries(series);
+		}
+
+		final JFreeChart chart = ChartFactory.createXYLineChart(
+				"JBroFuzz Response Time Percentiles", // chart title
+				"Time (s), per " + seconds + "s window", // domain axis label
 				"Response Time (ms)", // range axis label
 				dataset, // data
 				PlotOrientation.VERTICAL, // orientation
-				false, // include legend
+				true, // include legend
 				true, // tooltips?
-				true // URLs?
+				false // URLs?
 		);
 
-		final Plot plot = chart.getPlot();
+		final XYPlot plot = chart.getXYPlot();
 		plot.setBackgroundImage(ImageCreator.IMG_OWASP_MED.getImage());
 		plot.setBackgroundImageAlignment(Align.TOP_RIGHT);
 
-		final CategoryItemRenderer renderer = 
-										chart.getCategoryPlot().getRenderer();
-		renderer.setBaseToolTipGenerator(
-									new StandardCategoryToolTipGenerator());
+		plot.getRenderer().setBaseToolTipGenerator(
+									new StandardXYToolTipGenerator());
 
 		return new ChartPanel(chart);
 
 	}
 
+	/**
+	 * <p>
+	 * Return the statistics rendered by this chart.
+	 * </p>
+	 * 
+	 * @return ResponseTimeStatistics the statistics
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	public ResponseTimeStatistics getStatistics() {
+
+		return statistics;
+
+	}
+
 	public void setValueAt(final int index, final File inputFile) {
 
-		xData[index] = inputFile.getName();
+		xData[index] = inputFile.lastModified();
 		yData[index] = calculateValue(inputFile);
 
-		dataset.addValue(yData[index], "Row 1", xData[index]);
-
 	}
 
 }
@@ -30,15 +30,28 @@
 package org.owasp.jbrofuzz.io;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+
+import org.apache.commons.io.FileUtils;
 
 import org.owasp.jbrofuzz.JBroFuzz;
 import org.owasp.jbrofuzz.core.Database;
 import org.owasp.jbrofuzz.core.NoSuchFuzzerException;
+import org.owasp.jbrofuzz.fuzz.RunConfiguration;
+import org.owasp.jbrofuzz.fuzz.dist.Coordinator;
+import org.owasp.jbrofuzz.fuzz.dist.Worker;
 import org.owasp.jbrofuzz.fuzz.io.OpenSession;
+import org.owasp.jbrofuzz.fuzz.io.SessionFile;
+import org.owasp.jbrofuzz.fuzz.loopback.LoopbackBenchmark;
+import org.owasp.jbrofuzz.fuzz.loopback.LoopbackServer;
+import org.owasp.jbrofuzz.fuzz.ui.FuzzersPanel;
 import org.owasp.jbrofuzz.ui.AbstractPanel;
 import org.owasp.jbrofuzz.ui.JBroFuzzWindow;
+import org.owasp.jbrofuzz.version.JBroFuzzPrefs;
 
 public class CommandLineInterpreter{
 
@@ -66,6 +79,14 @@ public class CommandLineInterpreter{
 		int returnValue = -1; // everything went wrong
 		boolean result = false;
 		boolean doNotFuzz = true; // stealth mode :-)
+		boolean benchmark = false;
+		String loopback = null;
+		String coordinator = null;
+		String worker = null;
+		String bind = null;
+		String secret = System.getenv("JBROFUZZ_SECRET");
+		int chunkSize = Coordinator.DEFAULT_CHUNK;
+		String wordlists = JBroFuzz.PREFS.get(JBroFuzzPrefs.DIRS[4].getId(), "");
 
 		/*
 		 * Linux commandline interface style 
@@ -113,6 +134,37 @@ public class CommandLineInterpreter{
 				printHelp();
 				System.exit(0);
 			}
+			else if (args[j].equals("-b") || args[j].equals("--benchmark")){
+				benchmark = true;
+			}
+			else if (args[j].equals("-l") || args[j].equals("--loopback")){
+				loopback = j + 1 < args.length ? args[j + 1] : "";
+			}
+			else if (args[j].equals("-c") || args[j].equals("--coordinator")){
+				coordinator = j + 1 < args.length ? args[j + 1] : "";
+			}
+			else if (args[j].equals("-cb") || args[j].equals("--bind")){
+				bind = j + 1 < args.length ? args[j + 1] : null;
+			}
+			else if (args[j].equals("-k") || args[j].equals("--secret")){
+				secret = j + 1 < args.length ? args[j + 1] : null;
+			}
+			else if (args[j].equals("-cs") || args[j].equals("--chunk")){
+				try{
+					chunkSize = Integer.valueOf(args[j + 1]);
+				}
+				catch (Exception e){
+					e.printStackTrace();
+				}
+			}
+			else if (args[j].equals("-w") || args[j].equals("--worker")){
+				worker = j + 1 < args.length ? args[j + 1] : "";
+			}
+			else if (args[j].equals("-W") || args[j].equals("--wordlist")){
+				if (j + 1 < args.length){
+					wordlists = wordlists + File.pathSeparator + args[j + 1];
+				}
+			}
 			else if (args[j].equals("-i") || args[j].equals("--input")){
 				inputFileName = args[j+1];
 			}
@@ -140,7 +192,10 @@ public class CommandLineInterpreter{
 			}
 			else{
 				if(j>0){
-					if(!(args[j-1].equals("-i") || args[j-1].equals("--input") || args[j-1].equals("-o") || args[j-1].equals("--output"))){
+					if(!(args[j-1].equals("-i") || args[j-1].equals("--input") || args[j-1].equals("-o") || args[j-1].equals("--output") || args[j-1].equals("-l") || args[j-1].equals("--loopback")
+							|| args[j-1].equals("-c") || args[j-1].equals("--coordinator") || args[j-1].equals("-cs") || args[j-1].equals("--chunk")
+							|| args[j-1].equals("-cb") || args[j-1].equals("--bind") || args[j-1].equals("-k") || args[j-1].equals("--secret")
+							|| args[j-1].equals("-w") || args[j-1].equals("--worker") || args[j-1].equals("-W") || args[j-1].equals("--wordlist"))){
 						System.out.println("jbrofuzz: Unrecognized option '"+args[j]+"'");
 						printHelp();
 						System.exit(0);
@@ -150,7 +205,21 @@ public class CommandLineInterpreter{
 			j++;
 		}
 
+		// Benchmark or serve on the loopback interface, without a window
+		if (benchmark || loopback != null){
+			return runLoopback(inputFileName, loopback == null ? "" : loopback, benchmark, wordlists);
+		}
+
+		// Coordinate or work on a distributed run, without a window
+		if (coordinator != null){
+			return runCoordinator(inputFileName, coordinator, bind, secret, chunkSize, wordlists);
+		}
+		if (worker != null){
+			return runWorker(worker, secret, wordlists);
+		}
+
 		mWindow = new JBroFuzzWindow(new JBroFuzz());
+		mWindow.getJBroFuzz().getDatabase().addWordlists(wordlists);
 
 		if (inputFileName.length() > 0 && !inputFileName.equals("")){
 			// setup new session
@@ -169,7 +238,7 @@ public class CommandLineInterpreter{
 		}
 		
 		if (fuzzers.length() > 0 || !fuzzers.endsWith("") && (fuzzersStart >= 0 && fuzzersEnd >= 0 && fuzzersEnd >= fuzzersStart)){
-			Database db = new Database();
+			Database db = createDatabase(wordlists);
 			mWindow.getJBroFuzz().setDatabase(db);
 			String fuzzerId = mWindow.getJBroFuzz().getDatabase().getIdFromName(fuzzers);
 			if (fuzzerId.length() == 0){
@@ -212,6 +281,166 @@ public class CommandLineInterpreter{
 		return returnValue;
 	}
 
+	/**
+	 * <p>Run the session of the input file against a loopback server with the
+	 * given settings and print the report or, without a session to
+	 * benchmark, serve on the loopback interface until killed.</p>
+	 * 
+	 * @param inputFileName the .jbrofuzz session file
+	 * @param settings the loopback server settings, e.g. "latency=5,https=true"
+	 * @param benchmark true to run the session, false to serve only
+	 * @param wordlists the wordlist files to add to the database
+	 * @return int resultCode  - > 0 == ok, no window to be shown
+	 * 
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	private int runLoopback(final String inputFileName, final String settings, final boolean benchmark, final String wordlists){
+		final LoopbackServer server = new LoopbackServer();
+		try {
+			server.configure(settings);
+
+			if (!benchmark){
+				server.start();
+				System.out.println("jbrofuzz: Serving on " + server.getURL() + " (" + server + "), press Ctrl-C to stop");
+				while (true){
+					Thread.sleep(Long.MAX_VALUE);
+				}
+			}
+
+			if (inputFileName.length() == 0){
+				System.out.println("jbrofuzz: A session to benchmark is required, with -i");
+				return 1;
+			}
+
+			final Database database = createDatabase(wordlists);
+			final SessionFile session = SessionFile.read(new File(inputFileName), database);
+			System.out.println("jbrofuzz: Benchmarking " + inputFileName + " with " + session.getFuzzerCount() + " fuzzer(s)");
+			System.out.print(new LoopbackBenchmark(session, server).run(database));
+		} catch (final IllegalArgumentException e){
+			System.out.println("jbrofuzz: " + e.getMessage());
+		} catch (final IOException e){
+			System.out.println("jbrofuzz: " + e.getMessage());
+		} catch (final InterruptedException e){
+			Thread.currentThread().interrupt();
+		} finally {
+			server.stop();
+		}
+		return 1;
+	}
+
+	/**
+	 * <p>Lease the payloads of the session of the input file to the workers
+	 * connecting on the given port, until every chunk is done, storing the
+	 * results as a run from the fuzzing panel would.</p>
+	 * 
+	 * @param inputFileName the .jbrofuzz session file
+	 * @param port the port to accept workers on
+	 * @param bind the address to accept workers on, null for every interface
+	 * @param secret the secret workers must present, null for a random one
+	 * @param chunkSize the number of payloads in a chunk
+	 * @param wordlists the wordlist files to add to the database
+	 * @return int resultCode  - > 0 == ok, no window to be shown
+	 * 
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	private int runCoordinator(final String inputFileName, final String port, final String bind, final String secret, final int chunkSize, final String wordlists){
+		if (inputFileName.length() == 0){
+			System.out.println("jbrofuzz: A session to coordinate is required, with -i");
+			return 1;
+		}
+		Coordinator coordinator = null;
+		try {
+			final Database database = createDatabase(wordlists);
+			final String text = FileUtils.readFileToString(new File(inputFileName), "UTF-8");
+			final SessionFile session = SessionFile.parse(text, inputFileName, database);
+			final RunConfiguration configuration = session.getConfiguration(RunConfiguration.fromPreferences(
+					JBroFuzz.PREFS, FuzzersPanel.SEQUENTIAL, "distributed-" + System.currentTimeMillis()));
+			final StorageHandler storage = new StorageHandler();
+
+			coordinator = new Coordinator(text, session.getURL(), database, configuration, storage, chunkSize);
+			if (secret != null && secret.length() > 0){
+				coordinator.setSecret(secret);
+			}
+			coordinator.start(bind, Integer.parseInt(port));
+			System.out.println("jbrofuzz: Coordinating " + inputFileName + " on " + (bind == null ? "port " : bind + ":") + coordinator.getPort());
+			if (secret == null || secret.length() == 0){
+				System.out.println("jbrofuzz: Workers must present the secret " + coordinator.getSecret() + ", with -k");
+			}
+			coordinator.await(0L);
+
+			final String location = storage.getLocationURIString();
+			System.out.println("jbrofuzz: " + coordinator.getResults() + " results in " + coordinator.getChunks() + " chunks, "
+					+ coordinator.getReleased() + " leased again, " + coordinator.getFailures().size() + " failed, stored in "
+					+ (location.length() > 0 ? location : "the database"));
+		} catch (final NumberFormatException e){
+			System.out.println("jbrofuzz: Not a port: " + port);
+		} catch (final NoSuchFuzzerException e){
+			System.out.println("jbrofuzz: " + e.getMessage());
+		} catch (final IOException e){
+			System.out.println("jbrofuzz: " + e.getMessage());
+		} catch (final InterruptedException e){
+			Thread.currentThread().interrupt();
+		} finally {
+			if (coordinator != null){
+				coordinator.stop();
+			}
+		}
+		return 1;
+	}
+
+	/**
+	 * <p>Run the chunks leased by the coordinator at the given address
+	 * until it has none left.</p>
+	 * 
+	 * @param address the coordinator, as host:port
+	 * @param secret the secret of the coordinator
+	 * @param wordlists the wordlist files to add to the database
+	 * @return int resultCode  - > 0 == ok, no window to be shown
+	 * 
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	private int runWorker(final String address, final String secret, final String wordlists){
+		final int colon = address.lastIndexOf(':');
+		try {
+			final String name = InetAddress.getLocalHost().getHostName() + "/" + ManagementFactory.getRuntimeMXBean().getName();
+			final Worker worker = new Worker(address.substring(0, colon), Integer.parseInt(address.substring(colon + 1)), createDatabase(wordlists), name);
+			if (secret != null){
+				worker.setSecret(secret);
+			}
+			worker.run();
+			System.out.println("jbrofuzz: Ran " + worker.getChunks() + " chunks for " + address);
+		} catch (final IndexOutOfBoundsException e){
+			System.out.println("jbrofuzz: Not a host:port: " + address);
+		} catch (final NumberFormatException e){
+			System.out.println("jbrofuzz: Not a host:port: " + address);
+		} catch (final NoSuchFuzzerException e){
+			System.out.println("jbrofuzz: " + e.getMessage());
+		} catch (final IOException e){
+			System.out.println("jbrofuzz: " + e.getMessage());
+		} catch (final InterruptedException e){
+			Thread.currentThread().interrupt();
+		}
+		return 1;
+	}
+
+	/**
+	 * <p>Create the database of fuzzers, with the wordlist files given.</p>
+	 * 
+	 * @param wordlists the file paths, separated by File.pathSeparator
+	 * @return Database the database
+	 * 
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	private static Database createDatabase(final String wordlists){
+		final Database database = new Database();
+		database.addWordlists(wordlists);
+		return database;
+	}
+
 	/**
 	 * Print commandline help
 	 * @author daemonmidi
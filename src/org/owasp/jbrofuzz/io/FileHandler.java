@@ -40,6 +40,7 @@ import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.owasp.jbrofuzz.JBroFuzz;
 import org.owasp.jbrofuzz.fuzz.MessageContainer;
+import org.owasp.jbrofuzz.fuzz.RunConfiguration;
 import org.owasp.jbrofuzz.graph.FileSystemTreeNode;
 import org.owasp.jbrofuzz.graph.GraphingPanel;
 import org.owasp.jbrofuzz.graph.utils.JohnyWalker;
@@ -192,21 +193,30 @@ public class FileHandler implements StorageInterface {
 		// number at the end
 		if (fuzzDirectory.exists()) {
 			
-			count++;
-			count %= 1000;
-	
-			directoryLocation.append('.');
-	
-			if (count < 10) {
-				directoryLocation.append('0');
-			}
-			if (count < 100) {
-				directoryLocation.append('0');
+			// Skip the numbers taken, e.g. by another fuzzing panel
+			final int length = directoryLocation.length();
+			for (int tries = 0; tries < 1000; tries++) {
+
+				count++;
+				count %= 1000;
+
+				directoryLocation.setLength(length);
+				directoryLocation.append('.');
+
+				if (count < 10) {
+					directoryLocation.append('0');
+				}
+				if (count < 100) {
+					directoryLocation.append('0');
+				}
+				directoryLocation.append(count);
+
+				// Create the necessary directory with the corresponding timestamp
+				fuzzDirectory = new File(directoryLocation.toString());
+				if (!fuzzDirectory.exists()) {
+					break;
+				}
 			}
-			directoryLocation.append(count);
-	
-			// Create the necessary directory with the corresponding timestamp
-			fuzzDirectory = new File(directoryLocation.toString());
 	
 			if (fuzzDirectory.exists()) {
 	
@@ -293,6 +303,13 @@ public class FileHandler implements StorageInterface {
 		}
 	}
 
+	@Override
+	public void writeFuzzFile(MessageContainer outputMessage, RunConfiguration configuration) {
+		
+		writeFuzzFile(outputMessage, configuration.getSessionId());
+		
+	}
+
 	@Override
 	public Vector<MessageContainer> readFuzzFile(String fileName, String sessionId,
 			JBroFuzzWindow mWindow) {
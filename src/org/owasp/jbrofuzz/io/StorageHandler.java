@@ -6,6 +6,7 @@ import org.owasp.jbrofuzz.JBroFuzz;
 import org.owasp.jbrofuzz.db.DBAdaptor;
 import org.owasp.jbrofuzz.db.DBAdaptorFactory;
 import org.owasp.jbrofuzz.fuzz.MessageContainer;
+import org.owasp.jbrofuzz.fuzz.RunConfiguration;
 import org.owasp.jbrofuzz.graph.FileSystemTreeNode;
 import org.owasp.jbrofuzz.graph.GraphingPanel;
 import org.owasp.jbrofuzz.graph.utils.DBWalker;
@@ -88,6 +89,20 @@ public class StorageHandler implements StorageInterface {
 	}
 	
 	
+	@Override
+	public void writeFuzzFile(MessageContainer outputMessage, RunConfiguration configuration) {
+		String runSessionId = configuration.getSessionId();
+		if (runSessionId == null || runSessionId.length() == 0){
+			runSessionId = JBroFuzz.PREFS.get("sessionId", "");
+		}
+		if (mFileHandler != null) {
+			mFileHandler.writeFuzzFile(outputMessage, runSessionId) ;
+		}
+		if (mdbAdaptor != null){
+			mdbAdaptor.store(outputMessage, runSessionId, configuration.getDatabaseName());
+		}
+	}
+	
 	@Override
 	public Vector<MessageContainer> readFuzzFile(String name, String sessionId, JBroFuzzWindow mWindow){
 		if (mFileHandler != null){
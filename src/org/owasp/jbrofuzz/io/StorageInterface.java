@@ -3,6 +3,7 @@ package org.owasp.jbrofuzz.io;
 import java.util.Vector;
 
 import org.owasp.jbrofuzz.fuzz.MessageContainer;
+import org.owasp.jbrofuzz.fuzz.RunConfiguration;
 import org.owasp.jbrofuzz.graph.FileSystemTreeNode;
 import org.owasp.jbrofuzz.graph.GraphingPanel;
 import org.owasp.jbrofuzz.ui.JBroFuzzWindow;
@@ -57,6 +58,15 @@ public interface StorageInterface {
 	public abstract String getLocationURIString();
 
 	public abstract void writeFuzzFile(MessageContainer outputMessage, String sessionName);
+
+	/**
+	 * <p>Store the outcome of a request, under the session and 
+	 * database of the given run configuration.</p>
+	 * 
+	 * @param outputMessage The message container
+	 * @param configuration The settings of the run
+	 */
+	public abstract void writeFuzzFile(MessageContainer outputMessage, RunConfiguration configuration);
 	
 	
 	public abstract Vector<MessageContainer> readFuzzFile(String fileName, String sessionId, JBroFuzzWindow mWindow);
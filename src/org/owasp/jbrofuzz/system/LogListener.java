@@ -29,15 +29,29 @@
  */
 package org.owasp.jbrofuzz.system;
 
+/**
+ * <p>
+ * Receives each line written to the log file, as it is written.
+ * </p>
+ * 
+ * <p>
+ * Lines are delivered from the thread writing the log file; listeners
+ * should hand them over to their own thread and return.
+ * </p>
+ * 
+ * @see Logger#addListener(LogListener)
+ * 
+ * @version 2.5
+ * @since 2.5
+ */
+public interface LogListener {
 
-import java.io.File;
+	/**
+	 * Method reference for a line written to the log file
+	 * 
+	 * @param line The line, without the end of line character
+	 * @param level The severity level the line was logged with
+	 */
+	void logged(String line, int level);
 
-interface FileListener{
-  /**
-   * Method reference for changing, modifying a file
-   * 
-   * @param file  File which has been changed.
-   */
-  void fileChanged(File file);
 }
-
@@ -29,15 +29,21 @@
  */
 package org.owasp.jbrofuzz.system;
 
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.RandomAccessFile;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.prefs.Preferences;
 
 import org.owasp.jbrofuzz.version.JBroFuzzPrefs;
@@ -49,17 +55,133 @@ import org.owasp.jbrofuzz.version.JBroFuzzPrefs;
  * <p>
  * Logs console events in a designated log file (/log/<date>-log.txt)
  * </p>
+ * <p>
+ * Log calls do not touch the file: messages below the threshold level are
+ * discarded before any formatting takes place and the rest are placed in a
+ * bounded buffer, written out in batches by a background thread. If the
+ * buffer is full, the message is dropped and counted rather than blocking
+ * the caller. A log file is rolled over to a numbered file once it grows
+ * beyond the maximum size, and a new one is started every day.
+ * </p>
+ * <p>
+ * Each line written is also passed on to the registered log listeners, so
+ * that the log can be displayed without reading the file back. A listener
+ * throwing does not stop the others; the first failure is logged once.
+ * </p>
  * 
  * @author ranulf@seleucus.net
- * @version 2.3
+ * @version 2.5
  * @since 2.0
  */
 public final class Logger {
 
 	private static final Preferences PREFS = Preferences.userRoot().node("owasp/jbrofuzz");
 
+	/**
+	 * <p>Arguments passed to log(String, String, int), such as replies
+	 * or payloads, are abbreviated to this many characters.</p>
+	 */
+	public static final int MAX_ARGUMENT_LENGTH = 1024;
+
+	// The number of messages held, before new ones get dropped
+	private static final int BUFFER_SIZE = 4096;
+
+	// The number of messages written in a single batch
+	private static final int BATCH_SIZE = 256;
+
+	private static final BlockingQueue<Event> BUFFER = 
+		new ArrayBlockingQueue<Event>(BUFFER_SIZE);
+
+	private static final AtomicLong DROPPED = new AtomicLong();
+
+	// The number of messages placed in the buffer
+	private static final AtomicLong ENQUEUED = new AtomicLong();
+
+	private static final List<LogListener> LISTENERS = 
+		new CopyOnWriteArrayList<LogListener>();
+
+	private static volatile int threshold = 
+		PREFS.getInt(JBroFuzzPrefs.LOGGING[0].getId(), 0);
+
+	private static final long maxFileSize = 1024L * 1024L * 
+		Math.max(1, PREFS.getInt(JBroFuzzPrefs.LOGGING[1].getId(), 8));
+
+	// Guards the writer, as well as the fields and formats below
+	private static final Object WRITE_LOCK = new Object();
+
+	private static final SimpleDateFormat LINE_FORMAT = new SimpleDateFormat(
+			"dd.MM.yyyy HH:mm:ss", new Locale("en"));
+
+	private static final SimpleDateFormat FILE_FORMAT = new SimpleDateFormat(
+			"dd.MM.yyyy", new Locale("en"));
+
 	private static File logDirectory;
 
+	// In place of the directory of the preferences, if set
+	private static File directoryOverride;
+
+	// The number of messages taken off the buffer and written
+	private static long written;
+
+	// The first failure of a log listener, reported once through the log
+	private static RuntimeException listenerFailure;
+	private static boolean listenerFailureReported;
+
+	private static Writer writer;
+	private static File writerFile;
+	private static String writerDate;
+	private static long writerLength;
+
+	// Only this thread takes messages off the buffer, keeping them in order
+	private static final Thread LOG_WRITER = new Thread(new Runnable() {
+		public void run() {
+			try {
+				while (true) {
+					final Event first = BUFFER.take();
+					synchronized (WRITE_LOCK) {
+						written++;
+						write(first);
+						drain();
+						WRITE_LOCK.notifyAll();
+					}
+				}
+			} catch (final InterruptedException e) {
+				// Stop writing
+			}
+		}
+	}, "JBroFuzz Logger");
+
+	static {
+
+		LOG_WRITER.setDaemon(true);
+		LOG_WRITER.start();
+
+		// Write out whatever is left in the buffer on exit
+		Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+			public void run() {
+				flush();
+			}
+		}, "JBroFuzz Logger Flush"));
+	}
+
+	/**
+	 * <p>A log call, as placed in the buffer.</p>
+	 */
+	private static final class Event {
+
+		private final long time;
+		private final int level;
+		private final String message;
+		private final String argument;
+
+		private Event(final int level, final String message, final String argument) {
+			this.time = System.currentTimeMillis();
+			this.level = level;
+			this.message = message;
+			this.argument = argument;
+		}
+	}
+
 	private Logger() { } // Private constructor, to avoid accidents
 	
 	/**
@@ -71,15 +193,13 @@ public final class Logger {
 	 */
 	protected static File getLogFile() throws IOException{
 		
-		Logger.checkOrCreateDirs();
-		
-		final Date currentTime = new Date();
-		final SimpleDateFormat dateTime = new SimpleDateFormat(
-				"dd.MM.yyyy", new Locale("en"));
-		final String fileName = dateTime.format(currentTime)+"-log.txt";
-		final File toWrite = new File(logDirectory, fileName);
-		
-		return toWrite;
+		synchronized (WRITE_LOCK) {
+
+			Logger.checkOrCreateDirs();
+			return new File(logDirectory, 
+					FILE_FORMAT.format(new Date()) + "-log.txt");
+
+		}
 		
 	}
 
@@ -97,6 +217,14 @@ public final class Logger {
 	 */
 	private static void checkOrCreateDirs() throws IOException{
 
+		if (directoryOverride != null) {
+			logDirectory = directoryOverride;
+			if (!logDirectory.exists() && !logDirectory.mkdirs()) {
+				throw new IOException();
+			}
+			return;
+		}
+
 		// Get the directory location from preferences
 		final boolean saveElsewhere = PREFS.getBoolean(JBroFuzzPrefs.DIRS[1].getId(), true);
 		// Use the user directory if the box is not ticked, under: "Preferences"->"Directory Locations"
@@ -107,8 +235,6 @@ public final class Logger {
 			dirString = System.getProperty("user.dir");
 		}		
 
-		new File(dirString);
-
 		final StringBuffer directoryLocation = new StringBuffer();
 		directoryLocation.append(dirString);
 		directoryLocation.append(File.separator);
@@ -131,7 +257,53 @@ public final class Logger {
 
 	}
 
-	
+	/**
+	 * <p>Write the log files to the given directory, in place of the 
+	 * one set in the preferences, e.g. when testing; null to go back 
+	 * to that one. The messages not yet written go to the new one.</p>
+	 * 
+	 * @param directory The directory of the log files, or null
+	 */
+	static void setLogDirectory(final File directory) {
+
+		synchronized (WRITE_LOCK) {
+			close();
+			directoryOverride = directory;
+		}
+
+	}
+
+	/**
+	 * <p>Check if messages of the given level will be logged, i.e. 
+	 * if the level is at or above the threshold.</p>
+	 * 
+	 * <p>Callers building an expensive message should check this 
+	 * first.</p>
+	 * 
+	 * @param level The severity level, as passed to log(String, int)
+	 * @return true if such messages are logged
+	 * 
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	public static boolean isLoggable(final int level) {
+		return level >= threshold;
+	}
+
+	/**
+	 * <p>Set the lowest severity level that gets logged; 0 logs
+	 * everything.</p>
+	 * 
+	 * @param level The threshold level
+	 * 
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	public static void setThreshold(final int level) {
+		threshold = level;
+		PREFS.putInt(JBroFuzzPrefs.LOGGING[0].getId(), level);
+	}
+
 	/**
 	 * <p>
 	 * Method for logging values within the system event log.
@@ -149,15 +321,140 @@ public final class Logger {
 	 * 
 	 */
 	public static void log(final String str, final int level){
-		final Date currentTime = new Date();
-		final SimpleDateFormat dateTime = new SimpleDateFormat(
-				"dd.MM.yyyy HH:mm:ss", new Locale("en"));
+
+		if (isLoggable(level)) {
+			enqueue(new Event(level, str, null));
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Method for logging a message followed by an argument of arbitrary
+	 * size, such as a reply or a payload.
+	 * </p>
+	 * 
+	 * <p>
+	 * The two are only joined if the message is logged, with the argument
+	 * abbreviated to MAX_ARGUMENT_LENGTH characters.
+	 * </p>
+	 * 
+	 * @param str The text to be logged
+	 * @param argument The text to be appended to str
+	 * @param level The severity level, as for log(String, int)
+	 * 
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	public static void log(final String str, final String argument, final int level){
+
+		if (isLoggable(level)) {
+			enqueue(new Event(level, str, argument));
+		}
+
+	}
+
+	/**
+	 * <p>Register a listener to receive every line written to the 
+	 * log file from now on.</p>
+	 * 
+	 * @param listener The listener to add
+	 * 
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	public static void addListener(final LogListener listener) {
+		LISTENERS.add(listener);
+	}
+
+	public static void removeListener(final LogListener listener) {
+		LISTENERS.remove(listener);
+	}
+
+	/**
+	 * <p>Write out all the messages held in the buffer, returning 
+	 * once they are in the log file.</p>
+	 * 
+	 * <p>The messages are written by the logger thread, which may already
+	 * have taken the first of them off the buffer, so that they are kept
+	 * in order; this waits for it to get past the last one.</p>
+	 */
+	public static void flush() {
+
+		// Called back from a listener, the messages are written next
+		if (Thread.currentThread() == LOG_WRITER) {
+			return;
+		}
+		final long target = ENQUEUED.get();
+		synchronized (WRITE_LOCK) {
+			while (written < target) {
+				if (!LOG_WRITER.isAlive()) {
+					drain();
+					return;
+				}
+				try {
+					WRITE_LOCK.wait(1000L);
+				} catch (final InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+
+	}
+
+	private static void enqueue(final Event event) {
+
+		if (BUFFER.offer(event)) {
+			ENQUEUED.incrementAndGet();
+		} else {
+			DROPPED.incrementAndGet();
+		}
+
+	}
+
+	// Called holding WRITE_LOCK
+	private static void drain() {
+
+		final List<Event> batch = new ArrayList<Event>(BATCH_SIZE);
+		while (BUFFER.drainTo(batch, BATCH_SIZE) > 0) {
+			written += batch.size();
+			for (final Event event : batch) {
+				write(event);
+			}
+			batch.clear();
+		}
+
+		final long dropped = DROPPED.getAndSet(0L);
+		if (dropped > 0L) {
+			write(new Event(2, dropped + " log messages were dropped, as the log buffer was full", null));
+		}
+
+		if ((listenerFailure != null) && !listenerFailureReported) {
+			listenerFailureReported = true;
+			write(new Event(2, "A log listener failed, further failures are not reported: ", 
+					listenerFailure.toString()));
+		}
+
+		try {
+			if (writer != null) {
+				writer.flush();
+			}
+		} catch (final IOException e) {
+			close();
+		}
+
+	}
+
+	// Called holding WRITE_LOCK
+	private static void write(final Event event) {
 
 		final StringBuffer toLog = new StringBuffer();
 		toLog.append('[');
-		toLog.append(dateTime.format(currentTime));
+		toLog.append(LINE_FORMAT.format(new Date(event.time)));
 		toLog.append(']');
 
+		final int level = event.level;
 		if (level <= 0) {
 			toLog.append(" [INFO] ");
 		} else if (level == 1) {
@@ -169,55 +466,104 @@ public final class Logger {
 		} else {
 			toLog.append(" [ERRR] ");
 		}
-		toLog.append(str);
+		toLog.append(event.message);
+		if (event.argument != null) {
+			if (event.argument.length() > MAX_ARGUMENT_LENGTH) {
+				toLog.append(event.argument, 0, MAX_ARGUMENT_LENGTH);
+				toLog.append("... [");
+				toLog.append(event.argument.length());
+				toLog.append(" characters]");
+			} else {
+				toLog.append(event.argument);
+			}
+		}
+
+		for (final LogListener listener : LISTENERS) {
+			try {
+				listener.logged(toLog.toString(), level);
+			} catch (final RuntimeException e) {
+				if (listenerFailure == null) {
+					listenerFailure = e;
+				}
+			}
+		}
+
 		toLog.append('\n');
 
 		// append the contents to the current log file
 		try{
-			appendToLogFile(toLog.toString());
+			appendToLogFile(event.time, toLog.toString());
 		}catch(final IOException ioe){
+			close();
 			ioe.printStackTrace();
 		}
 
-
 	}
 
+	// Called holding WRITE_LOCK
+	private static void appendToLogFile(final long time, final String line) throws IOException {
 
-	private static void appendToLogFile(final String error) throws IOException {
-		checkOrCreateDirs();
-		final Date currentTime = new Date();
-		final SimpleDateFormat dateTime = new SimpleDateFormat(
-				"dd.MM.yyyy", new Locale("en"));
-		final String fileName = dateTime.format(currentTime)+"-log.txt";
-		final File toWrite = new File(logDirectory, fileName);
-		try {
-			
-			final FileWriter fWriter = new FileWriter(toWrite,true);
-			fWriter.write(error);
-			fWriter.close();
-			
-		} catch (final IOException e) {
-			throw new IOException();
+		final String date = FILE_FORMAT.format(new Date(time));
+
+		// A new day, or the last write failed
+		if ((writer == null) || !date.equals(writerDate)) {
+			close();
+			open(date);
 		}
 
+		if (writerLength + line.length() > maxFileSize) {
+			close();
+			roll();
+			open(date);
+		}
+
+		writer.write(line);
+		writerLength += line.length();
 
 	}
 
-	protected static ArrayList<String> readLogFile(final long oldLength) 
-									throws FileNotFoundException, IOException{
-		
-		final RandomAccessFile rFile = new RandomAccessFile(getLogFile(),"r");
-		rFile.seek(oldLength);
-		
-		final ArrayList<String> lines = new ArrayList<String>();
-		String line;
+	// Called holding WRITE_LOCK
+	private static void open(final String date) throws IOException {
+
+		checkOrCreateDirs();
+		writerFile = new File(logDirectory, date + "-log.txt");
+		writerDate = date;
+		writerLength = writerFile.length();
+		writer = new BufferedWriter(new OutputStreamWriter(
+				new FileOutputStream(writerFile, true)));
+
+	}
+
+	// Called holding WRITE_LOCK, with the writer closed
+	private static void roll() {
 
-		while((line = rFile.readLine())!= null){
-			lines.add(line);
+		final String name = writerFile.getName();
+		final String base = name.substring(0, name.length() - ".txt".length());
 
+		int count = 1;
+		File rolled = new File(logDirectory, base + "." + count + ".txt");
+		while (rolled.exists()) {
+			count++;
+			rolled = new File(logDirectory, base + "." + count + ".txt");
 		}
 
-		return lines;
+		if (!writerFile.renameTo(rolled)) {
+			System.err.println("Could not roll over log file: " + writerFile);
+		}
+
+	}
+
+	// Called holding WRITE_LOCK
+	private static void close() {
+
+		if (writer != null) {
+			try {
+				writer.close();
+			} catch (final IOException e) {
+				// Already failing; reopened on the next write
+			}
+			writer = null;
+		}
 
 	}
 
@@ -0,0 +1,463 @@
+/**
+ * JbroFuzz 2.5
+ *
+ * JBroFuzz - A stateless network protocol fuzzer for web applications.
+ * 
+ * Copyright (C) 2007 - 2010 subere@uncon.org
+ *
+ * This file is part of JBroFuzz.
+ * 
+ * JBroFuzz is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * JBroFuzz is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with JBroFuzz.  If not, see <http://www.gnu.org/licenses/>.
+ * Alternatively, write to the Free Software Foundation, Inc., 51 
+ * Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Verbatim copying and distribution of this entire program file is 
+ * permitted in any medium without royalty provided this notice 
+ * is preserved. 
+ * 
+ */
+package org.owasp.jbrofuzz.system;
+
+import java.io.File;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>
+ * JDK Flight Recorder events for the lifecycle of a fuzzing request, and
+ * a recording of them, together with the usual JVM events, per session.
+ * </p>
+ * 
+ * <p>
+ * JBroFuzz is built for Java 6, while the jdk.jfr API only exists from
+ * Java 8u262 and Java 11 on. The event types are therefore created at
+ * runtime through the jdk.jfr.EventFactory, using reflection. On a JVM
+ * without Flight Recorder, every method of this class does nothing.
+ * </p>
+ * 
+ * <p>
+ * An event is timed as follows:
+ * </p>
+ * <code>
+ * final Object event = Profiler.begin(Profiler.REQUEST_SENT);
+ * ...
+ * Profiler.commit(event, url, bytes);
+ * </code>
+ * <p>
+ * When no recording has the event enabled, begin() returns null after
+ * reading a single volatile field, and commit() returns at once.
+ * </p>
+ * 
+ * @version 2.5
+ * @since 2.5
+ */
+public final class Profiler {
+
+	/**
+	 * <p>A payload taken from a fuzzer: fuzzer, index.</p>
+	 */
+	public static final int PAYLOAD_GENERATED = 0;
+
+	/**
+	 * <p>The transforms applied to a payload: fuzzer, payload length.</p>
+	 */
+	public static final int TRANSFORM_APPLIED = 1;
+
+	/**
+	 * <p>A message built around a payload: url, message length.</p>
+	 */
+	public static final int MESSAGE_CREATED = 2;
+
+	/**
+	 * <p>A request put on the wire and its reply read: url, bytes sent.</p>
+	 */
+	public static final int REQUEST_SENT = 3;
+
+	/**
+	 * <p>A reply, or an error, being handled: url, status, bytes received.</p>
+	 */
+	public static final int RESPONSE_RECEIVED = 4;
+
+	/**
+	 * <p>A result written to storage: file name.</p>
+	 */
+	public static final int RESULT_STORED = 5;
+
+	private static final String[] NAMES = { 
+		"PayloadGenerated", "TransformApplied", "MessageCreated", 
+		"RequestSent", "ResponseReceived", "ResultStored" 
+	};
+
+	private static final String[] LABELS = { 
+		"Payload Generated", "Transform Applied", "Message Created", 
+		"Request Sent", "Response Received", "Result Stored" 
+	};
+
+	private static final String[][] FIELDS = {
+		{ "fuzzer", "index" },
+		{ "fuzzer", "length" },
+		{ "url", "length" },
+		{ "url", "bytes" },
+		{ "url", "status", "bytes" },
+		{ "name" }
+	};
+
+	private static final Class<?>[][] TYPES = {
+		{ String.class, long.class },
+		{ String.class, int.class },
+		{ String.class, int.class },
+		{ String.class, int.class },
+		{ String.class, String.class, int.class },
+		{ String.class }
+	};
+
+	/**
+	 * <p>The prefix of the name of each event, as shown by JDK Mission 
+	 * Control or the jfr tool.</p>
+	 */
+	public static final String PREFIX = "org.owasp.jbrofuzz.";
+
+	// One jdk.jfr.EventFactory per event, null without Flight Recorder
+	private static final Object[] FACTORIES = new Object[NAMES.length];
+
+	private static Method newEvent;
+
+	private static Method isEnabled;
+
+	private static Method getEventType;
+
+	private static Method begin;
+
+	private static Method end;
+
+	private static Method set;
+
+	private static Method commit;
+
+	private static boolean available;
+
+	// One bit per event type enabled in a running recording
+	private static volatile int enabled;
+
+	static {
+		try {
+			init();
+			available = true;
+			refresh();
+		} catch (final ClassNotFoundException e) {
+			// No Flight Recorder, nothing to profile
+		} catch (final Exception e) {
+			Logger.log("Could not create the Flight Recorder events: " + e, 2);
+		} catch (final LinkageError e) {
+			Logger.log("Could not create the Flight Recorder events: " + e, 2);
+		}
+	}
+
+	private Profiler() {
+
+	}
+
+	private static void init() throws Exception {
+
+		final Class<?> factoryClass = Class.forName("jdk.jfr.EventFactory");
+		final Class<?> annotationClass = Class.forName("jdk.jfr.AnnotationElement");
+		final Class<?> descriptorClass = Class.forName("jdk.jfr.ValueDescriptor");
+		final Class<?> eventClass = Class.forName("jdk.jfr.Event");
+		final Class<?> typeClass = Class.forName("jdk.jfr.EventType");
+		final Class<?> nameClass = Class.forName("jdk.jfr.Name");
+		final Class<?> labelClass = Class.forName("jdk.jfr.Label");
+		final Class<?> categoryClass = Class.forName("jdk.jfr.Category");
+		final Class<?> stackTraceClass = Class.forName("jdk.jfr.StackTrace");
+
+		final Constructor<?> annotation = annotationClass
+				.getConstructor(Class.class, Object.class);
+		final Constructor<?> descriptor = descriptorClass
+				.getConstructor(Class.class, String.class);
+		final Method create = factoryClass.getMethod("create", List.class, List.class);
+
+		for (int i = 0; i < NAMES.length; i++) {
+
+			final List<Object> annotations = new ArrayList<Object>();
+			annotations.add(annotation.newInstance(nameClass, PREFIX + NAMES[i]));
+			annotations.add(annotation.newInstance(labelClass, LABELS[i]));
+			annotations.add(annotation.newInstance(categoryClass, 
+					new String[] { "JBroFuzz" }));
+			// The stack would only show the reflection used to commit
+			annotations.add(annotation.newInstance(stackTraceClass, Boolean.FALSE));
+
+			final List<Object> fields = new ArrayList<Object>();
+			for (int j = 0; j < FIELDS[i].length; j++) {
+				fields.add(descriptor.newInstance(TYPES[i][j], FIELDS[i][j]));
+			}
+
+			FACTORIES[i] = create.invoke(null, annotations, fields);
+		}
+
+		newEvent = factoryClass.getMethod("newEvent");
+		getEventType = factoryClass.getMethod("getEventType");
+		isEnabled = typeClass.getMethod("isEnabled");
+		begin = eventClass.getMethod("begin");
+		end = eventClass.getMethod("end");
+		set = eventClass.getMethod("set", int.class, Object.class);
+		commit = eventClass.getMethod("commit");
+
+		// Keep the enabled bits up to date as recordings start and stop
+		final Class<?> recorderClass = Class.forName("jdk.jfr.FlightRecorder");
+		final Class<?> listenerClass = Class.forName("jdk.jfr.FlightRecorderListener");
+		final Object listener = Proxy.newProxyInstance(
+				Profiler.class.getClassLoader(), new Class<?>[] { listenerClass },
+				new InvocationHandler() {
+					public Object invoke(final Object proxy, final Method method,
+							final Object[] args) {
+						if (method.getName().equals("hashCode")) {
+							return Integer.valueOf(System.identityHashCode(proxy));
+						}
+						if (method.getName().equals("equals")) {
+							return Boolean.valueOf(proxy == args[0]);
+						}
+						if (method.getName().equals("toString")) {
+							return "JBroFuzz Profiler";
+						}
+						refresh();
+						return null;
+					}
+				});
+		recorderClass.getMethod("addListener", listenerClass).invoke(null, listener);
+
+	}
+
+	/**
+	 * <p>Read which event types are enabled by the recordings running.</p>
+	 */
+	private static void refresh() {
+
+		if (!available) {
+			return;
+		}
+		int mask = 0;
+		try {
+			for (int i = 0; i < FACTORIES.length; i++) {
+				final Object type = getEventType.invoke(FACTORIES[i]);
+				if (((Boolean) isEnabled.invoke(type)).booleanValue()) {
+					mask |= 1 << i;
+				}
+			}
+		} catch (final Exception e) {
+			mask = 0;
+		}
+		enabled = mask;
+
+	}
+
+	/**
+	 * <p>Return true if events can be recorded on this JVM.</p>
+	 * 
+	 * @return boolean true if Flight Recorder is available
+	 */
+	public static boolean isAvailable() {
+
+		return available;
+
+	}
+
+	/**
+	 * <p>Start timing an event.</p>
+	 * 
+	 * @param type the event type, e.g. REQUEST_SENT
+	 * @return Object the event to commit, or null if not enabled
+	 */
+	public static Object begin(final int type) {
+
+		if ((enabled & (1 << type)) == 0) {
+			return null;
+		}
+		try {
+			final Object event = newEvent.invoke(FACTORIES[type]);
+			begin.invoke(event);
+			return event;
+		} catch (final Exception e) {
+			return null;
+		}
+
+	}
+
+	/**
+	 * <p>Stop timing an event with a single field, e.g. RESULT_STORED, and
+	 * commit it.</p>
+	 * 
+	 * @param event the event returned by begin(), or null
+	 * @param name the first field
+	 */
+	public static void commit(final Object event, final String name) {
+
+		if (event != null) {
+			commit(event, new Object[] { name });
+		}
+
+	}
+
+	/**
+	 * <p>Stop timing an event with a text and a number field, e.g.
+	 * REQUEST_SENT, and commit it.</p>
+	 * 
+	 * @param event the event returned by begin(), or null
+	 * @param name the first field
+	 * @param value the second field
+	 */
+	public static void commit(final Object event, final String name,
+			final int value) {
+
+		if (event != null) {
+			commit(event, new Object[] { name, Integer.valueOf(value) });
+		}
+
+	}
+
+	/**
+	 * <p>Stop timing a PAYLOAD_GENERATED event and commit it.</p>
+	 * 
+	 * @param event the event returned by begin(), or null
+	 * @param name the first field
+	 * @param value the second field
+	 */
+	public static void commit(final Object event, final String name,
+			final long value) {
+
+		if (event != null) {
+			commit(event, new Object[] { name, Long.valueOf(value) });
+		}
+
+	}
+
+	/**
+	 * <p>Stop timing a RESPONSE_RECEIVED event and commit it.</p>
+	 * 
+	 * @param event the event returned by begin(), or null
+	 * @param name the first field
+	 * @param status the second field
+	 * @param value the third field
+	 */
+	public static void commit(final Object event, final String name,
+			final String status, final int value) {
+
+		if (event != null) {
+			commit(event, new Object[] { name, status, Integer.valueOf(value) });
+		}
+
+	}
+
+	/**
+	 * <p>Stop timing an event, set its fields, in the order listed for its
+	 * type, and commit it.</p>
+	 */
+	private static void commit(final Object event, final Object[] values) {
+
+		try {
+			end.invoke(event);
+			for (int i = 0; i < values.length; i++) {
+				set.invoke(event, Integer.valueOf(i), values[i]);
+			}
+			commit.invoke(event);
+		} catch (final Exception e) {
+			// Drop the event
+		}
+
+	}
+
+	/**
+	 * <p>Start a recording of the JBroFuzz events together with the JVM
+	 * events of the "profile" configuration, to be written to the given
+	 * file once stopRecording() is called with the recording returned.</p>
+	 * 
+	 * <p>Each session has a recording of its own, so that sessions running
+	 * alongside each other do not stop one another's recording.</p>
+	 * 
+	 * @param file the .jfr file to write to
+	 * @return Object the recording started, or null if none could be
+	 */
+	public static synchronized Object startRecording(final File file) {
+
+		if (!available) {
+			Logger.log("Flight Recorder is not available on this JVM", 2);
+			return null;
+		}
+		try {
+			final Class<?> configurationClass = Class.forName("jdk.jfr.Configuration");
+			final Class<?> recordingClass = Class.forName("jdk.jfr.Recording");
+			final Object configuration = configurationClass.getMethod(
+					"getConfiguration", String.class).invoke(null, "profile");
+
+			final Object created = recordingClass.getConstructor(configurationClass)
+					.newInstance(configuration);
+			recordingClass.getMethod("setName", String.class).invoke(created, 
+					"JBroFuzz " + file.getName());
+			final Method enable = recordingClass.getMethod("enable", String.class);
+			for (final String name : NAMES) {
+				enable.invoke(created, PREFIX + name);
+			}
+			final Object path = File.class.getMethod("toPath").invoke(file);
+			recordingClass.getMethod("setDestination", 
+					Class.forName("java.nio.file.Path")).invoke(created, path);
+			recordingClass.getMethod("start").invoke(created);
+
+			refresh();
+			Logger.log("Recording profile to " + file, 1);
+			return created;
+
+		} catch (final Exception e) {
+			Logger.log("Could not start the profile recording: " + e, 3);
+			return null;
+		}
+
+	}
+
+	/**
+	 * <p>Stop a recording returned by startRecording(), writing it to its
+	 * file. The recordings of other sessions keep running.</p>
+	 * 
+	 * @param recording the recording to stop, or null
+	 */
+	public static synchronized void stopRecording(final Object recording) {
+
+		if (recording == null) {
+			return;
+		}
+		try {
+			final Class<?> recordingClass = recording.getClass();
+			recordingClass.getMethod("stop").invoke(recording);
+			recordingClass.getMethod("close").invoke(recording);
+		} catch (final Exception e) {
+			Logger.log("Could not stop the profile recording: " + e, 3);
+		}
+		refresh();
+
+	}
+
+	/**
+	 * <p>Return the names of the events, without the prefix.</p>
+	 * 
+	 * @return List the event names
+	 */
+	public static List<String> getEventNames() {
+
+		return Arrays.asList(NAMES);
+
+	}
+
+}
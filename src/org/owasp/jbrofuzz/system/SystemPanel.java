@@ -33,19 +33,20 @@ import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.FlowLayout;
 import java.awt.Font;
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.swing.BorderFactory;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JSplitPane;
 import javax.swing.JTextPane;
+import javax.swing.SwingUtilities;
 import javax.swing.text.BadLocationException;
 import javax.swing.text.DefaultStyledDocument;
 import javax.swing.text.SimpleAttributeSet;
@@ -72,8 +73,26 @@ public class SystemPanel extends AbstractPanel {
 	private final JTextPane listTextArea;
 
 	private final DefaultStyledDocument styleDoc;
-	// The line count
-	private int lineCount;
+
+	// The number of characters kept in the log area
+	private static final int MAX_DOCUMENT_LENGTH = 256 * 1024;
+
+	// The lines logged, yet to be displayed
+	private final BlockingQueue<Line> pending = 
+		new ArrayBlockingQueue<Line>(4096);
+	// True while a display update is waiting to run
+	private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+	// A line logged, together with its severity level
+	private static final class Line {
+		private final String text;
+		private final int level;
+
+		private Line(final String text, final int level) {
+			this.text = text;
+			this.level = level;
+		}
+	}
 
 	/**
 	 * Constructor for the System Logger Panel of the represented as a tab. Only
@@ -85,7 +104,6 @@ public class SystemPanel extends AbstractPanel {
 	public SystemPanel(final JBroFuzzWindow m) {
 
 		super(" System ", m);
-		lineCount = 0;
 
 		// Set the enabled options: Start, Stop, Graph, Add, Remove
 		setOptionsAvailable(true, false, true, true, false);
@@ -164,12 +182,12 @@ public class SystemPanel extends AbstractPanel {
 	/**
 	 * <p>
 	 * Method for setting the text within the JTextArea displayed as part of
-	 * this panel. This method simply appends any string given adding a new line
-	 * (\n) to the end of it.
+	 * this panel. This method simply appends any string given, in the colour
+	 * of the level given.
 	 * </p>
 	 * 
 	 * @param str
-	 *            String
+	 *            String One or more lines, each ending in a new line (\n)
 	 * 
 	 * @param level
 	 *            The severity level<br>
@@ -180,12 +198,10 @@ public class SystemPanel extends AbstractPanel {
 	 *            >= 4 => [ERRR] Red Error<br>
 	 *            
 	 * @author subere@uncon.org
-	 * @version 2.1
+	 * @version 2.5
 	 * @since 1.8
 	 */
-	private void start(final String str, final int level) {
-
-		final StringBuffer toLog = new StringBuffer();
+	private void insert(final String str, final int level) {
 
 		Color cColour;
 		if (level <= 0) {
@@ -199,18 +215,12 @@ public class SystemPanel extends AbstractPanel {
 		} else {
 			cColour = Color.RED;
 		}
-		toLog.append(str);
-		toLog.append('\n');
 
-		lineCount++;
-		lineCount %= 10;
-		
 		try {
 
 			final SimpleAttributeSet attr = new SimpleAttributeSet();
 			StyleConstants.setForeground(attr, cColour);
-			styleDoc.insertString(styleDoc.getLength(), toLog.toString(), attr);
-			listTextArea.setCaretPosition(styleDoc.getLength());
+			styleDoc.insertString(styleDoc.getLength(), str, attr);
 		} catch (final BadLocationException ex) {
 
 			ex.printStackTrace();
@@ -246,53 +256,77 @@ public class SystemPanel extends AbstractPanel {
 
 	private final void monitorLog(){
 
-		// Create the monitor with 1 second polling interval
-		final SimpleFileMonitor monitor;
-		try {
-			monitor = new SimpleFileMonitor (1000, Logger.getLogFile());
+		Logger.addListener(new LogListener() {
 
-			monitor.addListener (new FileListener(){
+			public void logged(final String line, final int level) {
 
-				@Override
-				public void fileChanged(final File file) {
-					writeLinesFromFile(monitor);
+				// Keep the most recent lines, if the display falls behind
+				while (!pending.offer(new Line(line, level))) {
+					pending.poll();
 				}
-			});
-		} catch (final IOException e) {
-			start("Log file is corrupted or does not exist", 4);
-		}
 
+				if (!scheduled.getAndSet(true)) {
+					SwingUtilities.invokeLater(new Runnable() {
+						public void run() {
+							scheduled.set(false);
+							writePendingLines();
+						}
+					});
+				}
+			}
+		});
 
 	}
-	
-	private void writeLinesFromFile(final SimpleFileMonitor monitor){
-		
+
+	/**
+	 * <p>
+	 * Append the lines received since the last call, in one pass, and trim
+	 * the start of the document beyond MAX_DOCUMENT_LENGTH characters.
+	 * </p>
+	 * 
+	 * <p>
+	 * Runs on the event dispatch thread.
+	 * </p>
+	 */
+	private void writePendingLines(){
+
+		final ArrayList<Line> lines = new ArrayList<Line>();
+		pending.drainTo(lines);
+		if (lines.isEmpty()) {
+			return;
+		}
+
+		// Consecutive lines of the same level are inserted together
+		final StringBuffer toLog = new StringBuffer();
+		int level = lines.get(0).level;
+		for (final Line line : lines) {
+			if (line.level != level) {
+				insert(toLog.toString(), level);
+				toLog.setLength(0);
+				level = line.level;
+			}
+			toLog.append(line.text);
+			toLog.append('\n');
+		}
+		insert(toLog.toString(), level);
+
 		try {
-			final long length = monitor.getLastLength();
-
-			final ArrayList<String> linesToWrite = Logger.readLogFile(length);
-			for(int i=0; i<linesToWrite.size(); i++) {
-				
-				final String line = linesToWrite.get(i);
-				if (line.indexOf("[INFO]")!=-1) {
-					start(line,0);
-				}else if (line.indexOf("[OPPR]")!=-1) {
-					start(line,1);
-				}else if (line.indexOf("[WARN]")!=-1) {
-					start(line,2);
-				}else if (line.indexOf("[SHOT]")!=-1) {
-					start(line,3);
-				}else {
-					start(line,4);
-				}
-				
+
+			final int excess = styleDoc.getLength() - MAX_DOCUMENT_LENGTH;
+			if (excess > 0) {
+				// Remove whole lines from the start
+				final String text = styleDoc.getText(excess, 
+						Math.min(1024, styleDoc.getLength() - excess));
+				final int eol = text.indexOf('\n');
+				styleDoc.remove(0, (eol == -1) ? excess : excess + eol + 1);
 			}
 
+		} catch (final BadLocationException ex) {
+
+			ex.printStackTrace();
 
-		} catch (final FileNotFoundException e) {
-			start("Log file not found",4);
-		} catch (final IOException e) {
-			start("Error reading log file",4);
 		}
+
+		listTextArea.setCaretPosition(styleDoc.getLength());
 	}
-}
\ No newline at end of file
+}
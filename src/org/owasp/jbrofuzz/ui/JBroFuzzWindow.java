@@ -35,6 +35,8 @@ import java.awt.Dimension;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.prefs.Preferences;
 
 import javax.swing.BorderFactory;
@@ -117,6 +119,15 @@ public class JBroFuzzWindow extends JFrame {
 	// The main fuzzing panel
 	private final FuzzingPanel fp;
 
+	// All the fuzzing panels, the main one first
+	private final List<FuzzingPanel> fuzzingPanels;
+
+	// The fuzzing panel most recently selected
+	private volatile FuzzingPanel currentFuzzing;
+
+	// The number of the next fuzzing panel
+	private int nextFuzzing;
+
 	// The system logger panel
 	private final SystemPanel cp;
 
@@ -160,6 +171,10 @@ public class JBroFuzzWindow extends JFrame {
 		// The panels must be below the toolBar and menuBar
 		gp = new GraphingPanel(this);
 		fp = new FuzzingPanel(this);
+		fuzzingPanels = new ArrayList<FuzzingPanel>();
+		fuzzingPanels.add(fp);
+		currentFuzzing = fp;
+		nextFuzzing = 2;
 		pp = new PayloadsPanel(this);
 		cp = new SystemPanel(this);
 		
@@ -194,6 +209,10 @@ public class JBroFuzzWindow extends JFrame {
 				final int c = pane.getSelectedIndex();
 				if (c >= 0) {
 
+					if (pane.getComponent(c) instanceof FuzzingPanel) {
+						currentFuzzing = (FuzzingPanel) pane.getComponent(c);
+					}
+
 					final boolean[] b = new boolean[5];
 					b[0] = ((AbstractPanel) pane.getComponent(c))
 					.isStartedEnabled();
@@ -277,7 +296,9 @@ public class JBroFuzzWindow extends JFrame {
 	 */
 	public void closeFrame() {
 
-		fp.stop();
+		for (final FuzzingPanel panel : getPanelsFuzzing()) {
+			panel.stop();
+		}
 		gp.stop();
 		pp.stop();
 		cp.stop();
@@ -378,10 +399,94 @@ public class JBroFuzzWindow extends JFrame {
 	 * this frame window.
 	 * </p>
 	 * 
+	 * <p>
+	 * With more than one fuzzing panel open, this is the one most recently
+	 * selected, which the File and Panel menus act on.
+	 * </p>
+	 * 
 	 * @return mFuzzingPanel
 	 */
 	public FuzzingPanel getPanelFuzzing() {
-		return fp;
+		return currentFuzzing;
+	}
+
+	/**
+	 * <p>
+	 * Return all the fuzzing panels of this window, the main one first.
+	 * </p>
+	 * 
+	 * @return List of FuzzingPanel
+	 * 
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	public List<FuzzingPanel> getPanelsFuzzing() {
+		synchronized (fuzzingPanels) {
+			return new ArrayList<FuzzingPanel>(fuzzingPanels);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Open a further fuzzing panel, e.g. " Fuzzing 2 ", for a session
+	 * running alongside the others, and select it.
+	 * </p>
+	 * 
+	 * @return FuzzingPanel the panel opened
+	 * 
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	public FuzzingPanel addPanelFuzzing() {
+
+		final FuzzingPanel panel = new FuzzingPanel(this, nextFuzzing++);
+		synchronized (fuzzingPanels) {
+			fuzzingPanels.add(panel);
+		}
+		tp.insertTab(panel.getName(), null, panel, null, getFuzzingTabIndex());
+		tp.setSelectedComponent(panel);
+		return panel;
+
+	}
+
+	/**
+	 * <p>
+	 * Stop and close the given fuzzing panel, other than the main one,
+	 * which is only ever hidden.
+	 * </p>
+	 * 
+	 * @param panel The panel to close
+	 * 
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	public void removePanelFuzzing(final FuzzingPanel panel) {
+
+		if (panel == fp) {
+			return;
+		}
+		panel.close();
+		synchronized (fuzzingPanels) {
+			fuzzingPanels.remove(panel);
+		}
+		tp.remove(panel);
+		if (currentFuzzing == panel) {
+			currentFuzzing = fp;
+		}
+
+	}
+
+	// The index after the last fuzzing panel in the tabbed pane
+	private int getFuzzingTabIndex() {
+
+		int index = 0;
+		for (int i = 0; i < tp.getTabCount(); i++) {
+			if (tp.getComponentAt(i) instanceof FuzzingPanel) {
+				index = i + 1;
+			}
+		}
+		return index;
+
 	}
 
 	/**
@@ -580,10 +685,11 @@ public class JBroFuzzWindow extends JFrame {
 
 		if (n == JBroFuzzWindow.ID_PANEL_FUZZING) {
 
-			if (!isTabOpen(fp.getName())) {
-				tp.addTab(fp.getName(), fp);
+			final FuzzingPanel current = currentFuzzing;
+			if (!isTabOpen(current.getName())) {
+				tp.addTab(current.getName(), current);
 			}
-			tp.setSelectedComponent(fp);
+			tp.setSelectedComponent(current);
 		}
 
 		if (n == JBroFuzzWindow.ID_PANEL_SYSTEM) {
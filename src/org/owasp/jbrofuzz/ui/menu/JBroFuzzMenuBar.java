@@ -48,6 +48,7 @@ import javax.swing.SwingWorker;
 import javax.swing.UIManager;
 import javax.swing.UnsupportedLookAndFeelException;
 
+import org.owasp.jbrofuzz.fuzz.ui.FuzzingPanel;
 import org.owasp.jbrofuzz.system.Logger;
 import org.owasp.jbrofuzz.ui.AbstractPanel;
 import org.owasp.jbrofuzz.ui.JBroFuzzWindow;
@@ -79,7 +80,7 @@ public class JBroFuzzMenuBar extends JMenuBar {
 	// The menu items
 	private final JMenu view, panel, options; // , help;
 	// Used under the Panel JMenu as items
-	private final JMenuItem start, pause, stop, add, remove;
+	private final JMenuItem start, pause, stop, rerun, add, remove;
 	// Used under the view JMenu as items
 	private final JCheckBoxMenuItem graphing, fuzzing, payloads, system;
 	
@@ -232,6 +233,7 @@ public class JBroFuzzMenuBar extends JMenuBar {
 		pause.setEnabled(false);
 
 		stop = new JMenuItem("Stop", ImageCreator.IMG_STOP);
+		rerun = new JMenuItem("Re-run Failures");
 		add = new JMenuItem("Add", ImageCreator.IMG_ADD);
 		remove = new JMenuItem("Remove", ImageCreator.IMG_REMOVE);
 
@@ -249,10 +251,21 @@ public class JBroFuzzMenuBar extends JMenuBar {
 		panel.add(start);
 		panel.add(pause);
 		panel.add(stop);
+		panel.add(rerun);
 		panel.addSeparator();
 		panel.add(add);
 		panel.add(remove);
 
+		final JMenuItem newFuzzing = new JMenuItem("New Fuzzing Tab");
+		final JMenuItem closeFuzzing = new JMenuItem("Close Fuzzing Tab");
+
+		newFuzzing.setAccelerator(KeyStroke.getKeyStroke('T', Toolkit
+				.getDefaultToolkit().getMenuShortcutKeyMask(), false));
+
+		panel.addSeparator();
+		panel.add(newFuzzing);
+		panel.add(closeFuzzing);
+
 		// Options
 		
 		final JMenuItem headers = new JMenuItem("Browser Headers");
@@ -440,6 +453,78 @@ public class JBroFuzzMenuBar extends JMenuBar {
 			}
 		});
 
+		rerun.addActionListener(new ActionListener() {
+			public void actionPerformed(final ActionEvent e) {
+
+				// The fuzzing tab selected, even if another one is by the end
+				final FuzzingPanel fuzzing = getFrame().getPanelFuzzing();
+
+				final class Rerunner extends SwingWorker<String, Object> {
+
+					@Override
+					public String doInBackground() {
+
+						fuzzing.rerunFailures();
+
+						return "rerun-menu-bar-done";
+					}
+
+					@Override
+					protected void done() {
+
+						fuzzing.stop();
+
+					}
+				}
+
+				getFrame().setTabShow(JBroFuzzWindow.ID_PANEL_FUZZING);
+				(new Rerunner()).execute();
+
+			}
+		});
+
+		newFuzzing.addActionListener(new ActionListener() {
+			public void actionPerformed(final ActionEvent e) {
+
+				SwingUtilities.invokeLater(new Runnable() {
+					public void run() {
+
+						getFrame().addPanelFuzzing();
+
+					}
+				});
+
+			}
+		});
+
+		closeFuzzing.addActionListener(new ActionListener() {
+			public void actionPerformed(final ActionEvent e) {
+
+				SwingUtilities.invokeLater(new Runnable() {
+					public void run() {
+
+						final FuzzingPanel fuzzing = getFrame().getPanelFuzzing();
+						if (fuzzing.getNumber() == 1) {
+							Logger.log("The first fuzzing tab can only be hidden, "
+									+ "under View -> Show/Hide", 1);
+							return;
+						}
+						if (!fuzzing.isStopped()) {
+							final int choice = JOptionPane.showConfirmDialog(
+									getFrame(), "Fuzzing Session Running. Stop Fuzzing?",
+									" JBroFuzz - Stop ", JOptionPane.YES_NO_OPTION);
+							if (choice != JOptionPane.YES_OPTION) {
+								return;
+							}
+						}
+						getFrame().removePanelFuzzing(fuzzing);
+
+					}
+				});
+
+			}
+		});
+
 		stop.addActionListener(new ActionListener() {
 			public void actionPerformed(final ActionEvent e) {
 
@@ -594,6 +679,7 @@ public class JBroFuzzMenuBar extends JMenuBar {
 
 			start.setEnabled(b[0]);
 			stop.setEnabled(b[1]);
+			rerun.setEnabled(b[0]);
 
 			pause.setEnabled(b[2]);
 
@@ -31,16 +31,23 @@ package org.owasp.jbrofuzz.ui.prefs;
 
 import java.awt.Dimension;
 import java.awt.FlowLayout;
+import java.awt.Font;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
 
 import javax.swing.Box;
 import javax.swing.JCheckBox;
 import javax.swing.JComboBox;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.JTextField;
 
 import org.owasp.jbrofuzz.JBroFuzz;
+import org.owasp.jbrofuzz.fuzz.Framing;
+import org.owasp.jbrofuzz.system.Logger;
+import org.owasp.jbrofuzz.system.Profiler;
 import org.owasp.jbrofuzz.version.JBroFuzzPrefs;
 
 class FuzzPPanel extends AbstractPrefsPanel {
@@ -55,8 +62,78 @@ class FuzzPPanel extends AbstractPrefsPanel {
 		"31", "32", "33", "34", "35", "36", "37", "38", "39", "40",
 		"41", "42", "43", "44", "45", "46", "47", "48", "49", "50" };
 
+	private static final String[] ENGINE_THREADS = 
+	{"1", "2", "3", "4", "5", "6", "7", "8", "9", "10",
+		"11", "12", "13", "14", "15", "16" };
+
+	private static final String[] PIPELINE_REQUESTS = 
+	{"Off", "2", "4", "8", "16", "32" };
+
+	private static final int[] PIPELINE_VALUES = { 1, 2, 4, 8, 16, 32 };
+
+	private static final String[] HTTP2_STREAMS = 
+	{"Off", "10", "50", "100", "250" };
+
+	private static final int[] HTTP2_VALUES = { 0, 10, 50, 100, 250 };
+
+	private static final String[] SHARED_CONNECTIONS = 
+	{"No limit", "8", "16", "32", "64", "128", "256" };
+
+	private static final int[] CONNECTION_VALUES = { 0, 8, 16, 32, 64, 128, 256 };
+
+	private static final String[] SESSION_SHARES = 
+	{"1", "2", "4", "8", "16" };
+
+	private static final int[] SHARE_VALUES = { 1, 2, 4, 8, 16 };
+
+	private static final String[] METRICS_SECONDS = 
+	{"Never", "1 second", "5 seconds", "10 seconds", "30 seconds", "60 seconds" };
+
+	private static final int[] METRICS_VALUES = { 0, 1, 5, 10, 30, 60 };
+
+	private static final String[] RATE_REQUESTS = 
+	{"No limit", "1", "2", "5", "10", "20", "50", "100", "200", "500", "1000" };
+
+	private static final int[] RATE_VALUES = { 0, 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000 };
+
+	private static final String[] RETRY_TIMES = 
+	{"Never", "Once", "2 times", "3 times", "4 times", "5 times" };
+
+	private static final String[] BREAKER_FAILURES = 
+	{"Never", "3", "5", "10", "20", "50" };
+
+	private static final int[] BREAKER_VALUES = { 0, 3, 5, 10, 20, 50 };
+
 	// The Socket Timeout Combo Box
 	private final JComboBox stoBox;
+	// The Concurrent Requests Combo Box
+	private final JComboBox thrBox;
+	// The Pipelined Requests Combo Box
+	private final JComboBox pipBox;
+	// The HTTP/2 Streams Combo Box
+	private final JComboBox h2Box;
+	// The Shared Connections Combo Box
+	private final JComboBox conBox;
+	// The Connections per Host Combo Box
+	private final JComboBox hostBox;
+	// The Session Share Combo Box
+	private final JComboBox shrBox;
+	// The Adapt Rate Check Box
+	private final JCheckBox adaptiveBox;
+	// The Maximum Rate Combo Box
+	private final JComboBox rateBox;
+	// The Retries Combo Box
+	private final JComboBox retBox;
+	// The Circuit Breaker Combo Box
+	private final JComboBox brkBox;
+	// The Pinned Addresses Text Field
+	private final JTextField pinField;
+	// The Raw Framing Text Field
+	private final JTextField framingField;
+	// The Metrics Interval Combo Box
+	private final JComboBox metBox;
+	// The Record Profile Check Box
+	private final JCheckBox profileBox;
 	// The check boxes, excluding the 
 	private final JCheckBox [] checkBoxes = new JCheckBox[JBroFuzzPrefs.FUZZING.length - 1];
 
@@ -93,6 +170,359 @@ class FuzzPPanel extends AbstractPrefsPanel {
 		sTimeOutPanel.add(stoBox);
 
 		add(sTimeOutPanel);
+
+		// Fuzzing... -> Concurrent Requests
+
+		int thrPrefValue = JBroFuzz.PREFS.getInt(JBroFuzzPrefs.FUZZINGENGINE[0].getId(), 1);
+		// Validate
+		if( (thrPrefValue < 1) || (thrPrefValue > ENGINE_THREADS.length) ) {
+			thrPrefValue = 1;
+		}
+
+		thrBox = new JComboBox(ENGINE_THREADS);
+		thrBox.setSelectedIndex(thrPrefValue - 1);
+		thrBox.setMaximumRowCount(6);
+
+		thrBox.addActionListener(new ActionListener() {
+			public void actionPerformed(final ActionEvent thrEvent) {
+				dialog.setApplyEnabled(true);
+			}
+		});
+
+		final JLabel thrLabel = new JLabel(JBroFuzzPrefs.FUZZINGENGINE[0].getTitle());
+		thrLabel.setToolTipText(JBroFuzzPrefs.FUZZINGENGINE[0].getTooltip());
+
+		final JPanel threadsPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 15, 15));
+		threadsPanel.setAlignmentX(0.0f);
+		threadsPanel.add(thrLabel);
+		threadsPanel.add(thrBox);
+
+		add(threadsPanel);
+
+		// Fuzzing... -> Pipelined Requests
+
+		final int pipPrefValue = JBroFuzz.PREFS.getInt(JBroFuzzPrefs.FUZZINGENGINE[8].getId(), 1);
+
+		pipBox = new JComboBox(PIPELINE_REQUESTS);
+		pipBox.setSelectedIndex(0);
+		for (int i = 0; i < PIPELINE_VALUES.length; i++) {
+			if (PIPELINE_VALUES[i] == pipPrefValue) {
+				pipBox.setSelectedIndex(i);
+			}
+		}
+
+		pipBox.addActionListener(new ActionListener() {
+			public void actionPerformed(final ActionEvent pipEvent) {
+				dialog.setApplyEnabled(true);
+			}
+		});
+
+		final JLabel pipLabel = new JLabel(JBroFuzzPrefs.FUZZINGENGINE[8].getTitle());
+		pipLabel.setToolTipText(JBroFuzzPrefs.FUZZINGENGINE[8].getTooltip());
+
+		final JPanel pipelinePanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 15, 15));
+		pipelinePanel.setAlignmentX(0.0f);
+		pipelinePanel.add(pipLabel);
+		pipelinePanel.add(pipBox);
+
+		add(pipelinePanel);
+
+		// Fuzzing... -> HTTP/2 Streams
+
+		final int h2PrefValue = JBroFuzz.PREFS.getInt(JBroFuzzPrefs.FUZZINGENGINE[9].getId(), 0);
+
+		h2Box = new JComboBox(HTTP2_STREAMS);
+		h2Box.setSelectedIndex(0);
+		for (int i = 0; i < HTTP2_VALUES.length; i++) {
+			if (HTTP2_VALUES[i] == h2PrefValue) {
+				h2Box.setSelectedIndex(i);
+			}
+		}
+
+		h2Box.addActionListener(new ActionListener() {
+			public void actionPerformed(final ActionEvent h2Event) {
+				dialog.setApplyEnabled(true);
+			}
+		});
+
+		final JLabel h2Label = new JLabel(JBroFuzzPrefs.FUZZINGENGINE[9].getTitle());
+		h2Label.setToolTipText(JBroFuzzPrefs.FUZZINGENGINE[9].getTooltip());
+
+		final JPanel http2Panel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 15, 15));
+		http2Panel.setAlignmentX(0.0f);
+		http2Panel.add(h2Label);
+		http2Panel.add(h2Box);
+
+		add(http2Panel);
+
+		// Fuzzing... -> Shared Connections
+
+		final int conPrefValue = JBroFuzz.PREFS.getInt(JBroFuzzPrefs.FUZZINGENGINE[10].getId(), 64);
+
+		conBox = new JComboBox(SHARED_CONNECTIONS);
+		conBox.setSelectedIndex(0);
+		for (int i = 0; i < CONNECTION_VALUES.length; i++) {
+			if (CONNECTION_VALUES[i] == conPrefValue) {
+				conBox.setSelectedIndex(i);
+			}
+		}
+
+		conBox.addActionListener(new ActionListener() {
+			public void actionPerformed(final ActionEvent conEvent) {
+				dialog.setApplyEnabled(true);
+			}
+		});
+
+		final JLabel conLabel = new JLabel(JBroFuzzPrefs.FUZZINGENGINE[10].getTitle());
+		conLabel.setToolTipText(JBroFuzzPrefs.FUZZINGENGINE[10].getTooltip());
+
+		final JPanel connectionsPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 15, 15));
+		connectionsPanel.setAlignmentX(0.0f);
+		connectionsPanel.add(conLabel);
+		connectionsPanel.add(conBox);
+
+		add(connectionsPanel);
+
+		// Fuzzing... -> Connections per Host
+
+		final int hostPrefValue = JBroFuzz.PREFS.getInt(JBroFuzzPrefs.FUZZINGENGINE[11].getId(), 32);
+
+		hostBox = new JComboBox(SHARED_CONNECTIONS);
+		hostBox.setSelectedIndex(0);
+		for (int i = 0; i < CONNECTION_VALUES.length; i++) {
+			if (CONNECTION_VALUES[i] == hostPrefValue) {
+				hostBox.setSelectedIndex(i);
+			}
+		}
+
+		hostBox.addActionListener(new ActionListener() {
+			public void actionPerformed(final ActionEvent hostEvent) {
+				dialog.setApplyEnabled(true);
+			}
+		});
+
+		final JLabel hostLabel = new JLabel(JBroFuzzPrefs.FUZZINGENGINE[11].getTitle());
+		hostLabel.setToolTipText(JBroFuzzPrefs.FUZZINGENGINE[11].getTooltip());
+
+		final JPanel perHostPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 15, 15));
+		perHostPanel.setAlignmentX(0.0f);
+		perHostPanel.add(hostLabel);
+		perHostPanel.add(hostBox);
+
+		add(perHostPanel);
+
+		// Fuzzing... -> Session Share
+
+		final int shrPrefValue = JBroFuzz.PREFS.getInt(JBroFuzzPrefs.FUZZINGENGINE[12].getId(), 1);
+
+		shrBox = new JComboBox(SESSION_SHARES);
+		shrBox.setSelectedIndex(0);
+		for (int i = 0; i < SHARE_VALUES.length; i++) {
+			if (SHARE_VALUES[i] == shrPrefValue) {
+				shrBox.setSelectedIndex(i);
+			}
+		}
+
+		shrBox.addActionListener(new ActionListener() {
+			public void actionPerformed(final ActionEvent shrEvent) {
+				dialog.setApplyEnabled(true);
+			}
+		});
+
+		final JLabel shrLabel = new JLabel(JBroFuzzPrefs.FUZZINGENGINE[12].getTitle());
+		shrLabel.setToolTipText(JBroFuzzPrefs.FUZZINGENGINE[12].getTooltip());
+
+		final JPanel sharePanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 15, 15));
+		sharePanel.setAlignmentX(0.0f);
+		sharePanel.add(shrLabel);
+		sharePanel.add(shrBox);
+
+		add(sharePanel);
+
+		// Fuzzing... -> Maximum Rate
+
+		final int ratePrefValue = JBroFuzz.PREFS.getInt(JBroFuzzPrefs.FUZZINGENGINE[4].getId(), 0);
+
+		rateBox = new JComboBox(RATE_REQUESTS);
+		rateBox.setSelectedIndex(0);
+		for (int i = 0; i < RATE_VALUES.length; i++) {
+			if (RATE_VALUES[i] == ratePrefValue) {
+				rateBox.setSelectedIndex(i);
+			}
+		}
+		rateBox.setMaximumRowCount(6);
+
+		rateBox.addActionListener(new ActionListener() {
+			public void actionPerformed(final ActionEvent rateEvent) {
+				dialog.setApplyEnabled(true);
+			}
+		});
+
+		final JLabel rateLabel = new JLabel(JBroFuzzPrefs.FUZZINGENGINE[4].getTitle());
+		rateLabel.setToolTipText(JBroFuzzPrefs.FUZZINGENGINE[4].getTooltip());
+
+		final JPanel ratePanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 15, 15));
+		ratePanel.setAlignmentX(0.0f);
+		ratePanel.add(rateLabel);
+		ratePanel.add(rateBox);
+
+		add(ratePanel);
+
+		// Fuzzing... -> Adapt Rate
+
+		adaptiveBox = new JCheckBox(JBroFuzzPrefs.FUZZINGENGINE[3].getTitle(),
+				JBroFuzz.PREFS.getBoolean(JBroFuzzPrefs.FUZZINGENGINE[3].getId(), false));
+		adaptiveBox.setToolTipText(JBroFuzzPrefs.FUZZINGENGINE[3].getTooltip());
+		adaptiveBox.setBorderPaintedFlat(true);
+		adaptiveBox.addActionListener(new ActionListener() {
+			public void actionPerformed(final ActionEvent e) {
+				dialog.setApplyEnabled(true);
+			}
+		});
+		add(adaptiveBox);
+
+		// Fuzzing... -> Retries
+
+		int retPrefValue = JBroFuzz.PREFS.getInt(JBroFuzzPrefs.FUZZINGENGINE[5].getId(), 2);
+		// Validate
+		if( (retPrefValue < 0) || (retPrefValue >= RETRY_TIMES.length) ) {
+			retPrefValue = 2;
+		}
+
+		retBox = new JComboBox(RETRY_TIMES);
+		retBox.setSelectedIndex(retPrefValue);
+
+		retBox.addActionListener(new ActionListener() {
+			public void actionPerformed(final ActionEvent retEvent) {
+				dialog.setApplyEnabled(true);
+			}
+		});
+
+		final JLabel retLabel = new JLabel(JBroFuzzPrefs.FUZZINGENGINE[5].getTitle());
+		retLabel.setToolTipText(JBroFuzzPrefs.FUZZINGENGINE[5].getTooltip());
+
+		final JPanel retriesPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 15, 15));
+		retriesPanel.setAlignmentX(0.0f);
+		retriesPanel.add(retLabel);
+		retriesPanel.add(retBox);
+
+		add(retriesPanel);
+
+		// Fuzzing... -> Circuit Breaker
+
+		final int brkPrefValue = JBroFuzz.PREFS.getInt(JBroFuzzPrefs.FUZZINGENGINE[6].getId(), 10);
+
+		brkBox = new JComboBox(BREAKER_FAILURES);
+		brkBox.setSelectedIndex(3);
+		for (int i = 0; i < BREAKER_VALUES.length; i++) {
+			if (BREAKER_VALUES[i] == brkPrefValue) {
+				brkBox.setSelectedIndex(i);
+			}
+		}
+
+		brkBox.addActionListener(new ActionListener() {
+			public void actionPerformed(final ActionEvent brkEvent) {
+				dialog.setApplyEnabled(true);
+			}
+		});
+
+		final JLabel brkLabel = new JLabel(JBroFuzzPrefs.FUZZINGENGINE[6].getTitle());
+		brkLabel.setToolTipText(JBroFuzzPrefs.FUZZINGENGINE[6].getTooltip());
+
+		final JPanel breakerPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 15, 15));
+		breakerPanel.setAlignmentX(0.0f);
+		breakerPanel.add(brkLabel);
+		breakerPanel.add(brkBox);
+
+		add(breakerPanel);
+
+		// Fuzzing... -> Pinned Addresses
+
+		pinField = new JTextField(JBroFuzz.PREFS.get(JBroFuzzPrefs.FUZZINGENGINE[7].getId(), ""), 20);
+		pinField.setToolTipText(JBroFuzzPrefs.FUZZINGENGINE[7].getTooltip());
+		pinField.setFont(new Font("Verdana", Font.PLAIN, 12));
+		pinField.addKeyListener(new KeyAdapter() {
+			@Override
+			public void keyReleased(final KeyEvent pinEvent) {
+				dialog.setApplyEnabled(true);
+			}
+		});
+
+		final JLabel pinLabel = new JLabel(JBroFuzzPrefs.FUZZINGENGINE[7].getTitle());
+		pinLabel.setToolTipText(JBroFuzzPrefs.FUZZINGENGINE[7].getTooltip());
+
+		final JPanel pinPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 15, 15));
+		pinPanel.setAlignmentX(0.0f);
+		pinPanel.add(pinLabel);
+		pinPanel.add(pinField);
+
+		add(pinPanel);
+
+		// Fuzzing... -> Raw Framing
+
+		framingField = new JTextField(JBroFuzz.PREFS.get(JBroFuzzPrefs.FUZZINGENGINE[13].getId(), Framing.DEFAULT), 20);
+		framingField.setToolTipText(JBroFuzzPrefs.FUZZINGENGINE[13].getTooltip());
+		framingField.setFont(new Font("Verdana", Font.PLAIN, 12));
+		framingField.addKeyListener(new KeyAdapter() {
+			@Override
+			public void keyReleased(final KeyEvent framingEvent) {
+				dialog.setApplyEnabled(true);
+			}
+		});
+
+		final JLabel framingLabel = new JLabel(JBroFuzzPrefs.FUZZINGENGINE[13].getTitle());
+		framingLabel.setToolTipText(JBroFuzzPrefs.FUZZINGENGINE[13].getTooltip());
+
+		final JPanel framingPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 15, 15));
+		framingPanel.setAlignmentX(0.0f);
+		framingPanel.add(framingLabel);
+		framingPanel.add(framingField);
+
+		add(framingPanel);
+		add(Box.createRigidArea(new Dimension(0, 20)));
+
+		// Fuzzing... -> Metrics Interval
+
+		final int metPrefValue = JBroFuzz.PREFS.getInt(JBroFuzzPrefs.FUZZINGENGINE[1].getId(), 0);
+
+		metBox = new JComboBox(METRICS_SECONDS);
+		metBox.setSelectedIndex(0);
+		for (int i = 0; i < METRICS_VALUES.length; i++) {
+			if (METRICS_VALUES[i] == metPrefValue) {
+				metBox.setSelectedIndex(i);
+			}
+		}
+
+		metBox.addActionListener(new ActionListener() {
+			public void actionPerformed(final ActionEvent metEvent) {
+				dialog.setApplyEnabled(true);
+			}
+		});
+
+		final JLabel metLabel = new JLabel(JBroFuzzPrefs.FUZZINGENGINE[1].getTitle());
+		metLabel.setToolTipText(JBroFuzzPrefs.FUZZINGENGINE[1].getTooltip());
+
+		final JPanel metricsPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 15, 15));
+		metricsPanel.setAlignmentX(0.0f);
+		metricsPanel.add(metLabel);
+		metricsPanel.add(metBox);
+
+		add(metricsPanel);
+		add(Box.createRigidArea(new Dimension(0, 20)));
+
+		// Fuzzing... -> Record Profile
+
+		profileBox = new JCheckBox(JBroFuzzPrefs.FUZZINGENGINE[2].getTitle(),
+				JBroFuzz.PREFS.getBoolean(JBroFuzzPrefs.FUZZINGENGINE[2].getId(), false));
+		profileBox.setToolTipText(JBroFuzzPrefs.FUZZINGENGINE[2].getTooltip());
+		profileBox.setBorderPaintedFlat(true);
+		profileBox.setEnabled(Profiler.isAvailable());
+		profileBox.addActionListener(new ActionListener() {
+			public void actionPerformed(final ActionEvent e) {
+				dialog.setApplyEnabled(true);
+			}
+		});
+		add(profileBox);
 		add(Box.createRigidArea(new Dimension(0, 20)));
 
 		for(int i = 0; i < checkBoxes.length; i++) {
@@ -123,6 +553,39 @@ class FuzzPPanel extends AbstractPrefsPanel {
 
 		// Fuzzing... -> Socket Timeout
 		JBroFuzz.PREFS.putInt(JBroFuzzPrefs.FUZZING[0].getId(), stoBox.getSelectedIndex() + 1);
+		// Fuzzing... -> Concurrent Requests
+		JBroFuzz.PREFS.putInt(JBroFuzzPrefs.FUZZINGENGINE[0].getId(), thrBox.getSelectedIndex() + 1);
+		// Fuzzing... -> Pipelined Requests
+		JBroFuzz.PREFS.putInt(JBroFuzzPrefs.FUZZINGENGINE[8].getId(), PIPELINE_VALUES[pipBox.getSelectedIndex()]);
+		// Fuzzing... -> HTTP/2 Streams
+		JBroFuzz.PREFS.putInt(JBroFuzzPrefs.FUZZINGENGINE[9].getId(), HTTP2_VALUES[h2Box.getSelectedIndex()]);
+		// Fuzzing... -> Shared Connections
+		JBroFuzz.PREFS.putInt(JBroFuzzPrefs.FUZZINGENGINE[10].getId(), CONNECTION_VALUES[conBox.getSelectedIndex()]);
+		// Fuzzing... -> Connections per Host
+		JBroFuzz.PREFS.putInt(JBroFuzzPrefs.FUZZINGENGINE[11].getId(), CONNECTION_VALUES[hostBox.getSelectedIndex()]);
+		// Fuzzing... -> Session Share
+		JBroFuzz.PREFS.putInt(JBroFuzzPrefs.FUZZINGENGINE[12].getId(), SHARE_VALUES[shrBox.getSelectedIndex()]);
+		// Fuzzing... -> Maximum Rate
+		JBroFuzz.PREFS.putInt(JBroFuzzPrefs.FUZZINGENGINE[4].getId(), RATE_VALUES[rateBox.getSelectedIndex()]);
+		// Fuzzing... -> Adapt Rate
+		JBroFuzz.PREFS.putBoolean(JBroFuzzPrefs.FUZZINGENGINE[3].getId(), adaptiveBox.isSelected());
+		// Fuzzing... -> Retries
+		JBroFuzz.PREFS.putInt(JBroFuzzPrefs.FUZZINGENGINE[5].getId(), retBox.getSelectedIndex());
+		// Fuzzing... -> Circuit Breaker
+		JBroFuzz.PREFS.putInt(JBroFuzzPrefs.FUZZINGENGINE[6].getId(), BREAKER_VALUES[brkBox.getSelectedIndex()]);
+		// Fuzzing... -> Pinned Addresses
+		JBroFuzz.PREFS.put(JBroFuzzPrefs.FUZZINGENGINE[7].getId(), pinField.getText().trim());
+		// Fuzzing... -> Raw Framing, kept as it was if it cannot be read
+		try {
+			JBroFuzz.PREFS.put(JBroFuzzPrefs.FUZZINGENGINE[13].getId(), Framing.parse(framingField.getText()).toString());
+		} catch (final IllegalArgumentException e) {
+			Logger.log("Raw framing not changed: " + e.getMessage(), 2);
+			framingField.setText(JBroFuzz.PREFS.get(JBroFuzzPrefs.FUZZINGENGINE[13].getId(), Framing.DEFAULT));
+		}
+		// Fuzzing... -> Metrics Interval
+		JBroFuzz.PREFS.putInt(JBroFuzzPrefs.FUZZINGENGINE[1].getId(), METRICS_VALUES[metBox.getSelectedIndex()]);
+		// Fuzzing... -> Record Profile
+		JBroFuzz.PREFS.putBoolean(JBroFuzzPrefs.FUZZINGENGINE[2].getId(), profileBox.isSelected());
 		// The rest
 		for(int i = 0; i < checkBoxes.length; i++) {
 			JBroFuzz.PREFS.putBoolean(
@@ -276,7 +276,7 @@ public class WindowViewerFrame extends JFrame implements DocumentListener {
 				}
 				else{
 					Logger.log("Loading data from file",3);
-					final File inputFile = new File(parent.getFrame().getJBroFuzz().getWindow().getPanelFuzzing().getFrame().getJBroFuzz().getStorageHandler().getLocationURIString(), name + ".html");
+					final File inputFile = new File(parent.getFrame().getPanelFuzzing().getStorageHandler().getLocationURIString(), name + ".html");
 					
 					listTextArea.setText(
 
@@ -38,7 +38,8 @@ import javax.swing.filechooser.FileFilter;
 
 /**
  * <p>
- * A file filter implementation, leaving only .jbrf files. Case is ignored.
+ * A file filter implementation, leaving only .jbrf files and wordlists
+ * (.txt, .lst and .dic files). Case is ignored.
  * </p>
  * 
  * <p>
@@ -63,7 +64,11 @@ public class FuzzerFileFilter extends FileFilter {
 		filters = new Hashtable<String, FuzzerFileFilter>();
 		// add the .jbrofuzz extension and its description
 		addExtension("jbrf");
-		setDescription("JBroFuzz Payload Files");
+		// and those of wordlists, one payload per line
+		addExtension("txt");
+		addExtension("lst");
+		addExtension("dic");
+		setDescription("JBroFuzz Payload Files and Wordlists");
 	}
 
 	/**
@@ -29,6 +29,8 @@
  */
 package org.owasp.jbrofuzz.version;
 
+import java.io.File;
+
 /**
  * <p>This class holds a number of arrays for each type of 
  * preferences, used by JBroFuzz.</p>
@@ -231,6 +233,13 @@ public class JBroFuzzPrefs {
 				"save.dir.jbrf.last",
 				" Last Load Fuzzers Location Directory for .jbrf Payload Files",
 				" Change this value to specify the directory where a .jbrf file was last loaded from"
+		),
+		// 4 Used in: File -> Load Fuzzers..., for files other than .jbrf
+		// String: Wordlist file paths, separated by File.pathSeparator
+		new PrefEntry(
+				"wordlists",
+				" Wordlist Files, Loaded as Fuzzers of One Payload per Line",
+				" The wordlist files loaded on start-up, separated by " + File.pathSeparator
 		)
 	};
 
@@ -405,6 +414,13 @@ public class JBroFuzzPrefs {
 				"fuzz.auth.base64",
 				" Append \"Connection: close\" header",
 				"Tick this box if you wish to ensure Socket connections are appropriately closed"
+		),
+		// 6
+		new PrefEntry(
+				"fuzz.cache.spill",
+				" Spill encoded payloads that do not fit in memory to disk",
+				"Tick this box to keep encoded payloads evicted from the in-memory cache in temporary files, to reuse them in later runs",
+				true
 		)
 
 	};
@@ -438,6 +454,202 @@ public class JBroFuzzPrefs {
 
 	};
 
+	public static final PrefEntry [] FUZZINGENGINE =
+	{
+		/**
+		 * The number of requests put on the wire at the same time.
+		 * 
+		 * This is an integer preference, defaulting to 1.
+		 */
+		new PrefEntry(
+				"fuzz.engine.threads",
+				"Number of requests to send concurrently: ",
+				"Increase the number of connections used in parallel while fuzzing; 1 sends one request after the other"
+		),
+
+		/**
+		 * The seconds between writing the engine metrics, as JSON, to the
+		 * session directory.
+		 * 
+		 * This is an integer preference, defaulting to 0 (never).
+		 */
+		new PrefEntry(
+				"fuzz.engine.metrics",
+				"Write metrics.json to the session directory every: ",
+				"Periodically save the request counts, rates, errors and latencies of a running session, for tools other than JBroFuzz to read"
+		),
+
+		/**
+		 * Whether to record a Flight Recorder profile of each session.
+		 * 
+		 * This is a boolean preference, defaulting to false.
+		 */
+		new PrefEntry(
+				"fuzz.engine.profile",
+				" Record a profile (.jfr) of each session ",
+				"Tick this box to write a JDK Flight Recorder file to the session directory, for JDK Mission Control or the jfr tool; requires Java 8u262 or later"
+		),
+
+		/**
+		 * Whether to adapt the number of concurrent requests and the pause
+		 * between them to the response times and errors of each target.
+		 * 
+		 * This is a boolean preference, defaulting to false.
+		 */
+		new PrefEntry(
+				"fuzz.engine.adaptive",
+				" Adapt the request rate to each target ",
+				"Tick this box to back off on timeouts, 429 and 503 replies and rising response times, and to speed up while the target keeps up; the number of concurrent requests remains the upper limit"
+		),
+
+		/**
+		 * The most requests sent to a single target per second.
+		 * 
+		 * This is an integer preference, defaulting to 0 (no limit).
+		 */
+		new PrefEntry(
+				"fuzz.engine.rate",
+				"Maximum requests per second to each target: ",
+				"A hard limit on the requests sent to a single host and port per second, with or without adapting the rate"
+		),
+
+		/**
+		 * The number of times a request that could not be sent is retried.
+		 * 
+		 * This is an integer preference, defaulting to 2.
+		 */
+		new PrefEntry(
+				"fuzz.engine.retries",
+				"Retry requests that fail to connect: ",
+				"Requests that fail before reaching the target (DNS, connect, TLS) are sent again after a random, growing delay; timeouts waiting for a reply are never retried"
+		),
+
+		/**
+		 * The number of consecutive failed requests after which sending to
+		 * a target is paused, probing it until it replies again.
+		 * 
+		 * This is an integer preference, defaulting to 10; 0 never pauses.
+		 */
+		new PrefEntry(
+				"fuzz.engine.breaker",
+				"Pause a target after consecutive failures: ",
+				"Stop sending to a target that keeps failing, trying a single request every so often until it replies again, instead of timing out every remaining payload"
+		),
+
+		/**
+		 * The addresses hosts are pinned to, as host=address pairs
+		 * separated by commas, or a single address for any host.
+		 * 
+		 * This is a String preference, defaulting to "" (use DNS).
+		 */
+		new PrefEntry(
+				"fuzz.engine.pin",
+				"Connect to address (host=IP, ...): ",
+				"Send the requests of a run to the given address instead of looking up the host of the URL, e.g. to fuzz one server behind a load balancer; leave empty to look up each host once per run"
+		),
+
+		/**
+		 * The most requests put on a single connection before reading their
+		 * replies, in order, as HTTP/1.1 pipelining.
+		 * 
+		 * This is an integer preference, defaulting to 1 (no pipelining).
+		 */
+		new PrefEntry(
+				"fuzz.engine.pipeline",
+				"Pipeline requests on each connection: ",
+				"Send several requests on one connection before reading their replies, for targets that support HTTP/1.1 pipelining; falls back to one request per connection if the target does not keep up. Not used with a limit on the requests per second"
+		),
+
+		/**
+		 * The most requests sent at the same time on a single HTTP/2
+		 * connection, each on a stream of its own.
+		 * 
+		 * This is an integer preference, defaulting to 0 (HTTP/1.1).
+		 */
+		new PrefEntry(
+				"fuzz.engine.http2",
+				"HTTP/2 streams on each connection: ",
+				"Send the requests over a single HTTP/2 connection to each target, as many at a time as given; over https the target has to agree to HTTP/2, while over http it is assumed (h2c). Targets that do not speak HTTP/2 are sent HTTP/1.1 requests"
+		),
+
+		/**
+		 * The most connections open at the same time by all the fuzzing
+		 * tabs running, each HTTP/2 stream counting as one.
+		 * 
+		 * This is an integer preference, defaulting to 64; 0 is no limit.
+		 */
+		new PrefEntry(
+				"fuzz.engine.connections",
+				"Connections shared by all running tabs: ",
+				"The most requests on the wire at the same time across every fuzzing tab, each HTTP/2 stream counting as a connection; when short, the tabs take turns according to their share"
+		),
+
+		/**
+		 * The most connections open at the same time to a single host and
+		 * port, by all the fuzzing tabs running.
+		 * 
+		 * This is an integer preference, defaulting to 32; 0 is no limit.
+		 */
+		new PrefEntry(
+				"fuzz.engine.perhost",
+				"Connections to each host by all running tabs: ",
+				"The most requests on the wire at the same time to a single host and port, across every fuzzing tab"
+		),
+
+		/**
+		 * The connections a session is granted in each turn, when the
+		 * running tabs are short of connections.
+		 * 
+		 * This is an integer preference, defaulting to 1.
+		 */
+		new PrefEntry(
+				"fuzz.engine.share",
+				"Share of the connections for new sessions: ",
+				"How many connections a session started from now on gets in each turn, against 1 for a session with the lowest share, while the running tabs wait for connections"
+		),
+
+		/**
+		 * How the replies to requests sent over tcp://, tls:// and udp://
+		 * are told apart: close, idle:ms, delimiter:hex, length:bytes or
+		 * fixed:bytes.
+		 * 
+		 * This is a String preference, defaulting to "idle:250".
+		 */
+		new PrefEntry(
+				"fuzz.engine.framing",
+				"Read raw replies (tcp, tls, udp) until: ",
+				"How the end of a reply over tcp://, tls:// or udp:// is found: close (the target closes the connection), idle:250 (250 ms without data), delimiter:0d0a (the given bytes, in hex), length:2 (a big-endian length prefix of 1, 2 or 4 bytes) or fixed:64 (that many bytes); connections are kept open for the next request with all but close"
+		)
+
+	};
+
+	public static final PrefEntry [] LOGGING =
+	{
+		/**
+		 * The lowest severity level written to the log file, from 0 [INFO]
+		 * to 4 [ERRR].
+		 * 
+		 * This is an integer preference, defaulting to 0.
+		 */
+		new PrefEntry(
+				"system.log.level",
+				"Log messages of this level and above: ",
+				"Raise the level to keep informational messages out of the log file"
+		),
+
+		/**
+		 * The size, in megabytes, beyond which a log file is rolled over.
+		 * 
+		 * This is an integer preference, defaulting to 8.
+		 */
+		new PrefEntry(
+				"system.log.size",
+				"Maximum log file size (in MB): ",
+				"Log files larger than this are renamed with a number and a new one is started"
+		)
+
+	};
+
 	public static final PrefEntry [] FUZZINGOUTPUT =
 	{
 		// 0
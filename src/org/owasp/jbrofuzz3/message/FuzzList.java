@@ -1,40 +1,330 @@
+/**
+ * JbroFuzz 2.5
+ *
+ * JBroFuzz - A stateless network protocol fuzzer for web applications.
+ * 
+ * Copyright (C) 2007 - 2010 subere@uncon.org
+ *
+ * This file is part of JBroFuzz.
+ * 
+ * JBroFuzz is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * JBroFuzz is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with JBroFuzz.  If not, see <http://www.gnu.org/licenses/>.
+ * Alternatively, write to the Free Software Foundation, Inc., 51 
+ * Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Verbatim copying and distribution of this entire program file is 
+ * permitted in any medium without royalty provided this notice 
+ * is preserved. 
+ * 
+ */
 package org.owasp.jbrofuzz3.message;
 
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 import org.owasp.jbrofuzz.core.Fuzzer;
 
 /**
  * <p>A fuzz list is an ordered collection of 
- * fuzzer.</p>
+ * fuzzers, one for each fuzz point of a 
+ * FuzzRequest.</p>
  * 
  * <p>It has a type of iteration; it also has
  * a type, in terms of selecting how you 
- * iterate through the list.</p>
+ * iterate through the list:</p>
+ * 
+ * <p><code>ZIP</code> steps all fuzzers together, 
+ * wrapping the shorter ones around, until the 
+ * largest fuzzer is exhausted.</p>
+ * 
+ * <p><code>CROSS_PRODUCT</code> returns every 
+ * combination of payloads, with the last fuzzer
+ * changing fastest.</p>
+ * 
+ * <p><code>POWER</code> places the payload of the 
+ * first fuzzer on every fuzz point.</p>
+ * 
+ * <p>Combinations are computed lazily, one for each 
+ * call to next(), so that an arbitrarily large cross
+ * product can be streamed without being held in 
+ * memory.</p>
  * 
  * @author subere@uncon.org
  * @version 2.5
  * @since 2.5
  *
  */
-public class FuzzList implements Iterator<Fuzzer[]> {
+public class FuzzList implements Iterator<String[]> {
+
+	public static final int ZIP = 0;
+
+	public static final int CROSS_PRODUCT = 1;
+
+	public static final int POWER = 2;
+
+	/**
+	 * <p>The display names of the modes, indexed by 
+	 * their numeric value.</p>
+	 */
+	public static final String [] MODES = 
+		{ "Zip", "Cross Product", "Power" };
+
+	private final Fuzzer [] fuzzers;
+
+	private final int mode;
+
+	private final long maxValue;
+
+	private long cValue;
+
+	// The payloads and fuzzer values of the last combination
+	private final String [] payloads;
+	private final long [] indices;
+
+	/**
+	 * <p>Create a fuzz list over the given fuzzers, one
+	 * for each fuzz point, iterating in the given 
+	 * mode.</p>
+	 * 
+	 * @param fuzzers The fuzzers, in the order of the 
+	 * 				  fuzz points they correspond to
+	 * @param mode One of ZIP, CROSS_PRODUCT or POWER
+	 * 
+	 * @throws IllegalArgumentException if no fuzzers are 
+	 * 				  given or the mode is not known
+	 * 
+	 * @author subere@uncon.org
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	public FuzzList(final Fuzzer [] fuzzers, final int mode) {
+
+		if (fuzzers.length < 1) {
+			throw new IllegalArgumentException("A fuzz list needs at least one fuzzer");
+		}
+		if ((mode < ZIP) || (mode > POWER)) {
+			throw new IllegalArgumentException("Unknown fuzz list mode: " + mode);
+		}
+
+		this.fuzzers = fuzzers.clone();
+		this.mode = mode;
+
+		payloads = new String[fuzzers.length];
+		indices = new long[fuzzers.length];
+		cValue = 0L;
+
+		maxValue = calculateMaximumValue();
+	}
+
+	private long calculateMaximumValue() {
+
+		if (mode == POWER) {
+			return fuzzers[0].getMaximumValue();
+		}
+
+		long result = (mode == ZIP) ? 0L : 1L;
+		for (final Fuzzer fuzzer : fuzzers) {
+
+			final long size = fuzzer.getMaximumValue();
+			// A fuzzer without payloads yields no combinations
+			if (size <= 0L) {
+				return 0L;
+			}
+
+			if (mode == ZIP) {
+				result = Math.max(result, size);
+			} else if (result > Long.MAX_VALUE / size) {
+				result = Long.MAX_VALUE;
+			} else {
+				result *= size;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * <p>Return the number of combinations returned so 
+	 * far.</p>
+	 * 
+	 * @return long the current value, starting at 0
+	 * 
+	 * @author subere@uncon.org
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	public long getCurrentValue() {
+		return cValue;
+	}
+
+	/**
+	 * <p>Move to the given combination, so that the next 
+	 * one returned is the one at that position, without 
+	 * going through the ones before it; e.g. for a worker
+	 * to start on its share of a distributed run.</p>
+	 * 
+	 * @param value the position of the next combination, 
+	 * 				from 0 to the maximum value
+	 * 
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	public void setCurrentValue(final long value) {
+
+		final long target = Math.max(0L, Math.min(value, maxValue));
+
+		switch (mode) {
+		case ZIP:
+			// Every fuzzer steps with every combination, wrapping around
+			for (final Fuzzer fuzzer : fuzzers) {
+				final long size = fuzzer.getMaximumValue();
+				fuzzer.setCurrentValue(size > 0L ? target % size : 0L);
+			}
+			break;
+
+		case CROSS_PRODUCT:
+			if (target == 0L) {
+				for (final Fuzzer fuzzer : fuzzers) {
+					fuzzer.resetCurrentValue();
+				}
+				break;
+			}
+			// The odometer as it was after the previous combination, 
+			// the last fuzzer turning fastest
+			long previous = target - 1L;
+			for (int i = fuzzers.length - 1; i >= 0; i--) {
+				final long size = fuzzers[i].getMaximumValue();
+				fuzzers[i].setCurrentValue(previous % size);
+				step(i);
+				previous /= size;
+			}
+			break;
+
+		default:
+			fuzzers[0].setCurrentValue(target);
+		}
+
+		cValue = target;
+	}
+
+	/**
+	 * <p>Return the total number of combinations this 
+	 * list iterates through; Long.MAX_VALUE if this
+	 * number does not fit in a long.</p>
+	 * 
+	 * @return long the total number of combinations
+	 * 
+	 * @author subere@uncon.org
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	public long getMaximumValue() {
+		return maxValue;
+	}
+
+	/**
+	 * <p>Return the value of the fuzzer at the given fuzz 
+	 * point, from which the payload of the last 
+	 * combination at that point was taken.</p>
+	 * 
+	 * @param point The fuzz point, 0 being the first
+	 * @return long the fuzzer value, as returned by 
+	 * 				Fuzzer.getCurrentValue() before the payload
+	 * 
+	 * @author subere@uncon.org
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	public long getIndex(final int point) {
+		return indices[point];
+	}
+
+	public int getMode() {
+		return mode;
+	}
+
+	/**
+	 * <p>Return the number of fuzz points, i.e. the length 
+	 * of each array returned by next().</p>
+	 * 
+	 * @return int the number of fuzz points
+	 */
+	public int size() {
+		return fuzzers.length;
+	}
 
-	@Override
 	public boolean hasNext() {
-		// TODO Auto-generated method stub
-		return false;
+		return cValue < maxValue;
+	}
+
+	public String [] next() {
+
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+
+		switch (mode) {
+		case ZIP:
+			for (int i = 0; i < fuzzers.length; i++) {
+				if (!fuzzers[i].hasNext()) {
+					fuzzers[i].resetCurrentValue();
+				}
+				step(i);
+			}
+			break;
+
+		case CROSS_PRODUCT:
+			if (cValue == 0L) {
+				for (int i = 0; i < fuzzers.length; i++) {
+					step(i);
+				}
+			} else {
+				// Odometer: advance the last fuzzer, carrying over
+				// to the ones before it as they wrap around
+				for (int i = fuzzers.length - 1; i >= 0; i--) {
+					if (fuzzers[i].hasNext()) {
+						step(i);
+						break;
+					}
+					fuzzers[i].resetCurrentValue();
+					step(i);
+				}
+			}
+			break;
+
+		default:
+			step(0);
+			for (int i = 1; i < fuzzers.length; i++) {
+				payloads[i] = payloads[0];
+				indices[i] = indices[0];
+			}
+		}
+
+		cValue++;
+		return payloads.clone();
 	}
 
-	@Override
-	public Fuzzer [] next() {
-		// TODO Auto-generated method stub
-		return null;
+	private void step(final int point) {
+		indices[point] = fuzzers[point].getCurrentValue();
+		payloads[point] = fuzzers[point].next();
 	}
 
-	@Override
+	/**
+	 * <p>Fuzz lists cannot step back.</p>
+	 * 
+	 * @throws UnsupportedOperationException always
+	 */
 	public void remove() {
-		// TODO Auto-generated method stub
-		
+		throw new UnsupportedOperationException();
 	}
 
 }
@@ -1,20 +1,192 @@
+/**
+ * JbroFuzz 2.5
+ *
+ * JBroFuzz - A stateless network protocol fuzzer for web applications.
+ * 
+ * Copyright (C) 2007 - 2010 subere@uncon.org
+ *
+ * This file is part of JBroFuzz.
+ * 
+ * JBroFuzz is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * JBroFuzz is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with JBroFuzz.  If not, see <http://www.gnu.org/licenses/>.
+ * Alternatively, write to the Free Software Foundation, Inc., 51 
+ * Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Verbatim copying and distribution of this entire program file is 
+ * permitted in any medium without royalty provided this notice 
+ * is preserved. 
+ * 
+ */
 package org.owasp.jbrofuzz3.message;
 
-import java.util.ArrayList;
-
-import org.owasp.jbrofuzz.core.Fuzzer;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
 
+/**
+ * <p>A fuzz request is a request, together with a 
+ * number of fuzz points within it.</p>
+ * 
+ * <p>The message is tokenised once, at construction, 
+ * into the constant segments found between the fuzz 
+ * points. Each request put on the wire is then 
+ * obtained by joining these segments with the 
+ * payloads of one combination of a FuzzList, without
+ * searching or copying the original message again.</p>
+ * 
+ * @author subere@uncon.org
+ * @version 2.5
+ * @since 2.5
+ *
+ */
 public class FuzzRequest extends Request {
 
-	public FuzzRequest(String message) {
-		super(message);
+	// The constant text found before, between and after the fuzz points
+	private final String [] segments;
+	// The original text at each fuzz point, in the order of the segments
+	private final String [] originals;
+	// The fuzz point index of each position between the segments
+	private final int [] order;
+	// The total length of the segments
+	private final int constantLength;
+
+	public FuzzRequest(final String message) {
+		this(message, Arrays.<FuzzPoint>asList());
 	}
-	
-	public FuzzRequest(String message, ArrayList<FuzzPoint> fuzzPoints) {
+
+	/**
+	 * <p>Create a fuzz request from a plain message and the 
+	 * fuzz points to be substituted within it.</p>
+	 * 
+	 * <p>Fuzz points may be empty, in which case the payload
+	 * is inserted at that position, but they may not 
+	 * overlap.</p>
+	 * 
+	 * @param message The message, as found in the request area
+	 * @param fuzzPoints The fuzz points, in the order of the 
+	 * 					 payloads passed to getRequest(String[])
+	 * 
+	 * @throws IllegalArgumentException if a fuzz point lies
+	 * 					 outside the message or overlaps another
+	 * 
+	 * @author subere@uncon.org
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	public FuzzRequest(final String message, final List<FuzzPoint> fuzzPoints) {
+
 		super(message);
+
+		final int count = fuzzPoints.size();
+		final int [] starts = new int[count];
+		final int [] ends = new int[count];
+		final Integer [] sorted = new Integer[count];
+
+		for (int i = 0; i < count; i++) {
+			final FuzzPoint point = fuzzPoints.get(i);
+			starts[i] = Math.min(point.getStart(), point.getEnd());
+			ends[i] = Math.max(point.getStart(), point.getEnd());
+			if ((starts[i] < 0) || (ends[i] > message.length())) {
+				throw new IllegalArgumentException("Fuzz point " + (i + 1)
+						+ " lies outside the request");
+			}
+			sorted[i] = Integer.valueOf(i);
+		}
+
+		Arrays.sort(sorted, new Comparator<Integer>() {
+			public int compare(final Integer o1, final Integer o2) {
+				return starts[o1.intValue()] - starts[o2.intValue()];
+			}
+		});
+
+		segments = new String[count + 1];
+		originals = new String[count];
+		order = new int[count];
+
+		int previous = 0;
+		int length = 0;
+		for (int i = 0; i < count; i++) {
+			final int point = sorted[i].intValue();
+			if (starts[point] < previous) {
+				throw new IllegalArgumentException("Fuzz point " + (point + 1)
+						+ " overlaps another fuzz point");
+			}
+			segments[i] = message.substring(previous, starts[point]);
+			originals[i] = message.substring(starts[point], ends[point]);
+			order[i] = point;
+			length += segments[i].length();
+			previous = ends[point];
+		}
+		segments[count] = message.substring(previous);
+		constantLength = length + segments[count].length();
 	}
-	
-	public String getRequest(FuzzList playList) {
-		return " ";
+
+	/**
+	 * <p>Return the number of fuzz points in this request,
+	 * i.e. the number of payloads getRequest(String[]) 
+	 * expects.</p>
+	 * 
+	 * @return int the number of fuzz points
+	 */
+	public int getFuzzPointCount() {
+		return order.length;
+	}
+
+	/**
+	 * <p>Return the message with each fuzz point replaced 
+	 * by the corresponding payload.</p>
+	 * 
+	 * @param payloads One payload for each fuzz point; a null
+	 * 				   payload leaves the original text at that 
+	 * 				   fuzz point in place
+	 * @return String the message, before any end of line or
+	 * 				   header rewriting takes place
+	 * 
+	 * @author subere@uncon.org
+	 * @version 2.5
+	 * @since 2.5
+	 */
+	public String getRequest(final String [] payloads) {
+
+		if (payloads.length != order.length) {
+			throw new IllegalArgumentException("Expected " + order.length
+					+ " payloads, found " + payloads.length);
+		}
+
+		int length = constantLength;
+		for (final String payload : payloads) {
+			length += (payload == null) ? 0 : payload.length();
+		}
+
+		final StringBuilder output = new StringBuilder(length);
+		for (int i = 0; i < order.length; i++) {
+			output.append(segments[i]);
+			final String payload = payloads[order[i]];
+			output.append(payload == null ? originals[i] : payload);
+		}
+		output.append(segments[order.length]);
+
+		return output.toString();
+	}
+
+	/**
+	 * <p>Return the message for the next combination of the
+	 * given fuzz list.</p>
+	 * 
+	 * @param playList A fuzz list with one fuzzer per fuzz point
+	 * @return String the message with the payloads in place
+	 */
+	public String getRequest(final FuzzList playList) {
+		return getRequest(playList.next());
 	}
 }
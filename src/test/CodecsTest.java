@@ -0,0 +1,90 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.Random;
+
+import org.junit.Test;
+import org.owasp.jbrofuzz.encode.ByteCodec;
+import org.owasp.jbrofuzz.encode.Codec;
+import org.owasp.jbrofuzz.encode.Codecs;
+import org.owasp.jbrofuzz.encode.EncoderHashCore;
+
+/**
+ * 
+ * Checks that every codec gives the same output as EncoderHashCore.encode.
+ * @since Version 2.5
+ *
+ */
+public class CodecsTest {
+
+	private static final String[] INPUTS = { "", "a", "ab", "abc", "abcd",
+		"abcde", "abcdef", "Hello World!", "<script>alert('xss')</script>",
+		"' OR 1=1 --", "\u00e9\u00fc\u00f1 \u20ac \ud83d\ude00", "a,b\"c\nd\te",
+		"%00%0d%0a", "~!@#$%^&*()_+`-={}[]|\\:;\"'<>?,./" };
+
+	@Test
+	public void codecsMatchCodes() {
+		assertEquals(EncoderHashCore.CODES.length, Codecs.size());
+		for (int i = 0; i < EncoderHashCore.CODES.length; i++) {
+			assertEquals(EncoderHashCore.CODES[i], Codecs.get(i).getName());
+			assertNotNull(Codecs.get(EncoderHashCore.CODES[i].toUpperCase()));
+		}
+	}
+
+	@Test
+	public void codecsMatchStaticEncoders() {
+		final Random random = new Random(42);
+		for (final String code : EncoderHashCore.CODES) {
+			final Codec codec = Codecs.get(code);
+			for (final String input : INPUTS) {
+				check(code, codec, input);
+			}
+			for (int n = 0; n < 50; n++) {
+				check(code, codec, randomString(random, random.nextInt(120)));
+			}
+		}
+	}
+
+	@Test
+	public void byteCodecWritesIntoBuffer() {
+		final ByteCodec hex = (ByteCodec) Codecs.get("Hexadecimal (UPP)");
+		final byte[] input = { 0x00, 0x7f, (byte) 0xff };
+		final char[] output = new char[2 + hex.getMaxEncodedLength(3)];
+		final int count = hex.encode(input, 0, 3, output, 2);
+		assertEquals("007FFF", new String(output, 2, count));
+	}
+
+	private static void check(final String code, final Codec codec,
+			final String input) {
+		final String expected;
+		try {
+			expected = EncoderHashCore.encode(input, code);
+		} catch (final IllegalArgumentException e) {
+			// The static hashes fail when the input has fewer bytes than chars
+			return;
+		}
+		assertEquals(code + " of " + input, expected, codec.encode(input));
+		final StringBuilder out = new StringBuilder("x");
+		codec.encode(input, out);
+		assertEquals(code + " of " + input, "x" + expected, out.toString());
+	}
+
+	private static String randomString(final Random random, final int length) {
+		final StringBuilder s = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			switch (random.nextInt(3)) {
+			case 0:
+				s.append((char) (32 + random.nextInt(95)));
+				break;
+			case 1:
+				s.append((char) random.nextInt(256));
+				break;
+			default:
+				s.append((char) (0x100 + random.nextInt(0x2000)));
+			}
+		}
+		return s.toString();
+	}
+}
@@ -0,0 +1,269 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.Vector;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.owasp.jbrofuzz.JBroFuzz;
+import org.owasp.jbrofuzz.core.Database;
+import org.owasp.jbrofuzz.core.Fuzzer;
+import org.owasp.jbrofuzz.fuzz.MessageContainer;
+import org.owasp.jbrofuzz.fuzz.RunConfiguration;
+import org.owasp.jbrofuzz.fuzz.dist.Coordinator;
+import org.owasp.jbrofuzz.fuzz.dist.Worker;
+import org.owasp.jbrofuzz.fuzz.loopback.LoopbackServer;
+import org.owasp.jbrofuzz.graph.FileSystemTreeNode;
+import org.owasp.jbrofuzz.graph.GraphingPanel;
+import org.owasp.jbrofuzz.io.StorageInterface;
+import org.owasp.jbrofuzz.ui.JBroFuzzWindow;
+import org.owasp.jbrofuzz3.message.FuzzList;
+
+/**
+ * 
+ * Distributed run test, leasing the payloads of a session to two workers
+ * after a third has gone away holding a chunk.
+ * @since Version 2.5
+ *
+ */
+public class DistributedTest {
+
+	private LoopbackServer server;
+
+	@Before
+	public void setUp() throws Exception {
+		server = new LoopbackServer();
+		server.configure("size=200");
+		server.start();
+	}
+
+	@Test
+	public void fuzzListStartsAtAnyPosition() throws Exception {
+
+		final Database database = new Database();
+		for (int mode = FuzzList.ZIP; mode <= FuzzList.POWER; mode++) {
+			final FuzzList all = createList(database, mode);
+			for (long position = 0; all.hasNext(); position++) {
+				all.next();
+				final long[] expected = indices(all);
+
+				final FuzzList moved = createList(database, mode);
+				moved.setCurrentValue(position);
+				moved.next();
+				assertEquals(FuzzList.MODES[mode] + " " + position, Arrays
+						.toString(expected), Arrays.toString(indices(moved)));
+			}
+		}
+	}
+
+	@Test
+	public void everyPayloadIsStoredOnce() throws Exception {
+
+		final Database database = new Database();
+		final Set<String> names = Collections.synchronizedSet(new HashSet<String>());
+		final RunConfiguration configuration = RunConfiguration
+				.fromPreferences(JBroFuzz.PREFS);
+		final Coordinator coordinator = new Coordinator(createSession(),
+				server.getURL(), database, configuration, createStorage(names), 7);
+		coordinator.setLease(5000L);
+		coordinator.setSecret("s3cret");
+		coordinator.start("127.0.0.1", 0);
+		try {
+			// A worker going away with the first chunk
+			final Socket socket = new Socket("127.0.0.1", coordinator.getPort());
+			final DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+			final DataInputStream in = new DataInputStream(socket.getInputStream());
+			out.writeByte('H');
+			out.writeInt(0);
+			out.writeInt(6);
+			out.write("s3cret".getBytes("UTF-8"));
+			assertEquals('S', in.readByte());
+			in.readFully(new byte[in.readInt()]);
+			in.readInt();
+			in.readFully(new byte[in.readInt()]);
+			out.writeByte('L');
+			assertEquals('C', in.readByte());
+			socket.close();
+
+			final Thread[] workers = new Thread[2];
+			for (int i = 0; i < workers.length; i++) {
+				final Worker worker = new Worker("127.0.0.1", coordinator
+						.getPort(), database, "worker " + i);
+				worker.setSecret("s3cret");
+				workers[i] = new Thread() {
+					@Override
+					public void run() {
+						try {
+							worker.run();
+						} catch (final Exception e) {
+							e.printStackTrace();
+						}
+					}
+				};
+				workers[i].start();
+			}
+
+			assertTrue(coordinator.await(60000L));
+			for (final Thread worker : workers) {
+				worker.join(10000L);
+				assertTrue(!worker.isAlive());
+			}
+		} finally {
+			coordinator.stop();
+		}
+
+		assertEquals(100L, coordinator.getResults());
+		assertEquals(100, names.size());
+		assertTrue(names.contains("0000000001"));
+		assertTrue(names.contains("0000000100"));
+		assertEquals(15, coordinator.getChunks());
+		assertTrue(coordinator.getReleased() >= 1);
+		assertTrue(coordinator.getFailures().isEmpty());
+		assertTrue(server.getRequestCount() >= 100);
+	}
+
+	@Test
+	public void workersWithoutTheSecretAreTurnedAway() throws Exception {
+
+		final Database database = new Database();
+		final Set<String> names = Collections.synchronizedSet(new HashSet<String>());
+		final Coordinator coordinator = new Coordinator(createSession(),
+				server.getURL(), database, RunConfiguration
+						.fromPreferences(JBroFuzz.PREFS), createStorage(names), 7);
+		coordinator.start("127.0.0.1", 0);
+		try {
+			final Worker worker = new Worker("127.0.0.1", coordinator
+					.getPort(), database, "intruder");
+			worker.setSecret("guess");
+			try {
+				worker.run();
+				fail("A worker with the wrong secret was sent the session");
+			} catch (final IOException e) {
+				// Disconnected after the hello
+			}
+			assertEquals(0, coordinator.getChunks());
+			assertEquals(0L, coordinator.getResults());
+		} finally {
+			coordinator.stop();
+		}
+		assertTrue(names.isEmpty());
+	}
+
+	@Test
+	public void helloIsBoundedInSizeAndTime() throws Exception {
+
+		final Database database = new Database();
+		final Set<String> names = Collections.synchronizedSet(new HashSet<String>());
+		final Coordinator coordinator = new Coordinator(createSession(),
+				server.getURL(), database, RunConfiguration
+						.fromPreferences(JBroFuzz.PREFS), createStorage(names), 7);
+		coordinator.setHelloTimeout(200);
+		coordinator.start("127.0.0.1", 0);
+		try {
+			// A name far too long, turned away before any of it is read
+			final Socket big = new Socket("127.0.0.1", coordinator.getPort());
+			final DataOutputStream out = new DataOutputStream(big.getOutputStream());
+			out.writeByte('H');
+			out.writeInt(1 << 27);
+			out.flush();
+			assertClosed(big);
+
+			// Nothing sent at all
+			assertClosed(new Socket("127.0.0.1", coordinator.getPort()));
+		} finally {
+			coordinator.stop();
+		}
+		assertTrue(names.isEmpty());
+	}
+
+	// Closed by the other end, rather than left open
+	private static void assertClosed(final Socket socket) throws IOException {
+		socket.setSoTimeout(5000);
+		try {
+			assertEquals(-1, socket.getInputStream().read());
+		} catch (final SocketTimeoutException e) {
+			fail("The connection was left open");
+		} catch (final SocketException e) {
+			// Reset
+		} finally {
+			socket.close();
+		}
+	}
+
+	private static FuzzList createList(final Database database, final int mode)
+			throws Exception {
+		return new FuzzList(new Fuzzer[] {
+				database.createFuzzer("000-ZER-TEN", 1),
+				database.createFuzzer("000-ZER-ONE", 1),
+				database.createFuzzer("000-ZER-TEN", 1) }, mode);
+	}
+
+	private static long[] indices(final FuzzList list) {
+		final long[] indices = new long[list.size()];
+		for (int i = 0; i < indices.length; i++) {
+			indices[i] = list.getIndex(i);
+		}
+		return indices;
+	}
+
+	private String createSession() {
+		return "[JBroFuzz]\n2.5\n[Fuzzing]\n\n[Comment]\n\n[URL]\n"
+				+ server.getURL() + "\n[Request]\nGET / HTTP/1.1\nHost: localhost\n\n"
+				+ "[Fuzzers]\n000-ZER-100,0,0\n[Transforms]\n[End]\n";
+	}
+
+	private static StorageInterface createStorage(final Set<String> names) {
+		return new StorageInterface() {
+			public void createNewLocation() {
+			}
+			public String getLocationCanonicalPath() {
+				return "";
+			}
+			public String getFuzzURIString(final String fileName) {
+				return "";
+			}
+			public String getLocationURIString() {
+				return "";
+			}
+			public void writeFuzzFile(final MessageContainer outputMessage,
+					final String sessionName) {
+				names.add(outputMessage.getFileName());
+			}
+			public void writeFuzzFile(final MessageContainer outputMessage,
+					final RunConfiguration configuration) {
+				assertTrue(outputMessage.toString().contains(outputMessage.getFileName()));
+				assertTrue(names.add(outputMessage.getFileName()));
+			}
+			public Vector<MessageContainer> readFuzzFile(final String fileName,
+					final String sessionId, final JBroFuzzWindow mWindow) {
+				return null;
+			}
+			public String[] readTableRow(final String sqlStatement) {
+				return null;
+			}
+			public FileSystemTreeNode getSystemTreeNodeFromWalker(
+					final GraphingPanel gPanel) {
+				return null;
+			}
+		};
+	}
+
+	@After
+	public void tearDown() {
+		server.stop();
+	}
+}
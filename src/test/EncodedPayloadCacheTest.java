@@ -0,0 +1,179 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.owasp.jbrofuzz.encode.EncodedPayloadCache;
+import org.owasp.jbrofuzz.encode.TransformChain;
+import org.owasp.jbrofuzz.fuzz.ui.TransformsTableModel;
+
+/**
+ * 
+ * Encoded payload cache test, for the key of a cached payload and for
+ * payloads spilled to disk and read back.
+ * @since Version 2.5
+ *
+ */
+public class EncodedPayloadCacheTest {
+
+	private File directory;
+
+	@Before
+	public void setUp() throws Exception {
+		directory = File.createTempFile("jbrofuzz-cache-test", "");
+		directory.delete();
+	}
+
+	@After
+	public void tearDown() {
+		final File[] files = directory.listFiles();
+		if (files != null) {
+			for (final File file : files) {
+				file.delete();
+			}
+		}
+		directory.delete();
+	}
+
+	@Test
+	public void keyIsFuzzerLengthIndexAndChain() {
+
+		final EncodedPayloadCache cache = new EncodedPayloadCache();
+		final TransformChain base64 = chain("Base64");
+
+		assertEquals("YQ==", cache.encode("031-B16-HEX", 1, 5L, base64, "a"));
+		// The same key is served from the cache, whatever the payload given
+		assertEquals("YQ==", cache.encode("031-B16-HEX", 1, 5L, base64, "b"));
+		assertEquals("YQ==", cache.encode("031-B16-HEX", 1, 5L,
+				chain("Base64"), "b"));
+		assertEquals(2L, cache.getHitCount());
+
+		// Any part of the key differing, the payload is encoded again
+		assertEquals("Yg==", cache.encode("004-SQL-INJ", 1, 5L, base64, "b"));
+		assertEquals("Yg==", cache.encode("031-B16-HEX", 2, 5L, base64, "b"));
+		assertEquals("Yg==", cache.encode("031-B16-HEX", 1, 6L, base64, "b"));
+		assertEquals("62", cache.encode("031-B16-HEX", 1, 5L,
+				chain("Hexadecimal (UPP)"), "b"));
+		assertEquals(2L, cache.getHitCount());
+		assertEquals(5L, cache.getMissCount());
+		assertEquals(5, cache.size());
+	}
+
+	@Test
+	public void emptyChainIsNotCached() {
+
+		final EncodedPayloadCache cache = new EncodedPayloadCache();
+		final TransformChain empty = TransformChain
+				.compile(new TransformsTableModel());
+
+		assertEquals("a", cache.encode("031-B16-HEX", 1, 0L, empty, "a"));
+		assertEquals("b", cache.encode("031-B16-HEX", 1, 0L, empty, "b"));
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void evictedPayloadsAreSpilledAndReadBack() {
+
+		// Room for a single payload of 8 characters in memory
+		final EncodedPayloadCache cache = new EncodedPayloadCache(8L, directory);
+		final TransformChain base64 = chain("Base64");
+
+		assertEquals("YWFhYQ==", cache.encode("031-B16-HEX", 4, 0L, base64, "aaaa"));
+		assertEquals("YmJiYg==", cache.encode("031-B16-HEX", 4, 1L, base64, "bbbb"));
+		assertEquals(1, cache.size());
+		assertEquals(1, directory.list().length);
+
+		// Read back from the spill file, not encoded again
+		assertEquals("YWFhYQ==", cache.encode("031-B16-HEX", 4, 0L, base64, "zzzz"));
+		assertEquals(1L, cache.getHitCount());
+		assertEquals(1, cache.size());
+
+		// Not spilling any more, the spill files are deleted
+		cache.setSpillDirectory(null);
+		assertEquals(0, directory.list().length);
+		assertEquals("enp6eg==", cache.encode("031-B16-HEX", 4, 1L, base64, "zzzz"));
+
+		// Spilling again
+		cache.setSpillDirectory(directory);
+		assertEquals("Y2NjYw==", cache.encode("031-B16-HEX", 4, 2L, base64, "cccc"));
+		assertEquals("enp6eg==", cache.encode("031-B16-HEX", 4, 1L, base64, "zzzz"));
+		assertEquals(2L, cache.getHitCount());
+
+		cache.clear();
+		assertEquals(0, cache.size());
+		assertEquals(0, directory.list().length);
+	}
+
+	@Test
+	public void spilledPayloadsAreReadBackOnceTheSpillFilesAreFull()
+			throws Exception {
+
+		final EncodedPayloadCache cache = new EncodedPayloadCache(8L, directory);
+		final TransformChain base64 = chain("Base64");
+
+		cache.encode("031-B16-HEX", 4, 0L, base64, "aaaa");
+		cache.encode("031-B16-HEX", 4, 1L, base64, "bbbb");
+		// Filling up the spill files with the next payload evicted
+		final Field spillBytes = EncodedPayloadCache.class
+				.getDeclaredField("spillBytes");
+		spillBytes.setAccessible(true);
+		spillBytes.setLong(cache, EncodedPayloadCache.MAX_SPILL_BYTES);
+		cache.encode("031-B16-HEX", 4, 2L, base64, "cccc");
+		cache.encode("031-B16-HEX", 4, 3L, base64, "dddd");
+
+		// Spilled before, still read back; spilled after, discarded
+		assertEquals("YWFhYQ==", cache.encode("031-B16-HEX", 4, 0L, base64, "zzzz"));
+		assertEquals("enp6eg==", cache.encode("031-B16-HEX", 4, 2L, base64, "zzzz"));
+		assertEquals(1L, cache.getHitCount());
+		assertEquals(1, directory.list().length);
+	}
+
+	@Test
+	public void spillFilesAreDeletedOnceTheyCannotBeRead() throws Exception {
+
+		final EncodedPayloadCache cache = new EncodedPayloadCache(8L, directory);
+		final TransformChain base64 = chain("Base64");
+
+		cache.encode("031-B16-HEX", 4, 0L, base64, "aaaa");
+		cache.encode("031-B16-HEX", 4, 1L, base64, "bbbb");
+		final RandomAccessFile file = new RandomAccessFile(new File(directory,
+				directory.list()[0]), "rw");
+		try {
+			file.setLength(6L);
+		} finally {
+			file.close();
+		}
+
+		assertEquals("enp6eg==", cache.encode("031-B16-HEX", 4, 0L, base64, "zzzz"));
+		assertEquals(0L, cache.getHitCount());
+		assertEquals(0, directory.list().length);
+		// Not spilling any more
+		cache.encode("031-B16-HEX", 4, 2L, base64, "cccc");
+		assertEquals(0, directory.list().length);
+	}
+
+	@Test
+	public void evictedPayloadsAreDroppedWithoutSpilling() {
+
+		final EncodedPayloadCache cache = new EncodedPayloadCache(8L, null);
+		final TransformChain base64 = chain("Base64");
+
+		cache.encode("031-B16-HEX", 4, 0L, base64, "aaaa");
+		cache.encode("031-B16-HEX", 4, 1L, base64, "bbbb");
+		assertEquals("enp6eg==", cache.encode("031-B16-HEX", 4, 0L, base64, "zzzz"));
+		assertEquals(0L, cache.getHitCount());
+	}
+
+	private static TransformChain chain(final String encoder) {
+		final TransformsTableModel model = new TransformsTableModel();
+		model.addRow(encoder, "", "");
+		return TransformChain.compile(model);
+	}
+
+}
@@ -0,0 +1,200 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.json.JSONObject;
+import org.junit.Test;
+import org.owasp.jbrofuzz.fuzz.ConnectionException;
+import org.owasp.jbrofuzz.fuzz.MessageContainer;
+import org.owasp.jbrofuzz.fuzz.stats.EngineMetrics;
+
+/**
+ * 
+ * Engine metrics test, for the counts, the rate of completions, the
+ * classification of errors by phase and the JSON written to disk.
+ * @since Version 2.5
+ *
+ */
+public class EngineMetricsTest {
+
+	private static final long START = 1000000000L;
+
+	@Test
+	public void errorsAreCountedUnderThePhaseThatFailed() throws Exception {
+		EngineMetrics metrics = new EngineMetrics();
+
+		// Before a connection was even attempted
+		fail(metrics, "http://localhost/", null);
+		// Each phase in turn, the one after the last reached failing
+		fail(metrics, "http://localhost/", marks(0));
+		fail(metrics, "http://localhost/", marks(1));
+		fail(metrics, "https://localhost/", marks(2));
+		// No TLS handshake to fail for plain HTTP
+		fail(metrics, "http://localhost/", marks(2));
+		fail(metrics, "HTTPS://localhost/", marks(4));
+		fail(metrics, "http://localhost/", marks(5));
+		// Every phase reached, e.g. a reply cut short
+		fail(metrics, "http://localhost/", marks(6));
+
+		Map<String, Long> expected = new TreeMap<String, Long>();
+		expected.put(EngineMetrics.SETUP, Long.valueOf(1L));
+		expected.put("DNS", Long.valueOf(1L));
+		expected.put("Connect", Long.valueOf(1L));
+		expected.put("TLS", Long.valueOf(1L));
+		expected.put("Write", Long.valueOf(1L));
+		expected.put("TTFB", Long.valueOf(1L));
+		expected.put("Download", Long.valueOf(2L));
+		assertEquals(expected, metrics.getErrorsByType());
+		assertEquals(8L, metrics.getErrors());
+		assertEquals(8L, metrics.getRequestsCompleted());
+		assertEquals(0, metrics.getRequestsInFlight());
+	}
+
+	@Test
+	public void countsAreClearedOnReset() throws Exception {
+		EngineMetrics metrics = new EngineMetrics();
+		metrics.sent("GET / HTTP/1.1\r\n\r\n");
+		metrics.sent("GET / HTTP/1.1\r\n\r\n");
+		metrics.sent("GET / HTTP/1.1\r\n\r\n");
+		assertEquals(3, metrics.getRequestsInFlight());
+
+		metrics.replied(reply(100, 20L));
+		metrics.retried(container("http://localhost/"), new ConnectionException("x"));
+		metrics.failed(container("http://localhost/"), new ConnectionException("x"));
+		metrics.storeQueued();
+		metrics.transformed(5000L);
+
+		assertEquals(3L, metrics.getRequestsSent());
+		assertEquals(54L, metrics.getBytesSent());
+		assertEquals(0, metrics.getRequestsInFlight());
+		assertEquals(2L, metrics.getRequestsCompleted());
+		assertEquals(100L, metrics.getBytesReceived());
+		assertEquals(1L, metrics.getRetries());
+		assertEquals(1L, metrics.getErrors());
+		assertEquals(1, metrics.getStorageQueueDepth());
+		assertEquals(1L, metrics.getTransforms());
+		assertTrue(metrics.getLatencyMax() >= 20L);
+
+		metrics.reset();
+		assertEquals(0L, metrics.getRequestsSent());
+		assertEquals(0L, metrics.getBytesSent());
+		assertEquals(0, metrics.getRequestsInFlight());
+		assertEquals(0L, metrics.getRequestsCompleted());
+		assertEquals(0L, metrics.getBytesReceived());
+		assertEquals(0L, metrics.getRetries());
+		assertEquals(0L, metrics.getErrors());
+		assertTrue(metrics.getErrorsByType().isEmpty());
+		assertEquals(0L, metrics.getLatencyMax());
+		assertEquals(0L, metrics.getTransforms());
+		assertEquals(0L, metrics.getCompletedPerSecond());
+	}
+
+	@Test
+	public void completedPerSecondCountsTheLastWholeSecond() throws Exception {
+		// Retried, should the completions spill over into the next second
+		for (int attempt = 0; ; attempt++) {
+			EngineMetrics metrics = new EngineMetrics();
+			waitFor((System.currentTimeMillis() / 1000L + 1L) * 1000L);
+			final long second = System.currentTimeMillis() / 1000L;
+			for (int i = 0; i < 5; i++) {
+				metrics.sent("GET / HTTP/1.1\r\n\r\n");
+				metrics.replied(reply(10, 0L));
+			}
+			fail(metrics, "http://localhost/", marks(1));
+			final boolean inTime = System.currentTimeMillis() / 1000L == second;
+			// Not counted until the second is over
+			final long during = metrics.getCompletedPerSecond();
+
+			waitFor((second + 1L) * 1000L + 50L);
+			final long next = metrics.getCompletedPerSecond();
+			final boolean stillNext = System.currentTimeMillis() / 1000L == second + 1L;
+
+			waitFor((second + 2L) * 1000L + 50L);
+			final long after = metrics.getCompletedPerSecond();
+
+			if (inTime && stillNext) {
+				assertEquals(0L, during);
+				assertEquals(6L, next);
+				// Nothing completed in the second since
+				assertEquals(0L, after);
+				return;
+			}
+			assertTrue("Could not complete the requests within a second", attempt < 2);
+		}
+	}
+
+	@Test
+	public void jsonHasEveryMetric() throws Exception {
+		EngineMetrics metrics = new EngineMetrics();
+		fail(metrics, "http://localhost/", null);
+
+		JSONObject json = metrics.toJSON();
+		Set<String> keys = new HashSet<String>();
+		for (Iterator<?> i = json.keys(); i.hasNext(); ) {
+			keys.add((String) i.next());
+		}
+		assertEquals(new HashSet<String>(Arrays.asList("timestamp",
+				"requestsSent", "requestsInFlight", "requestsCompleted",
+				"completedPerSecond", "bytesSent", "bytesReceived", "errors",
+				"errorsByType", "concurrencyLimits", "limitDecreases",
+				"retries", "suspendedTargets", "latencyMean", "latencyP50",
+				"latencyP90", "latencyP99", "latencyMax", "storageQueueDepth",
+				"transforms", "transformMeanMicros", "transformP99Micros")), keys);
+
+		assertEquals(1L, json.getLong("requestsSent"));
+		assertEquals(1L, json.getLong("errors"));
+		assertEquals(1L, json.getJSONObject("errorsByType").getLong(
+				EngineMetrics.SETUP));
+		assertEquals(0, json.getJSONObject("concurrencyLimits").length());
+		assertTrue(json.getLong("timestamp") > 0L);
+		// Written and read back as the metrics file is
+		assertEquals(1L, new JSONObject(json.toString()).getJSONObject(
+				"errorsByType").getLong(EngineMetrics.SETUP));
+	}
+
+	// The marks of a request that reached the given number of phases
+	private static long[] marks(final int reached) {
+		long[] marks = new long[7];
+		marks[0] = START;
+		for (int i = 1; i <= reached; i++) {
+			marks[i] = START + i * 1000000L;
+		}
+		return marks;
+	}
+
+	private static void fail(final EngineMetrics metrics, final String url,
+			final long[] marks) throws Exception {
+		metrics.sent("GET / HTTP/1.1\r\n\r\n");
+		metrics.failed(container(url), marks == null ? new ConnectionException(
+				"Setup failed") : new ConnectionException("Failed",
+				TestUtils.createTiming(marks)));
+	}
+
+	private static MessageContainer container(final String url) {
+		return new MessageContainer("0000000001", url, "", "");
+	}
+
+	private static MessageContainer reply(final int bytes, final long millis) {
+		MessageContainer container = container("http://localhost/");
+		container.setByteCount(bytes);
+		container.setEnd(new Date(System.currentTimeMillis() + millis));
+		return container;
+	}
+
+	private static void waitFor(final long millis) throws InterruptedException {
+		long left;
+		while ((left = millis - System.currentTimeMillis()) > 0L) {
+			Thread.sleep(left);
+		}
+	}
+
+}
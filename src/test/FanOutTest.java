@@ -0,0 +1,144 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.owasp.jbrofuzz.JBroFuzz;
+import org.owasp.jbrofuzz.core.Database;
+import org.owasp.jbrofuzz.encode.EncodedPayloadCache;
+import org.owasp.jbrofuzz.fuzz.Connection;
+import org.owasp.jbrofuzz.fuzz.ConnectionException;
+import org.owasp.jbrofuzz.fuzz.FuzzingEngine;
+import org.owasp.jbrofuzz.fuzz.FuzzingRun;
+import org.owasp.jbrofuzz.fuzz.MessageContainer;
+import org.owasp.jbrofuzz.fuzz.MessageCreator;
+import org.owasp.jbrofuzz.fuzz.RunConfiguration;
+import org.owasp.jbrofuzz.fuzz.loopback.LoopbackServer;
+import org.owasp.jbrofuzz.fuzz.ui.FuzzersPanel;
+import org.owasp.jbrofuzz.fuzz.ui.TransformsTableModel;
+import org.owasp.jbrofuzz.version.JBroFuzzPrefs;
+
+/**
+ * 
+ * Fan-out test, sending the payloads of one run to two loopback servers,
+ * each through an engine of its own.
+ * @since Version 2.5
+ *
+ */
+public class FanOutTest {
+
+	private LoopbackServer first;
+	private LoopbackServer second;
+
+	@Before
+	public void setUp() throws Exception {
+		first = new LoopbackServer();
+		first.configure("size=200,keepalive=0");
+		first.start();
+		second = new LoopbackServer();
+		second.configure("size=200,keepalive=0,latency=20");
+		second.start();
+	}
+
+	@Test
+	public void targetsAreSplitOnSpacesAndCommas() {
+		assertEquals(Arrays.asList("http://a/", "https://b:8443/"), Arrays
+				.asList(FuzzingRun.getTargets(" http://a/ ,https://b:8443/")));
+		assertEquals(1, FuzzingRun.getTargets("").length);
+	}
+
+	@Test
+	public void everyPayloadReachesEveryTarget() throws Exception {
+
+		final FuzzingRun run = new FuzzingRun(new Database(),
+				new EncodedPayloadCache(), first.getURL() + " "
+						+ second.getURL(), "GET / HTTP/1.1\r\nHost: localhost\r\n\r\n",
+				FuzzersPanel.SEQUENTIAL);
+		run.addFuzzer("000-ZER-TEN", 0, 0, new TransformsTableModel());
+
+		final List<String> series = Collections
+				.synchronizedList(new ArrayList<String>());
+		final List<String> replied = send(run, series);
+
+		assertEquals(10, first.getRequestCount());
+		assertEquals(10, second.getRequestCount());
+		assertEquals(20, replied.size());
+		assertEquals(10, Collections.frequency(replied, second.getURL()));
+		assertEquals(2, series.size());
+		assertTrue(series.get(1), series.get(1).endsWith(" @ " + second.getURL()));
+	}
+
+	@Test
+	public void failuresAreSentAgainToTheirTargetOnly() throws Exception {
+
+		final String url = second.getURL();
+		second.stop();
+		final FuzzingRun run = new FuzzingRun(new Database(),
+				new EncodedPayloadCache(), first.getURL() + " " + url,
+				"GET / HTTP/1.1\r\nHost: localhost\r\n\r\n",
+				FuzzersPanel.SEQUENTIAL);
+		run.addFuzzer("000-ZER-TEN", 0, 0, new TransformsTableModel());
+
+		assertEquals(10, send(run, new ArrayList<String>()).size());
+		assertEquals(10, run.getFailures().size());
+		assertTrue(run.getFailures().contains(1, 9, 1));
+		assertTrue(!run.getFailures().contains(1, 9, 0));
+
+		final FuzzingRun failures = run.createFailuresRun();
+		assertEquals(0, send(failures, new ArrayList<String>()).size());
+		assertEquals(10, first.getRequestCount());
+		assertEquals(run.getFailures().toString(), failures.getFailures().toString());
+	}
+
+	private static List<String> send(final FuzzingRun run,
+			final List<String> series) throws Exception {
+
+		final RunConfiguration configuration = RunConfiguration.parse(
+				new String[] { JBroFuzzPrefs.FUZZINGENGINE[5].getId() + "=0" },
+				RunConfiguration.fromPreferences(JBroFuzz.PREFS));
+		final List<FuzzingEngine> engines = new ArrayList<FuzzingEngine>();
+		engines.add(new FuzzingEngine(configuration));
+		engines.add(new FuzzingEngine(configuration));
+
+		final List<String> replied = Collections
+				.synchronizedList(new ArrayList<String>());
+		run.run(engines, new FuzzingRun.Listener() {
+			public FuzzingEngine.Callback createCallback(final String name) {
+				series.add(name);
+				return new FuzzingEngine.Callback() {
+					public void replied(final MessageContainer container,
+							final Connection connection) {
+						replied.add(container.getTextURL());
+					}
+					public void failed(final MessageContainer container,
+							final ConnectionException e) {
+						// Counted as missing
+					}
+				};
+			}
+			public MessageContainer createContainer(final int series,
+					final long index, final String url, final String payload,
+					final String encodedPayload, final MessageCreator message) {
+				return new MessageContainer("0", url, payload, encodedPayload);
+			}
+		});
+		for (final FuzzingEngine engine : engines) {
+			engine.finish();
+		}
+		return replied;
+	}
+
+	@After
+	public void tearDown() {
+		first.stop();
+		second.stop();
+	}
+}
@@ -0,0 +1,93 @@
+package test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.owasp.jbrofuzz.core.Fuzzer;
+import org.owasp.jbrofuzz.core.NoSuchFuzzerException;
+import org.owasp.jbrofuzz.core.Prototype;
+import org.owasp.jbrofuzz3.message.FuzzList;
+import org.owasp.jbrofuzz3.message.FuzzPoint;
+import org.owasp.jbrofuzz3.message.FuzzRequest;
+
+/**
+ * 
+ * Fuzz request and fuzz list test, for requests with more than one
+ * fuzz point.
+ * @since Version 2.5
+ *
+ */
+public class FuzzRequestTest {
+
+	@Test
+	public void substitutesEveryFuzzPoint() {
+		final String message = "GET /a?x=AA&y=BB HTTP/1.0\n\n";
+		// Given out of order, the payloads follow the fuzz points
+		final FuzzRequest request = new FuzzRequest(message, Arrays.asList(
+				new FuzzPoint(14, 16), new FuzzPoint(9, 11)));
+
+		assertEquals(2, request.getFuzzPointCount());
+		assertEquals("GET /a?x=2&y=1 HTTP/1.0\n\n",
+				request.getRequest(new String[] { "1", "2" }));
+		assertEquals("GET /a?x=AA&y=1 HTTP/1.0\n\n",
+				request.getRequest(new String[] { "1", null }));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsOverlappingFuzzPoints() {
+		new FuzzRequest("0123456789", Arrays.asList(
+				new FuzzPoint(2, 5), new FuzzPoint(4, 6)));
+	}
+
+	@Test
+	public void zipWrapsTheShorterFuzzers() throws NoSuchFuzzerException {
+		final FuzzList list = new FuzzList(new Fuzzer[] {
+				fuzzer("a", "b", "c"), fuzzer("1", "2") }, FuzzList.ZIP);
+
+		assertEquals(3, list.getMaximumValue());
+		assertArrayEquals(new String[] { "a", "1" }, list.next());
+		assertArrayEquals(new String[] { "b", "2" }, list.next());
+		assertArrayEquals(new String[] { "c", "1" }, list.next());
+		assertEquals(0, list.getIndex(1));
+		assertFalse(list.hasNext());
+	}
+
+	@Test
+	public void crossProductReturnsEveryCombination() throws NoSuchFuzzerException {
+		final FuzzList list = new FuzzList(new Fuzzer[] {
+				fuzzer("a", "b"), fuzzer("1", "2"), fuzzer("x") },
+				FuzzList.CROSS_PRODUCT);
+
+		assertEquals(4, list.getMaximumValue());
+		assertArrayEquals(new String[] { "a", "1", "x" }, list.next());
+		assertArrayEquals(new String[] { "a", "2", "x" }, list.next());
+		assertArrayEquals(new String[] { "b", "1", "x" }, list.next());
+		assertArrayEquals(new String[] { "b", "2", "x" }, list.next());
+		assertFalse(list.hasNext());
+	}
+
+	@Test
+	public void powerRepeatsTheFirstFuzzer() throws NoSuchFuzzerException {
+		final FuzzList list = new FuzzList(new Fuzzer[] {
+				fuzzer("a", "b"), fuzzer("1", "2", "3") }, FuzzList.POWER);
+
+		assertEquals(2, list.getMaximumValue());
+		assertArrayEquals(new String[] { "a", "a" }, list.next());
+		assertArrayEquals(new String[] { "b", "b" }, list.next());
+		assertFalse(list.hasNext());
+	}
+
+	private static Fuzzer fuzzer(final String... payloads)
+			throws NoSuchFuzzerException {
+		final Prototype prototype = new Prototype('P', "000-TST-" + payloads.length, "Test");
+		for (final String payload : payloads) {
+			prototype.addPayload(payload);
+		}
+		return new Fuzzer(prototype, 1) {
+		};
+	}
+}
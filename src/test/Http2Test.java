@@ -0,0 +1,102 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.owasp.jbrofuzz.JBroFuzz;
+import org.owasp.jbrofuzz.fuzz.Connection;
+import org.owasp.jbrofuzz.fuzz.ConnectionException;
+import org.owasp.jbrofuzz.fuzz.FuzzingEngine;
+import org.owasp.jbrofuzz.fuzz.MessageContainer;
+import org.owasp.jbrofuzz.fuzz.RunConfiguration;
+import org.owasp.jbrofuzz.fuzz.loopback.LoopbackServer;
+import org.owasp.jbrofuzz.version.JBroFuzzPrefs;
+
+/**
+ * 
+ * HTTP/2 test, sending requests as streams of one connection to a loopback
+ * server, and falling back to HTTP/1.1 if it does not speak HTTP/2.
+ * @since Version 2.5
+ *
+ */
+public class Http2Test {
+
+	private static final int REQUESTS = 200;
+
+	private LoopbackServer server;
+	private FuzzingEngine engine;
+	private List<String> mismatched;
+
+	@Before
+	public void setUp() {
+		server = new LoopbackServer();
+		engine = new FuzzingEngine(RunConfiguration.parse(new String[] {
+				JBroFuzzPrefs.FUZZING[0].getId() + "=5",
+				JBroFuzzPrefs.FUZZINGENGINE[0].getId() + "=2",
+				JBroFuzzPrefs.FUZZINGENGINE[4].getId() + "=0",
+				JBroFuzzPrefs.FUZZINGENGINE[9].getId() + "=50" },
+				RunConfiguration.fromPreferences(JBroFuzz.PREFS)));
+		mismatched = Collections.synchronizedList(new ArrayList<String>());
+	}
+
+	private void sendAll(final String version) throws InterruptedException {
+
+		final FuzzingEngine.Callback callback = new FuzzingEngine.Callback() {
+			public void replied(final MessageContainer container,
+					final Connection connection) {
+				if (!connection.getMessage().startsWith(
+						"POST /" + container.getFileName() + " ")
+						|| !connection.getReply().startsWith(version + " 200")
+						|| !connection.getReply().endsWith("</body></html>\n")) {
+					mismatched.add(container.getFileName());
+				}
+			}
+			public void failed(final MessageContainer container,
+					final ConnectionException e) {
+				mismatched.add(container.getFileName() + ": " + e.getMessage());
+			}
+		};
+		for (int i = 0; i < REQUESTS; i++) {
+			engine.send(server.getURL(), "POST /" + i
+					+ " HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n"
+					+ "Content-Length: 7\r\n\r\nid=" + (1000 + i),
+					new MessageContainer(Integer.toString(i), server.getURL(),
+							"", ""), callback);
+		}
+		engine.finish();
+
+	}
+
+	@Test
+	public void streamsOnOneConnection() throws Exception {
+		assertEquals(50, engine.getStreams());
+		assertEquals(1, engine.getPipeline());
+		server.configure("size=3000,latency=20,keepalive=5000");
+		server.start();
+		sendAll("HTTP/2");
+		assertTrue(mismatched.toString(), mismatched.isEmpty());
+		assertEquals(REQUESTS, server.getRequestCount());
+		assertEquals(0L, engine.getMetrics().getRetries());
+	}
+
+	@Test
+	public void fallsBackToHttp11() throws Exception {
+		server.configure("size=300,keepalive=0,http2=false");
+		server.start();
+		sendAll("HTTP/1.1");
+		assertTrue(mismatched.toString(), mismatched.isEmpty());
+		assertEquals(REQUESTS, engine.getMetrics().getRequestsCompleted());
+	}
+
+	@After
+	public void tearDown() {
+		server.stop();
+	}
+}
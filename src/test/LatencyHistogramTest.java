@@ -0,0 +1,62 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.owasp.jbrofuzz.fuzz.stats.LatencyHistogram;
+import org.owasp.jbrofuzz.fuzz.stats.ResponseTimeStatistics;
+
+/**
+ * 
+ * Latency histogram and response time statistics test.
+ * @since Version 2.5
+ *
+ */
+public class LatencyHistogramTest {
+
+	@Test
+	public void percentilesWithinBucketError() {
+		LatencyHistogram h = new LatencyHistogram();
+		for (int i = 1; i <= 10000; i++) {
+			h.record(i);
+		}
+		assertEquals(10000, h.getCount());
+		assertEquals(10000, h.getMax());
+		assertEquals(1, h.getMin());
+		assertWithin(5000, h.getValueAtPercentile(50));
+		assertWithin(9900, h.getValueAtPercentile(99));
+		assertEquals(10000, h.getValueAtPercentile(100));
+	}
+
+	@Test
+	public void smallValuesAreExact() {
+		LatencyHistogram h = new LatencyHistogram();
+		for (int i = 0; i < 32; i++) {
+			h.record(i);
+		}
+		assertEquals(15, h.getValueAtPercentile(50));
+		assertEquals(31, h.getValueAtPercentile(100));
+	}
+
+	@Test
+	public void windowsCoarsenWhenFull() {
+		ResponseTimeStatistics stats = new ResponseTimeStatistics(1000, 4);
+		for (int s = 0; s < 10; s++) {
+			stats.record("fuzzer", s * 1000L, 100 + s);
+		}
+		assertEquals(4000, stats.getWindowMillis());
+		assertEquals(3, stats.getWindowCount());
+		assertEquals(10, stats.getTotal(ResponseTimeStatistics.ALL).getCount());
+		assertEquals(10, stats.getTotal("fuzzer").getCount());
+		assertNotNull(stats.getWindow("fuzzer", 2));
+		assertEquals(2, stats.getWindow("fuzzer", 2).getCount());
+		assertEquals(109, stats.getWindow(ResponseTimeStatistics.ALL, 2).getMax());
+	}
+
+	private static void assertWithin(long expected, long actual) {
+		assertTrue("expected ~" + expected + " but was " + actual,
+				Math.abs(actual - expected) <= expected * 0.07);
+	}
+}
@@ -0,0 +1,274 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.owasp.jbrofuzz.system.LogListener;
+import org.owasp.jbrofuzz.system.Logger;
+
+/**
+ * 
+ * Logger test, for the order of the lines written, flushing, rolling the
+ * log file over and dropping messages once the buffer is full.
+ * @since Version 2.5
+ *
+ */
+public class LoggerTest {
+
+	// Logged at the highest level, whatever the threshold
+	private static final int LEVEL = 4;
+
+	private final List<LogListener> listeners = new ArrayList<LogListener>();
+
+	private File directory;
+
+	// Not to write to, or roll over, the log files of the preferences
+	@Before
+	public void setUp() throws Exception {
+		directory = File.createTempFile("jbrofuzz-log-test", "");
+		directory.delete();
+		setLogDirectory(directory);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		for (final LogListener listener : listeners) {
+			Logger.removeListener(listener);
+		}
+		Logger.flush();
+		setLogDirectory(null);
+		FileUtils.deleteDirectory(directory);
+	}
+
+	@Test
+	public void linesAreWrittenInOrderByFlush() throws Exception {
+		final List<String> lines = listen();
+		final String run = "order " + System.nanoTime() + " ";
+		for (int i = 0; i < 1000; i++) {
+			Logger.log(run + i, LEVEL);
+		}
+		Logger.flush();
+
+		// Every line passed on and in the file, once flush() returns
+		assertEquals(numbers(0, 1000), find(lines, run));
+		assertEquals(numbers(0, 1000), find(readLines(getLogFile()), run));
+	}
+
+	@Test
+	public void argumentsAreAbbreviated() throws Exception {
+		final List<String> lines = listen();
+		final String run = "argument " + System.nanoTime() + " ";
+		final char[] argument = new char[Logger.MAX_ARGUMENT_LENGTH + 10];
+		Arrays.fill(argument, 'x');
+		Logger.log(run, new String(argument), LEVEL);
+		Logger.flush();
+
+		final String line = lines.get(lines.size() - 1);
+		assertTrue(line, line.endsWith(run + new String(argument, 0,
+				Logger.MAX_ARGUMENT_LENGTH) + "... [" + argument.length
+				+ " characters]"));
+	}
+
+	@Test
+	public void fileIsRolledOverWithoutLosingLines() throws Exception {
+		final String run = "roll " + System.nanoTime() + " ";
+		final char[] padding = new char[1000];
+		Arrays.fill(padding, '.');
+
+		// Over the largest log file, of 1MB at least
+		final int count = 1200 * Math.max(1, (int) (getMaxFileSize() >> 20));
+		for (int i = 0; i < count; i++) {
+			Logger.log(run + i + " ", new String(padding), LEVEL);
+			if (i % 1000 == 999) {
+				Logger.flush();
+			}
+		}
+		Logger.flush();
+
+		final List<File> rolled = new ArrayList<File>();
+		for (final String name : directory.list()) {
+			if (name.matches(".*-log\\.\\d+\\.txt")) {
+				rolled.add(new File(directory, name));
+			}
+		}
+		assertTrue("No log file rolled over", !rolled.isEmpty());
+		// Oldest first, followed by the current file
+		Collections.sort(rolled, new Comparator<File>() {
+			public int compare(final File one, final File other) {
+				return getNumber(one) - getNumber(other);
+			}
+		});
+		final List<String> lines = new ArrayList<String>();
+		for (final File file : rolled) {
+			assertTrue(file.length() <= getMaxFileSize());
+			lines.addAll(readLines(file));
+		}
+		lines.addAll(readLines(getLogFile()));
+		assertEquals(numbers(0, count), find(lines, run));
+	}
+
+	@Test
+	public void messagesAreDroppedWhenTheBufferIsFull() throws Exception {
+		final List<String> lines = listen();
+		final String run = "drop " + System.nanoTime() + " ";
+		final CountDownLatch writing = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final LogListener blocking = new LogListener() {
+			public void logged(final String line, final int level) {
+				if (line.endsWith(run + "block")) {
+					writing.countDown();
+					try {
+						release.await(30, TimeUnit.SECONDS);
+					} catch (final InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			}
+		};
+		Logger.addListener(blocking);
+		listeners.add(blocking);
+
+		// Hold up the writer, so that nothing is taken off the buffer
+		Logger.log(run + "block", LEVEL);
+		assertTrue(writing.await(30, TimeUnit.SECONDS));
+		final long start = System.nanoTime();
+		for (int i = 0; i < 10000; i++) {
+			Logger.log(run + i, LEVEL);
+		}
+		// Never waiting for room in the buffer
+		assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+		release.countDown();
+		Logger.flush();
+
+		final List<Integer> kept = find(lines, run);
+		assertTrue(kept.size() < 10000);
+		// The first ones kept, in order, the rest dropped and counted
+		assertEquals(numbers(0, kept.size()), kept);
+		long dropped = 0L;
+		final Pattern report = Pattern.compile(
+				"(\\d+) log messages were dropped, as the log buffer was full");
+		for (final String line : lines) {
+			final Matcher matcher = report.matcher(line);
+			if (matcher.find()) {
+				dropped += Long.parseLong(matcher.group(1));
+			}
+		}
+		assertTrue(dropped >= 10000 - kept.size());
+	}
+
+	@Test
+	public void failingListenerIsReportedOnce() throws Exception {
+		final List<String> lines = listen();
+		final LogListener failing = new LogListener() {
+			public void logged(final String line, final int level) {
+				throw new IllegalStateException("listener failure");
+			}
+		};
+		Logger.addListener(failing);
+		listeners.add(failing);
+		final String run = "failing " + System.nanoTime() + " ";
+		for (int i = 0; i < 3; i++) {
+			Logger.log(run + i, LEVEL);
+			Logger.flush();
+		}
+
+		// The other listeners are still given every line
+		assertEquals(numbers(0, 3), find(lines, run));
+		int reports = 0;
+		for (final String line : lines) {
+			if (line.contains("A log listener failed")) {
+				assertTrue(line, line.endsWith("listener failure"));
+				reports++;
+			}
+		}
+		assertEquals(1, reports);
+	}
+
+	// A listener collecting every line passed on from now on
+	private List<String> listen() {
+		final List<String> lines = Collections
+				.synchronizedList(new ArrayList<String>());
+		final LogListener listener = new LogListener() {
+			public void logged(final String line, final int level) {
+				lines.add(line);
+			}
+		};
+		Logger.addListener(listener);
+		listeners.add(listener);
+		return lines;
+	}
+
+	// The numbers following the given run in the lines, in order
+	private static List<Integer> find(final List<String> lines,
+			final String run) {
+		final List<Integer> numbers = new ArrayList<Integer>();
+		final Pattern pattern = Pattern.compile(Pattern.quote(run) + "(\\d+)");
+		synchronized (lines) {
+			for (final String line : lines) {
+				final Matcher matcher = pattern.matcher(line);
+				if (matcher.find()) {
+					numbers.add(Integer.valueOf(matcher.group(1)));
+				}
+			}
+		}
+		return numbers;
+	}
+
+	private static List<Integer> numbers(final int from, final int to) {
+		final List<Integer> numbers = new ArrayList<Integer>();
+		for (int i = from; i < to; i++) {
+			numbers.add(Integer.valueOf(i));
+		}
+		return numbers;
+	}
+
+	// The number of a rolled over file, e.g. 2 for 19.10.2026-log.2.txt
+	private static int getNumber(final File file) {
+		final String name = file.getName();
+		return Integer.parseInt(name.substring(name.lastIndexOf('.',
+				name.length() - 5) + 1, name.length() - 4));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<String> readLines(final File file) throws Exception {
+		return FileUtils.readLines(file, null);
+	}
+
+	private static void setLogDirectory(final File directory) throws Exception {
+		final Method method = Logger.class.getDeclaredMethod(
+				"setLogDirectory", File.class);
+		method.setAccessible(true);
+		method.invoke(null, directory);
+	}
+
+	private static File getLogFile() throws Exception {
+		final Method method = Logger.class.getDeclaredMethod("getLogFile");
+		method.setAccessible(true);
+		return (File) method.invoke(null);
+	}
+
+	private static long getMaxFileSize() throws Exception {
+		final Field field = Logger.class
+				.getDeclaredField("maxFileSize");
+		field.setAccessible(true);
+		return field.getLong(null);
+	}
+
+}
@@ -0,0 +1,75 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.owasp.jbrofuzz.JBroFuzz;
+import org.owasp.jbrofuzz.fuzz.Connection;
+import org.owasp.jbrofuzz.fuzz.RunConfiguration;
+import org.owasp.jbrofuzz.fuzz.loopback.LoopbackServer;
+import org.owasp.jbrofuzz.version.JBroFuzzPrefs;
+
+/**
+ * 
+ * Loopback server test, through the connection of the fuzzing engine.
+ * @since Version 2.5
+ *
+ */
+public class LoopbackServerTest {
+
+	private static final String REQUEST = "GET /index.jsp?q=test HTTP/1.1\r\n"
+			+ "Host: localhost\r\nConnection: close\r\n\r\n";
+
+	private LoopbackServer server;
+	private RunConfiguration configuration;
+
+	@Before
+	public void setUp() {
+		server = new LoopbackServer();
+		configuration = RunConfiguration.parse(
+				new String[] { JBroFuzzPrefs.FUZZING[0].getId() + "=5" },
+				RunConfiguration.fromPreferences(JBroFuzz.PREFS));
+	}
+
+	@Test
+	public void contentLengthResponse() throws Exception {
+		server.configure("size=100");
+		server.start();
+		Connection connection = new Connection(server.getURL(), REQUEST, configuration);
+		assertEquals("200", connection.getStatus());
+		assertTrue(connection.getReply().contains("Content-Length: 100\r\n"));
+		assertTrue(connection.getReply().endsWith("</body></html>\n"));
+		assertEquals(1, server.getRequestCount());
+	}
+
+	@Test
+	public void chunkedResponse() throws Exception {
+		server.configure("size=100,chunk=64");
+		server.start();
+		String reply = new Connection(server.getURL(), REQUEST, configuration).getReply();
+		// 100 bytes in chunks of 0x40 and 0x24 bytes
+		assertTrue(reply.contains("Transfer-Encoding: chunked\r\n\r\n40\r\n<html>"));
+		assertTrue(reply.contains("\r\n24\r\n"));
+		assertTrue(reply.endsWith("</body></html>\n\r\n0\r\n\r\n"));
+	}
+
+	@Test
+	public void errorRateOfAllRequests() throws Exception {
+		server.configure("errors=100");
+		server.start();
+		assertEquals("500", new Connection(server.getURL(), REQUEST, configuration).getStatus());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void unknownSettingIsRejected() {
+		server.configure("latency=5,speed=fast");
+	}
+
+	@After
+	public void tearDown() {
+		server.stop();
+	}
+}
@@ -0,0 +1,112 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.owasp.jbrofuzz.JBroFuzz;
+import org.owasp.jbrofuzz.fuzz.Connection;
+import org.owasp.jbrofuzz.fuzz.ConnectionException;
+import org.owasp.jbrofuzz.fuzz.FuzzingEngine;
+import org.owasp.jbrofuzz.fuzz.MessageContainer;
+import org.owasp.jbrofuzz.fuzz.RunConfiguration;
+import org.owasp.jbrofuzz.fuzz.loopback.LoopbackServer;
+import org.owasp.jbrofuzz.version.JBroFuzzPrefs;
+
+/**
+ * 
+ * Pipelining test, matching the replies of a loopback server back to the
+ * requests sent.
+ * @since Version 2.5
+ *
+ */
+public class PipeliningTest {
+
+	private static final int REQUESTS = 40;
+
+	private LoopbackServer server;
+	private FuzzingEngine engine;
+	private List<String> mismatched;
+
+	@Before
+	public void setUp() {
+		server = new LoopbackServer();
+		engine = new FuzzingEngine(RunConfiguration.parse(new String[] {
+				JBroFuzzPrefs.FUZZING[0].getId() + "=5",
+				JBroFuzzPrefs.FUZZINGENGINE[0].getId() + "=2",
+				JBroFuzzPrefs.FUZZINGENGINE[4].getId() + "=0",
+				JBroFuzzPrefs.FUZZINGENGINE[8].getId() + "=8" },
+				RunConfiguration.fromPreferences(JBroFuzz.PREFS)));
+		mismatched = Collections.synchronizedList(new ArrayList<String>());
+	}
+
+	private void sendAll(final String method) throws InterruptedException {
+
+		final FuzzingEngine.Callback callback = new FuzzingEngine.Callback() {
+			public void replied(final MessageContainer container,
+					final Connection connection) {
+				if (!connection.getMessage().startsWith(
+						method + " /" + container.getFileName() + " ")
+						|| !"200".equals(connection.getStatus())) {
+					mismatched.add(container.getFileName());
+				}
+			}
+			public void failed(final MessageContainer container,
+					final ConnectionException e) {
+				mismatched.add(container.getFileName());
+			}
+		};
+		for (int i = 0; i < REQUESTS; i++) {
+			engine.send(server.getURL(), method + " /" + i
+					+ " HTTP/1.1\r\nHost: localhost\r\n"
+					+ ("GET".equals(method) ? "" : "Content-Length: 0\r\n")
+					+ "\r\n",
+					new MessageContainer(Integer.toString(i), server.getURL(),
+							"", ""), callback);
+		}
+		engine.finish();
+
+	}
+
+	@Test
+	public void repliesMatchRequests() throws Exception {
+		assertEquals(8, engine.getPipeline());
+		server.configure("size=300,chunk=128,keepalive=5000");
+		server.start();
+		sendAll("GET");
+		assertTrue(mismatched.toString(), mismatched.isEmpty());
+		assertEquals(REQUESTS, server.getRequestCount());
+		assertEquals(0L, engine.getMetrics().getRetries());
+	}
+
+	@Test
+	public void oneRequestPerConnectionIfClosed() throws Exception {
+		server.configure("size=300,keepalive=0");
+		server.start();
+		sendAll("GET");
+		assertTrue(mismatched.toString(), mismatched.isEmpty());
+		assertEquals(REQUESTS, engine.getMetrics().getRequestsCompleted());
+	}
+
+	@Test
+	public void postsAreNotPipelined() throws Exception {
+		server.configure("size=300,keepalive=0");
+		server.start();
+		sendAll("POST");
+		assertTrue(mismatched.toString(), mismatched.isEmpty());
+		// Closing after each reply leaves no pipelined POST to send again
+		assertEquals(REQUESTS, server.getRequestCount());
+		assertEquals(0L, engine.getMetrics().getRetries());
+	}
+
+	@After
+	public void tearDown() {
+		server.stop();
+	}
+}
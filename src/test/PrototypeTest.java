@@ -0,0 +1,66 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import org.apache.commons.lang.StringUtils;
+import org.junit.Test;
+import org.owasp.jbrofuzz.core.Database;
+import org.owasp.jbrofuzz.core.Fuzzer;
+import org.owasp.jbrofuzz.core.Prototype;
+
+/**
+ * 
+ * Prototype test, for the payloads read back as they were added.
+ * @since Version 2.5
+ *
+ */
+public class PrototypeTest {
+
+	private static final String[] PAYLOADS = { "<script>", "", "caf\u00e9",
+			"\u20ac100", "\ud800 unpaired", "<script>", "f(x)=garbage" };
+
+	@Test
+	public void payloadsAreReadAsAdded() {
+		final Prototype prototype = new Prototype('P', "000-TST-PRT", "Test");
+		for (final String payload : PAYLOADS) {
+			prototype.addPayload(payload);
+		}
+		prototype.addPayload("f(x)=ab x 3");
+
+		final List<String> payloads = prototype.getPayloads();
+		assertEquals(PAYLOADS.length + 1, prototype.size());
+		for (int i = 0; i < PAYLOADS.length - 1; i++) {
+			assertEquals(PAYLOADS[i], payloads.get(i));
+		}
+		assertEquals("garbage", payloads.get(PAYLOADS.length - 1));
+		assertEquals("ababab", payloads.get(PAYLOADS.length));
+	}
+
+	@Test
+	public void databasePayloadsAreExpanded() throws Exception {
+		final Database database = new Database();
+		assertEquals(10000, database.getSize("000-ZER-10K"));
+		final Fuzzer zero = database.createFuzzer("000-ZER-10K", 1);
+		zero.setCurrentValue(9999);
+		assertEquals("", zero.next());
+
+		// Buffer overflows are expanded when asked for
+		int expanded = 0;
+		for (final String id : database.getAllFuzzerIDs()) {
+			for (final String payload : database.getPayloads(id)) {
+				if (payload.length() > 64 && StringUtils.countMatches(payload,
+						payload.substring(0, 1)) == payload.length()) {
+					expanded++;
+				}
+			}
+		}
+		assertEquals(true, expanded > 0);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void loadedPrototypesAreFrozen() {
+		new Database().getPrototype("000-ZER-TEN").addPayload("");
+	}
+}
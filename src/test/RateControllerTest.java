@@ -0,0 +1,102 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.owasp.jbrofuzz.fuzz.RateController;
+
+/**
+ * 
+ * Rate controller test.
+ * @since Version 2.5
+ *
+ */
+public class RateControllerTest {
+
+	@Test
+	public void fixedKeepsToTheThreads() throws InterruptedException {
+		RateController c = new RateController("localhost:80", 8, 0, false, 0);
+		assertEquals(8, c.getLimit());
+		c.replied(c.acquire(), "503", 5);
+		c.failed(c.acquire());
+		assertEquals(8, c.getLimit());
+		assertEquals(0, c.getPause());
+	}
+
+	@Test
+	public void slowStartUpToTheCap() throws InterruptedException {
+		RateController c = new RateController("localhost:80", 8, 0, true, 0);
+		assertEquals(1, c.getLimit());
+		c.replied(c.acquire(), "200", 5);
+		assertEquals(2, c.getLimit());
+		for (int i = 0; i < 50; i++) {
+			c.replied(c.acquire(), "200", 5);
+		}
+		assertEquals(8, c.getLimit());
+	}
+
+	@Test
+	public void decreaseOncePerWindow() throws InterruptedException {
+		RateController c = new RateController("localhost:80", 16, 0, true, 0);
+		for (int i = 0; i < 20; i++) {
+			c.replied(c.acquire(), "200", 5);
+		}
+		assertEquals(16, c.getLimit());
+		long[] tickets = new long[10];
+		for (int i = 0; i < tickets.length; i++) {
+			tickets[i] = c.acquire();
+		}
+		for (int i = 0; i < tickets.length; i++) {
+			c.replied(tickets[i], "429", 5);
+		}
+		assertEquals(1, c.getDecreases());
+		assertEquals(11, c.getLimit());
+		// Sent after the decrease
+		c.replied(c.acquire(), "503", 5);
+		assertEquals(2, c.getDecreases());
+		assertEquals(7, c.getLimit());
+	}
+
+	@Test
+	public void pauseBelowASingleRequest() throws InterruptedException {
+		RateController c = new RateController("localhost:80", 4, 0, true, 0);
+		c.failed(c.acquire());
+		assertEquals(1, c.getLimit());
+		final long first = c.getPause();
+		assertTrue(first > 0);
+		c.failed(c.acquire());
+		assertEquals(2 * first, c.getPause());
+		c.replied(c.acquire(), "200", 5);
+		assertTrue(c.getPause() < 2 * first);
+		assertEquals(1, c.getLimit());
+		c.close();
+		assertEquals(-1, c.acquire());
+	}
+
+	@Test
+	public void suspendAndProbe() throws InterruptedException {
+		RateController c = new RateController("localhost:80", 4, 0, false, 3);
+		c.failed(c.acquire());
+		c.failed(c.acquire());
+		assertEquals(false, c.isSuspended());
+		final long start = System.currentTimeMillis();
+		c.failed(c.acquire());
+		assertEquals(true, c.isSuspended());
+		assertEquals(1, c.getSuspensions());
+		// The probe is let through once the target has been suspended a while
+		final long probe = c.acquire();
+		assertTrue(System.currentTimeMillis() - start >= 900);
+		c.replied(probe, "200", 5);
+		assertEquals(false, c.isSuspended());
+		assertEquals(1, c.getSuspensions());
+	}
+
+	@Test
+	public void targetIsHostAndPort() {
+		assertEquals("example.com:443", RateController.getTarget("https://Example.com/a?b"));
+		assertEquals("example.com:8080", RateController.getTarget("http://example.com:8080/"));
+		assertEquals("not a url", RateController.getTarget("not a url"));
+	}
+
+}
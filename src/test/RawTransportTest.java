@@ -0,0 +1,188 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.owasp.jbrofuzz.JBroFuzz;
+import org.owasp.jbrofuzz.fuzz.Connection;
+import org.owasp.jbrofuzz.fuzz.ConnectionException;
+import org.owasp.jbrofuzz.fuzz.Framing;
+import org.owasp.jbrofuzz.fuzz.FuzzingEngine;
+import org.owasp.jbrofuzz.fuzz.MessageContainer;
+import org.owasp.jbrofuzz.fuzz.MessageCreator;
+import org.owasp.jbrofuzz.fuzz.RunConfiguration;
+import org.owasp.jbrofuzz.version.JBroFuzzPrefs;
+
+/**
+ * 
+ * Raw transport test, sending lines to a TCP and a UDP echo server.
+ * @since Version 2.5
+ *
+ */
+public class RawTransportTest {
+
+	private ServerSocket tcp;
+	private DatagramSocket udp;
+	private final AtomicInteger accepted = new AtomicInteger();
+
+	@Before
+	public void setUp() throws Exception {
+		tcp = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+		new Thread() {
+			@Override
+			public void run() {
+				try {
+					while (true) {
+						final Socket socket = tcp.accept();
+						accepted.incrementAndGet();
+						new Thread() {
+							@Override
+							public void run() {
+								echoLines(socket);
+							}
+						}.start();
+					}
+				} catch (final IOException e) {
+					// Closed
+				}
+			}
+		}.start();
+
+		udp = new DatagramSocket(0, InetAddress.getByName("127.0.0.1"));
+		new Thread() {
+			@Override
+			public void run() {
+				final byte[] buffer = new byte[2048];
+				try {
+					while (true) {
+						final DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+						udp.receive(packet);
+						final byte[] reply = ("echo:" + new String(packet.getData(),
+								0, packet.getLength(), "ISO-8859-1")).getBytes("ISO-8859-1");
+						udp.send(new DatagramPacket(reply, reply.length, packet.getSocketAddress()));
+					}
+				} catch (final IOException e) {
+					// Closed
+				}
+			}
+		}.start();
+	}
+
+	private static void echoLines(final Socket socket) {
+		try {
+			final BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+			final OutputStream out = socket.getOutputStream();
+			String line;
+			while ((line = in.readLine()) != null) {
+				out.write(("echo:" + line + "\n").getBytes());
+				out.flush();
+			}
+			socket.close();
+		} catch (final IOException e) {
+			// Closed
+		}
+	}
+
+	@Test
+	public void framingIsReadAndWritten() {
+		assertEquals("delimiter:0d0a", Framing.parse(" Delimiter:0D0A").toString());
+		assertEquals("close", Framing.parse("close").toString());
+		assertEquals(250, Framing.parse(Framing.DEFAULT).getIdle());
+		for (final String spec : new String[] { "length:3", "fixed:0", "delimiter:0", "lines" }) {
+			try {
+				Framing.parse(spec);
+				fail(spec);
+			} catch (final IllegalArgumentException e) {
+				// Expected
+			}
+		}
+		assertEquals(Framing.DEFAULT, configure("nonsense").getFraming().toString());
+	}
+
+	@Test
+	public void rawRequestsAreNotRewritten() {
+		final RunConfiguration configuration = configure("close");
+		assertEquals("GET x", new MessageCreator("tcp://127.0.0.1:7", "GET x", "",
+				configuration).getMessage());
+		assertTrue(new MessageCreator("http://127.0.0.1:7/", "GET x", "",
+				configuration).getMessage().endsWith("\r\n\r\n"));
+	}
+
+	@Test
+	public void linesShareOneConnection() throws Exception {
+		final List<String> replies = send("tcp://127.0.0.1:" + tcp.getLocalPort(),
+				configure("delimiter:0a"), 20);
+		assertEquals(20, replies.size());
+		for (int i = 0; i < 20; i++) {
+			assertTrue(replies.get(i), replies.contains("echo:line " + i + "\n"));
+		}
+		assertEquals(1, accepted.get());
+	}
+
+	@Test
+	public void datagramsAreEchoed() throws Exception {
+		final List<String> replies = send("udp://127.0.0.1:" + udp.getLocalPort(),
+				configure("fixed:64"), 10);
+		assertEquals(10, replies.size());
+		for (int i = 0; i < 10; i++) {
+			assertTrue(replies.get(i), replies.contains("echo:line " + i + "\r\n"));
+		}
+	}
+
+	private static RunConfiguration configure(final String framing) {
+		return RunConfiguration.parse(new String[] {
+				JBroFuzzPrefs.FUZZING[0].getId() + "=5",
+				JBroFuzzPrefs.FUZZING[1].getId() + "=true",
+				JBroFuzzPrefs.FUZZINGENGINE[0].getId() + "=1",
+				JBroFuzzPrefs.FUZZINGENGINE[4].getId() + "=0",
+				JBroFuzzPrefs.FUZZINGENGINE[13].getId() + "=" + framing },
+				RunConfiguration.fromPreferences(JBroFuzz.PREFS));
+	}
+
+	private static List<String> send(final String url, final RunConfiguration configuration,
+			final int count) throws Exception {
+		final List<String> replies = Collections.synchronizedList(new ArrayList<String>());
+		final FuzzingEngine engine = new FuzzingEngine(configuration);
+		for (int i = 0; i < count; i++) {
+			final String message = new MessageCreator(url, "line " + i + "\n", "",
+					configuration).getMessage();
+			engine.send(url, message, new MessageContainer("0", url, "", ""),
+					new FuzzingEngine.Callback() {
+						public void replied(final MessageContainer container,
+								final Connection connection) {
+							replies.add(connection.getReply());
+						}
+						public void failed(final MessageContainer container,
+								final ConnectionException e) {
+							replies.add(e.getMessage());
+						}
+					});
+		}
+		engine.finish();
+		return replies;
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		tcp.close();
+		udp.close();
+	}
+}
@@ -0,0 +1,79 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.owasp.jbrofuzz.fuzz.RequestTiming;
+
+/**
+ * 
+ * Request timing test, for the time of each phase worked out from the
+ * marks taken by a connection.
+ * @since Version 2.5
+ *
+ */
+public class RequestTimingTest {
+
+	private static final long START = 1000000000L;
+
+	@Test
+	public void everyPhaseReached() throws Exception {
+		RequestTiming timing = TestUtils.createTiming(START,
+				START + 1000000L, START + 4000000L, START + 4500000L,
+				START + 4501000L, START + 14501000L, START + 14501999L);
+		assertEquals(1000, timing.getMicros(RequestTiming.DNS));
+		assertEquals(3000, timing.getMicros(RequestTiming.CONNECT));
+		assertEquals(500, timing.getMicros(RequestTiming.HANDSHAKE));
+		assertEquals(1, timing.getMicros(RequestTiming.WRITE));
+		assertEquals(10000, timing.getMicros(RequestTiming.FIRST_BYTE));
+		// Less than a microsecond
+		assertEquals(0, timing.getMicros(RequestTiming.DOWNLOAD));
+		assertEquals(14501L, timing.getTotalMicros());
+	}
+
+	@Test
+	public void tlsIsSkippedForPlainHttp() throws Exception {
+		RequestTiming timing = TestUtils.createTiming(START,
+				START + 1000000L, START + 2000000L, 0L,
+				START + 2500000L, START + 3500000L, START + 5500000L);
+		assertEquals(1000, timing.getMicros(RequestTiming.CONNECT));
+		assertEquals(-1, timing.getMicros(RequestTiming.HANDSHAKE));
+		// Timed from the end of the connect, not from the skipped phase
+		assertEquals(500, timing.getMicros(RequestTiming.WRITE));
+		assertEquals(1000, timing.getMicros(RequestTiming.FIRST_BYTE));
+		assertEquals(2000, timing.getMicros(RequestTiming.DOWNLOAD));
+		assertEquals(5500L, timing.getTotalMicros());
+		assertEquals("-", timing.toMillisString(RequestTiming.HANDSHAKE));
+	}
+
+	@Test
+	public void unreachedPhasesAreMinusOne() throws Exception {
+		RequestTiming timing = TestUtils.createTiming(START,
+				START + 1000000L, 0L, 0L, 0L, 0L, 0L);
+		assertEquals(1000, timing.getMicros(RequestTiming.DNS));
+		for (int i = RequestTiming.CONNECT; i <= RequestTiming.DOWNLOAD; i++) {
+			assertEquals(-1, timing.getMicros(i));
+			assertEquals("-", timing.toMillisString(i));
+		}
+		assertEquals(1000L, timing.getTotalMicros());
+
+		timing = TestUtils.createTiming(START, 0L, 0L, 0L, 0L, 0L, 0L);
+		assertEquals(-1, timing.getMicros(RequestTiming.DNS));
+		assertEquals(0L, timing.getTotalMicros());
+	}
+
+	@Test
+	public void millisArePaddedToThreeDecimals() throws Exception {
+		RequestTiming timing = TestUtils.createTiming(START,
+				START + 5000L, START + 55000L, START + 1055000L,
+				START + 124511000L, START + 124511000L, START + 124511999L);
+		assertEquals("0.005", timing.toMillisString(RequestTiming.DNS));
+		assertEquals("0.050", timing.toMillisString(RequestTiming.CONNECT));
+		assertEquals("1.000", timing.toMillisString(RequestTiming.HANDSHAKE));
+		assertEquals("123.456", timing.toMillisString(RequestTiming.WRITE));
+		assertEquals("0.000", timing.toMillisString(RequestTiming.FIRST_BYTE));
+		assertEquals("DNS=0.005 Connect=0.050 TLS=1.000 Write=123.456"
+				+ " TTFB=0.000 Download=0.000", timing.toString());
+	}
+
+}
@@ -0,0 +1,68 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+import org.owasp.jbrofuzz.JBroFuzz;
+import org.owasp.jbrofuzz.fuzz.Connection;
+import org.owasp.jbrofuzz.fuzz.ConnectionException;
+import org.owasp.jbrofuzz.fuzz.Endpoint;
+import org.owasp.jbrofuzz.fuzz.Resolver;
+import org.owasp.jbrofuzz.fuzz.RunConfiguration;
+import org.owasp.jbrofuzz.fuzz.loopback.LoopbackServer;
+
+/**
+ * 
+ * Resolver and endpoint test.
+ * @since Version 2.5
+ *
+ */
+public class ResolverTest {
+
+	@Test
+	public void defaultPorts() throws ConnectionException {
+		assertEquals(443, Endpoint.parse("https://www.owasp.org/").getPort());
+		assertEquals(80, Endpoint.parse("HTTP://www.owasp.org").getPort());
+		assertEquals("www.owasp.org:8443", Endpoint.parse("https://www.owasp.org:8443/a").getTarget());
+	}
+
+	@Test(expected = ConnectionException.class)
+	public void onlyHttpAndHttps() throws ConnectionException {
+		Endpoint.parse("ftp://www.owasp.org/");
+	}
+
+	@Test
+	public void pinnedOncePerRun() throws ConnectionException {
+		Resolver resolver = new Resolver("target.invalid = 127.0.0.2, 127.0.0.3");
+		Endpoint endpoint = resolver.get("http://Target.invalid:8080/");
+		assertEquals("Target.invalid", endpoint.getHost());
+		assertEquals("127.0.0.2", endpoint.getAddress().getHostAddress());
+		assertSame(endpoint, resolver.get("http://Target.invalid:8080/"));
+		assertEquals("127.0.0.3", resolver.get("https://other.invalid/")
+				.getAddress().getHostAddress());
+	}
+
+	@Test(expected = ConnectionException.class)
+	public void invalidPin() throws ConnectionException {
+		new Resolver("target.invalid=not an address").get("http://target.invalid/");
+	}
+
+	@Test
+	public void connectToPinnedAddress() throws Exception {
+		LoopbackServer server = new LoopbackServer();
+		server.start();
+		try {
+			Endpoint endpoint = new Resolver("127.0.0.1").get(
+					"http://target.invalid:" + server.getPort() + "/");
+			Connection connection = new Connection(endpoint,
+					"GET / HTTP/1.1\r\nHost: target.invalid\r\nConnection: close\r\n\r\n",
+					RunConfiguration.fromPreferences(JBroFuzz.PREFS));
+			assertEquals("200", connection.getStatus());
+			assertEquals(Integer.toString(server.getPort()), connection.getPort());
+		} finally {
+			server.stop();
+		}
+	}
+
+}
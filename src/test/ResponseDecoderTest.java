@@ -0,0 +1,125 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Test;
+import org.owasp.jbrofuzz.fuzz.ResponseDecoder;
+
+/**
+ * 
+ * Checks that chunked and compressed replies are decoded, however they are
+ * split up on the wire, and that other replies are left alone.
+ * @since Version 2.5
+ *
+ */
+public class ResponseDecoderTest {
+
+	private static final String BODY = "<html><body>"
+			+ "abcdefghijklmnopqrstuvwxyz abcdefghijklmnopqrstuvwxyz\n"
+			+ "0123456789 0123456789 0123456789</body></html>\n";
+
+	private static byte[] gzip(final String text) throws Exception {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final GZIPOutputStream out = new GZIPOutputStream(bytes);
+		out.write(text.getBytes("ISO-8859-1"));
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	private static byte[] deflate(final String text, final boolean raw)
+			throws Exception {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final DeflaterOutputStream out = new DeflaterOutputStream(bytes,
+				new Deflater(Deflater.DEFAULT_COMPRESSION, raw));
+		out.write(text.getBytes("ISO-8859-1"));
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	private static byte[] chunk(final byte[] body, final int size)
+			throws Exception {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		for (int offset = 0; offset < body.length; offset += size) {
+			final int length = Math.min(size, body.length - offset);
+			bytes.write((Integer.toHexString(length) + ";ext=1\r\n").getBytes("ISO-8859-1"));
+			bytes.write(body, offset, length);
+			bytes.write("\r\n".getBytes("ISO-8859-1"));
+		}
+		bytes.write("0\r\nX-Trailer: 1\r\n\r\n".getBytes("ISO-8859-1"));
+		return bytes.toByteArray();
+	}
+
+	private static byte[] reply(final String head, final byte[] body)
+			throws Exception {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		bytes.write(head.getBytes("ISO-8859-1"));
+		bytes.write(body);
+		return bytes.toByteArray();
+	}
+
+	private static String decode(final byte[] reply, final int split)
+			throws Exception {
+		final ResponseDecoder decoder = new ResponseDecoder();
+		for (int offset = 0; offset < reply.length; offset += split) {
+			decoder.write(reply, offset, Math.min(split, reply.length - offset));
+		}
+		final byte[] decoded = decoder.getDecoded();
+		return decoded == null ? null : new String(decoded, "ISO-8859-1");
+	}
+
+	@Test
+	public void chunkedGzipIsDecoded() throws Exception {
+		final String head = "HTTP/1.1 100 Continue\r\n\r\nHTTP/1.1 200 OK\r\n"
+				+ "Content-Encoding: gzip\r\nTransfer-Encoding: chunked\r\n\r\n";
+		final byte[] reply = reply(head, chunk(gzip(BODY), 7));
+		for (final int split : new int[] { 1, 3, 64, reply.length }) {
+			assertEquals(head + BODY, decode(reply, split));
+		}
+	}
+
+	@Test
+	public void deflateIsDecoded() throws Exception {
+		final String head = "HTTP/1.1 200 OK\r\nContent-Encoding: deflate\r\n\r\n";
+		assertEquals(head + BODY, decode(reply(head, deflate(BODY, false)), 5));
+		assertEquals(head + BODY, decode(reply(head, deflate(BODY, true)), 5));
+	}
+
+	@Test
+	public void plainRepliesAreLeftAlone() throws Exception {
+		assertNull(decode(reply("HTTP/1.1 200 OK\r\nContent-Length: "
+				+ BODY.length() + "\r\n\r\n", BODY.getBytes("ISO-8859-1")), 10));
+		assertNull(decode(reply("HTTP/1.1 200 OK\r\nContent-Encoding: gzip\r\n\r\n",
+				BODY.getBytes("ISO-8859-1")), 10));
+	}
+
+	@Test
+	public void decodedRepliesAreBounded() throws Exception {
+		final StringBuilder big = new StringBuilder();
+		while (big.length() <= 2 * ResponseDecoder.MAX_SIZE) {
+			big.append(BODY);
+		}
+		final String decoded = decode(reply("HTTP/1.1 200 OK\r\n"
+				+ "Content-Encoding: gzip\r\n\r\n", gzip(big.toString())), 8192);
+		assertEquals(ResponseDecoder.MAX_SIZE + ResponseDecoder.TRUNCATED.length(),
+				decoded.length());
+		assertTrue(decoded.endsWith(ResponseDecoder.TRUNCATED));
+	}
+
+	@Test
+	public void headOverTheBoundIsTruncated() throws Exception {
+		final String head = "HTTP/1.1 200 OK\r\nContent-Encoding: gzip\r\n\r\n";
+		final ResponseDecoder decoder = new ResponseDecoder(16);
+		final byte[] reply = reply(head, gzip(BODY));
+		decoder.write(reply, 0, reply.length);
+		assertTrue(decoder.isTruncated());
+		assertEquals(head + ResponseDecoder.TRUNCATED, new String(decoder
+				.getDecoded(), "ISO-8859-1"));
+	}
+}
@@ -0,0 +1,82 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.prefs.BackingStoreException;
+import java.util.prefs.Preferences;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.owasp.jbrofuzz.fuzz.FuzzingEngine;
+import org.owasp.jbrofuzz.fuzz.RunConfiguration;
+import org.owasp.jbrofuzz.version.JBroFuzzPrefs;
+import org.owasp.jbrofuzz3.message.FuzzList;
+
+/**
+ * 
+ * Run configuration test, reading from preferences and from the
+ * [Configuration] section of a session file.
+ * @since Version 2.5
+ *
+ */
+public class RunConfigurationTest {
+
+	private Preferences prefs;
+
+	@Before
+	public void setUp() {
+		prefs = Preferences.userRoot().node("jbrofuzz-test-" + System.nanoTime());
+	}
+
+	@After
+	public void tearDown() throws BackingStoreException {
+		prefs.removeNode();
+	}
+
+	@Test
+	public void outOfRangeValuesAreCorrected() {
+		prefs.putInt(JBroFuzzPrefs.FUZZING[0].getId(), 0);
+		prefs.putInt(JBroFuzzPrefs.FUZZINGONTHEWIRE[1].getId(), 9);
+		prefs.putInt(JBroFuzzPrefs.FUZZINGENGINE[0].getId(), 1000);
+
+		final RunConfiguration configuration = RunConfiguration.fromPreferences(prefs);
+		assertEquals(7, configuration.getSocketTimeout());
+		assertEquals(3, configuration.getShowOnTheWire());
+		assertEquals(FuzzingEngine.MAX_THREADS, configuration.getThreads());
+	}
+
+	@Test
+	public void parseReadsWhatToStringWrites() {
+		prefs.putInt(JBroFuzzPrefs.FUZZING[0].getId(), 20);
+		prefs.putBoolean(JBroFuzzPrefs.FUZZING[1].getId(), false);
+		prefs.putInt(JBroFuzzPrefs.FUZZINGENGINE[0].getId(), 4);
+
+		final RunConfiguration written = RunConfiguration.fromPreferences(
+				prefs, FuzzList.CROSS_PRODUCT, "session");
+		final RunConfiguration read = RunConfiguration.parse(
+				written.toString().split("\n"),
+				RunConfiguration.fromPreferences(Preferences.userRoot().node(
+						prefs.absolutePath() + "/empty")));
+
+		assertEquals(written.toString(), read.toString());
+		assertEquals(20, read.getSocketTimeout());
+		assertEquals("\n", read.getEndOfLine());
+		assertEquals(4, read.getThreads());
+		assertEquals(FuzzList.CROSS_PRODUCT, read.getIterationMode());
+	}
+
+	@Test
+	public void firstSharedIdIsTheAuthorizationHeader() {
+		final String id = JBroFuzzPrefs.FUZZING[4].getId();
+		final RunConfiguration read = RunConfiguration.parse(new String[] {
+				id + "=false", id + "=true", "not a setting" },
+				RunConfiguration.fromPreferences(prefs));
+
+		assertFalse(read.isBasicAuthHeader());
+		assertTrue(read.isConnectionCloseHeader());
+	}
+
+}
@@ -0,0 +1,140 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.owasp.jbrofuzz.fuzz.Scheduler;
+
+/**
+ * 
+ * Scheduler test, sharing permits between sessions within a budget and a
+ * limit per host.
+ * @since Version 2.5
+ *
+ */
+public class SchedulerTest {
+
+	private static final String HOST = "localhost:8080";
+
+	@Test
+	public void perHostLimit() throws Exception {
+
+		final Scheduler scheduler = new Scheduler(0, 2);
+		final Scheduler.Session session = scheduler.open("a", 1);
+		assertTrue(session.acquire(HOST));
+		assertTrue(session.acquire(HOST));
+		// Other hosts are not held up
+		assertTrue(session.acquire("example.com:80"));
+
+		final List<String> granted = Collections
+				.synchronizedList(new ArrayList<String>());
+		final Thread waiter = start(session, HOST, granted);
+		waitFor(session, 1);
+		assertEquals(0, granted.size());
+		assertEquals(3, scheduler.getInFlight());
+
+		session.release(HOST);
+		waiter.join(5000L);
+		assertEquals(1, granted.size());
+		assertEquals(3, session.getInFlight());
+
+	}
+
+	@Test
+	public void weightedRoundRobin() throws Exception {
+
+		final Scheduler scheduler = new Scheduler(1, 0);
+		final Scheduler.Session large = scheduler.open("large", 3);
+		final Scheduler.Session small = scheduler.open("small", 1);
+		assertTrue(large.acquire(HOST));
+
+		final List<String> granted = Collections
+				.synchronizedList(new ArrayList<String>());
+		for (int i = 0; i < 8; i++) {
+			start(large, HOST, granted);
+			start(small, HOST, granted);
+		}
+		waitFor(large, 8);
+		waitFor(small, 8);
+
+		// The large session has had one of its three permits in this turn
+		Scheduler.Session holder = large;
+		for (int i = 0; i < 8; i++) {
+			holder.release(HOST);
+			final long end = System.currentTimeMillis() + 5000L;
+			while ((granted.size() <= i) && (System.currentTimeMillis() < end)) {
+				Thread.sleep(5L);
+			}
+			holder = granted.get(i).equals("large") ? large : small;
+		}
+		assertEquals("[large, large, small, large, large, large, small, large]",
+				granted.toString());
+		assertEquals(1, scheduler.getInFlight());
+
+		large.close();
+		small.close();
+
+	}
+
+	@Test
+	public void closingTurnsAwayWaiters() throws Exception {
+
+		final Scheduler scheduler = new Scheduler(1, 0);
+		final Scheduler.Session first = scheduler.open("first", 1);
+		final Scheduler.Session second = scheduler.open("second", 1);
+		assertTrue(first.acquire(HOST));
+
+		final List<String> granted = Collections
+				.synchronizedList(new ArrayList<String>());
+		final Thread waiter = start(second, HOST, granted);
+		waitFor(second, 1);
+		second.close();
+		waiter.join(5000L);
+		assertFalse(waiter.isAlive());
+		assertEquals(0, granted.size());
+		assertFalse(second.acquire(HOST));
+
+		first.release(HOST);
+		assertEquals(0, scheduler.getInFlight());
+
+	}
+
+	private static Thread start(final Scheduler.Session session,
+			final String target, final List<String> granted) {
+
+		final Thread thread = new Thread(new Runnable() {
+			public void run() {
+				try {
+					if (session.acquire(target)) {
+						granted.add(session.getName());
+					}
+				} catch (final InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+		thread.setDaemon(true);
+		thread.start();
+		return thread;
+
+	}
+
+	private static void waitFor(final Scheduler.Session session,
+			final int waiting) throws InterruptedException {
+
+		final long end = System.currentTimeMillis() + 5000L;
+		while ((session.getWaiting() < waiting)
+				&& (System.currentTimeMillis() < end)) {
+			Thread.sleep(5L);
+		}
+		assertEquals(waiting, session.getWaiting());
+
+	}
+
+}
@@ -1,6 +1,9 @@
 package test;
 
+import java.lang.reflect.Constructor;
+
 import org.owasp.jbrofuzz.fuzz.MessageContainer;
+import org.owasp.jbrofuzz.fuzz.RequestTiming;
 
 public class TestUtils{
 	
@@ -54,4 +57,18 @@ public class TestUtils{
 	public static MessageContainer fillMessage(MessageContainer  message, long connectionId){
 		return message;
 	}
+
+	/**
+	 * create the timing of a request, as a connection would
+	 * @since version 2.5
+	 * @param marks the System.nanoTime() at the start and at the end of
+	 *            each phase, 0 for the phases not reached
+	 * @return RequestTiming
+	 */
+	public static RequestTiming createTiming(long... marks) throws Exception {
+		Constructor<RequestTiming> constructor = RequestTiming.class
+				.getDeclaredConstructor(long[].class);
+		constructor.setAccessible(true);
+		return constructor.newInstance((Object) marks);
+	}
 }
\ No newline at end of file
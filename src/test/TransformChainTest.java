@@ -0,0 +1,136 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.owasp.jbrofuzz.encode.EncoderHashCore;
+import org.owasp.jbrofuzz.encode.TransformChain;
+import org.owasp.jbrofuzz.fuzz.ui.TransformsTableModel;
+
+/**
+ * 
+ * Checks that a compiled transform chain, and encodeMany through it, give
+ * the same output as encoding the payload one transform at a time, and
+ * that a chain can be shared by the threads of a run.
+ * @since Version 2.5
+ *
+ */
+public class TransformChainTest {
+
+	private static final String[] INPUTS = { "", "a",
+		"<script>alert(document.cookie)</script>", "' OR 1=1 --",
+		"McHale's Navy, \"x\" & y\t\n", "caf\u00e9 \u20ac" };
+
+	@Test
+	public void everyCodeMatchesEncodingPerCall() {
+		for (final String code : EncoderHashCore.CODES) {
+			final TransformsTableModel model = new TransformsTableModel();
+			model.addRow(code, "", "");
+			final TransformChain chain = TransformChain.compile(model);
+			for (final String input : INPUTS) {
+				final String expected = EncoderHashCore.encode(input, code);
+				assertEquals(code + " of " + input, expected, chain.apply(input));
+				assertEquals(code + " of " + input, expected,
+						EncoderHashCore.encodeMany(input, model));
+			}
+		}
+	}
+
+	@Test
+	public void rowsAreAppliedInOrder() {
+		final TransformsTableModel model = new TransformsTableModel();
+		model.addRow("Prefix & Suffix", "<", ">");
+		model.addRow("Base64", "", "");
+		model.addRow("Match & Replace", "=+$", "");
+		model.addRow("URL UTF-8", "", "");
+		model.addRow("SHA-1 Hash", "", "");
+		final TransformChain chain = TransformChain.compile(model);
+		assertEquals(5, chain.size());
+		assertTrue(chain.isCacheable());
+
+		for (final String input : INPUTS) {
+			String expected = "<" + input + ">";
+			expected = EncoderHashCore.encode(expected, "Base64");
+			expected = expected.replaceAll("=+$", "");
+			expected = EncoderHashCore.encode(expected, "URL UTF-8");
+			expected = EncoderHashCore.encode(expected, "SHA-1 Hash");
+			assertEquals(input, expected, chain.apply(input));
+			assertEquals(input, expected, EncoderHashCore.encodeMany(input, model));
+		}
+	}
+
+	@Test
+	public void emptyAndTimedChains() {
+		final TransformsTableModel empty = new TransformsTableModel();
+		assertEquals("a b", TransformChain.compile(empty).apply("a b"));
+		assertEquals("a b", EncoderHashCore.encodeMany("a b", empty));
+
+		final TransformsTableModel timed = new TransformsTableModel();
+		timed.addRow("Prefix & Suffix", "Epoch Time", "");
+		final TransformChain chain = TransformChain.compile(timed);
+		assertFalse(chain.isCacheable());
+		final long before = System.currentTimeMillis();
+		final long time = Long.parseLong(chain.apply("").trim());
+		assertTrue(time >= before && time <= System.currentTimeMillis());
+
+		// Equal rows give equal keys, whichever model they were read from
+		final TransformsTableModel other = new TransformsTableModel();
+		other.addRow("Prefix & Suffix", "Epoch Time", "");
+		assertEquals(chain.getKey(), TransformChain.compile(other).getKey());
+	}
+
+	@Test
+	public void chainIsSafeToShareAcrossThreads() throws Exception {
+		// The hashes reuse one MessageDigest per algorithm and thread
+		final TransformsTableModel model = new TransformsTableModel();
+		model.addRow("MD5 Hash", "", "");
+		model.addRow("SHA-512 Hash", "", "");
+		model.addRow("SHA-1 Hash", "", "");
+		model.addRow("SHA-256 Hash", "", "");
+		final TransformChain chain = TransformChain.compile(model);
+
+		final String[] inputs = new String[500];
+		final String[] expected = new String[inputs.length];
+		for (int i = 0; i < inputs.length; i++) {
+			inputs[i] = "payload " + i;
+			expected[i] = EncoderHashCore.encodeMany(inputs[i], model);
+		}
+
+		final List<String> mismatches = Collections
+				.synchronizedList(new ArrayList<String>());
+		final Thread[] threads = new Thread[8];
+		for (int t = 0; t < threads.length; t++) {
+			final int offset = t * 61;
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						for (int n = 0; n < 5 * inputs.length; n++) {
+							final int i = (offset + n) % inputs.length;
+							final String output = chain.apply(inputs[i]);
+							if (!expected[i].equals(output)) {
+								mismatches.add(inputs[i] + ": " + output);
+							}
+						}
+					} catch (final RuntimeException e) {
+						mismatches.add(e.toString());
+					}
+				}
+			};
+		}
+		for (final Thread thread : threads) {
+			thread.start();
+		}
+		for (final Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(Collections.emptyList(), mismatches);
+	}
+
+}
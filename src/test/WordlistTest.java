@@ -0,0 +1,95 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Random;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.owasp.jbrofuzz.core.Database;
+import org.owasp.jbrofuzz.core.Fuzzer;
+import org.owasp.jbrofuzz.core.Prototype;
+import org.owasp.jbrofuzz.core.Wordlist;
+
+/**
+ * 
+ * Wordlist test, reading payloads in place from a file.
+ * @since Version 2.5
+ *
+ */
+public class WordlistTest {
+
+	private static final int LINES = 5000;
+
+	private File file;
+
+	@Before
+	public void setUp() throws Exception {
+		file = File.createTempFile("wordlist", ".txt");
+		final StringBuilder text = new StringBuilder();
+		for (int i = 0; i < LINES; i++) {
+			text.append(line(i)).append(i % 3 == 0 ? "\r\n" : "\n");
+		}
+		FileUtils.writeStringToFile(file, text.toString(), "UTF-8");
+	}
+
+	private static String line(final int i) {
+		return i % 100 == 7 ? "" : "p\u00e4ss" + i;
+	}
+
+	@Test
+	public void linesAreReadInAnyOrder() throws Exception {
+		// Segments of 7 bytes put lines across mappings
+		final Wordlist wordlist = new Wordlist(file, 7);
+		assertEquals(LINES, wordlist.size());
+		for (int i = LINES - 1; i >= 0; i--) {
+			assertEquals(line(i), wordlist.get(i));
+		}
+		final Random random = new Random(1L);
+		for (int i = 0; i < 1000; i++) {
+			final int index = random.nextInt(LINES);
+			assertEquals(line(index), wordlist.get(index));
+		}
+		int i = 0;
+		for (final String payload : wordlist) {
+			assertEquals(line(i++), payload);
+		}
+	}
+
+	@Test
+	public void lastLineNeedsNoEnd() throws Exception {
+		FileUtils.writeStringToFile(file, "a\n\nb", "UTF-8");
+		final Wordlist wordlist = new Wordlist(file);
+		assertEquals(3, wordlist.size());
+		assertEquals("", wordlist.get(1));
+		assertEquals("b", wordlist.get(2));
+
+		FileUtils.writeStringToFile(file, "", "UTF-8");
+		assertEquals(0, new Wordlist(file).size());
+	}
+
+	@Test
+	public void wordlistIsAFuzzer() throws Exception {
+		final Database database = new Database();
+		final String id = database.addWordlist(file);
+		assertTrue(id, Prototype.isValidFuzzerID(id));
+		assertEquals(id, database.addWordlist(file));
+		assertEquals(LINES, database.getSize(id));
+		assertEquals(Database.WORDLIST_PREVIEW, database.getPayloads(id).length);
+
+		final Fuzzer fuzzer = database.createFuzzer(id, 1);
+		assertEquals(LINES, fuzzer.getMaxValue());
+		fuzzer.setCurrentValue(4321);
+		assertEquals(line(4321), fuzzer.next());
+		assertEquals(line(4322), fuzzer.next());
+	}
+
+	@After
+	public void tearDown() {
+		file.delete();
+	}
+}